@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Benchmark of {@link AntennaArray} construction and {@link WeightAlgorithm} weight generation.<br>
+ * Parameterised over square array size.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AntennaArrayBenchmark {
+
+    @Param({ "8", "16", "32", "64" })
+    private int arraySize;
+
+    private WeightAlgorithm weightAlgorithm;
+    private Vector3D[] elementLocations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        weightAlgorithm = WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(ArrayFactorBenchmark.FREQUENCY,
+                ThetaPhi.fromDegrees(60, 30));
+        WeightableElement[] elements = AntennaArray
+                .fromEquallySpacedArray(1, arraySize, arraySize, 0.5, ArrayFactorBenchmark.FREQUENCY, weightAlgorithm)
+                .getAntennaArray();
+        elementLocations = new Vector3D[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            elementLocations[i] = elements[i].getElementLocation();
+        }
+    }
+
+    @Benchmark
+    public AntennaArray fromEquallySpacedArray() {
+        return AntennaArray.fromEquallySpacedArray(1, arraySize, arraySize, 0.5, ArrayFactorBenchmark.FREQUENCY,
+                weightAlgorithm);
+    }
+
+    @Benchmark
+    public AntennaArray builder() {
+        AntennaArray.Builder builder = AntennaArray.newBuilder().setDesignFrequency(ArrayFactorBenchmark.FREQUENCY)
+                .setWeightAlgorithm(weightAlgorithm);
+        for (Vector3D elementLocation : elementLocations) {
+            builder.addAntennaLocation(elementLocation);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public void calculateWeight(Blackhole blackhole) {
+        for (Vector3D elementLocation : elementLocations) {
+            Complex weight = weightAlgorithm.calculateWeight(elementLocation);
+            blackhole.consume(weight);
+        }
+    }
+
+}
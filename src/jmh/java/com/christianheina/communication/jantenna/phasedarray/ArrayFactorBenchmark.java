@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.config.Config;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Benchmark of {@link ArrayFactor}.<br>
+ * Parameterised over square array size, angle grid resolution and number of threads.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArrayFactorBenchmark {
+
+    static final double FREQUENCY = 28 * Math.pow(10, 9);
+
+    @Param({ "8", "16", "32" })
+    private int arraySize;
+
+    @Param({ "1", "2", "5" })
+    private double angleResolution;
+
+    @Param({ "1", "4" })
+    private int numberOfThreads;
+
+    private AntennaArray antennaArray;
+    private List<ThetaPhi> angles;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        useThreads(numberOfThreads);
+        antennaArray = AntennaArray.fromEquallySpacedArray(1, arraySize, arraySize, 0.5, FREQUENCY,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQUENCY, ThetaPhi.fromDegrees(90, 0)));
+        angles = ThetaPhi.equallySpacedSphere(angleResolution);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        PhasedArrayAntennaCalculationConfig.setConfig(PhasedArrayAntennaCalculationConfig.DEFAULT_CONFIG);
+    }
+
+    @Benchmark
+    public Field newArrayFactorAsync() {
+        return ArrayFactor.newArrayFactorAsync(FREQUENCY, antennaArray, angles);
+    }
+
+    static void useThreads(int numberOfThreads) {
+        PhasedArrayAntennaCalculationConfig.setConfig(new Config() {
+
+            @Override
+            public int getNumberOfThreads() {
+                return numberOfThreads;
+            }
+
+        });
+    }
+
+}
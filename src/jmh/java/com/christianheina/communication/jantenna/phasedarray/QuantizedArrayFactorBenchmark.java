@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Benchmark of the double precision array factor kernels for quantized weights, from phasor tables with elements
+ * grouped by weight and ungrouped, and one direction at a time without tables, and of packing an array.<br>
+ * Parameterised over square array size and number of phase shifter bits.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuantizedArrayFactorBenchmark {
+
+    @Param({ "16", "32", "64" })
+    private int arraySize;
+
+    @Param({ "3", "6" })
+    private int phaseBits;
+
+    @Param({ "true", "false" })
+    private boolean groupByWeight;
+
+    private AntennaArray antennaArray;
+    private PackedAntennaArray packedArray;
+    private List<ThetaPhi> angles;
+    private double[] real;
+    private double[] imaginary;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double frequency = ArrayFactorBenchmark.FREQUENCY;
+        antennaArray = AntennaArray
+                .fromEquallySpacedArray(1, arraySize, arraySize, 0.5, frequency,
+                        WeightAlgorithm
+                                .newQuantizedWeightAlgorithm(
+                                        WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(
+                                                Util.calculateLambda(frequency), ThetaPhi.fromDegrees(60, 30)),
+                                        phaseBits, 0, 0));
+        packedArray = PackedAntennaArray.pack(antennaArray.getAntennaArray(), Precision.DOUBLE, groupByWeight);
+        angles = ThetaPhi.equallySpacedSphere(5);
+        real = new double[angles.size()];
+        imaginary = new double[angles.size()];
+    }
+
+    @Benchmark
+    public double[] calculateArrayFactor() {
+        packedArray.calculateArrayFactor(Util.calculateLambda(ArrayFactorBenchmark.FREQUENCY), angles, 0, angles.size(),
+                real, imaginary, 0);
+        return real;
+    }
+
+    @Benchmark
+    public double[] calculateArrayFactorPerDirection() {
+        double waveNumber = 2 * Math.PI / Util.calculateLambda(ArrayFactorBenchmark.FREQUENCY);
+        for (int i = 0; i < angles.size(); i++) {
+            ThetaPhi angle = angles.get(i);
+            packedArray.calculateArrayFactor(waveNumber, angle.getTheta(), angle.getPhi(), real, imaginary, i);
+        }
+        return real;
+    }
+
+    @Benchmark
+    public PackedAntennaArray pack() {
+        return PackedAntennaArray.pack(antennaArray.getAntennaArray(), Precision.DOUBLE, groupByWeight);
+    }
+
+}
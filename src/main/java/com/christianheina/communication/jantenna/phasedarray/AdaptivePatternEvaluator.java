@@ -0,0 +1,496 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.FieldType;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+
+/**
+ * Adaptive array factor evaluator extracting pattern features without evaluating a uniformly fine angle grid.<br>
+ * The main beam peak is located on a coarse grid covering the sphere and refined by a shrinking local search. The theta
+ * and phi cuts through the peak are then sampled coarsely and recursively bisected only where the samples indicate a
+ * feature: where linear interpolation between samples is off by more than the tolerance, where the half power level is
+ * crossed and where a local minimum (null) or maximum (sidelobe) is bracketed. Bisection stops at the finest
+ * resolution.<br>
+ * The array factor of a planar array is mirrored in the array plane and that of a linear array is rotationally
+ * symmetric around the array axis. Maxima in these symmetric directions of the peak are copies of the main beam and are
+ * not reported as sidelobes, any other maximum is, including grating lobes as strong as the main beam.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class AdaptivePatternEvaluator {
+
+    private static final double MAX_COARSE_RESOLUTION = Math.toRadians(5);
+    private static final double DEFAULT_FINEST_RESOLUTION = Math.toRadians(0.01);
+    private static final double DEFAULT_TOLERANCE = 1e-3;
+    private static final int MAX_SEARCH_ITERATIONS = 10000;
+    private static final double ARRAY_SHAPE_TOLERANCE = 1e-9;
+
+    private final double frequency;
+    private final PackedAntennaArray packedArray;
+    private final double waveNumber;
+    private final double coarseResolution;
+    private final double finestResolution;
+    private final double tolerance;
+    private final Vector3D arrayNormal;
+    private final Vector3D arrayAxis;
+
+    private AdaptivePatternEvaluator(Builder builder) {
+        this.frequency = builder.frequency;
+        this.packedArray = PackedAntennaArray.pack(builder.antennaArray, Precision.DOUBLE);
+        this.waveNumber = 2 * Math.PI / Util.calculateLambda(frequency);
+        this.finestResolution = builder.finestResolution;
+        this.tolerance = builder.tolerance;
+        if (builder.coarseResolution > 0) {
+            this.coarseResolution = builder.coarseResolution;
+        } else {
+            // Sample the main beam at least twice across its approximate width, lambda / aperture
+            double apertureSize = packedArray.calculateApertureSize();
+            double beamwidth = apertureSize > 0 ? 2 * Math.PI / (waveNumber * apertureSize) : MAX_COARSE_RESOLUTION;
+            this.coarseResolution = Math.min(MAX_COARSE_RESOLUTION, beamwidth / 2);
+        }
+        WeightableElement[] elements = builder.antennaArray.getAntennaArray();
+        double shapeTolerance = ARRAY_SHAPE_TOLERANCE * packedArray.calculateApertureSize();
+        Vector3D axis = findArrayAxis(elements);
+        Vector3D normal = axis == null ? null : findArrayNormal(elements, axis, shapeTolerance);
+        this.arrayAxis = normal == null ? axis : null;
+        this.arrayNormal = normal != null && isInPlane(elements, normal, shapeTolerance) ? normal : null;
+    }
+
+    /**
+     * Unit vector from the first element to the element furthest from it, {@code null} if all elements coincide.
+     */
+    private static Vector3D findArrayAxis(WeightableElement[] elements) {
+        if (elements.length == 0) {
+            return null;
+        }
+        Vector3D origin = elements[0].getElementLocation();
+        Vector3D axis = Vector3D.ZERO;
+        for (WeightableElement element : elements) {
+            Vector3D offset = element.getElementLocation().subtract(origin);
+            if (offset.getNorm() > axis.getNorm()) {
+                axis = offset;
+            }
+        }
+        return axis.getNorm() > 0 ? axis.normalize() : null;
+    }
+
+    /**
+     * Unit normal of the plane spanned by {@code axis} and the element furthest from it, {@code null} if all elements
+     * lie on the axis.
+     */
+    private static Vector3D findArrayNormal(WeightableElement[] elements, Vector3D axis, double shapeTolerance) {
+        Vector3D origin = elements[0].getElementLocation();
+        Vector3D normal = Vector3D.ZERO;
+        for (WeightableElement element : elements) {
+            Vector3D cross = axis.crossProduct(element.getElementLocation().subtract(origin));
+            if (cross.getNorm() > normal.getNorm()) {
+                normal = cross;
+            }
+        }
+        return normal.getNorm() > shapeTolerance ? normal.normalize() : null;
+    }
+
+    private static boolean isInPlane(WeightableElement[] elements, Vector3D normal, double shapeTolerance) {
+        Vector3D origin = elements[0].getElementLocation();
+        for (WeightableElement element : elements) {
+            if (Math.abs(element.getElementLocation().subtract(origin).dotProduct(normal)) > shapeTolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find peak, half power beamwidths, peak sidelobe level and nulls of the array factor.
+     *
+     * @return features of the array factor pattern
+     */
+    public PatternFeatures findPatternFeatures() {
+        Evaluation evaluation = new Evaluation();
+        double[] peak = findPeak(evaluation);
+        double peakTheta = peak[0];
+        double peakPhi = peak[1];
+        double peakMagnitude = peak[2];
+
+        Cut thetaCut = new Cut(true, peakTheta, peakPhi);
+        refineCut(evaluation, thetaCut, -Math.PI, Math.PI, peakMagnitude);
+        Cut phiCut = new Cut(false, peakTheta, peakPhi);
+        refineCut(evaluation, phiCut, -Math.PI, Math.PI, peakMagnitude);
+
+        List<ThetaPhi> nullList = new ArrayList<>();
+        thetaCut.addNulls(nullList);
+        phiCut.addNulls(nullList);
+        Vector3D peakDirection = toDirection(peakTheta, peakPhi);
+        double maxSidelobe = Math.max(
+                thetaCut.findMaxSidelobe(i -> isSymmetricToPeak(peakDirection, thetaCut.getDirection(i))),
+                phiCut.findMaxSidelobe(i -> isSymmetricToPeak(peakDirection, phiCut.getDirection(i))));
+        double peakSidelobeLevel = maxSidelobe > 0 ? 20 * Math.log10(maxSidelobe / peakMagnitude)
+                : Double.NEGATIVE_INFINITY;
+
+        List<ThetaPhi> sampleAngleList = new ArrayList<>(thetaCut.size() + phiCut.size());
+        List<Complex> sampleDataList = new ArrayList<>(thetaCut.size() + phiCut.size());
+        thetaCut.addSamples(sampleAngleList, sampleDataList);
+        phiCut.addSamples(sampleAngleList, sampleDataList);
+        Field refinedSamples = Field.newBuilder().setThetaPhiList(sampleAngleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, sampleDataList).setFreqency(frequency)
+                .setFieldType(FieldType.FARFIELD).build();
+
+        // Angle on the sphere between the half power points of the phi cut at the peak theta
+        double phiWidth = phiCut.findHalfPowerBeamwidth(peakMagnitude);
+        double phiHalfPowerBeamwidth = 2 * Math.asin(Math.min(1, Math.sin(peakTheta) * Math.sin(phiWidth / 2)));
+        return new PatternFeatures(toThetaPhi(peakTheta, peakPhi), peakMagnitude,
+                thetaCut.findHalfPowerBeamwidth(peakMagnitude), phiHalfPowerBeamwidth, peakSidelobeLevel, nullList,
+                refinedSamples, evaluation.count);
+    }
+
+    private double[] findPeak(Evaluation evaluation) {
+        int thetaSteps = (int) Math.ceil(Math.PI / coarseResolution);
+        int phiSteps = (int) Math.ceil(2 * Math.PI / coarseResolution);
+        double thetaStep = Math.PI / thetaSteps;
+        double phiStep = 2 * Math.PI / phiSteps;
+        double bestTheta = 0;
+        double bestPhi = 0;
+        double best = -1;
+        for (int t = 0; t <= thetaSteps; t++) {
+            for (int p = 0; p < phiSteps; p++) {
+                double theta = t * thetaStep;
+                double phi = -Math.PI + p * phiStep;
+                double value = evaluation.evaluate(theta, phi);
+                if (value > best) {
+                    best = value;
+                    bestTheta = theta;
+                    bestPhi = phi;
+                }
+            }
+        }
+
+        double step = Math.max(thetaStep, phiStep) / 2;
+        for (int i = 0; i < MAX_SEARCH_ITERATIONS && step >= finestResolution; i++) {
+            double candidateTheta = bestTheta;
+            double candidatePhi = bestPhi;
+            for (int dt = -1; dt <= 1; dt++) {
+                for (int dp = -1; dp <= 1; dp++) {
+                    if (dt == 0 && dp == 0) {
+                        continue;
+                    }
+                    double theta = Math.min(Math.PI, Math.max(0, bestTheta + dt * step));
+                    double phi = wrapPhi(bestPhi + dp * step);
+                    double value = evaluation.evaluate(theta, phi);
+                    if (value > best) {
+                        best = value;
+                        candidateTheta = theta;
+                        candidatePhi = phi;
+                    }
+                }
+            }
+            if (candidateTheta == bestTheta && candidatePhi == bestPhi) {
+                step /= 2;
+            }
+            bestTheta = candidateTheta;
+            bestPhi = candidatePhi;
+        }
+        return new double[] { bestTheta, bestPhi, best };
+    }
+
+    private void refineCut(Evaluation evaluation, Cut cut, double start, double end, double peakMagnitude) {
+        int steps = (int) Math.ceil((end - start) / coarseResolution);
+        double step = (end - start) / steps;
+        double[] nodes = new double[steps + 2];
+        for (int i = 0; i <= steps; i++) {
+            nodes[i] = start + i * step;
+        }
+        nodes[steps + 1] = cut.getPeakPosition();
+        Arrays.sort(nodes);
+
+        double reference = tolerance * peakMagnitude;
+        double halfPower = PatternCut.HALF_POWER * peakMagnitude;
+        double previous = cut.evaluate(evaluation, nodes[0]);
+        cut.add(nodes[0], evaluation);
+        for (int i = 1; i < nodes.length; i++) {
+            if (nodes[i] == nodes[i - 1]) {
+                continue;
+            }
+            double next = cut.evaluate(evaluation, nodes[i]);
+            double nextReal = evaluation.real[0];
+            double nextImaginary = evaluation.imaginary[0];
+            bisect(evaluation, cut, nodes[i - 1], previous, nodes[i], next, reference, halfPower);
+            cut.add(nodes[i], next, nextReal, nextImaginary);
+            previous = next;
+        }
+    }
+
+    private void bisect(Evaluation evaluation, Cut cut, double a, double valueA, double b, double valueB,
+            double reference, double halfPower) {
+        if (b - a <= finestResolution) {
+            return;
+        }
+        double m = (a + b) / 2;
+        double valueM = cut.evaluate(evaluation, m);
+        double real = evaluation.real[0];
+        double imaginary = evaluation.imaginary[0];
+        double min = Math.min(valueM, Math.min(valueA, valueB));
+        double max = Math.max(valueM, Math.max(valueA, valueB));
+        boolean refine = Math.abs(valueM - (valueA + valueB) / 2) > reference || (min < halfPower && max > halfPower)
+                || (valueM < valueA && valueM < valueB) || (valueM > valueA && valueM > valueB);
+        if (refine) {
+            bisect(evaluation, cut, a, valueA, m, valueM, reference, halfPower);
+            cut.add(m, valueM, real, imaginary);
+            bisect(evaluation, cut, m, valueM, b, valueB, reference, halfPower);
+        } else {
+            cut.add(m, valueM, real, imaginary);
+        }
+    }
+
+    /**
+     * Whether {@code direction} is a copy of the main beam at {@code peakDirection} by symmetry of the array: mirrored
+     * in the plane of a planar array or at the same angle to the axis of a linear array, within the coarse resolution.
+     */
+    private boolean isSymmetricToPeak(Vector3D peakDirection, Vector3D direction) {
+        if (arrayNormal != null) {
+            Vector3D mirror = peakDirection.subtract(2 * peakDirection.dotProduct(arrayNormal), arrayNormal);
+            return Vector3D.angle(mirror, direction) <= coarseResolution;
+        }
+        if (arrayAxis != null) {
+            return Math.abs(Vector3D.angle(peakDirection, arrayAxis)
+                    - Vector3D.angle(direction, arrayAxis)) <= coarseResolution;
+        }
+        return false;
+    }
+
+    private static Vector3D toDirection(double theta, double phi) {
+        double sinTheta = Math.sin(theta);
+        return new Vector3D(sinTheta * Math.cos(phi), sinTheta * Math.sin(phi), Math.cos(theta));
+    }
+
+    private static double wrapPhi(double phi) {
+        double wrapped = phi;
+        while (wrapped >= Math.PI) {
+            wrapped -= 2 * Math.PI;
+        }
+        while (wrapped < -Math.PI) {
+            wrapped += 2 * Math.PI;
+        }
+        return wrapped;
+    }
+
+    private static ThetaPhi toThetaPhi(double theta, double phi) {
+        return ThetaPhi.fromDegrees(Math.toDegrees(theta), Math.toDegrees(phi));
+    }
+
+    /**
+     * Create new instance of {@link Builder}
+     *
+     * @return new {@link Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Scratch storage and evaluation counter for a single {@link #findPatternFeatures()} call.
+     */
+    private final class Evaluation {
+
+        private final double[] real = new double[1];
+        private final double[] imaginary = new double[1];
+        private int count;
+
+        private double evaluate(double theta, double phi) {
+            packedArray.calculateArrayFactor(waveNumber, theta, phi, real, imaginary, 0);
+            count++;
+            return Math.hypot(real[0], imaginary[0]);
+        }
+
+    }
+
+    /**
+     * Samples along a theta cut (constant phi) or phi cut (constant theta).<br>
+     * Theta cut positions continue through the poles, negative positions are theta on the opposite half plane at the
+     * peak phi plus 180 degrees, so that a main beam at or near a pole is never split. Phi cut positions are offsets
+     * from the peak phi so that the main beam is never split by the phi wrap around.
+     */
+    private static final class Cut extends PatternCut {
+
+        private final boolean thetaCut;
+        private final double peakTheta;
+        private final double peakPhi;
+
+        private Cut(boolean thetaCut, double peakTheta, double peakPhi) {
+            super(thetaCut ? peakTheta : 0);
+            this.thetaCut = thetaCut;
+            this.peakTheta = peakTheta;
+            this.peakPhi = peakPhi;
+        }
+
+        private double theta(double cutPosition) {
+            return thetaCut ? Math.abs(cutPosition) : peakTheta;
+        }
+
+        private double phi(double cutPosition) {
+            if (thetaCut) {
+                return cutPosition < 0 ? wrapPhi(peakPhi + Math.PI) : peakPhi;
+            }
+            return wrapPhi(peakPhi + cutPosition);
+        }
+
+        private double evaluate(Evaluation evaluation, double cutPosition) {
+            return evaluation.evaluate(theta(cutPosition), phi(cutPosition));
+        }
+
+        private Vector3D getDirection(int index) {
+            return toDirection(theta(getPosition(index)), phi(getPosition(index)));
+        }
+
+        private void add(double cutPosition, Evaluation evaluation) {
+            add(cutPosition, Math.hypot(evaluation.real[0], evaluation.imaginary[0]), evaluation.real[0],
+                    evaluation.imaginary[0]);
+        }
+
+        private void addNulls(List<ThetaPhi> nullList) {
+            for (int i = 0; i < size(); i++) {
+                if (isLocalMinimum(i)) {
+                    nullList.add(toThetaPhi(theta(getPosition(i)), phi(getPosition(i))));
+                }
+            }
+        }
+
+        private void addSamples(List<ThetaPhi> angleList, List<Complex> dataList) {
+            for (int i = 0; i < size(); i++) {
+                angleList.add(toThetaPhi(theta(getPosition(i)), phi(getPosition(i))));
+                dataList.add(new Complex(getReal(i), getImaginary(i)));
+            }
+        }
+
+    }
+
+    /**
+     * Builder for {@link AdaptivePatternEvaluator}
+     *
+     * @author Christian Heina (developer@christianheina.com)
+     */
+    public static class Builder {
+
+        private double frequency;
+        private AntennaArray antennaArray;
+        private double coarseResolution = 0;
+        private double finestResolution = DEFAULT_FINEST_RESOLUTION;
+        private double tolerance = DEFAULT_TOLERANCE;
+
+        private Builder() {
+            /* Hidden Constructor */
+        }
+
+        /**
+         * Set frequency used to calculate the array factor
+         *
+         * @param frequency
+         *            frequency to set
+         *
+         * @return this instance.
+         */
+        public Builder setFrequency(double frequency) {
+            this.frequency = frequency;
+            return this;
+        }
+
+        /**
+         * Set antenna array to evaluate
+         *
+         * @param antennaArray
+         *            antenna array to set
+         *
+         * @return this instance.
+         */
+        public Builder setAntennaArray(AntennaArray antennaArray) {
+            this.antennaArray = antennaArray;
+            return this;
+        }
+
+        /**
+         * Set resolution of the initial grid. Must be fine enough to resolve the main beam.<br>
+         * Defaults to half of the approximate beamwidth of the array, at most 5 degrees.
+         *
+         * @param coarseResolution
+         *            resolution in degrees
+         *
+         * @return this instance.
+         */
+        public Builder setCoarseResolution(double coarseResolution) {
+            this.coarseResolution = Math.toRadians(coarseResolution);
+            return this;
+        }
+
+        /**
+         * Set resolution at which refinement stops. Defaults to 0.01 degrees.
+         *
+         * @param finestResolution
+         *            resolution in degrees
+         *
+         * @return this instance.
+         */
+        public Builder setFinestResolution(double finestResolution) {
+            this.finestResolution = Math.toRadians(finestResolution);
+            return this;
+        }
+
+        /**
+         * Set largest accepted error of linear interpolation between samples relative to the peak magnitude before an
+         * interval is refined. Defaults to 1e-3.
+         *
+         * @param tolerance
+         *            relative tolerance
+         *
+         * @return this instance.
+         */
+        public Builder setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * Build {@link AdaptivePatternEvaluator} using this builder.
+         *
+         * @return new instance of {@link AdaptivePatternEvaluator}
+         *
+         * @exception IllegalArgumentException
+         *                antenna array is not set or resolutions or tolerance are not positive.
+         */
+        public AdaptivePatternEvaluator build() {
+            if (antennaArray == null) {
+                throw new IllegalArgumentException("Antenna array must be set.");
+            }
+            if (finestResolution <= 0 || coarseResolution < 0 || tolerance <= 0) {
+                throw new IllegalArgumentException("Resolutions and tolerance must be positive.");
+            }
+            return new AdaptivePatternEvaluator(this);
+        }
+    }
+
+}
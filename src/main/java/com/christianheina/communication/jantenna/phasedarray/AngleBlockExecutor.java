@@ -0,0 +1,197 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.DoubleBinaryOperator;
+
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException;
+
+/**
+ * Splits angle calculations into blocks executed on an {@link ExecutorService}.<br>
+ * Angles are split into a few blocks per available thread so that each task amortises scheduling over many angles while
+ * still balancing load between threads.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+final class AngleBlockExecutor {
+
+    private static final int BLOCKS_PER_THREAD = 4;
+    private static final int MIN_BLOCK_SIZE = 16;
+    private static final int CANCELLATION_CHUNK_SIZE = 64;
+
+    private AngleBlockExecutor() {
+        /* Hidden Constructor */
+    }
+
+    /**
+     * Calculate all blocks, shut down {@code executorService} and wait for the calculations to finish.
+     */
+    static void calculate(ExecutorService executorService, int numberOfAngles, AngleBlockCalculation calculation) {
+        CompletableFuture<Void> future = submit(executorService, numberOfAngles, calculation);
+        executorService.shutdown();
+        await(future);
+    }
+
+    /**
+     * Calculate all blocks and wait for the calculations to finish, leaving {@code executorService} running.
+     */
+    static void calculateAndKeepRunning(ExecutorService executorService, int numberOfAngles,
+            AngleBlockCalculation calculation) {
+        await(submit(executorService, numberOfAngles, calculation));
+    }
+
+    /**
+     * Submit all blocks without waiting for them, leaving {@code executorService} running. The returned future
+     * completes when all blocks are calculated, or exceptionally with a {@link PhasedArrayAntennaException} if any
+     * block fails.
+     */
+    static CompletableFuture<Void> submit(ExecutorService executorService, int numberOfAngles,
+            AngleBlockCalculation calculation) {
+        return submit(executorService, numberOfAngles, calculateBlockSize(executorService, numberOfAngles),
+                calculation);
+    }
+
+    private static CompletableFuture<Void> submit(ExecutorService executorService, int numberOfAngles, int blockSize,
+            AngleBlockCalculation calculation) {
+        List<CompletableFuture<Void>> futureList = new ArrayList<>();
+        for (int from = 0; from < numberOfAngles; from += blockSize) {
+            int blockFrom = from;
+            int blockTo = Math.min(from + blockSize, numberOfAngles);
+            futureList
+                    .add(CompletableFuture.runAsync(() -> calculation.calculate(blockFrom, blockTo), executorService));
+        }
+        CompletableFuture<?>[] futureArray = futureList.toArray(new CompletableFuture<?>[futureList.size()]);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        CompletableFuture.allOf(futureArray).whenComplete((ignored, throwable) -> {
+            if (throwable == null) {
+                result.complete(null);
+            } else {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                result.completeExceptionally(cause instanceof PhasedArrayAntennaException ? cause
+                        : new PhasedArrayAntennaException(
+                                "Encountered unexpected exception while asynchronously calculating array factor",
+                                cause));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Submit all blocks like {@link #submit(ExecutorService, int, AngleBlockCalculation)}, checking
+     * {@code cancellationToken} before every chunk of angles. Angles of chunks that are calculated are set in
+     * {@code coverage}. Neither is used if {@code cancellationToken} is {@code null}.
+     */
+    static CompletableFuture<Void> submit(ExecutorService executorService, int numberOfAngles,
+            CancellationToken cancellationToken, BitSet coverage, AngleBlockCalculation calculation) {
+        if (cancellationToken == null) {
+            return submit(executorService, numberOfAngles, calculation);
+        }
+        return submit(executorService, numberOfAngles, (from, to) -> {
+            for (int chunkFrom = from; chunkFrom < to; chunkFrom += CANCELLATION_CHUNK_SIZE) {
+                if (cancellationToken.isCancelled()) {
+                    return;
+                }
+                int chunkTo = Math.min(chunkFrom + CANCELLATION_CHUNK_SIZE, to);
+                calculation.calculate(chunkFrom, chunkTo);
+                synchronized (coverage) {
+                    coverage.set(chunkFrom, chunkTo);
+                }
+            }
+        });
+    }
+
+    /**
+     * Calculate all blocks and wait for the calculations to finish, leaving {@code executorService} running. The block
+     * results are combined in block order with {@code combiner}, starting from {@code identity}, so that the result
+     * does not depend on the order in which blocks finish.
+     */
+    static double reduceAndKeepRunning(ExecutorService executorService, int numberOfAngles, double identity,
+            AngleBlockReduction calculation, DoubleBinaryOperator combiner) {
+        int blockSize = calculateBlockSize(executorService, numberOfAngles);
+        double[] blockResults = new double[(numberOfAngles + blockSize - 1) / blockSize];
+        await(submit(executorService, numberOfAngles, blockSize,
+                (from, to) -> blockResults[from / blockSize] = calculation.calculate(from, to)));
+        double result = identity;
+        for (double blockResult : blockResults) {
+            result = combiner.applyAsDouble(result, blockResult);
+        }
+        return result;
+    }
+
+    /**
+     * Wait for {@code future} and return its result.
+     */
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw new PhasedArrayAntennaException(
+                    "Encountered unexpected exception while asynchronously calculating array factor", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PhasedArrayAntennaException) {
+                throw (PhasedArrayAntennaException) e.getCause();
+            }
+            throw new PhasedArrayAntennaException(
+                    "Encountered unexpected exception while asynchronously calculating array factor", e);
+        }
+    }
+
+    static int calculateBlockSize(ExecutorService executorService, int numberOfAngles) {
+        int numberOfBlocks = getNumberOfThreads(executorService) * BLOCKS_PER_THREAD;
+        return Math.max(MIN_BLOCK_SIZE, (numberOfAngles + numberOfBlocks - 1) / numberOfBlocks);
+    }
+
+    /**
+     * Number of threads of {@code executorService} if it is known, otherwise the configured number of threads.
+     */
+    private static int getNumberOfThreads(ExecutorService executorService) {
+        if (executorService instanceof ThreadPoolExecutor) {
+            int corePoolSize = ((ThreadPoolExecutor) executorService).getCorePoolSize();
+            if (corePoolSize > 0) {
+                return corePoolSize;
+            }
+        } else if (executorService instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executorService).getParallelism();
+        }
+        return PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads();
+    }
+
+    /**
+     * Calculation of angles {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    interface AngleBlockCalculation {
+        void calculate(int from, int to);
+    }
+
+    /**
+     * Calculation of angles {@code from} (inclusive) to {@code to} (exclusive) reduced to a single value.
+     */
+    interface AngleBlockReduction {
+        double calculate(int from, int to);
+    }
+
+}
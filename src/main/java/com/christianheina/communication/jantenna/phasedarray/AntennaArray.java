@@ -23,6 +23,7 @@ import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 
 import com.christianheina.communication.jantenna.commons.Util;
 import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.weighting.QuantizedWeightAlgorithm;
 import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
 
 /**
@@ -33,9 +34,11 @@ import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlg
 public class AntennaArray {
 
     private WeightableElement[] antennaArray;
+    private final boolean quantizedWeights;
 
-    private AntennaArray(WeightableElement[] antennaArray) {
+    private AntennaArray(WeightableElement[] antennaArray, WeightAlgorithm weightAlgorithm) {
         this.antennaArray = antennaArray;
+        this.quantizedWeights = weightAlgorithm instanceof QuantizedWeightAlgorithm;
     }
 
     /**
@@ -90,7 +93,7 @@ public class AntennaArray {
                 }
             }
         }
-        return new AntennaArray(antennaArray);
+        return new AntennaArray(antennaArray, weightAlgorithm);
     }
 
     private static double calculateDistance(double spacingLambda, double lambdaDistance) {
@@ -180,6 +183,27 @@ public class AntennaArray {
         return antennaArray;
     }
 
+    /**
+     * Whether the weights were calculated by a {@link QuantizedWeightAlgorithm}, so that elements share few distinct
+     * weights.
+     */
+    boolean hasQuantizedWeights() {
+        return quantizedWeights;
+    }
+
+    /**
+     * Compile array into an evaluator of the array factor at a frequency, one direction at a time without allocation.
+     * The evaluator does not reflect later changes to the elements.
+     * 
+     * @param frequency
+     *            frequency
+     * 
+     * @return new {@link ArrayFactorEvaluator} instance
+     */
+    public ArrayFactorEvaluator compile(double frequency) {
+        return new ArrayFactorEvaluator(this, frequency);
+    }
+
     /**
      * Create new instance of {@link Builder}
      * 
@@ -254,7 +278,7 @@ public class AntennaArray {
                 antennaArray[i] = new WeightableElement(antennaLocationList.get(i), designFrequency,
                         weightAlgorithm.calculateWeight(antennaLocationList.get(i)));
             }
-            return new AntennaArray(antennaArray);
+            return new AntennaArray(antennaArray, weightAlgorithm);
         }
     }
 
@@ -17,23 +17,22 @@
 package com.christianheina.communication.jantenna.phasedarray;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.apache.commons.math3.complex.Complex;
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 
 import com.christianheina.common.utilities.constants.Constants;
 import com.christianheina.communication.jantenna.commons.ElectricField;
 import com.christianheina.communication.jantenna.commons.Field;
 import com.christianheina.communication.jantenna.commons.FieldType;
 import com.christianheina.communication.jantenna.commons.ThetaPhi;
-import com.christianheina.communication.jantenna.commons.WeightableElement;
 import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
-import com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationType;
 
 /**
  * Array factor functionality.
@@ -79,52 +78,392 @@ public class ArrayFactor {
      */
     public static Field newArrayFactorAsync(ExecutorService executorService, double frequency,
             AntennaArray antennaArray, List<ThetaPhi> angles) {
-        double lambda = Constants.VACUUM_SPEED_OF_LIGHT / frequency;
-        @SuppressWarnings("unchecked")
-        CompletableFuture<Complex>[] futureArray = new CompletableFuture[angles.size()];
-        for (int i = 0; i < angles.size(); i++) {
-            futureArray[i] = calculateArrayFactorAsync(executorService, lambda, antennaArray, angles.get(i));
-        }
+        return newArrayFactorAsync(executorService, frequency, antennaArray, angles,
+                PhasedArrayAntennaCalculationConfig.getConfig().getPrecision());
+    }
+
+    /**
+     * Create array factor using specified precision
+     * 
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * @param precision
+     *            precision used for element data, angle directions and results. See {@link Precision#FLOAT} for the
+     *            accuracy of single precision calculations.
+     * 
+     * @return a field containing the array factor
+     */
+    public static Field newArrayFactorAsync(double frequency, AntennaArray antennaArray, List<ThetaPhi> angles,
+            Precision precision) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        return newArrayFactorAsync(executorService, frequency, antennaArray, angles, precision);
+    }
+
+    /**
+     * Create array factor using specified precision
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * @param precision
+     *            precision used for element data, angle directions and results. See {@link Precision#FLOAT} for the
+     *            accuracy of single precision calculations.
+     * 
+     * @return a field containing the array factor
+     */
+    public static Field newArrayFactorAsync(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, Precision precision) {
+        CompletableFuture<Field> future = submitArrayFactor(executorService, frequency, antennaArray, angles,
+                precision);
         executorService.shutdown();
-        try {
-            CompletableFuture.allOf(futureArray).get();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new PhasedArrayAntennaException(
-                    "Encountered unexpected exception while asynchronously calculating array factor", e);
-        }
-        List<Complex> fieldDataList = new ArrayList<>(angles.size());
-        for (int i = 0; i < futureArray.length; i++) {
-            try {
-                fieldDataList.add(futureArray[i].get());
-            } catch (InterruptedException | ExecutionException e) {
-                throw new PhasedArrayAntennaException(
-                        "Encountered unexpected exception while asynchronously calculating array factor", e);
-            }
-        }
+        return AngleBlockExecutor.await(future);
+    }
+
+    /**
+     * Create array factor without blocking the caller
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * 
+     * @return a future completed with a field containing the array factor, or exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     */
+    public static CompletableFuture<Field> newArrayFactorFuture(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles) {
+        return newArrayFactorFuture(executorService, frequency, antennaArray, angles,
+                PhasedArrayAntennaCalculationConfig.getConfig().getPrecision());
+    }
+
+    /**
+     * Create array factor using specified precision without blocking the caller
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * @param precision
+     *            precision used for element data, angle directions and results. See {@link Precision#FLOAT} for the
+     *            accuracy of single precision calculations.
+     * 
+     * @return a future completed with a field containing the array factor, or exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     */
+    public static CompletableFuture<Field> newArrayFactorFuture(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, Precision precision) {
+        return submitArrayFactor(executorService, frequency, antennaArray, angles, precision);
+    }
+
+    /**
+     * Create array factor as a compact pattern result
+     * 
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * 
+     * @return a pattern result containing the array factor
+     */
+    public static PatternResult newArrayFactorResultAsync(double frequency, AntennaArray antennaArray,
+            List<ThetaPhi> angles) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        return newArrayFactorResultAsync(executorService, frequency, antennaArray, angles);
+    }
+
+    /**
+     * Create array factor as a compact pattern result<br>
+     * Values are calculated directly into the arrays of the result, no per-sample objects are created. Precision of the
+     * calculation and of the stored values follows
+     * {@link com.christianheina.communication.jantenna.phasedarray.config.Config#getPrecision()}.
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * 
+     * @return a pattern result containing the array factor
+     */
+    public static PatternResult newArrayFactorResultAsync(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles) {
+        CompletableFuture<PatternResult> future = newArrayFactorResultFuture(executorService, frequency, antennaArray,
+                angles);
+        executorService.shutdown();
+        return AngleBlockExecutor.await(future);
+    }
 
-        return Field.newBuilder().setThetaPhiList(angles).addElectricField(ElectricField.RELATIVE_GAIN, fieldDataList)
-                .setFreqency(frequency).setFieldType(FieldType.FARFIELD).build();
+    /**
+     * Create array factor as a compact pattern result without blocking the caller
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * 
+     * @return a future completed with a pattern result containing the array factor, or exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     */
+    public static CompletableFuture<PatternResult> newArrayFactorResultFuture(ExecutorService executorService,
+            double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
+        return newArrayFactorResultFuture(executorService, frequency, antennaArray, angles,
+                PhasedArrayAntennaCalculationConfig.getConfig().getPrecision());
     }
 
-    private static CompletableFuture<Complex> calculateArrayFactorAsync(ExecutorService executorService, double lambda,
-            AntennaArray antennaArray, ThetaPhi angle) {
-        CompletableFuture<Complex> future = new CompletableFuture<>();
+    /**
+     * Create array factor as a compact pattern result using specified precision without blocking the caller<br>
+     * With {@link Precision#FLOAT} the values are kept in the single precision arrays they are calculated into.
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * @param precision
+     *            precision used for element data, angle directions and results. See {@link Precision#FLOAT} for the
+     *            accuracy of single precision calculations.
+     * 
+     * @return a future completed with a pattern result containing the array factor, or exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     */
+    public static CompletableFuture<PatternResult> newArrayFactorResultFuture(ExecutorService executorService,
+            double frequency, AntennaArray antennaArray, List<ThetaPhi> angles, Precision precision) {
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.ARRAY_FACTOR, angles.size(),
+                antennaArray.getAntennaArray().length);
+        return submitArrayFactorResult(executorService, frequency, antennaArray, angles, precision, null, null,
+                recorder).thenApply(result -> {
+                    recorder.finish(result.size(), result.getBytesPerSample());
+                    return result;
+                });
+    }
 
-        executorService.execute(() -> {
-            Complex sum = Complex.ZERO;
-            Vector3D k = PhasedArrayUtil.calculateWaveVector(lambda, angle);
-            for (WeightableElement antenna : antennaArray.getAntennaArray()) {
-                Complex vk = PhasedArrayUtil.calculateSteeringVector(k, antenna.getElementLocation());
-                Complex c = antenna.getElementWeight().multiply(vk);
-                sum = sum.add(c);
+    /**
+     * Calculate array factor into one pattern of a pattern cube without blocking the caller<br>
+     * The array factor is calculated at the frequency and angles of the cube. Blocks of angles are written to the cube
+     * as they are calculated, so no result is kept on the heap.
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param patternCube
+     *            pattern cube written to
+     * @param frequencyIndex
+     *            frequency index of the pattern in {@code patternCube}
+     * @param beamIndex
+     *            beam index of the pattern in {@code patternCube}
+     * @param antennaArray
+     *            antenna array, weighted for the beam, to use when calculating array factor
+     * 
+     * @return a future completed when the pattern is written, or exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     */
+    public static CompletableFuture<Void> writeArrayFactorFuture(ExecutorService executorService,
+            PatternCube patternCube, int frequencyIndex, int beamIndex, AntennaArray antennaArray) {
+        int numberOfAngles = patternCube.getNumberOfAngles();
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.ARRAY_FACTOR, numberOfAngles,
+                antennaArray.getAntennaArray().length);
+        double waveNumber = 2 * Math.PI * patternCube.getFrequency(frequencyIndex) / Constants.VACUUM_SPEED_OF_LIGHT;
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(antennaArray, Precision.DOUBLE);
+        return AngleBlockExecutor.submit(executorService, numberOfAngles, recorder.record((from, to) -> {
+            double[] real = new double[to - from];
+            double[] imaginary = new double[to - from];
+            for (int i = from; i < to; i++) {
+                packedArray.calculateArrayFactor(waveNumber, patternCube.getTheta(i), patternCube.getPhi(i), real,
+                        imaginary, i - from);
             }
-            future.complete(sum);
-        });
-        future.exceptionally(e -> {
-            throw new PhasedArrayAntennaException(
-                    "Encountered unexpected exception while asynchronously calculating array factor", e);
+            patternCube.write(frequencyIndex, beamIndex, from, to, real, imaginary);
+        })).thenRun(() -> {
+            recorder.startAssembly();
+            recorder.finish(numberOfAngles,
+                    patternCube.getPrecision() == Precision.FLOAT ? 2 * Float.BYTES : 2 * Double.BYTES);
         });
+    }
+
+    /**
+     * Create array factor that can be cancelled without blocking the caller<br>
+     * Angle blocks check {@code cancellationToken} before every few angles. Once it is cancelled or its deadline has
+     * passed, no further angles are calculated and the future is completed with the angles calculated so far.
+     * Cancelling the returned future also cancels {@code cancellationToken}.
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * @param cancellationToken
+     *            token used to cancel the calculation
+     * 
+     * @return a future completed with a partial field containing the calculated part of the array factor, or
+     *         exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     */
+    public static CompletableFuture<PartialField> newArrayFactorFuture(ExecutorService executorService,
+            double frequency, AntennaArray antennaArray, List<ThetaPhi> angles, CancellationToken cancellationToken) {
+        BitSet coverage = new BitSet(angles.size());
+        CompletableFuture<PartialField> future = submitArrayFactor(executorService, frequency, antennaArray, angles,
+                PhasedArrayAntennaCalculationConfig.getConfig().getPrecision(), cancellationToken, coverage)
+                        .thenApply(field -> new PartialField(field, coverage));
+        cancellationToken.cancelWhenCancelled(future);
         return future;
     }
 
+    private static CompletableFuture<Field> submitArrayFactor(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, Precision precision) {
+        return submitArrayFactor(executorService, frequency, antennaArray, angles, precision, null, null);
+    }
+
+    private static CompletableFuture<Field> submitArrayFactor(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, Precision precision, CancellationToken cancellationToken,
+            BitSet coverage) {
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.ARRAY_FACTOR, angles.size(),
+                antennaArray.getAntennaArray().length);
+        return submitArrayFactorResult(executorService, frequency, antennaArray, angles, precision, cancellationToken,
+                coverage, recorder).thenApply(result -> {
+                    List<Complex> fieldDataList = new ArrayList<>(result.size());
+                    for (int i = 0; i < result.size(); i++) {
+                        fieldDataList.add(coverage == null || coverage.get(i)
+                                ? new Complex(result.getReal(i), result.getImaginary(i)) : Complex.NaN);
+                    }
+                    return buildField(recorder, frequency, angles, fieldDataList);
+                });
+    }
+
+    /**
+     * Submit calculation of array factor into the arrays of a pattern result in {@code precision}. Assembly is started
+     * on {@code recorder} before the result is created.
+     */
+    private static CompletableFuture<PatternResult> submitArrayFactorResult(ExecutorService executorService,
+            double frequency, AntennaArray antennaArray, List<ThetaPhi> angles, Precision precision,
+            CancellationToken cancellationToken, BitSet coverage, CalculationRecorder recorder) {
+        int numberOfAngles = angles.size();
+        double lambda = Constants.VACUUM_SPEED_OF_LIGHT / frequency;
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(antennaArray, precision);
+        if (precision == Precision.FLOAT) {
+            float[] real = new float[numberOfAngles];
+            float[] imaginary = new float[numberOfAngles];
+            return AngleBlockExecutor
+                    .submit(executorService, numberOfAngles, cancellationToken, coverage, recorder.record((from,
+                            to) -> packedArray.calculateArrayFactor(lambda, angles, from, to, real, imaginary, from)))
+                    .thenApply(ignored -> {
+                        recorder.startAssembly();
+                        return new PatternResult(frequency, FieldType.FARFIELD, angles, real, imaginary);
+                    });
+        }
+        double[] real = new double[numberOfAngles];
+        double[] imaginary = new double[numberOfAngles];
+        return AngleBlockExecutor.submit(executorService, numberOfAngles, cancellationToken, coverage, recorder.record(
+                (from, to) -> packedArray.calculateArrayFactor(lambda, angles, from, to, real, imaginary, from)))
+                .thenApply(ignored -> {
+                    recorder.startAssembly();
+                    return new PatternResult(frequency, FieldType.FARFIELD, angles, real, imaginary);
+                });
+    }
+
+    private static Field buildField(CalculationRecorder recorder, double frequency, List<ThetaPhi> angles,
+            List<Complex> fieldDataList) {
+        Field arrayFactor = Field.newBuilder().setThetaPhiList(angles)
+                .addElectricField(ElectricField.RELATIVE_GAIN, fieldDataList).setFreqency(frequency)
+                .setFieldType(FieldType.FARFIELD).build();
+        recorder.finish(fieldDataList.size());
+        return arrayFactor;
+    }
+
+    /**
+     * Calculate array factor and stream it block by block to {@code sink} without building a {@link Field}.
+     * 
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when calculating array factor
+     * @param angles
+     *            angles used in the calculated array factor
+     * @param sink
+     *            sink receiving the calculated array factor
+     */
+    public static void streamArrayFactorAsync(double frequency, AntennaArray antennaArray, List<ThetaPhi> angles,
+            PatternSink sink) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        streamArrayFactorAsync(executorService, frequency, antennaArray, angles, sink);
+    }
+
+    /**
+     * Calculate array factor and stream it block by block to {@code sink} without building a {@link Field}.<br>
+     * Only memory for the blocks currently being calculated is allocated. Calculations are made in double precision.
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when calculating array factor
+     * @param angles
+     *            angles used in the calculated array factor
+     * @param sink
+     *            sink receiving the calculated array factor
+     */
+    public static void streamArrayFactorAsync(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, PatternSink sink) {
+        streamArrayFactorAsync(executorService, frequency, antennaArray, angles, sink, CalculationType.ARRAY_FACTOR);
+    }
+
+    /**
+     * Stream array factor to {@code sink}, reporting metrics as {@code calculationType}.
+     */
+    static void streamArrayFactorAsync(ExecutorService executorService, double frequency, AntennaArray antennaArray,
+            List<ThetaPhi> angles, PatternSink sink, CalculationType calculationType) {
+        CalculationRecorder recorder = CalculationRecorder.start(calculationType, angles.size(),
+                antennaArray.getAntennaArray().length);
+        double lambda = Constants.VACUUM_SPEED_OF_LIGHT / frequency;
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(antennaArray, Precision.DOUBLE);
+        AngleBlockExecutor.calculate(executorService, angles.size(), recorder.record((from, to) -> {
+            double[] real = new double[to - from];
+            double[] imaginary = new double[to - from];
+            packedArray.calculateArrayFactor(lambda, angles, from, to, real, imaginary, 0);
+            sink.accept(angles, from, to, real, imaginary);
+        }));
+        recorder.startAssembly();
+        // Streamed samples are handed to the sink and not kept
+        recorder.finish(angles.size(), 0);
+    }
+
 }
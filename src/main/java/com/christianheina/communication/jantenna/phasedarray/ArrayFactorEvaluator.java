@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+
+/**
+ * Array factor of an {@link AntennaArray} at a fixed frequency, evaluated one direction at a time.<br>
+ * Created by {@link AntennaArray#compile(double)}, which packs element locations and weights into primitive arrays
+ * once. Every evaluation runs the array factor kernel directly on the calling thread and writes the result into caller
+ * provided storage or returns it as a primitive, so evaluations allocate nothing. Intended for callers that need few
+ * directions at a time at a very high rate, where {@link ArrayFactor} would spend most of the time on thread pools and
+ * {@link com.christianheina.communication.jantenna.commons.Field Field} construction.<br>
+ * Instances are immutable and thread safe.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class ArrayFactorEvaluator {
+
+    /**
+     * Per thread scratch for evaluations returning a primitive, created once per thread.
+     */
+    private static final ThreadLocal<double[][]> SCRATCH = ThreadLocal.withInitial(() -> new double[2][1]);
+
+    private final double frequency;
+    private final double waveNumber;
+    private final PackedAntennaArray packedArray;
+
+    ArrayFactorEvaluator(AntennaArray antennaArray, double frequency) {
+        this.frequency = frequency;
+        this.waveNumber = 2 * Math.PI / Util.calculateLambda(frequency);
+        this.packedArray = PackedAntennaArray.pack(antennaArray, Precision.DOUBLE);
+    }
+
+    /**
+     * Returns frequency of the evaluator.
+     * 
+     * @return frequency
+     */
+    public double getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns number of elements of the array.
+     * 
+     * @return number of elements
+     */
+    public int getNumberOfElements() {
+        return packedArray.size();
+    }
+
+    /**
+     * Diagonal of the bounding box of the element locations.
+     */
+    double calculateApertureSize() {
+        return packedArray.calculateApertureSize();
+    }
+
+    /**
+     * Calculate complex array factor in a direction and store it at {@code index} of {@code real} and
+     * {@code imaginary}.
+     * 
+     * @param theta
+     *            theta in radians
+     * @param phi
+     *            phi in radians
+     * @param real
+     *            storage for real part
+     * @param imaginary
+     *            storage for imaginary part
+     * @param index
+     *            index at which the result is stored
+     */
+    public void calculateArrayFactor(double theta, double phi, double[] real, double[] imaginary, int index) {
+        packedArray.calculateArrayFactor(waveNumber, theta, phi, real, imaginary, index);
+    }
+
+    /**
+     * Calculate complex array factor in a direction and store it at {@code index} of {@code real} and
+     * {@code imaginary}.
+     * 
+     * @param direction
+     *            direction
+     * @param real
+     *            storage for real part
+     * @param imaginary
+     *            storage for imaginary part
+     * @param index
+     *            index at which the result is stored
+     */
+    public void calculateArrayFactor(ThetaPhi direction, double[] real, double[] imaginary, int index) {
+        calculateArrayFactor(direction.getTheta(), direction.getPhi(), real, imaginary, index);
+    }
+
+    /**
+     * Calculate array factor power {@code |AF|^2} in a direction.
+     * 
+     * @param theta
+     *            theta in radians
+     * @param phi
+     *            phi in radians
+     * 
+     * @return power
+     */
+    public double calculatePower(double theta, double phi) {
+        double[][] scratch = SCRATCH.get();
+        packedArray.calculateArrayFactor(waveNumber, theta, phi, scratch[0], scratch[1], 0);
+        return scratch[0][0] * scratch[0][0] + scratch[1][0] * scratch[1][0];
+    }
+
+    /**
+     * Calculate array factor power {@code |AF|^2} in a direction.
+     * 
+     * @param direction
+     *            direction
+     * 
+     * @return power
+     */
+    public double calculatePower(ThetaPhi direction) {
+        return calculatePower(direction.getTheta(), direction.getPhi());
+    }
+
+    /**
+     * Calculate array factor magnitude {@code |AF|} in a direction.
+     * 
+     * @param theta
+     *            theta in radians
+     * @param phi
+     *            phi in radians
+     * 
+     * @return magnitude
+     */
+    public double calculateMagnitude(double theta, double phi) {
+        return Math.sqrt(calculatePower(theta, phi));
+    }
+
+    /**
+     * Calculate array factor magnitude {@code |AF|} in a direction.
+     * 
+     * @param direction
+     *            direction
+     * 
+     * @return magnitude
+     */
+    public double calculateMagnitude(ThetaPhi direction) {
+        return calculateMagnitude(direction.getTheta(), direction.getPhi());
+    }
+
+    /**
+     * Calculate array factor phase in a direction.
+     * 
+     * @param theta
+     *            theta in radians
+     * @param phi
+     *            phi in radians
+     * 
+     * @return phase in radians between {@code -pi} and {@code pi}
+     */
+    public double calculatePhase(double theta, double phi) {
+        double[][] scratch = SCRATCH.get();
+        packedArray.calculateArrayFactor(waveNumber, theta, phi, scratch[0], scratch[1], 0);
+        return Math.atan2(scratch[1][0], scratch[0][0]);
+    }
+
+    /**
+     * Calculate array factor phase in a direction.
+     * 
+     * @param direction
+     *            direction
+     * 
+     * @return phase in radians between {@code -pi} and {@code pi}
+     */
+    public double calculatePhase(ThetaPhi direction) {
+        return calculatePhase(direction.getTheta(), direction.getPhi());
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.common.utilities.constants.Constants;
+import com.christianheina.communication.jantenna.commons.FieldType;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+
+/**
+ * Array factor power objective and its gradient with respect to element weights and positions.<br>
+ * The objective is {@code J = sum(c_a * |AF_a|^2)} over angles {@code a}, where {@code c_a} are angle weights given by
+ * the caller. For example, ones over a sidelobe region give the sidelobe energy, and a negative weight at the main beam
+ * rewards gain. The gradient is calculated with the adjoint method: a forward pass calculates {@code AF_a}, then a
+ * backward pass over elements accumulates {@code S_n = sum(c_a * conj(AF_a) * e_an)} and
+ * {@code T_n = sum(c_a * conj(AF_a) * e_an * k_a)} with {@code e_an = exp(-j * k_a . r_n)}, giving
+ * <ul>
+ * <li>{@code dJ/dRe(w_n) = 2 * Re(S_n)} and {@code dJ/dIm(w_n) = -2 * Im(S_n)}</li>
+ * <li>{@code dJ/dr_n = 2 * Im(w_n * T_n)}</li>
+ * </ul>
+ * Total cost is about twice that of one array factor evaluation regardless of the number of elements, compared to
+ * {@code 2 * N} evaluations for central finite differences.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class ArrayFactorGradient {
+
+    private ArrayFactorGradient() {
+        /* Hidden Constructor */
+    }
+
+    /**
+     * Calculate weighted power objective and its gradient.
+     * 
+     * @param frequency
+     *            frequency
+     * @param antennaArray
+     *            antenna array
+     * @param angles
+     *            angles of the objective
+     * @param angleWeights
+     *            weight {@code c_a} of the power at every angle
+     * @param includePositions
+     *            whether to calculate the gradient with respect to element positions
+     * 
+     * @return objective, array factor and gradient
+     * 
+     * @exception IllegalArgumentException
+     *                if the number of angle weights differs from the number of angles
+     */
+    public static GradientResult calculatePowerGradient(double frequency, AntennaArray antennaArray,
+            List<ThetaPhi> angles, double[] angleWeights, boolean includePositions) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        try {
+            return calculatePowerGradient(executorService, frequency, antennaArray, angles, angleWeights,
+                    includePositions);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Calculate weighted power objective and its gradient.
+     * 
+     * @param executorService
+     *            the ExecutorService used for parallel calculations. Left running when done.
+     * @param frequency
+     *            frequency
+     * @param antennaArray
+     *            antenna array
+     * @param angles
+     *            angles of the objective
+     * @param angleWeights
+     *            weight {@code c_a} of the power at every angle
+     * @param includePositions
+     *            whether to calculate the gradient with respect to element positions
+     * 
+     * @return objective, array factor and gradient
+     * 
+     * @exception IllegalArgumentException
+     *                if the number of angle weights differs from the number of angles
+     */
+    public static GradientResult calculatePowerGradient(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, double[] angleWeights, boolean includePositions) {
+        int numberOfAngles = angles.size();
+        if (angleWeights.length != numberOfAngles) {
+            throw new IllegalArgumentException(
+                    "Expected " + numberOfAngles + " angle weights but received " + angleWeights.length + ".");
+        }
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        int numberOfElements = elements.length;
+        double waveNumber = 2 * Math.PI * frequency / Constants.VACUUM_SPEED_OF_LIGHT;
+        double[] kx = new double[numberOfAngles];
+        double[] ky = new double[numberOfAngles];
+        double[] kz = new double[numberOfAngles];
+        for (int a = 0; a < numberOfAngles; a++) {
+            ThetaPhi angle = angles.get(a);
+            double sinTheta = Math.sin(angle.getTheta());
+            kx[a] = waveNumber * sinTheta * Math.cos(angle.getPhi());
+            ky[a] = waveNumber * sinTheta * Math.sin(angle.getPhi());
+            kz[a] = waveNumber * Math.cos(angle.getTheta());
+        }
+        double[] x = new double[numberOfElements];
+        double[] y = new double[numberOfElements];
+        double[] z = new double[numberOfElements];
+        double[] weightReal = new double[numberOfElements];
+        double[] weightImaginary = new double[numberOfElements];
+        for (int n = 0; n < numberOfElements; n++) {
+            Vector3D r = elements[n].getElementLocation();
+            Complex weight = elements[n].getElementWeight();
+            x[n] = r.getX();
+            y[n] = r.getY();
+            z[n] = r.getZ();
+            weightReal[n] = weight.getReal();
+            weightImaginary[n] = weight.getImaginary();
+        }
+
+        // Forward pass: array factor and adjoint c_a * conj(AF_a)
+        double[] real = new double[numberOfAngles];
+        double[] imaginary = new double[numberOfAngles];
+        double[] adjointReal = new double[numberOfAngles];
+        double[] adjointImaginary = new double[numberOfAngles];
+        AngleBlockExecutor.calculateAndKeepRunning(executorService, numberOfAngles, (from, to) -> {
+            for (int a = from; a < to; a++) {
+                double sumReal = 0;
+                double sumImaginary = 0;
+                for (int n = 0; n < numberOfElements; n++) {
+                    double phase = -(kx[a] * x[n] + ky[a] * y[n] + kz[a] * z[n]);
+                    double cos = Math.cos(phase);
+                    double sin = Math.sin(phase);
+                    sumReal += weightReal[n] * cos - weightImaginary[n] * sin;
+                    sumImaginary += weightReal[n] * sin + weightImaginary[n] * cos;
+                }
+                real[a] = sumReal;
+                imaginary[a] = sumImaginary;
+                adjointReal[a] = angleWeights[a] * sumReal;
+                adjointImaginary[a] = -angleWeights[a] * sumImaginary;
+            }
+        });
+        double objective = 0;
+        for (int a = 0; a < numberOfAngles; a++) {
+            objective += angleWeights[a] * (real[a] * real[a] + imaginary[a] * imaginary[a]);
+        }
+
+        // Backward pass over elements
+        double[] weightGradientReal = new double[numberOfElements];
+        double[] weightGradientImaginary = new double[numberOfElements];
+        double[] positionGradient = includePositions ? new double[3 * numberOfElements] : null;
+        AngleBlockExecutor.calculateAndKeepRunning(executorService, numberOfElements, (from, to) -> {
+            for (int n = from; n < to; n++) {
+                double sReal = 0;
+                double sImaginary = 0;
+                double txReal = 0;
+                double txImaginary = 0;
+                double tyReal = 0;
+                double tyImaginary = 0;
+                double tzReal = 0;
+                double tzImaginary = 0;
+                for (int a = 0; a < numberOfAngles; a++) {
+                    double phase = -(kx[a] * x[n] + ky[a] * y[n] + kz[a] * z[n]);
+                    double cos = Math.cos(phase);
+                    double sin = Math.sin(phase);
+                    double termReal = adjointReal[a] * cos - adjointImaginary[a] * sin;
+                    double termImaginary = adjointReal[a] * sin + adjointImaginary[a] * cos;
+                    sReal += termReal;
+                    sImaginary += termImaginary;
+                    if (includePositions) {
+                        txReal += termReal * kx[a];
+                        txImaginary += termImaginary * kx[a];
+                        tyReal += termReal * ky[a];
+                        tyImaginary += termImaginary * ky[a];
+                        tzReal += termReal * kz[a];
+                        tzImaginary += termImaginary * kz[a];
+                    }
+                }
+                weightGradientReal[n] = 2 * sReal;
+                weightGradientImaginary[n] = -2 * sImaginary;
+                if (includePositions) {
+                    // 2 * Im(w_n * T_n)
+                    positionGradient[3 * n] = 2 * (weightReal[n] * txImaginary + weightImaginary[n] * txReal);
+                    positionGradient[3 * n + 1] = 2 * (weightReal[n] * tyImaginary + weightImaginary[n] * tyReal);
+                    positionGradient[3 * n + 2] = 2 * (weightReal[n] * tzImaginary + weightImaginary[n] * tzReal);
+                }
+            }
+        });
+        return new GradientResult(objective, new PatternResult(frequency, FieldType.FARFIELD, angles, real, imaginary),
+                weightGradientReal, weightGradientImaginary, positionGradient);
+    }
+
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+
+/**
+ * Stateful session steering one {@link AntennaArray} along a trajectory of pointing directions and evaluating the array
+ * factor in a local window of angles around every pointing direction.<br>
+ * The array is steered with conjugate weights, keeping the amplitude of the element weights of the array, so that
+ * element {@code n} has weight {@code |w_n| * exp(j * k_p . r_n)} for pointing direction {@code p}. Window angle
+ * {@code i} is the pointing direction offset by {@code (thetaOffset[i], phiOffset[i])}.
+ * <p>
+ * Everything that does not depend on the pointing direction is prepared when the session is created: element geometry
+ * and amplitudes are packed into primitive arrays, sine and cosine of all window offsets are cached so that window
+ * directions follow from the pointing direction by angle addition, and all scratch and result buffers are allocated.
+ * Evaluating a pointing direction allocates nothing. When elements lie on few distinct coordinates per axis, as for
+ * arrays created by {@code AntennaArray.fromEquallySpacedArray}, the phase of every element is the product of per axis
+ * phasors, which needs trigonometric functions per distinct coordinate instead of per element.
+ * <p>
+ * Instances are not thread safe, use one session per thread.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class BeamTrackingSession {
+
+    private final int numberOfElements;
+    private final double waveNumber;
+    private final double[] amplitude;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+
+    /**
+     * Distinct coordinates of all axes, X followed by Y and Z. {@code null} when phases are calculated per element.
+     */
+    private final double[] axisCoordinates;
+    private final int offsetY;
+    private final int offsetZ;
+    private final int[] indexX;
+    private final int[] indexY;
+    private final int[] indexZ;
+    private final double[] axisReal;
+    private final double[] axisImaginary;
+
+    private final int windowSize;
+    private final double[] thetaOffset;
+    private final double[] phiOffset;
+    private final double[] cosThetaOffset;
+    private final double[] sinThetaOffset;
+    private final double[] cosPhiOffset;
+    private final double[] sinPhiOffset;
+
+    private double pointingTheta = Double.NaN;
+    private double pointingPhi = Double.NaN;
+    private final double[] real;
+    private final double[] imaginary;
+
+    private BeamTrackingSession(AntennaArray antennaArray, double frequency, double[] thetaOffset, double[] phiOffset) {
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        this.numberOfElements = elements.length;
+        this.waveNumber = 2 * Math.PI / Util.calculateLambda(frequency);
+        this.amplitude = new double[numberOfElements];
+        this.x = new double[numberOfElements];
+        this.y = new double[numberOfElements];
+        this.z = new double[numberOfElements];
+        for (int n = 0; n < numberOfElements; n++) {
+            Vector3D r = elements[n].getElementLocation();
+            Complex weight = elements[n].getElementWeight();
+            amplitude[n] = weight.abs();
+            // Adding zero turns -0.0 into 0.0 so that equal coordinates are found by binary search
+            x[n] = r.getX() + 0.0;
+            y[n] = r.getY() + 0.0;
+            z[n] = r.getZ() + 0.0;
+        }
+
+        double[] distinctX = distinct(x);
+        double[] distinctY = distinct(y);
+        double[] distinctZ = distinct(z);
+        int numberOfCoordinates = distinctX.length + distinctY.length + distinctZ.length;
+        // Two complex multiplications per element are far cheaper than a sine and cosine per element
+        if (2 * numberOfCoordinates <= numberOfElements) {
+            this.axisCoordinates = new double[numberOfCoordinates];
+            this.offsetY = distinctX.length;
+            this.offsetZ = distinctX.length + distinctY.length;
+            System.arraycopy(distinctX, 0, axisCoordinates, 0, distinctX.length);
+            System.arraycopy(distinctY, 0, axisCoordinates, offsetY, distinctY.length);
+            System.arraycopy(distinctZ, 0, axisCoordinates, offsetZ, distinctZ.length);
+            this.indexX = index(x, distinctX, 0);
+            this.indexY = index(y, distinctY, offsetY);
+            this.indexZ = index(z, distinctZ, offsetZ);
+            this.axisReal = new double[numberOfCoordinates];
+            this.axisImaginary = new double[numberOfCoordinates];
+        } else {
+            this.axisCoordinates = null;
+            this.offsetY = 0;
+            this.offsetZ = 0;
+            this.indexX = null;
+            this.indexY = null;
+            this.indexZ = null;
+            this.axisReal = null;
+            this.axisImaginary = null;
+        }
+
+        this.windowSize = thetaOffset.length;
+        this.thetaOffset = thetaOffset.clone();
+        this.phiOffset = phiOffset.clone();
+        this.cosThetaOffset = new double[windowSize];
+        this.sinThetaOffset = new double[windowSize];
+        this.cosPhiOffset = new double[windowSize];
+        this.sinPhiOffset = new double[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            cosThetaOffset[i] = Math.cos(thetaOffset[i]);
+            sinThetaOffset[i] = Math.sin(thetaOffset[i]);
+            cosPhiOffset[i] = Math.cos(phiOffset[i]);
+            sinPhiOffset[i] = Math.sin(phiOffset[i]);
+        }
+        this.real = new double[windowSize];
+        this.imaginary = new double[windowSize];
+    }
+
+    /**
+     * Create new session.
+     * 
+     * @param antennaArray
+     *            antenna array providing element locations and amplitudes
+     * @param frequency
+     *            frequency
+     * @param thetaOffset
+     *            theta offset in radians of every window angle relative to the pointing direction
+     * @param phiOffset
+     *            phi offset in radians of every window angle relative to the pointing direction
+     * 
+     * @return new session
+     * 
+     * @exception IllegalArgumentException
+     *                if the window is empty or the number of theta and phi offsets differ
+     */
+    public static BeamTrackingSession newBeamTrackingSession(AntennaArray antennaArray, double frequency,
+            double[] thetaOffset, double[] phiOffset) {
+        if (thetaOffset.length == 0 || thetaOffset.length != phiOffset.length) {
+            throw new IllegalArgumentException("Window must have the same, non zero, number of theta and phi offsets.");
+        }
+        return new BeamTrackingSession(antennaArray, frequency, thetaOffset, phiOffset);
+    }
+
+    private static double[] distinct(double[] coordinates) {
+        double[] sorted = coordinates.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int n = 0; n < sorted.length; n++) {
+            if (n == 0 || sorted[n] != sorted[count - 1]) {
+                sorted[count++] = sorted[n];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private static int[] index(double[] coordinates, double[] distinctCoordinates, int offset) {
+        int[] index = new int[coordinates.length];
+        for (int n = 0; n < coordinates.length; n++) {
+            index[n] = offset + Arrays.binarySearch(distinctCoordinates, coordinates[n]);
+        }
+        return index;
+    }
+
+    /**
+     * Steer to a pointing direction and evaluate the window around it.
+     * 
+     * @param pointingDirection
+     *            pointing direction
+     */
+    public void evaluate(ThetaPhi pointingDirection) {
+        evaluate(pointingDirection.getTheta(), pointingDirection.getPhi());
+    }
+
+    /**
+     * Steer to a pointing direction and evaluate the window around it.
+     * 
+     * @param theta
+     *            theta of pointing direction in radians
+     * @param phi
+     *            phi of pointing direction in radians
+     */
+    public void evaluate(double theta, double phi) {
+        pointingTheta = theta;
+        pointingPhi = phi;
+        double cosTheta = Math.cos(theta);
+        double sinTheta = Math.sin(theta);
+        double cosPhi = Math.cos(phi);
+        double sinPhi = Math.sin(phi);
+        double pointingX = waveNumber * sinTheta * cosPhi;
+        double pointingY = waveNumber * sinTheta * sinPhi;
+        double pointingZ = waveNumber * cosTheta;
+        for (int i = 0; i < windowSize; i++) {
+            // Window direction by angle addition with the cached offset sine and cosine
+            double windowSinTheta = sinTheta * cosThetaOffset[i] + cosTheta * sinThetaOffset[i];
+            double windowCosTheta = cosTheta * cosThetaOffset[i] - sinTheta * sinThetaOffset[i];
+            double windowCosPhi = cosPhi * cosPhiOffset[i] - sinPhi * sinPhiOffset[i];
+            double windowSinPhi = sinPhi * cosPhiOffset[i] + cosPhi * sinPhiOffset[i];
+            double kx = pointingX - waveNumber * windowSinTheta * windowCosPhi;
+            double ky = pointingY - waveNumber * windowSinTheta * windowSinPhi;
+            double kz = pointingZ - waveNumber * windowCosTheta;
+            if (axisCoordinates == null) {
+                evaluateElements(i, kx, ky, kz);
+            } else {
+                evaluateAxes(i, kx, ky, kz);
+            }
+        }
+    }
+
+    /**
+     * Sum of {@code |w_n| * exp(j * (k_p - k_i) . r_n)} with a sine and cosine per element.
+     */
+    private void evaluateElements(int i, double kx, double ky, double kz) {
+        double sumReal = 0;
+        double sumImaginary = 0;
+        for (int n = 0; n < numberOfElements; n++) {
+            double phase = kx * x[n] + ky * y[n] + kz * z[n];
+            sumReal += amplitude[n] * Math.cos(phase);
+            sumImaginary += amplitude[n] * Math.sin(phase);
+        }
+        real[i] = sumReal;
+        imaginary[i] = sumImaginary;
+    }
+
+    /**
+     * Sum of {@code |w_n| * exp(j * (k_p - k_i) . r_n)} as products of per axis phasors.
+     */
+    private void evaluateAxes(int i, double kx, double ky, double kz) {
+        for (int c = 0; c < axisCoordinates.length; c++) {
+            double k = c < offsetY ? kx : c < offsetZ ? ky : kz;
+            double phase = k * axisCoordinates[c];
+            axisReal[c] = Math.cos(phase);
+            axisImaginary[c] = Math.sin(phase);
+        }
+        double sumReal = 0;
+        double sumImaginary = 0;
+        for (int n = 0; n < numberOfElements; n++) {
+            int cx = indexX[n];
+            int cy = indexY[n];
+            int cz = indexZ[n];
+            double xyReal = axisReal[cx] * axisReal[cy] - axisImaginary[cx] * axisImaginary[cy];
+            double xyImaginary = axisReal[cx] * axisImaginary[cy] + axisImaginary[cx] * axisReal[cy];
+            sumReal += amplitude[n] * (xyReal * axisReal[cz] - xyImaginary * axisImaginary[cz]);
+            sumImaginary += amplitude[n] * (xyReal * axisImaginary[cz] + xyImaginary * axisReal[cz]);
+        }
+        real[i] = sumReal;
+        imaginary[i] = sumImaginary;
+    }
+
+    /**
+     * Returns number of angles in the window.
+     * 
+     * @return window size
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Returns theta of the last evaluated pointing direction.
+     * 
+     * @return theta in radians, {@code NaN} before the first evaluation
+     */
+    public double getPointingTheta() {
+        return pointingTheta;
+    }
+
+    /**
+     * Returns phi of the last evaluated pointing direction.
+     * 
+     * @return phi in radians, {@code NaN} before the first evaluation
+     */
+    public double getPointingPhi() {
+        return pointingPhi;
+    }
+
+    /**
+     * Returns theta of a window angle of the last evaluated pointing direction.
+     * 
+     * @param index
+     *            window angle index
+     * 
+     * @return theta in radians, pointing theta plus offset
+     */
+    public double getTheta(int index) {
+        return pointingTheta + thetaOffset[index];
+    }
+
+    /**
+     * Returns phi of a window angle of the last evaluated pointing direction.
+     * 
+     * @param index
+     *            window angle index
+     * 
+     * @return phi in radians, pointing phi plus offset
+     */
+    public double getPhi(int index) {
+        return pointingPhi + phiOffset[index];
+    }
+
+    /**
+     * Returns real part of the array factor at a window angle.
+     * 
+     * @param index
+     *            window angle index
+     * 
+     * @return real part
+     */
+    public double getReal(int index) {
+        return real[index];
+    }
+
+    /**
+     * Returns imaginary part of the array factor at a window angle.
+     * 
+     * @param index
+     *            window angle index
+     * 
+     * @return imaginary part
+     */
+    public double getImaginary(int index) {
+        return imaginary[index];
+    }
+
+    /**
+     * Returns power of the array factor at a window angle.
+     * 
+     * @param index
+     *            window angle index
+     * 
+     * @return {@code |AF|^2}
+     */
+    public double getPower(int index) {
+        return real[index] * real[index] + imaginary[index] * imaginary[index];
+    }
+
+}
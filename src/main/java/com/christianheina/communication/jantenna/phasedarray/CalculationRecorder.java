@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.christianheina.communication.jantenna.phasedarray.AngleBlockExecutor.AngleBlockCalculation;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetrics;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetricsListener;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationType;
+
+/**
+ * Records {@link CalculationMetrics} of one calculation and reports them to the configured
+ * {@link CalculationMetricsListener}.<br>
+ * When the listener is {@link CalculationMetricsListener#NO_OP} the shared {@link #DISABLED} recorder is used, which
+ * neither reads the clock nor wraps calculations.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+final class CalculationRecorder {
+
+    /**
+     * Estimated bytes allocated per result sample, a primitive real and imaginary part, a {@code Complex} instance and
+     * a list reference.
+     */
+    static final long ESTIMATED_BYTES_PER_SAMPLE = 16 + 40 + 8;
+
+    private static final CalculationRecorder DISABLED = new CalculationRecorder(null, null, 0, 0);
+
+    private final CalculationMetricsListener listener;
+    private final CalculationType calculationType;
+    private final int numberOfAngles;
+    private final int numberOfElements;
+    private final long startTime;
+    private final AtomicInteger numberOfTasks = new AtomicInteger();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+    private final AtomicLong taskNanos = new AtomicLong();
+    private long setupNanos;
+    private volatile long submitTime;
+    private long assemblyStartTime;
+
+    private CalculationRecorder(CalculationMetricsListener listener, CalculationType calculationType,
+            int numberOfAngles, int numberOfElements) {
+        this.listener = listener;
+        this.calculationType = calculationType;
+        this.numberOfAngles = numberOfAngles;
+        this.numberOfElements = numberOfElements;
+        this.startTime = listener == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Start recording calculation using configured listener.
+     */
+    static CalculationRecorder start(CalculationType calculationType, int numberOfAngles, int numberOfElements) {
+        CalculationMetricsListener listener = PhasedArrayAntennaCalculationConfig.getConfig().getMetricsListener();
+        if (listener == null || listener == CalculationMetricsListener.NO_OP) {
+            return DISABLED;
+        }
+        return new CalculationRecorder(listener, calculationType, numberOfAngles, numberOfElements);
+    }
+
+    /**
+     * Mark setup as done and wrap {@code calculation} so that queue wait and task times are recorded.
+     */
+    AngleBlockCalculation record(AngleBlockCalculation calculation) {
+        if (listener == null) {
+            return calculation;
+        }
+        submitTime = System.nanoTime();
+        setupNanos = submitTime - startTime;
+        return (from, to) -> {
+            long taskStartTime = System.nanoTime();
+            queueWaitNanos.addAndGet(taskStartTime - submitTime);
+            try {
+                calculation.calculate(from, to);
+            } finally {
+                taskNanos.addAndGet(System.nanoTime() - taskStartTime);
+                numberOfTasks.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Mark start of result assembly.
+     */
+    void startAssembly() {
+        if (listener != null) {
+            assemblyStartTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Report metrics of completed calculation with {@code numberOfResults} samples.
+     */
+    void finish(long numberOfResults) {
+        finish(numberOfResults, ESTIMATED_BYTES_PER_SAMPLE);
+    }
+
+    /**
+     * Report metrics of completed calculation with {@code numberOfResults} samples of {@code bytesPerResult} bytes.
+     */
+    void finish(long numberOfResults, long bytesPerResult) {
+        if (listener == null) {
+            return;
+        }
+        long endTime = System.nanoTime();
+        listener.calculationCompleted(CalculationMetrics.newBuilder().setCalculationType(calculationType)
+                .setNumberOfAngles(numberOfAngles).setNumberOfElements(numberOfElements)
+                .setNumberOfTasks(numberOfTasks.get()).setSetupNanos(setupNanos).setQueueWaitNanos(queueWaitNanos.get())
+                .setTaskNanos(taskNanos.get()).setAssemblyNanos(endTime - assemblyStartTime)
+                .setTotalNanos(endTime - startTime).setResultBytes(numberOfResults * bytesPerResult).build());
+    }
+
+}
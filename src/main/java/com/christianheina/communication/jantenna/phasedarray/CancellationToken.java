@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token used to cancel calculations.<br>
+ * A token is cancelled either explicitly through {@link #cancel()} or when its deadline has passed. Calculations stop
+ * starting new angles once the token is cancelled and complete with the angles calculated so far.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class CancellationToken {
+
+    private final long deadline;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+
+    private CancellationToken(long deadline, boolean hasDeadline) {
+        this.deadline = deadline;
+        this.hasDeadline = hasDeadline;
+    }
+
+    /**
+     * Create token without deadline.
+     * 
+     * @return cancellation token
+     */
+    public static CancellationToken newCancellationToken() {
+        return new CancellationToken(0, false);
+    }
+
+    /**
+     * Create token with deadline.
+     * 
+     * @param timeout
+     *            time from now until the token is cancelled
+     * @param unit
+     *            unit of {@code timeout}
+     * 
+     * @return cancellation token
+     */
+    public static CancellationToken newCancellationToken(long timeout, TimeUnit unit) {
+        return new CancellationToken(System.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    /**
+     * Cancel calculations using this token.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether token is cancelled.
+     * 
+     * @return {@code true} if {@link #cancel()} has been called or the deadline has passed
+     */
+    public boolean isCancelled() {
+        if (!cancelled && hasDeadline && System.nanoTime() - deadline >= 0) {
+            cancelled = true;
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancel this token if {@code future} is cancelled.
+     */
+    void cancelWhenCancelled(CompletableFuture<?> future) {
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                cancel();
+            }
+        });
+    }
+
+}
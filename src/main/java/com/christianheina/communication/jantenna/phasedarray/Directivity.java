@@ -0,0 +1,240 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.analysis.integration.gauss.GaussIntegrator;
+import org.apache.commons.math3.analysis.integration.gauss.GaussIntegratorFactory;
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException;
+
+/**
+ * Directivity of antenna arrays with isotropic elements.<br>
+ * Directivity in a direction is {@code 4 * pi * |AF|^2} in that direction divided by the integral of {@code |AF|^2}
+ * over the sphere. The integral is calculated either by quadrature or in closed form:
+ * <ul>
+ * <li>{@link Method#QUADRATURE} integrates with Gauss-Legendre quadrature in {@code cos(theta)} and the trapezoidal
+ * rule in phi, which converges exponentially for the smooth and periodic {@code |AF|^2}. The order starts from the
+ * electrical size of the array and is doubled until the integral changes less than the tolerance. Cost is proportional
+ * to the number of elements times the number of quadrature points.</li>
+ * <li>{@link Method#ELEMENT_PAIRS} uses the closed form
+ * {@code 4 * pi * sum(w_m * conj(w_n) * sin(k * d_mn) / (k * d_mn))} over all element pairs. Exact, with cost
+ * proportional to the square of the number of elements.</li>
+ * <li>{@link Method#AUTOMATIC} chooses the cheaper of the two.</li>
+ * </ul>
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class Directivity {
+
+    /**
+     * Method used to integrate the radiated power.
+     */
+    public enum Method {
+        /**
+         * Choose the method with the lowest estimated cost.
+         */
+        AUTOMATIC,
+        /**
+         * Adaptive Gauss-Legendre times trapezoidal quadrature over the sphere.
+         */
+        QUADRATURE,
+        /**
+         * Closed form double sum over element pairs.
+         */
+        ELEMENT_PAIRS
+    }
+
+    private static final double DEFAULT_TOLERANCE = 1e-9;
+    private static final int MIN_ORDER = 8;
+    private static final int MAX_ORDER = 1 << 14;
+    private static final int ESTIMATED_QUADRATURE_ROUNDS = 3;
+    private static final GaussIntegratorFactory GAUSS_INTEGRATOR_FACTORY = new GaussIntegratorFactory();
+
+    private Directivity() {
+        /* Hidden Constructor */
+    }
+
+    /**
+     * Calculate directivity using the cheaper method.
+     *
+     * @param frequency
+     *            frequency
+     * @param antennaArray
+     *            antenna array
+     * @param direction
+     *            direction in which directivity is calculated
+     *
+     * @return directivity (linear)
+     */
+    public static double calculateDirectivity(double frequency, AntennaArray antennaArray, ThetaPhi direction) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        try {
+            return calculateDirectivity(executorService, frequency, antennaArray, direction, Method.AUTOMATIC,
+                    DEFAULT_TOLERANCE);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Calculate directivity.
+     *
+     * @param executorService
+     *            the ExecutorService used for parallel calculations. Left running when done.
+     * @param frequency
+     *            frequency
+     * @param antennaArray
+     *            antenna array
+     * @param direction
+     *            direction in which directivity is calculated
+     * @param method
+     *            method used to integrate the radiated power
+     * @param tolerance
+     *            relative tolerance of the quadrature integral. Not used by {@link Method#ELEMENT_PAIRS}.
+     *
+     * @return directivity (linear)
+     *
+     * @exception PhasedArrayAntennaException
+     *                quadrature does not converge within the maximum order.
+     */
+    public static double calculateDirectivity(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, ThetaPhi direction, Method method, double tolerance) {
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(antennaArray, Precision.DOUBLE);
+        double waveNumber = 2 * Math.PI / Util.calculateLambda(frequency);
+        double[] real = new double[1];
+        double[] imaginary = new double[1];
+        packedArray.calculateArrayFactor(waveNumber, direction.getTheta(), direction.getPhi(), real, imaginary, 0);
+        double directionPower = real[0] * real[0] + imaginary[0] * imaginary[0];
+
+        int order = calculateInitialOrder(waveNumber, antennaArray);
+        Method selectedMethod = method;
+        if (method == Method.AUTOMATIC) {
+            long pairCost = (long) packedArray.size() * (packedArray.size() + 1) / 2;
+            long quadratureCost = (long) packedArray.size() * order * 2 * order * ESTIMATED_QUADRATURE_ROUNDS;
+            selectedMethod = pairCost <= quadratureCost ? Method.ELEMENT_PAIRS : Method.QUADRATURE;
+        }
+        double integral;
+        if (selectedMethod == Method.ELEMENT_PAIRS) {
+            integral = integrateElementPairs(executorService, waveNumber, antennaArray);
+        } else {
+            integral = integrateQuadrature(executorService, waveNumber, packedArray, order, tolerance);
+        }
+        return 4 * Math.PI * directionPower / integral;
+    }
+
+    /**
+     * Initial quadrature order from the largest element separation, bounding the angular bandwidth of |AF|^2.
+     */
+    private static int calculateInitialOrder(double waveNumber, AntennaArray antennaArray) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double maxZ = Double.NEGATIVE_INFINITY;
+        for (WeightableElement element : antennaArray.getAntennaArray()) {
+            Vector3D r = element.getElementLocation();
+            minX = Math.min(minX, r.getX());
+            minY = Math.min(minY, r.getY());
+            minZ = Math.min(minZ, r.getZ());
+            maxX = Math.max(maxX, r.getX());
+            maxY = Math.max(maxY, r.getY());
+            maxZ = Math.max(maxZ, r.getZ());
+        }
+        double size = new Vector3D(maxX - minX, maxY - minY, maxZ - minZ).getNorm();
+        return Math.max(MIN_ORDER, (int) Math.ceil(waveNumber * size / 2) + MIN_ORDER);
+    }
+
+    private static double integrateQuadrature(ExecutorService executorService, double waveNumber,
+            PackedAntennaArray packedArray, int initialOrder, double tolerance) {
+        double previous = integrateQuadrature(executorService, waveNumber, packedArray, initialOrder);
+        for (int order = initialOrder * 2; order <= MAX_ORDER; order *= 2) {
+            double integral = integrateQuadrature(executorService, waveNumber, packedArray, order);
+            if (Math.abs(integral - previous) <= tolerance * Math.abs(integral)) {
+                return integral;
+            }
+            previous = integral;
+        }
+        throw new PhasedArrayAntennaException(
+                "Directivity quadrature did not converge within order " + MAX_ORDER + ".");
+    }
+
+    /**
+     * Integrate |AF|^2 over the sphere with {@code order} Gauss-Legendre nodes in cos(theta) and {@code 2 * order}
+     * trapezoidal nodes in phi.
+     */
+    private static double integrateQuadrature(ExecutorService executorService, double waveNumber,
+            PackedAntennaArray packedArray, int order) {
+        GaussIntegrator gaussIntegrator = GAUSS_INTEGRATOR_FACTORY.legendre(order, -1, 1);
+        int phiPoints = 2 * order;
+        double phiWeight = 2 * Math.PI / phiPoints;
+        int numberOfPoints = order * phiPoints;
+        return AngleBlockExecutor.reduceAndKeepRunning(executorService, numberOfPoints, 0, (from, to) -> {
+            double[] real = new double[1];
+            double[] imaginary = new double[1];
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                int thetaIndex = i / phiPoints;
+                double theta = Math.acos(gaussIntegrator.getPoint(thetaIndex));
+                double phi = (i % phiPoints) * phiWeight;
+                packedArray.calculateArrayFactor(waveNumber, theta, phi, real, imaginary, 0);
+                sum += gaussIntegrator.getWeight(thetaIndex) * (real[0] * real[0] + imaginary[0] * imaginary[0]);
+            }
+            return sum * phiWeight;
+        }, Double::sum);
+    }
+
+    private static double integrateElementPairs(ExecutorService executorService, double waveNumber,
+            AntennaArray antennaArray) {
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        int size = elements.length;
+        double[] rowSums = new double[size];
+        AngleBlockExecutor.calculateAndKeepRunning(executorService, size, (from, to) -> {
+            for (int m = from; m < to; m++) {
+                Vector3D rm = elements[m].getElementLocation();
+                Complex wm = elements[m].getElementWeight();
+                double sum = wm.getReal() * wm.getReal() + wm.getImaginary() * wm.getImaginary();
+                for (int n = m + 1; n < size; n++) {
+                    Complex wn = elements[n].getElementWeight();
+                    // Re(w_m * conj(w_n)), counted twice for the (n, m) pair
+                    double product = wm.getReal() * wn.getReal() + wm.getImaginary() * wn.getImaginary();
+                    double kd = waveNumber * rm.distance(elements[n].getElementLocation());
+                    double sinc = kd == 0 ? 1 : Math.sin(kd) / kd;
+                    sum += 2 * product * sinc;
+                }
+                rowSums[m] = sum;
+            }
+        });
+        double integral = 0;
+        for (double rowSum : rowSums) {
+            integral += rowSum;
+        }
+        return 4 * Math.PI * integral;
+    }
+
+}
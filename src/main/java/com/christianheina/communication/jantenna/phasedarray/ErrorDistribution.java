@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.SplittableRandom;
+
+/**
+ * Distribution of a random error used by {@link ToleranceAnalysis}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public interface ErrorDistribution {
+
+    /**
+     * Draw an error.
+     * 
+     * @param random
+     *            random number stream of the current realisation
+     * 
+     * @return error
+     */
+    double sample(SplittableRandom random);
+
+    /**
+     * Create distribution without error.
+     * 
+     * @return distribution always returning zero without consuming random numbers
+     */
+    public static ErrorDistribution none() {
+        return random -> 0;
+    }
+
+    /**
+     * Create zero mean normal distribution.
+     * 
+     * @param standardDeviation
+     *            standard deviation
+     * 
+     * @return new instance
+     */
+    public static ErrorDistribution gaussian(double standardDeviation) {
+        return random -> {
+            // Box-Muller transform, 1 - nextDouble() is in (0, 1] so the logarithm is finite
+            double radius = Math.sqrt(-2 * Math.log(1 - random.nextDouble()));
+            return standardDeviation * radius * Math.cos(2 * Math.PI * random.nextDouble());
+        };
+    }
+
+    /**
+     * Create zero mean uniform distribution.
+     * 
+     * @param halfWidth
+     *            largest error magnitude
+     * 
+     * @return new instance
+     */
+    public static ErrorDistribution uniform(double halfWidth) {
+        return random -> halfWidth * (2 * random.nextDouble() - 1);
+    }
+
+}
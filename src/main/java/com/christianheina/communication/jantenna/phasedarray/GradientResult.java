@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+/**
+ * Objective value, array factor and gradient calculated by {@link ArrayFactorGradient}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class GradientResult {
+
+    private final double objective;
+    private final PatternResult arrayFactor;
+    private final double[] weightGradientReal;
+    private final double[] weightGradientImaginary;
+    private final double[] positionGradient;
+
+    GradientResult(double objective, PatternResult arrayFactor, double[] weightGradientReal,
+            double[] weightGradientImaginary, double[] positionGradient) {
+        this.objective = objective;
+        this.arrayFactor = arrayFactor;
+        this.weightGradientReal = weightGradientReal;
+        this.weightGradientImaginary = weightGradientImaginary;
+        this.positionGradient = positionGradient;
+    }
+
+    /**
+     * Returns objective value.
+     * 
+     * @return objective
+     */
+    public double getObjective() {
+        return objective;
+    }
+
+    /**
+     * Returns array factor at the angles of the objective.
+     * 
+     * @return array factor
+     */
+    public PatternResult getArrayFactor() {
+        return arrayFactor;
+    }
+
+    /**
+     * Returns number of elements.
+     * 
+     * @return number of elements
+     */
+    public int getNumberOfElements() {
+        return weightGradientReal.length;
+    }
+
+    /**
+     * Returns gradient with respect to the weight of an element.<br>
+     * The real part is the derivative with respect to the real part of the weight and the imaginary part the derivative
+     * with respect to the imaginary part, so that {@code w - step * gradient} is a steepest descent step.
+     * 
+     * @param elementIndex
+     *            element index
+     * 
+     * @return gradient with respect to weight
+     */
+    public Complex getWeightGradient(int elementIndex) {
+        return new Complex(weightGradientReal[elementIndex], weightGradientImaginary[elementIndex]);
+    }
+
+    /**
+     * Returns whether the gradient with respect to element positions was calculated.
+     * 
+     * @return {@code true} if position gradient is available
+     */
+    public boolean hasPositionGradient() {
+        return positionGradient != null;
+    }
+
+    /**
+     * Returns gradient with respect to the location of an element.
+     * 
+     * @param elementIndex
+     *            element index
+     * 
+     * @return gradient with respect to location, per meter
+     * 
+     * @exception IllegalStateException
+     *                if the position gradient was not calculated
+     */
+    public Vector3D getPositionGradient(int elementIndex) {
+        if (positionGradient == null) {
+            throw new IllegalStateException("Position gradient was not calculated.");
+        }
+        return new Vector3D(positionGradient[3 * elementIndex], positionGradient[3 * elementIndex + 1],
+                positionGradient[3 * elementIndex + 2]);
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+
+import com.christianheina.common.utilities.constants.Constants;
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.FieldType;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationType;
+
+/**
+ * Near field functionality.<br>
+ * The near field of isotropic elements at observation point {@code r} is {@code sum(w_n * exp(j * k * |r - r_n|) /
+ * |r - r_n|)}, using spherical wave phase and amplitude instead of the plane wave approximation of {@link ArrayFactor}.
+ * Far from the array, {@code R * exp(-j * k * R)} times the near field at distance {@code R} approaches the array
+ * factor.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class NearField {
+
+    private NearField() {
+        /* Hidden Constructor */
+    }
+
+    /**
+     * Create near field on sphere centred in origin
+     * 
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating near field
+     * @param radius
+     *            radius of sphere in meters
+     * @param angles
+     *            angles used in the created near field
+     * 
+     * @return a field containing the near field
+     */
+    public static Field newNearFieldAsync(double frequency, AntennaArray antennaArray, double radius,
+            List<ThetaPhi> angles) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        return newNearFieldAsync(executorService, frequency, antennaArray, radius, angles);
+    }
+
+    /**
+     * Create near field on sphere centred in origin
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous near field calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating near field
+     * @param radius
+     *            radius of sphere in meters
+     * @param angles
+     *            angles used in the created near field
+     * 
+     * @return a field containing the near field
+     */
+    public static Field newNearFieldAsync(ExecutorService executorService, double frequency, AntennaArray antennaArray,
+            double radius, List<ThetaPhi> angles) {
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.NEAR_FIELD, angles.size(),
+                antennaArray.getAntennaArray().length);
+        ObservationPoints points = ObservationPoints.newSphericalSurface(radius, angles);
+        double waveNumber = 2 * Math.PI * frequency / Constants.VACUUM_SPEED_OF_LIGHT;
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(antennaArray.getAntennaArray(), Precision.DOUBLE);
+        double[] real = new double[points.size()];
+        double[] imaginary = new double[points.size()];
+        AngleBlockExecutor.calculate(executorService, points.size(), recorder.record(
+                (from, to) -> packedArray.calculateNearField(waveNumber, points, from, to, real, imaginary, from)));
+        recorder.startAssembly();
+        List<Complex> fieldDataList = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            fieldDataList.add(new Complex(real[i], imaginary[i]));
+        }
+
+        Field nearField = Field.newBuilder().setThetaPhiList(angles)
+                .addElectricField(ElectricField.RELATIVE_GAIN, fieldDataList).setFreqency(frequency)
+                .setFieldType(FieldType.NEARFIELD).build();
+        recorder.finish(fieldDataList.size());
+        return nearField;
+    }
+
+    /**
+     * Calculate near field at observation points and stream it block by block to {@code sink} without building a
+     * {@link Field}.
+     * 
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when calculating near field
+     * @param points
+     *            observation points
+     * @param sink
+     *            sink receiving the calculated near field
+     */
+    public static void streamNearFieldAsync(double frequency, AntennaArray antennaArray, ObservationPoints points,
+            NearFieldSink sink) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        streamNearFieldAsync(executorService, frequency, antennaArray, points, sink);
+    }
+
+    /**
+     * Calculate near field at observation points and stream it block by block to {@code sink} without building a
+     * {@link Field}.<br>
+     * Only memory for the blocks currently being calculated is allocated, so planar or spherical scan surfaces with
+     * millions of points can be evaluated. Calculations are made in double precision.
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous near field calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when calculating near field
+     * @param points
+     *            observation points
+     * @param sink
+     *            sink receiving the calculated near field
+     */
+    public static void streamNearFieldAsync(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, ObservationPoints points, NearFieldSink sink) {
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.NEAR_FIELD, points.size(),
+                antennaArray.getAntennaArray().length);
+        double waveNumber = 2 * Math.PI * frequency / Constants.VACUUM_SPEED_OF_LIGHT;
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(antennaArray.getAntennaArray(), Precision.DOUBLE);
+        AngleBlockExecutor.calculate(executorService, points.size(), recorder.record((from, to) -> {
+            double[] real = new double[to - from];
+            double[] imaginary = new double[to - from];
+            packedArray.calculateNearField(waveNumber, points, from, to, real, imaginary, 0);
+            sink.accept(points, from, to, real, imaginary);
+        }));
+        recorder.startAssembly();
+        // Streamed samples are handed to the sink and not kept
+        recorder.finish(points.size(), 0);
+    }
+
+}
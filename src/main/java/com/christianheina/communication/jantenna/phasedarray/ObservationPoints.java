@@ -0,0 +1,181 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+
+/**
+ * Observation points of near field calculations.<br>
+ * Coordinates are stored in primitive arrays so that surfaces with millions of points can be described without
+ * allocating a {@link Vector3D} per point.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class ObservationPoints {
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+
+    private ObservationPoints(int size) {
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+    }
+
+    /**
+     * Create observation points from list of points.
+     * 
+     * @param pointList
+     *            points in meters
+     * 
+     * @return observation points
+     */
+    public static ObservationPoints fromPoints(List<Vector3D> pointList) {
+        ObservationPoints points = new ObservationPoints(pointList.size());
+        for (int i = 0; i < pointList.size(); i++) {
+            Vector3D point = pointList.get(i);
+            points.x[i] = point.getX();
+            points.y[i] = point.getY();
+            points.z[i] = point.getZ();
+        }
+        return points;
+    }
+
+    /**
+     * Create planar scan surface.<br>
+     * Point {@code (i, j)} is located at {@code origin + i * firstStep + j * secondStep} and is stored at index
+     * {@code i * secondCount + j}.
+     * 
+     * @param origin
+     *            location of first point in meters
+     * @param firstStep
+     *            distance between points along first direction of the plane in meters
+     * @param firstCount
+     *            number of points along first direction
+     * @param secondStep
+     *            distance between points along second direction of the plane in meters
+     * @param secondCount
+     *            number of points along second direction
+     * 
+     * @return observation points
+     * 
+     * @exception IllegalArgumentException
+     *                number of points is negative.
+     */
+    public static ObservationPoints newPlanarSurface(Vector3D origin, Vector3D firstStep, int firstCount,
+            Vector3D secondStep, int secondCount) {
+        if (firstCount < 0 || secondCount < 0) {
+            throw new IllegalArgumentException("Number of points must not be negative.");
+        }
+        ObservationPoints points = new ObservationPoints(Math.multiplyExact(firstCount, secondCount));
+        int index = 0;
+        for (int i = 0; i < firstCount; i++) {
+            for (int j = 0; j < secondCount; j++) {
+                points.x[index] = origin.getX() + i * firstStep.getX() + j * secondStep.getX();
+                points.y[index] = origin.getY() + i * firstStep.getY() + j * secondStep.getY();
+                points.z[index] = origin.getZ() + i * firstStep.getZ() + j * secondStep.getZ();
+                index++;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Create spherical scan surface centred in origin.
+     * 
+     * @param radius
+     *            radius of sphere in meters
+     * @param angles
+     *            directions of points, point {@code i} is located in direction {@code angles.get(i)}
+     * 
+     * @return observation points
+     */
+    public static ObservationPoints newSphericalSurface(double radius, List<ThetaPhi> angles) {
+        ObservationPoints points = new ObservationPoints(angles.size());
+        for (int i = 0; i < angles.size(); i++) {
+            ThetaPhi angle = angles.get(i);
+            double sinTheta = Math.sin(angle.getTheta());
+            points.x[i] = radius * sinTheta * Math.cos(angle.getPhi());
+            points.y[i] = radius * sinTheta * Math.sin(angle.getPhi());
+            points.z[i] = radius * Math.cos(angle.getTheta());
+        }
+        return points;
+    }
+
+    /**
+     * Returns number of points.
+     * 
+     * @return number of points
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * Returns x coordinate of point.
+     * 
+     * @param index
+     *            index of point
+     * 
+     * @return x coordinate in meters
+     */
+    public double getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Returns y coordinate of point.
+     * 
+     * @param index
+     *            index of point
+     * 
+     * @return y coordinate in meters
+     */
+    public double getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Returns z coordinate of point.
+     * 
+     * @param index
+     *            index of point
+     * 
+     * @return z coordinate in meters
+     */
+    public double getZ(int index) {
+        return z[index];
+    }
+
+    /**
+     * Returns point.
+     * 
+     * @param index
+     *            index of point
+     * 
+     * @return point in meters
+     */
+    public Vector3D getPoint(int index) {
+        return new Vector3D(x[index], y[index], z[index]);
+    }
+
+}
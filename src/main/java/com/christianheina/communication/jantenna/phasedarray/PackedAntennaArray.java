@@ -0,0 +1,541 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+
+/**
+ * Element locations and weights of an {@link AntennaArray} packed into primitive arrays.<br>
+ * Used by calculation kernels to avoid allocating {@link Complex} and {@link Vector3D} instances per element.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+final class PackedAntennaArray {
+
+    private static final int POINT_TILE_SIZE = 64;
+    private static final int ELEMENT_TILE_SIZE = 512;
+    /**
+     * Elements are grouped by weight when there are at least this many elements per distinct weight on average.
+     */
+    private static final int MIN_ELEMENTS_PER_GROUP = 4;
+    /**
+     * Phasor tables are used when there are at least this many elements per distinct coordinate on average.
+     */
+    private static final int MIN_ELEMENTS_PER_COORDINATE = 2;
+
+    /**
+     * Per thread phasor tables for cosine and sine along each axis, grown to the largest array used on the thread.
+     */
+    private static final ThreadLocal<double[][]> PHASOR_TABLES = ThreadLocal.withInitial(() -> new double[6][0]);
+
+    /*
+     * Single precision phases are reduced by quarter turns against pi / 2 split in a high and low part, then the
+     * remainder in [-pi / 4, pi / 4] is evaluated by Taylor polynomials accurate to single precision.
+     */
+    private static final float TWO_OVER_PI = (float) (2 / Math.PI);
+    private static final float HALF_PI_HIGH = (float) (Math.PI / 2);
+    private static final float HALF_PI_LOW = (float) (Math.PI / 2 - HALF_PI_HIGH);
+    private static final float SIN_3 = -1f / 6;
+    private static final float SIN_5 = 1f / 120;
+    private static final float SIN_7 = -1f / 5040;
+    private static final float COS_2 = -1f / 2;
+    private static final float COS_4 = 1f / 24;
+    private static final float COS_6 = -1f / 720;
+    private static final float COS_8 = 1f / 40320;
+
+    private final int size;
+
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private double[] weightReal;
+    private double[] weightImaginary;
+
+    /**
+     * Distinct element coordinates along each axis and the index of the coordinate of every element into them.
+     * {@code null} when there are too many distinct coordinates for phasor tables to pay off.
+     */
+    private double[] xValues;
+    private double[] yValues;
+    private double[] zValues;
+    private int[] xIndex;
+    private int[] yIndex;
+    private int[] zIndex;
+
+    /**
+     * Start of every group of elements sharing a weight, followed by the number of elements. {@code null} when elements
+     * are not grouped.
+     */
+    private int[] groupOffsets;
+    private double[] groupWeightReal;
+    private double[] groupWeightImaginary;
+
+    private float[] xFloat;
+    private float[] yFloat;
+    private float[] zFloat;
+    private float[] weightRealFloat;
+    private float[] weightImaginaryFloat;
+
+    private PackedAntennaArray(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Pack elements of {@code antennaArray}, grouped by weight if the array has quantized weights.
+     */
+    static PackedAntennaArray pack(AntennaArray antennaArray, Precision precision) {
+        return pack(antennaArray.getAntennaArray(), precision, antennaArray.hasQuantizedWeights());
+    }
+
+    static PackedAntennaArray pack(WeightableElement[] elements, Precision precision) {
+        return pack(elements, precision, false);
+    }
+
+    /**
+     * Pack elements. In double precision elements with identical weights are grouped if {@code groupByWeight} is set
+     * and phasor tables are used, which pays off when weights take few distinct values such as quantized weights.
+     */
+    static PackedAntennaArray pack(WeightableElement[] elements, Precision precision, boolean groupByWeight) {
+        PackedAntennaArray packedArray = new PackedAntennaArray(elements.length);
+        if (precision == Precision.FLOAT) {
+            packedArray.packFloat(elements);
+        } else {
+            packedArray.packDouble(elements);
+            packedArray.indexCoordinates();
+            if (groupByWeight && packedArray.xIndex != null) {
+                packedArray.groupByWeight();
+            }
+        }
+        return packedArray;
+    }
+
+    private void packDouble(WeightableElement[] elements) {
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+        weightReal = new double[size];
+        weightImaginary = new double[size];
+        for (int i = 0; i < size; i++) {
+            Vector3D r = elements[i].getElementLocation();
+            Complex weight = elements[i].getElementWeight();
+            x[i] = r.getX();
+            y[i] = r.getY();
+            z[i] = r.getZ();
+            weightReal[i] = weight.getReal();
+            weightImaginary[i] = weight.getImaginary();
+        }
+    }
+
+    /**
+     * Index the coordinates of the elements along each axis, if they take few distinct values such as for elements on a
+     * lattice. The phase of every element then factors into one phasor per axis, and the array factor kernel calculates
+     * one phasor per distinct coordinate instead of one per element.
+     */
+    private void indexCoordinates() {
+        int maxValues = size / MIN_ELEMENTS_PER_COORDINATE;
+        double[] values = new double[maxValues];
+        int[] index = new int[size];
+        int numberOfX = indexDistinct(x, values, 0, maxValues, index);
+        if (numberOfX < 0) {
+            return;
+        }
+        xIndex = index.clone();
+        int numberOfY = indexDistinct(y, values, numberOfX, maxValues, index);
+        if (numberOfY < 0) {
+            xIndex = null;
+            return;
+        }
+        yIndex = index.clone();
+        int numberOfZ = indexDistinct(z, values, numberOfX + numberOfY, maxValues, index);
+        if (numberOfZ < 0) {
+            xIndex = null;
+            yIndex = null;
+            return;
+        }
+        zIndex = index;
+        xValues = Arrays.copyOfRange(values, 0, numberOfX);
+        yValues = Arrays.copyOfRange(values, numberOfX, numberOfX + numberOfY);
+        zValues = Arrays.copyOfRange(values, numberOfX + numberOfY, numberOfX + numberOfY + numberOfZ);
+    }
+
+    /**
+     * Store the distinct values of {@code values} in {@code distinct} from {@code from} and the index of every value
+     * relative to {@code from} in {@code index}. Values are compared by bit pattern in an open addressing table that is
+     * never more than half full.
+     * 
+     * @return number of distinct values, -1 if {@code distinct} is filled up to {@code to}.
+     */
+    private static int indexDistinct(double[] values, double[] distinct, int from, int to, int[] index) {
+        int mask = (Integer.highestOneBit(Math.max(to - from, 1)) << 2) - 1;
+        long[] tableBits = new long[mask + 1];
+        int[] tableIndex = new int[mask + 1];
+        Arrays.fill(tableIndex, -1);
+        int numberOfValues = 0;
+        for (int i = 0; i < values.length; i++) {
+            long bits = Double.doubleToLongBits(values[i]);
+            int slot = hash(bits, 0) & mask;
+            while (tableIndex[slot] >= 0 && tableBits[slot] != bits) {
+                slot = (slot + 1) & mask;
+            }
+            if (tableIndex[slot] < 0) {
+                if (from + numberOfValues == to) {
+                    return -1;
+                }
+                tableBits[slot] = bits;
+                tableIndex[slot] = numberOfValues;
+                distinct[from + numberOfValues++] = values[i];
+            }
+            index[i] = tableIndex[slot];
+        }
+        return numberOfValues;
+    }
+
+    /**
+     * Reorder elements so that elements with bitwise identical weights are adjacent, if weights take few distinct
+     * values. The phasor table kernel then sums the phasors of a group and applies the group weight once. Weights are
+     * looked up in an open addressing table keyed on their bit patterns, which is never more than half full.
+     */
+    private void groupByWeight() {
+        int maxGroups = size / MIN_ELEMENTS_PER_GROUP;
+        if (maxGroups == 0) {
+            return;
+        }
+        int mask = (Integer.highestOneBit(maxGroups) << 2) - 1;
+        long[] tableReal = new long[mask + 1];
+        long[] tableImaginary = new long[mask + 1];
+        int[] tableGroup = new int[mask + 1];
+        Arrays.fill(tableGroup, -1);
+        int[] groupOfElement = new int[size];
+        int numberOfGroups = 0;
+        for (int i = 0; i < size; i++) {
+            long real = Double.doubleToLongBits(weightReal[i]);
+            long imaginary = Double.doubleToLongBits(weightImaginary[i]);
+            int slot = hash(real, imaginary) & mask;
+            while (tableGroup[slot] >= 0 && (tableReal[slot] != real || tableImaginary[slot] != imaginary)) {
+                slot = (slot + 1) & mask;
+            }
+            if (tableGroup[slot] < 0) {
+                if (numberOfGroups == maxGroups) {
+                    return;
+                }
+                tableReal[slot] = real;
+                tableImaginary[slot] = imaginary;
+                tableGroup[slot] = numberOfGroups++;
+            }
+            groupOfElement[i] = tableGroup[slot];
+        }
+        groupOffsets = new int[numberOfGroups + 1];
+        for (int i = 0; i < size; i++) {
+            groupOffsets[groupOfElement[i] + 1]++;
+        }
+        for (int group = 0; group < numberOfGroups; group++) {
+            groupOffsets[group + 1] += groupOffsets[group];
+        }
+        groupWeightReal = new double[numberOfGroups];
+        groupWeightImaginary = new double[numberOfGroups];
+        int[] order = new int[size];
+        int[] next = Arrays.copyOf(groupOffsets, numberOfGroups);
+        for (int i = 0; i < size; i++) {
+            int group = groupOfElement[i];
+            groupWeightReal[group] = weightReal[i];
+            groupWeightImaginary[group] = weightImaginary[i];
+            order[next[group]++] = i;
+        }
+        for (int group = 0; group < numberOfGroups; group++) {
+            Arrays.fill(weightReal, groupOffsets[group], groupOffsets[group + 1], groupWeightReal[group]);
+            Arrays.fill(weightImaginary, groupOffsets[group], groupOffsets[group + 1], groupWeightImaginary[group]);
+        }
+        x = reorder(x, order);
+        y = reorder(y, order);
+        z = reorder(z, order);
+        xIndex = reorder(xIndex, order);
+        yIndex = reorder(yIndex, order);
+        zIndex = reorder(zIndex, order);
+    }
+
+    private static double[] reorder(double[] values, int[] order) {
+        double[] reordered = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            reordered[i] = values[order[i]];
+        }
+        return reordered;
+    }
+
+    private static int[] reorder(int[] values, int[] order) {
+        int[] reordered = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            reordered[i] = values[order[i]];
+        }
+        return reordered;
+    }
+
+    private static int hash(long real, long imaginary) {
+        long hash = real * 31 + imaginary;
+        int folded = (int) (hash ^ (hash >>> 32));
+        return folded ^ (folded >>> 16);
+    }
+
+    private void packFloat(WeightableElement[] elements) {
+        xFloat = new float[size];
+        yFloat = new float[size];
+        zFloat = new float[size];
+        weightRealFloat = new float[size];
+        weightImaginaryFloat = new float[size];
+        for (int i = 0; i < size; i++) {
+            Vector3D r = elements[i].getElementLocation();
+            Complex weight = elements[i].getElementWeight();
+            xFloat[i] = (float) r.getX();
+            yFloat[i] = (float) r.getY();
+            zFloat[i] = (float) r.getZ();
+            weightRealFloat[i] = (float) weight.getReal();
+            weightImaginaryFloat[i] = (float) weight.getImaginary();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Whether the array factor for a range of angles is calculated from phasor tables of the element coordinates.
+     */
+    boolean hasPhasorTables() {
+        return xIndex != null;
+    }
+
+    /**
+     * Number of groups of elements sharing a weight, 0 if elements are not grouped.
+     */
+    int getNumberOfWeightGroups() {
+        return groupOffsets == null ? 0 : groupOffsets.length - 1;
+    }
+
+    /**
+     * Calculate array factor for angles {@code from} (inclusive) to {@code to} (exclusive) in double precision. The
+     * result for angle {@code from} is stored at index {@code offset}.
+     */
+    void calculateArrayFactor(double lambda, List<ThetaPhi> angles, int from, int to, double[] real, double[] imaginary,
+            int offset) {
+        double waveNumber = 2 * Math.PI / lambda;
+        if (xIndex == null) {
+            for (int i = from; i < to; i++) {
+                ThetaPhi angle = angles.get(i);
+                calculateArrayFactor(waveNumber, angle.getTheta(), angle.getPhi(), real, imaginary, offset + i - from);
+            }
+            return;
+        }
+        double[][] phasorTables = PHASOR_TABLES.get();
+        double[] xCos = phasorTable(phasorTables, 0, xValues.length);
+        double[] xSin = phasorTable(phasorTables, 1, xValues.length);
+        double[] yCos = phasorTable(phasorTables, 2, yValues.length);
+        double[] ySin = phasorTable(phasorTables, 3, yValues.length);
+        double[] zCos = phasorTable(phasorTables, 4, zValues.length);
+        double[] zSin = phasorTable(phasorTables, 5, zValues.length);
+        for (int i = from; i < to; i++) {
+            ThetaPhi angle = angles.get(i);
+            double sinTheta = Math.sin(angle.getTheta());
+            fillPhasorTable(waveNumber * sinTheta * Math.cos(angle.getPhi()), xValues, xCos, xSin);
+            fillPhasorTable(waveNumber * sinTheta * Math.sin(angle.getPhi()), yValues, yCos, ySin);
+            fillPhasorTable(waveNumber * Math.cos(angle.getTheta()), zValues, zCos, zSin);
+            double sumReal = 0;
+            double sumImaginary = 0;
+            if (groupOffsets != null) {
+                for (int group = 0; group < groupWeightReal.length; group++) {
+                    double phasorReal = 0;
+                    double phasorImaginary = 0;
+                    for (int n = groupOffsets[group]; n < groupOffsets[group + 1]; n++) {
+                        int xn = xIndex[n];
+                        int yn = yIndex[n];
+                        int zn = zIndex[n];
+                        double xyReal = xCos[xn] * yCos[yn] - xSin[xn] * ySin[yn];
+                        double xyImaginary = xCos[xn] * ySin[yn] + xSin[xn] * yCos[yn];
+                        phasorReal += xyReal * zCos[zn] - xyImaginary * zSin[zn];
+                        phasorImaginary += xyReal * zSin[zn] + xyImaginary * zCos[zn];
+                    }
+                    sumReal += groupWeightReal[group] * phasorReal - groupWeightImaginary[group] * phasorImaginary;
+                    sumImaginary += groupWeightReal[group] * phasorImaginary + groupWeightImaginary[group] * phasorReal;
+                }
+            } else {
+                for (int n = 0; n < size; n++) {
+                    int xn = xIndex[n];
+                    int yn = yIndex[n];
+                    int zn = zIndex[n];
+                    double xyReal = xCos[xn] * yCos[yn] - xSin[xn] * ySin[yn];
+                    double xyImaginary = xCos[xn] * ySin[yn] + xSin[xn] * yCos[yn];
+                    double cos = xyReal * zCos[zn] - xyImaginary * zSin[zn];
+                    double sin = xyReal * zSin[zn] + xyImaginary * zCos[zn];
+                    sumReal += weightReal[n] * cos - weightImaginary[n] * sin;
+                    sumImaginary += weightReal[n] * sin + weightImaginary[n] * cos;
+                }
+            }
+            real[offset + i - from] = sumReal;
+            imaginary[offset + i - from] = sumImaginary;
+        }
+    }
+
+    private static double[] phasorTable(double[][] phasorTables, int table, int length) {
+        if (phasorTables[table].length < length) {
+            phasorTables[table] = new double[length];
+        }
+        return phasorTables[table];
+    }
+
+    private static void fillPhasorTable(double k, double[] values, double[] cos, double[] sin) {
+        for (int u = 0; u < values.length; u++) {
+            double phase = -k * values[u];
+            cos[u] = Math.cos(phase);
+            sin[u] = Math.sin(phase);
+        }
+    }
+
+    /**
+     * Calculate array factor for a single direction in double precision and store it at {@code index}.
+     */
+    void calculateArrayFactor(double waveNumber, double theta, double phi, double[] real, double[] imaginary,
+            int index) {
+        double sinTheta = Math.sin(theta);
+        double kx = waveNumber * sinTheta * Math.cos(phi);
+        double ky = waveNumber * sinTheta * Math.sin(phi);
+        double kz = waveNumber * Math.cos(theta);
+        double sumReal = 0;
+        double sumImaginary = 0;
+        for (int n = 0; n < size; n++) {
+            double phase = -(kx * x[n] + ky * y[n] + kz * z[n]);
+            double cos = Math.cos(phase);
+            double sin = Math.sin(phase);
+            sumReal += weightReal[n] * cos - weightImaginary[n] * sin;
+            sumImaginary += weightReal[n] * sin + weightImaginary[n] * cos;
+        }
+        real[index] = sumReal;
+        imaginary[index] = sumImaginary;
+    }
+
+    /**
+     * Calculate near field at observation points {@code from} (inclusive) to {@code to} (exclusive) in double
+     * precision. The result for point {@code from} is stored at index {@code offset}. Points and elements are processed
+     * in tiles so that the element data of a tile stays in cache while it is applied to every point of the point tile.
+     */
+    void calculateNearField(double waveNumber, ObservationPoints points, int from, int to, double[] real,
+            double[] imaginary, int offset) {
+        for (int i = offset; i < offset + to - from; i++) {
+            real[i] = 0;
+            imaginary[i] = 0;
+        }
+        for (int pointTileFrom = from; pointTileFrom < to; pointTileFrom += POINT_TILE_SIZE) {
+            int pointTileTo = Math.min(pointTileFrom + POINT_TILE_SIZE, to);
+            for (int elementTileFrom = 0; elementTileFrom < size; elementTileFrom += ELEMENT_TILE_SIZE) {
+                int elementTileTo = Math.min(elementTileFrom + ELEMENT_TILE_SIZE, size);
+                for (int i = pointTileFrom; i < pointTileTo; i++) {
+                    double px = points.getX(i);
+                    double py = points.getY(i);
+                    double pz = points.getZ(i);
+                    double sumReal = 0;
+                    double sumImaginary = 0;
+                    for (int n = elementTileFrom; n < elementTileTo; n++) {
+                        double dx = px - x[n];
+                        double dy = py - y[n];
+                        double dz = pz - z[n];
+                        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                        double phase = waveNumber * distance;
+                        double cos = Math.cos(phase) / distance;
+                        double sin = Math.sin(phase) / distance;
+                        sumReal += weightReal[n] * cos - weightImaginary[n] * sin;
+                        sumImaginary += weightReal[n] * sin + weightImaginary[n] * cos;
+                    }
+                    real[offset + i - from] += sumReal;
+                    imaginary[offset + i - from] += sumImaginary;
+                }
+            }
+        }
+    }
+
+    /**
+     * Diagonal of the bounding box of the element locations, independent of where the array is placed.
+     */
+    double calculateApertureSize() {
+        if (size == 0) {
+            return 0;
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double maxZ = Double.NEGATIVE_INFINITY;
+        for (int n = 0; n < size; n++) {
+            minX = Math.min(minX, x[n]);
+            minY = Math.min(minY, y[n]);
+            minZ = Math.min(minZ, z[n]);
+            maxX = Math.max(maxX, x[n]);
+            maxY = Math.max(maxY, y[n]);
+            maxZ = Math.max(maxZ, z[n]);
+        }
+        double sizeX = maxX - minX;
+        double sizeY = maxY - minY;
+        double sizeZ = maxZ - minZ;
+        return Math.sqrt(sizeX * sizeX + sizeY * sizeY + sizeZ * sizeZ);
+    }
+
+    /**
+     * Calculate array factor for angles {@code from} (inclusive) to {@code to} (exclusive) in single precision,
+     * including the sine and cosine of each element phase. The result for angle {@code from} is stored at index
+     * {@code offset}.
+     */
+    void calculateArrayFactor(double lambda, List<ThetaPhi> angles, int from, int to, float[] real, float[] imaginary,
+            int offset) {
+        double waveNumber = 2 * Math.PI / lambda;
+        for (int i = from; i < to; i++) {
+            ThetaPhi angle = angles.get(i);
+            double sinTheta = Math.sin(angle.getTheta());
+            float kx = (float) (waveNumber * sinTheta * Math.cos(angle.getPhi()));
+            float ky = (float) (waveNumber * sinTheta * Math.sin(angle.getPhi()));
+            float kz = (float) (waveNumber * Math.cos(angle.getTheta()));
+            float sumReal = 0;
+            float sumImaginary = 0;
+            for (int n = 0; n < size; n++) {
+                float phase = -(kx * xFloat[n] + ky * yFloat[n] + kz * zFloat[n]);
+                int quarterTurns = Math.round(phase * TWO_OVER_PI);
+                float remainder = phase - quarterTurns * HALF_PI_HIGH - quarterTurns * HALF_PI_LOW;
+                float square = remainder * remainder;
+                float cos = 1 + square * (COS_2 + square * (COS_4 + square * (COS_6 + square * COS_8)));
+                float sin = remainder + remainder * square * (SIN_3 + square * (SIN_5 + square * SIN_7));
+                if ((quarterTurns & 1) != 0) {
+                    float swap = cos;
+                    cos = -sin;
+                    sin = swap;
+                }
+                if ((quarterTurns & 2) != 0) {
+                    cos = -cos;
+                    sin = -sin;
+                }
+                sumReal += weightRealFloat[n] * cos - weightImaginaryFloat[n] * sin;
+                sumImaginary += weightRealFloat[n] * sin + weightImaginaryFloat[n] * cos;
+            }
+            real[offset + i - from] = sumReal;
+            imaginary[offset + i - from] = sumImaginary;
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.BitSet;
+
+import com.christianheina.communication.jantenna.commons.Field;
+
+/**
+ * Result of a calculation that may have been cancelled before all angles were calculated.<br>
+ * Angles that were not calculated contain {@link org.apache.commons.math3.complex.Complex#NaN Complex.NaN} in the
+ * field.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class PartialField {
+
+    private final Field field;
+    private final BitSet coverage;
+
+    PartialField(Field field, BitSet coverage) {
+        this.field = field;
+        this.coverage = coverage;
+    }
+
+    /**
+     * Returns field containing calculated angles.
+     * 
+     * @return field
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns which angles were calculated.
+     * 
+     * @return copy of coverage mask where bit {@code i} is set if angle {@code i} of the field was calculated
+     */
+    public BitSet getCoverage() {
+        return (BitSet) coverage.clone();
+    }
+
+    /**
+     * Returns whether all angles were calculated.
+     * 
+     * @return {@code true} if all angles were calculated
+     */
+    public boolean isComplete() {
+        return coverage.cardinality() == field.getThetaPhiList().size();
+    }
+
+}
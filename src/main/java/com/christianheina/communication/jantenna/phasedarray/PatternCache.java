@@ -0,0 +1,525 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.FieldType;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException;
+
+/**
+ * Content addressed cache of array factor and phased array results.<br>
+ * Entries are keyed by a SHA-256 hash of everything the result depends on: element locations and weights, frequency,
+ * angles, calculation precision and, for phased arrays, the embedded element field. Equal inputs therefore hit the same
+ * entry regardless of which objects hold them. Results are kept as {@link PatternResult} in an in-memory tier bounded
+ * by size that evicts the least recently used entry first. An optional disk tier stores every calculated result in a
+ * directory, with a SHA-256 checksum that is verified when the entry is read back. Entries failing the check are
+ * deleted and recalculated.<br>
+ * The cache is thread safe. Calculations run outside of any lock, so concurrent misses for the same key may calculate
+ * the same result more than once.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class PatternCache {
+
+    private static final int FILE_MAGIC = 0x4a415043;
+    private static final int FILE_VERSION = 1;
+    private static final String FILE_SUFFIX = ".pattern";
+    private static final int DIGEST_LENGTH = 32;
+
+    private final long maximumBytes;
+    private final Path directory;
+    private final LinkedHashMap<String, PatternResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong diskHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong corruptedCount = new AtomicLong();
+
+    private PatternCache(Builder builder) {
+        this.maximumBytes = builder.maximumBytes;
+        this.directory = builder.directory;
+    }
+
+    /**
+     * Returns array factor from cache, calculating and caching it on a miss.
+     * 
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating array factor
+     * @param angles
+     *            angles used in the created array factor
+     * 
+     * @return pattern result containing the array factor
+     * 
+     * @exception PhasedArrayAntennaException
+     *                if the calculation fails or the disk tier cannot be accessed
+     */
+    public PatternResult getArrayFactor(ExecutorService executorService, double frequency, AntennaArray antennaArray,
+            List<ThetaPhi> angles) {
+        Precision precision = PhasedArrayAntennaCalculationConfig.getConfig().getPrecision();
+        MessageDigest digest = newDigest();
+        update(digest, "ARRAY_FACTOR");
+        updateInputs(digest, frequency, antennaArray, angles, precision);
+        String key = toHex(digest.digest());
+        PatternResult result = lookup(key, angles);
+        if (result == null) {
+            result = AngleBlockExecutor.await(ArrayFactor.newArrayFactorResultFuture(executorService, frequency,
+                    antennaArray, angles, precision));
+            store(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns one electric field of a phased array from cache, calculating and caching it on a miss.<br>
+     * On a miss all electric fields of {@code averageEmbeddedAntennaField} are calculated and cached.
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param electricField
+     *            electric field to return
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * 
+     * @return pattern result containing {@code electricField} of the phased array
+     * 
+     * @exception IllegalArgumentException
+     *                {@code averageEmbeddedAntennaField} does not contain {@code electricField}
+     * @exception PhasedArrayAntennaException
+     *                if the calculation fails or the disk tier cannot be accessed
+     */
+    public PatternResult getPhasedArray(Field averageEmbeddedAntennaField, ElectricField electricField,
+            ExecutorService executorService, double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
+        if (!averageEmbeddedAntennaField.getAvailableElectricFields().contains(electricField)) {
+            throw new IllegalArgumentException("Embedded field does not contain electric field " + electricField + ".");
+        }
+        MessageDigest digest = newDigest();
+        update(digest, "PHASED_ARRAY");
+        updateInputs(digest, frequency, antennaArray, angles,
+                PhasedArrayAntennaCalculationConfig.getConfig().getPrecision());
+        updateField(digest, averageEmbeddedAntennaField);
+        byte[] inputHash = digest.digest();
+        String key = getPhasedArrayKey(inputHash, electricField);
+        PatternResult result = lookup(key, angles);
+        if (result == null) {
+            Map<ElectricField, PatternResult> phasedArray = AngleBlockExecutor
+                    .await(PhasedArrayAntenna.newPhasedArrayResultFuture(averageEmbeddedAntennaField, executorService,
+                            frequency, antennaArray, angles));
+            for (Map.Entry<ElectricField, PatternResult> entry : phasedArray.entrySet()) {
+                store(getPhasedArrayKey(inputHash, entry.getKey()), entry.getValue());
+            }
+            result = phasedArray.get(electricField);
+        }
+        return result;
+    }
+
+    /**
+     * Remove all entries from the in-memory tier. The disk tier is kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Returns number of lookups served from the in-memory or disk tier.
+     * 
+     * @return number of hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns number of lookups served from the disk tier, a subset of {@link #getHitCount()}.
+     * 
+     * @return number of disk hits
+     */
+    public long getDiskHitCount() {
+        return diskHitCount.get();
+    }
+
+    /**
+     * Returns number of lookups that required a calculation.
+     * 
+     * @return number of misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns number of entries evicted from the in-memory tier.
+     * 
+     * @return number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns number of disk entries that failed the integrity check and were deleted.
+     * 
+     * @return number of corrupted disk entries
+     */
+    public long getCorruptedCount() {
+        return corruptedCount.get();
+    }
+
+    /**
+     * Returns number of entries in the in-memory tier.
+     * 
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns estimated size of the entries in the in-memory tier.
+     * 
+     * @return size in bytes
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    private PatternResult lookup(String key, List<ThetaPhi> angles) {
+        synchronized (this) {
+            PatternResult result = entries.get(key);
+            if (result != null) {
+                hitCount.incrementAndGet();
+                return result;
+            }
+        }
+        if (directory != null) {
+            PatternResult result = read(directory.resolve(key + FILE_SUFFIX), angles);
+            if (result != null) {
+                hitCount.incrementAndGet();
+                diskHitCount.incrementAndGet();
+                put(key, result);
+                return result;
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    private void store(String key, PatternResult result) {
+        put(key, result);
+        if (directory != null) {
+            write(directory.resolve(key + FILE_SUFFIX), result);
+        }
+    }
+
+    private synchronized void put(String key, PatternResult result) {
+        long bytes = getBytes(result);
+        if (bytes > maximumBytes) {
+            return;
+        }
+        PatternResult previous = entries.put(key, result);
+        if (previous != null) {
+            currentBytes -= getBytes(previous);
+        }
+        currentBytes += bytes;
+        Iterator<PatternResult> iterator = entries.values().iterator();
+        while (currentBytes > maximumBytes) {
+            currentBytes -= getBytes(iterator.next());
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private static long getBytes(PatternResult result) {
+        return result.size() * result.getBytesPerSample();
+    }
+
+    private void write(Path path, PatternResult result) {
+        try {
+            Files.createDirectories(directory);
+            Path temporaryPath = Files.createTempFile(directory, "entry", ".tmp");
+            try {
+                MessageDigest digest = newDigest();
+                try (OutputStream fileStream = Files.newOutputStream(temporaryPath);
+                        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileStream))) {
+                    DataOutputStream digestOutput = new DataOutputStream(new DigestOutputStream(output, digest));
+                    digestOutput.writeInt(FILE_MAGIC);
+                    digestOutput.writeInt(FILE_VERSION);
+                    digestOutput.writeDouble(result.getFrequency());
+                    digestOutput.writeUTF(result.getFieldType().name());
+                    digestOutput.writeInt(result.size());
+                    for (int i = 0; i < result.size(); i++) {
+                        digestOutput.writeDouble(result.getTheta(i));
+                        digestOutput.writeDouble(result.getPhi(i));
+                        digestOutput.writeDouble(result.getReal(i));
+                        digestOutput.writeDouble(result.getImaginary(i));
+                    }
+                    digestOutput.flush();
+                    output.write(digest.digest());
+                }
+                try {
+                    Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        } catch (IOException e) {
+            throw new PhasedArrayAntennaException("Unable to write pattern cache entry " + path, e);
+        }
+    }
+
+    private PatternResult read(Path path, List<ThetaPhi> angles) {
+        try (InputStream fileStream = Files.newInputStream(path)) {
+            MessageDigest digest = newDigest();
+            DataInputStream input = new DataInputStream(new BufferedInputStream(fileStream));
+            DataInputStream digestInput = new DataInputStream(new DigestInputStream(input, digest));
+            if (digestInput.readInt() != FILE_MAGIC || digestInput.readInt() != FILE_VERSION) {
+                return discard(path);
+            }
+            double frequency = digestInput.readDouble();
+            FieldType fieldType = FieldType.valueOf(digestInput.readUTF());
+            int size = digestInput.readInt();
+            if (size != angles.size() || size > Files.size(path) / (4 * Double.BYTES)) {
+                return discard(path);
+            }
+            double[] theta = new double[size];
+            double[] phi = new double[size];
+            double[] real = new double[size];
+            double[] imaginary = new double[size];
+            for (int i = 0; i < size; i++) {
+                theta[i] = digestInput.readDouble();
+                phi[i] = digestInput.readDouble();
+                real[i] = digestInput.readDouble();
+                imaginary[i] = digestInput.readDouble();
+            }
+            byte[] expectedDigest = new byte[DIGEST_LENGTH];
+            input.readFully(expectedDigest);
+            if (input.read() != -1 || !MessageDigest.isEqual(expectedDigest, digest.digest())) {
+                return discard(path);
+            }
+            return new PatternResult(frequency, fieldType, angles, theta, phi, real, imaginary);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (EOFException | IllegalArgumentException e) {
+            return discard(path);
+        } catch (IOException e) {
+            throw new PhasedArrayAntennaException("Unable to read pattern cache entry " + path, e);
+        }
+    }
+
+    private PatternResult discard(Path path) {
+        corruptedCount.incrementAndGet();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new PhasedArrayAntennaException("Unable to delete corrupted pattern cache entry " + path, e);
+        }
+        return null;
+    }
+
+    private static String getPhasedArrayKey(byte[] inputHash, ElectricField electricField) {
+        MessageDigest digest = newDigest();
+        digest.update(inputHash);
+        update(digest, electricField.name());
+        return toHex(digest.digest());
+    }
+
+    private static void updateInputs(MessageDigest digest, double frequency, AntennaArray antennaArray,
+            List<ThetaPhi> angles, Precision precision) {
+        update(digest, precision.name());
+        ByteBuffer buffer = ByteBuffer.allocate(5 * Double.BYTES);
+        buffer.putDouble(frequency);
+        buffer.putInt(antennaArray.getAntennaArray().length);
+        update(digest, buffer);
+        for (WeightableElement element : antennaArray.getAntennaArray()) {
+            Vector3D location = element.getElementLocation();
+            Complex weight = element.getElementWeight();
+            buffer.putDouble(location.getX()).putDouble(location.getY()).putDouble(location.getZ());
+            buffer.putDouble(weight.getReal()).putDouble(weight.getImaginary());
+            update(digest, buffer);
+        }
+        updateAngles(digest, angles);
+    }
+
+    private static void updateField(MessageDigest digest, Field field) {
+        updateAngles(digest, field.getThetaPhiList());
+        List<ElectricField> electricFieldList = new ArrayList<>(field.getAvailableElectricFields());
+        electricFieldList.sort((first, second) -> first.name().compareTo(second.name()));
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Double.BYTES);
+        for (ElectricField electricField : electricFieldList) {
+            update(digest, electricField.name());
+            for (Complex value : field.getElectricField(electricField)) {
+                buffer.putDouble(value.getReal()).putDouble(value.getImaginary());
+                update(digest, buffer);
+            }
+        }
+    }
+
+    private static void updateAngles(MessageDigest digest, List<ThetaPhi> angles) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Double.BYTES);
+        buffer.putInt(angles.size());
+        update(digest, buffer);
+        for (ThetaPhi angle : angles) {
+            buffer.putDouble(angle.getTheta()).putDouble(angle.getPhi());
+            update(digest, buffer);
+        }
+    }
+
+    private static void update(MessageDigest digest, ByteBuffer buffer) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + 2 * value.length());
+        buffer.putInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.putChar(value.charAt(i));
+        }
+        update(digest, buffer);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new PhasedArrayAntennaException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = Character.forDigit((bytes[i] >> 4) & 0xf, 16);
+            hex[2 * i + 1] = Character.forDigit(bytes[i] & 0xf, 16);
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Create new instance of {@link Builder}
+     * 
+     * @return new {@link Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link PatternCache}
+     * 
+     * @author Christian Heina (developer@christianheina.com)
+     */
+    public static class Builder {
+
+        private long maximumBytes = 256L * 1024 * 1024;
+        private Path directory;
+
+        private Builder() {
+            /* Hidden Constructor */
+        }
+
+        /**
+         * Set maximum estimated size of the in-memory tier. Defaults to 256 MiB.
+         * 
+         * @param maximumBytes
+         *            maximum size in bytes
+         * 
+         * @return this instance.
+         */
+        public Builder setMaximumBytes(long maximumBytes) {
+            this.maximumBytes = maximumBytes;
+            return this;
+        }
+
+        /**
+         * Set directory of the disk tier. No disk tier is used if not set.
+         * 
+         * @param directory
+         *            directory to store entries in, created when the first entry is written
+         * 
+         * @return this instance.
+         */
+        public Builder setDirectory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Build {@link PatternCache} using this builder.
+         * 
+         * @return new instance of {@link PatternCache}
+         * 
+         * @exception IllegalArgumentException
+         *                if maximum size is negative
+         */
+        public PatternCache build() {
+            if (maximumBytes < 0) {
+                throw new IllegalArgumentException("Maximum size must not be negative.");
+            }
+            return new PatternCache(this);
+        }
+    }
+
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+
+/**
+ * Frequency x beam x angle cube of complex pattern samples stored outside the Java heap.<br>
+ * Samples are stored in direct {@link ByteBuffer} chunks in native byte order, each chunk holding consecutive beams of
+ * one frequency. Within a chunk the samples of a beam are stored angle by angle as real part followed by imaginary
+ * part, so that each pattern is a contiguous region that can be handed to other code through
+ * {@link #getPatternBuffer(int, int)}. Direct memory is limited by {@code -XX:MaxDirectMemorySize} rather than by the
+ * heap size.<br>
+ * Patterns are written by
+ * {@link ArrayFactor#writeArrayFactorFuture(java.util.concurrent.ExecutorService, PatternCube, int, int, AntennaArray)}
+ * or by any calculation streaming to {@link #newPatternSink(int, int)}. Different patterns, and different angles of the
+ * same pattern, may be written concurrently.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class PatternCube {
+
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    private final double[] frequencies;
+    private final int numberOfBeams;
+    private final double[] theta;
+    private final double[] phi;
+    private final Precision precision;
+    private final int bytesPerSample;
+    private final int beamsPerChunk;
+    private final int chunksPerFrequency;
+    private final ByteBuffer[] chunks;
+
+    private PatternCube(double[] frequencies, int numberOfBeams, List<ThetaPhi> angles, Precision precision,
+            int maxChunkBytes) {
+        if (frequencies.length == 0 || numberOfBeams <= 0 || angles.isEmpty()) {
+            throw new IllegalArgumentException("Pattern cube must have at least one frequency, beam and angle.");
+        }
+        this.frequencies = frequencies.clone();
+        this.numberOfBeams = numberOfBeams;
+        this.theta = new double[angles.size()];
+        this.phi = new double[angles.size()];
+        for (int i = 0; i < theta.length; i++) {
+            ThetaPhi angle = angles.get(i);
+            theta[i] = angle.getTheta();
+            phi[i] = angle.getPhi();
+        }
+        this.precision = precision;
+        this.bytesPerSample = precision == Precision.FLOAT ? 2 * Float.BYTES : 2 * Double.BYTES;
+        long bytesPerBeam = (long) theta.length * bytesPerSample;
+        if (bytesPerBeam > maxChunkBytes) {
+            throw new IllegalArgumentException("Pattern of " + theta.length + " angles exceeds maximum chunk size of "
+                    + maxChunkBytes + " bytes.");
+        }
+        this.beamsPerChunk = (int) Math.min(numberOfBeams, maxChunkBytes / bytesPerBeam);
+        this.chunksPerFrequency = (numberOfBeams + beamsPerChunk - 1) / beamsPerChunk;
+        this.chunks = new ByteBuffer[frequencies.length * chunksPerFrequency];
+        for (int f = 0; f < frequencies.length; f++) {
+            for (int c = 0; c < chunksPerFrequency; c++) {
+                int beamsInChunk = Math.min(beamsPerChunk, numberOfBeams - c * beamsPerChunk);
+                chunks[f * chunksPerFrequency + c] = ByteBuffer.allocateDirect((int) (beamsInChunk * bytesPerBeam))
+                        .order(ByteOrder.nativeOrder());
+            }
+        }
+    }
+
+    /**
+     * Create pattern cube with all samples set to zero.
+     * 
+     * @param frequencies
+     *            frequencies of the cube
+     * @param numberOfBeams
+     *            number of beams of the cube
+     * @param angles
+     *            angles of every pattern of the cube
+     * @param precision
+     *            precision used to store samples, {@link Precision#FLOAT} halves the size of the cube
+     * 
+     * @return pattern cube
+     * 
+     * @exception IllegalArgumentException
+     *                if any dimension is empty or a single pattern exceeds 1 GiB
+     */
+    public static PatternCube newPatternCube(double[] frequencies, int numberOfBeams, List<ThetaPhi> angles,
+            Precision precision) {
+        return new PatternCube(frequencies, numberOfBeams, angles, precision, MAX_CHUNK_BYTES);
+    }
+
+    /**
+     * Create pattern cube using chunks of at most {@code maxChunkBytes} bytes.
+     */
+    static PatternCube newPatternCube(double[] frequencies, int numberOfBeams, List<ThetaPhi> angles,
+            Precision precision, int maxChunkBytes) {
+        return new PatternCube(frequencies, numberOfBeams, angles, precision, maxChunkBytes);
+    }
+
+    /**
+     * Returns number of frequencies.
+     * 
+     * @return number of frequencies
+     */
+    public int getNumberOfFrequencies() {
+        return frequencies.length;
+    }
+
+    /**
+     * Returns number of beams.
+     * 
+     * @return number of beams
+     */
+    public int getNumberOfBeams() {
+        return numberOfBeams;
+    }
+
+    /**
+     * Returns number of angles of every pattern.
+     * 
+     * @return number of angles
+     */
+    public int getNumberOfAngles() {
+        return theta.length;
+    }
+
+    /**
+     * Returns precision used to store samples.
+     * 
+     * @return precision
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns frequency.
+     * 
+     * @param frequencyIndex
+     *            frequency index
+     * 
+     * @return frequency
+     */
+    public double getFrequency(int frequencyIndex) {
+        return frequencies[frequencyIndex];
+    }
+
+    /**
+     * Returns theta of angle.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return theta in radians
+     */
+    public double getTheta(int angleIndex) {
+        return theta[angleIndex];
+    }
+
+    /**
+     * Returns phi of angle.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return phi in radians
+     */
+    public double getPhi(int angleIndex) {
+        return phi[angleIndex];
+    }
+
+    /**
+     * Returns real part of sample.
+     * 
+     * @param frequencyIndex
+     *            frequency index
+     * @param beamIndex
+     *            beam index
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return real part
+     */
+    public double getReal(int frequencyIndex, int beamIndex, int angleIndex) {
+        return get(getChunk(frequencyIndex, beamIndex), getByteIndex(beamIndex, angleIndex));
+    }
+
+    /**
+     * Returns imaginary part of sample.
+     * 
+     * @param frequencyIndex
+     *            frequency index
+     * @param beamIndex
+     *            beam index
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return imaginary part
+     */
+    public double getImaginary(int frequencyIndex, int beamIndex, int angleIndex) {
+        return get(getChunk(frequencyIndex, beamIndex), getByteIndex(beamIndex, angleIndex) + bytesPerSample / 2);
+    }
+
+    /**
+     * Returns squared magnitude of sample.
+     * 
+     * @param frequencyIndex
+     *            frequency index
+     * @param beamIndex
+     *            beam index
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return squared magnitude (linear power)
+     */
+    public double getPower(int frequencyIndex, int beamIndex, int angleIndex) {
+        double real = getReal(frequencyIndex, beamIndex, angleIndex);
+        double imaginary = getImaginary(frequencyIndex, beamIndex, angleIndex);
+        return real * real + imaginary * imaginary;
+    }
+
+    /**
+     * Returns read-only view of the samples of one pattern.<br>
+     * The buffer uses native byte order and holds real and imaginary part of every angle in turn, as {@code double} or
+     * {@code float} depending on {@link #getPrecision()}. Nothing is copied, later writes to the pattern are visible
+     * through the buffer.
+     * 
+     * @param frequencyIndex
+     *            frequency index
+     * @param beamIndex
+     *            beam index
+     * 
+     * @return buffer positioned at the first sample of the pattern
+     */
+    public ByteBuffer getPatternBuffer(int frequencyIndex, int beamIndex) {
+        ByteBuffer buffer = getChunk(frequencyIndex, beamIndex).asReadOnlyBuffer();
+        int start = getByteIndex(beamIndex, 0);
+        buffer.position(start);
+        buffer.limit(start + theta.length * bytesPerSample);
+        return buffer.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns view of all beams of one frequency.
+     * 
+     * @param frequencyIndex
+     *            frequency index
+     * 
+     * @return slice where rows are beams
+     */
+    public PatternCubeSlice getFrequencySlice(int frequencyIndex) {
+        checkIndex(frequencyIndex, frequencies.length);
+        return new PatternCubeSlice(this, frequencyIndex, -1);
+    }
+
+    /**
+     * Returns view of all frequencies of one beam.
+     * 
+     * @param beamIndex
+     *            beam index
+     * 
+     * @return slice where rows are frequencies
+     */
+    public PatternCubeSlice getBeamSlice(int beamIndex) {
+        checkIndex(beamIndex, numberOfBeams);
+        return new PatternCubeSlice(this, -1, beamIndex);
+    }
+
+    /**
+     * Returns sink writing streamed samples into one pattern of this cube.<br>
+     * The sink expects angles with the same number of samples as this cube, such as the angles the cube was created
+     * with.
+     * 
+     * @param frequencyIndex
+     *            frequency index
+     * @param beamIndex
+     *            beam index
+     * 
+     * @return sink writing into pattern
+     */
+    public PatternSink newPatternSink(int frequencyIndex, int beamIndex) {
+        ByteBuffer chunk = getChunk(frequencyIndex, beamIndex);
+        return (angles, from, to, real, imaginary) -> {
+            if (angles.size() != theta.length) {
+                throw new IllegalArgumentException(
+                        "Expected " + theta.length + " angles but received " + angles.size() + ".");
+            }
+            write(chunk, beamIndex, from, to, real, imaginary);
+        };
+    }
+
+    /**
+     * Write angles {@code from} (inclusive) to {@code to} (exclusive) of one pattern, value of angle {@code from + i}
+     * is found at index {@code i} of {@code real} and {@code imaginary}.
+     */
+    void write(int frequencyIndex, int beamIndex, int from, int to, double[] real, double[] imaginary) {
+        write(getChunk(frequencyIndex, beamIndex), beamIndex, from, to, real, imaginary);
+    }
+
+    private void write(ByteBuffer chunk, int beamIndex, int from, int to, double[] real, double[] imaginary) {
+        int byteIndex = getByteIndex(beamIndex, from);
+        if (precision == Precision.FLOAT) {
+            for (int i = 0; i < to - from; i++, byteIndex += bytesPerSample) {
+                chunk.putFloat(byteIndex, (float) real[i]);
+                chunk.putFloat(byteIndex + Float.BYTES, (float) imaginary[i]);
+            }
+        } else {
+            for (int i = 0; i < to - from; i++, byteIndex += bytesPerSample) {
+                chunk.putDouble(byteIndex, real[i]);
+                chunk.putDouble(byteIndex + Double.BYTES, imaginary[i]);
+            }
+        }
+    }
+
+    private double get(ByteBuffer chunk, int byteIndex) {
+        return precision == Precision.FLOAT ? chunk.getFloat(byteIndex) : chunk.getDouble(byteIndex);
+    }
+
+    private ByteBuffer getChunk(int frequencyIndex, int beamIndex) {
+        checkIndex(frequencyIndex, frequencies.length);
+        checkIndex(beamIndex, numberOfBeams);
+        return chunks[frequencyIndex * chunksPerFrequency + beamIndex / beamsPerChunk];
+    }
+
+    private int getByteIndex(int beamIndex, int angleIndex) {
+        checkIndex(angleIndex, theta.length);
+        return ((beamIndex % beamsPerChunk) * theta.length + angleIndex) * bytesPerSample;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size + ".");
+        }
+    }
+
+}
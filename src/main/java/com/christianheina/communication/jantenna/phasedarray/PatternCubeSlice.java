@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+/**
+ * View of the patterns of a {@link PatternCube} along one frequency or one beam.<br>
+ * Rows are the beams of a frequency slice or the frequencies of a beam slice. Samples are read from the cube without
+ * copying.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class PatternCubeSlice {
+
+    private final PatternCube cube;
+    private final int frequencyIndex;
+    private final int beamIndex;
+
+    /**
+     * Create slice where the negative of {@code frequencyIndex} and {@code beamIndex} is the row dimension.
+     */
+    PatternCubeSlice(PatternCube cube, int frequencyIndex, int beamIndex) {
+        this.cube = cube;
+        this.frequencyIndex = frequencyIndex;
+        this.beamIndex = beamIndex;
+    }
+
+    /**
+     * Returns number of rows.
+     * 
+     * @return number of beams of a frequency slice or number of frequencies of a beam slice
+     */
+    public int getNumberOfRows() {
+        return beamIndex < 0 ? cube.getNumberOfBeams() : cube.getNumberOfFrequencies();
+    }
+
+    /**
+     * Returns number of angles of every row.
+     * 
+     * @return number of angles
+     */
+    public int getNumberOfAngles() {
+        return cube.getNumberOfAngles();
+    }
+
+    /**
+     * Returns real part of sample.
+     * 
+     * @param row
+     *            row index
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return real part
+     */
+    public double getReal(int row, int angleIndex) {
+        return cube.getReal(getFrequencyIndex(row), getBeamIndex(row), angleIndex);
+    }
+
+    /**
+     * Returns imaginary part of sample.
+     * 
+     * @param row
+     *            row index
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return imaginary part
+     */
+    public double getImaginary(int row, int angleIndex) {
+        return cube.getImaginary(getFrequencyIndex(row), getBeamIndex(row), angleIndex);
+    }
+
+    /**
+     * Returns squared magnitude of sample.
+     * 
+     * @param row
+     *            row index
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return squared magnitude (linear power)
+     */
+    public double getPower(int row, int angleIndex) {
+        return cube.getPower(getFrequencyIndex(row), getBeamIndex(row), angleIndex);
+    }
+
+    private int getFrequencyIndex(int row) {
+        return frequencyIndex < 0 ? row : frequencyIndex;
+    }
+
+    private int getBeamIndex(int row) {
+        return beamIndex < 0 ? row : beamIndex;
+    }
+
+}
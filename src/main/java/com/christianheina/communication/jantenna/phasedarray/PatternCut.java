@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Pattern samples along a one dimensional cut, ordered by cut position.<br>
+ * Provides the main beam features of the cut: half power beamwidth, main lobe nulls and peak sidelobe. The main beam is
+ * the sample closest to the peak position given at construction, which other equally strong beams cannot displace.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+class PatternCut {
+
+    static final double HALF_POWER = 1 / Math.sqrt(2);
+
+    private final double peakPosition;
+    private double[] position = new double[64];
+    private double[] magnitude = new double[64];
+    private double[] real = new double[64];
+    private double[] imaginary = new double[64];
+    private int size;
+
+    PatternCut(double peakPosition) {
+        this.peakPosition = peakPosition;
+    }
+
+    /**
+     * Add sample. Samples must be added in increasing position order.
+     */
+    void add(double cutPosition, double value, double valueReal, double valueImaginary) {
+        if (size == position.length) {
+            position = Arrays.copyOf(position, size * 2);
+            magnitude = Arrays.copyOf(magnitude, size * 2);
+            real = Arrays.copyOf(real, size * 2);
+            imaginary = Arrays.copyOf(imaginary, size * 2);
+        }
+        position[size] = cutPosition;
+        magnitude[size] = value;
+        real[size] = valueReal;
+        imaginary[size] = valueImaginary;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double getPeakPosition() {
+        return peakPosition;
+    }
+
+    double getPosition(int index) {
+        return position[index];
+    }
+
+    double getReal(int index) {
+        return real[index];
+    }
+
+    double getImaginary(int index) {
+        return imaginary[index];
+    }
+
+    int findPeakIndex() {
+        int peakIndex = 0;
+        while (peakIndex < size - 1 && position[peakIndex] < peakPosition) {
+            peakIndex++;
+        }
+        if (peakIndex > 0 && peakPosition - position[peakIndex - 1] < position[peakIndex] - peakPosition) {
+            peakIndex--;
+        }
+        return peakIndex;
+    }
+
+    /**
+     * Half power beamwidth relative to {@code peakMagnitude}, {@link Double#NaN} if the sample closest to the peak
+     * position is below half power, such as when the cut misses the beam with {@code peakMagnitude}, or if the half
+     * power level is not crossed on both sides of the main beam.
+     */
+    double findHalfPowerBeamwidth(double peakMagnitude) {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double halfPower = HALF_POWER * peakMagnitude;
+        int peakIndex = findPeakIndex();
+        if (magnitude[peakIndex] < halfPower) {
+            return Double.NaN;
+        }
+        int left = peakIndex;
+        while (left > 0 && magnitude[left] >= halfPower) {
+            left--;
+        }
+        int right = peakIndex;
+        while (right < size - 1 && magnitude[right] >= halfPower) {
+            right++;
+        }
+        if (magnitude[left] >= halfPower || magnitude[right] >= halfPower) {
+            return Double.NaN;
+        }
+        return interpolate(right - 1, right, halfPower) - interpolate(left, left + 1, halfPower);
+    }
+
+    private double interpolate(int from, int to, double level) {
+        double fraction = (level - magnitude[from]) / (magnitude[to] - magnitude[from]);
+        return position[from] + fraction * (position[to] - position[from]);
+    }
+
+    boolean isLocalMinimum(int i) {
+        return i > 0 && i < size - 1 && magnitude[i] < magnitude[i - 1] && magnitude[i] <= magnitude[i + 1];
+    }
+
+    boolean isLocalMaximum(int i) {
+        return i > 0 && i < size - 1 && magnitude[i] > magnitude[i - 1] && magnitude[i] >= magnitude[i + 1];
+    }
+
+    /**
+     * Index of the first null before ({@code direction} -1) or after ({@code direction} 1) the main beam, or of the
+     * first or last sample if there is no null.
+     */
+    int findMainLobeNull(int direction) {
+        int index = findPeakIndex();
+        while (index + direction >= 0 && index + direction < size && !isLocalMinimum(index)) {
+            index += direction;
+        }
+        return index;
+    }
+
+    /**
+     * Largest local maximum outside the main lobe, 0 if there is none. Maxima for which {@code beam} is true, such as
+     * the mirrored main beam of a planar array, are not sidelobes and are skipped.
+     */
+    double findMaxSidelobe(IntPredicate beam) {
+        if (size == 0) {
+            return 0;
+        }
+        int leftNull = findMainLobeNull(-1);
+        int rightNull = findMainLobeNull(1);
+        double maxSidelobe = 0;
+        for (int i = 0; i < size; i++) {
+            if ((i < leftNull || i > rightNull) && isLocalMaximum(i) && !beam.test(i)) {
+                maxSidelobe = Math.max(maxSidelobe, magnitude[i]);
+            }
+        }
+        return maxSidelobe;
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+
+/**
+ * Features extracted from an array factor pattern by {@link AdaptivePatternEvaluator}.<br>
+ * All angles are in radians.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class PatternFeatures {
+
+    private final ThetaPhi peakDirection;
+    private final double peakMagnitude;
+    private final double thetaHalfPowerBeamwidth;
+    private final double phiHalfPowerBeamwidth;
+    private final double peakSidelobeLevel;
+    private final List<ThetaPhi> nullList;
+    private final Field refinedSamples;
+    private final int numberOfEvaluations;
+
+    PatternFeatures(ThetaPhi peakDirection, double peakMagnitude, double thetaHalfPowerBeamwidth,
+            double phiHalfPowerBeamwidth, double peakSidelobeLevel, List<ThetaPhi> nullList, Field refinedSamples,
+            int numberOfEvaluations) {
+        this.peakDirection = peakDirection;
+        this.peakMagnitude = peakMagnitude;
+        this.thetaHalfPowerBeamwidth = thetaHalfPowerBeamwidth;
+        this.phiHalfPowerBeamwidth = phiHalfPowerBeamwidth;
+        this.peakSidelobeLevel = peakSidelobeLevel;
+        this.nullList = Collections.unmodifiableList(nullList);
+        this.refinedSamples = refinedSamples;
+        this.numberOfEvaluations = numberOfEvaluations;
+    }
+
+    /**
+     * Get direction of the main beam peak.
+     *
+     * @return peak direction
+     */
+    public ThetaPhi getPeakDirection() {
+        return peakDirection;
+    }
+
+    /**
+     * Get array factor magnitude at the main beam peak.
+     *
+     * @return peak magnitude
+     */
+    public double getPeakMagnitude() {
+        return peakMagnitude;
+    }
+
+    /**
+     * Get half power beamwidth in the theta cut, i.e. along theta at the peak phi.
+     *
+     * @return beamwidth in radians or {@link Double#NaN} if the half power level is not crossed on both sides of the
+     *         peak
+     */
+    public double getThetaHalfPowerBeamwidth() {
+        return thetaHalfPowerBeamwidth;
+    }
+
+    /**
+     * Get half power beamwidth in the phi cut, i.e. along phi at the peak theta, as the angle on the sphere between the
+     * half power points.
+     *
+     * @return beamwidth in radians or {@link Double#NaN} if the half power level is not crossed on both sides of the
+     *         peak
+     */
+    public double getPhiHalfPowerBeamwidth() {
+        return phiHalfPowerBeamwidth;
+    }
+
+    /**
+     * Get highest sidelobe found in the theta and phi cuts relative to the peak.
+     *
+     * @return peak sidelobe level in dB or {@link Double#NEGATIVE_INFINITY} if no sidelobe was found
+     */
+    public double getPeakSidelobeLevel() {
+        return peakSidelobeLevel;
+    }
+
+    /**
+     * Get null directions found in the theta and phi cuts.
+     *
+     * @return null directions
+     */
+    public List<ThetaPhi> getNullList() {
+        return nullList;
+    }
+
+    /**
+     * Get the refined samples of the theta and phi cuts.
+     *
+     * @return field containing the refined array factor samples
+     */
+    public Field getRefinedSamples() {
+        return refinedSamples;
+    }
+
+    /**
+     * Get number of array factor evaluations used to find the features.
+     *
+     * @return number of evaluations
+     */
+    public int getNumberOfEvaluations() {
+        return numberOfEvaluations;
+    }
+
+}
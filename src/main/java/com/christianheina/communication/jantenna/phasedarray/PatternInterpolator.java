@@ -0,0 +1,539 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException;
+
+/**
+ * Pattern power {@code |E|^2} precalculated on a regular theta-phi grid and interpolated at arbitrary directions.<br>
+ * The grid has {@code numberOfTheta} rows from theta 0 to pi and {@code numberOfPhi} columns from phi -pi to pi
+ * (exclusive), as returned by {@link #getGridAngles(int, int)}, stored row-major in a primitive array. A query reads
+ * the grid cell containing the direction and its neighbours, so its cost is constant and independent of the number of
+ * elements:
+ * <ul>
+ * <li>{@link Interpolation#BILINEAR} interpolates linearly in theta and phi from the four corners of the cell.</li>
+ * <li>{@link Interpolation#BICUBIC} uses Catmull-Rom splines through a four by four neighbourhood. Phi wraps around and
+ * rows beyond the poles continue on the opposite side of the sphere, so the spline is smooth everywhere. The slopes are
+ * finite differences, so error decreases with the third power of the grid spacing instead of the square, and negative
+ * overshoot near nulls is clamped to zero.</li>
+ * </ul>
+ * The pattern is either the array factor of an {@link AntennaArray}, or any {@link Field} calculated on the grid
+ * angles, such as a phased array pattern. For an array factor the grid density can be chosen automatically: starting
+ * from a fraction of the beamwidth, the grid is refined until the interpolation error at the centre of every cell,
+ * where it is largest, is at most the maximum error relative to the peak power.<br>
+ * Instances are immutable and thread safe.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class PatternInterpolator {
+
+    /**
+     * Interpolation between grid points.
+     */
+    public enum Interpolation {
+        /**
+         * Linear interpolation in theta and phi.
+         */
+        BILINEAR,
+        /**
+         * Catmull-Rom spline interpolation in theta and phi.
+         */
+        BICUBIC
+    }
+
+    private static final double MAX_INITIAL_SPACING = Math.toRadians(5);
+    private static final double DEFAULT_MAXIMUM_ERROR = 1e-3;
+    private static final long DEFAULT_MAXIMUM_BYTES = 256L * 1024 * 1024;
+    private static final double GRID_TOLERANCE = 1e-9;
+
+    private final int numberOfTheta;
+    private final int numberOfPhi;
+    private final double thetaStep;
+    private final double phiStep;
+    private final Interpolation interpolation;
+    private final Precision precision;
+    private final double[] power;
+    private final float[] powerFloat;
+    private final double peakPower;
+
+    private PatternInterpolator(int numberOfTheta, int numberOfPhi, Interpolation interpolation, Precision precision,
+            double[] power) {
+        this.numberOfTheta = numberOfTheta;
+        this.numberOfPhi = numberOfPhi;
+        this.thetaStep = Math.PI / (numberOfTheta - 1);
+        this.phiStep = 2 * Math.PI / numberOfPhi;
+        this.interpolation = interpolation;
+        this.precision = precision;
+        double peak = 0;
+        for (double value : power) {
+            peak = Math.max(peak, value);
+        }
+        this.peakPower = peak;
+        if (precision == Precision.FLOAT) {
+            this.power = null;
+            this.powerFloat = new float[power.length];
+            for (int i = 0; i < power.length; i++) {
+                powerFloat[i] = (float) power[i];
+            }
+        } else {
+            this.power = power;
+            this.powerFloat = null;
+        }
+    }
+
+    /**
+     * Returns angles of a grid in the order grid values are stored, theta-major.
+     *
+     * @param numberOfTheta
+     *            number of theta rows, from 0 to 180 degrees
+     * @param numberOfPhi
+     *            number of phi columns, from -180 degrees (inclusive) to 180 degrees (exclusive)
+     *
+     * @return grid angles
+     *
+     * @exception IllegalArgumentException
+     *                if the number of theta rows is less than 2 or the number of phi columns is not even and positive
+     */
+    public static List<ThetaPhi> getGridAngles(int numberOfTheta, int numberOfPhi) {
+        validateGridSize(numberOfTheta, numberOfPhi);
+        List<ThetaPhi> angleList = new ArrayList<>(numberOfTheta * numberOfPhi);
+        for (int i = 0; i < numberOfTheta; i++) {
+            for (int j = 0; j < numberOfPhi; j++) {
+                angleList.add(ThetaPhi.fromDegrees(180.0 * i / (numberOfTheta - 1), -180 + 360.0 * j / numberOfPhi));
+            }
+        }
+        return angleList;
+    }
+
+    private static void validateGridSize(int numberOfTheta, int numberOfPhi) {
+        if (numberOfTheta < 2 || numberOfPhi < 2 || numberOfPhi % 2 != 0) {
+            throw new IllegalArgumentException("Grid must have at least 2 theta rows and an even number of phi columns."
+                    + " Actual size, (theta, phi), is (" + numberOfTheta + ", " + numberOfPhi + ").");
+        }
+    }
+
+    /**
+     * Interpolate pattern power in a direction.
+     *
+     * @param theta
+     *            theta in radians
+     * @param phi
+     *            phi in radians
+     *
+     * @return interpolated power
+     */
+    public double getPower(double theta, double phi) {
+        double t = theta % (2 * Math.PI);
+        if (t < 0) {
+            t += 2 * Math.PI;
+        }
+        double p = phi;
+        if (t > Math.PI) {
+            // Beyond the pole, same direction as 2 * pi - theta on the opposite side
+            t = 2 * Math.PI - t;
+            p += Math.PI;
+        }
+        double u = t / thetaStep;
+        int row = Math.min((int) u, numberOfTheta - 2);
+        double thetaFraction = u - row;
+        double v = (p + Math.PI) / phiStep;
+        double vFloor = Math.floor(v);
+        double phiFraction = v - vFloor;
+        int column = (int) Math.floorMod((long) vFloor, (long) numberOfPhi);
+        if (interpolation == Interpolation.BILINEAR) {
+            int nextColumn = column + 1 == numberOfPhi ? 0 : column + 1;
+            double lower = (1 - phiFraction) * getValue(row, column) + phiFraction * getValue(row, nextColumn);
+            double upper = (1 - phiFraction) * getValue(row + 1, column) + phiFraction * getValue(row + 1, nextColumn);
+            return (1 - thetaFraction) * lower + thetaFraction * upper;
+        }
+        double value = catmullRom(thetaFraction, interpolateRow(row - 1, column, phiFraction),
+                interpolateRow(row, column, phiFraction), interpolateRow(row + 1, column, phiFraction),
+                interpolateRow(row + 2, column, phiFraction));
+        return Math.max(0, value);
+    }
+
+    /**
+     * Interpolate pattern power in a direction.
+     *
+     * @param direction
+     *            direction
+     *
+     * @return interpolated power
+     */
+    public double getPower(ThetaPhi direction) {
+        return getPower(direction.getTheta(), direction.getPhi());
+    }
+
+    private double interpolateRow(int row, int column, double phiFraction) {
+        return catmullRom(phiFraction, getValue(row, column - 1), getValue(row, column), getValue(row, column + 1),
+                getValue(row, column + 2));
+    }
+
+    private static double catmullRom(double f, double v0, double v1, double v2, double v3) {
+        return 0.5 * (2 * v1 + f * (v2 - v0 + f * (2 * v0 - 5 * v1 + 4 * v2 - v3 + f * (3 * (v1 - v2) + v3 - v0))));
+    }
+
+    /**
+     * Grid value with rows beyond the poles continued on the opposite side and columns wrapped around.
+     */
+    private double getValue(int row, int column) {
+        int gridRow = row;
+        int gridColumn = column;
+        if (gridRow < 0) {
+            gridRow = -gridRow;
+            gridColumn += numberOfPhi / 2;
+        } else if (gridRow >= numberOfTheta) {
+            gridRow = 2 * (numberOfTheta - 1) - gridRow;
+            gridColumn += numberOfPhi / 2;
+        }
+        gridColumn = Math.floorMod(gridColumn, numberOfPhi);
+        int index = gridRow * numberOfPhi + gridColumn;
+        return power != null ? power[index] : powerFloat[index];
+    }
+
+    /**
+     * Returns number of theta rows of the grid.
+     *
+     * @return number of theta rows
+     */
+    public int getNumberOfTheta() {
+        return numberOfTheta;
+    }
+
+    /**
+     * Returns number of phi columns of the grid.
+     *
+     * @return number of phi columns
+     */
+    public int getNumberOfPhi() {
+        return numberOfPhi;
+    }
+
+    /**
+     * Returns interpolation between grid points.
+     *
+     * @return interpolation
+     */
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    /**
+     * Returns precision of stored grid values.
+     *
+     * @return precision
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns largest power on the grid.
+     *
+     * @return peak power
+     */
+    public double getPeakPower() {
+        return peakPower;
+    }
+
+    /**
+     * Create new instance of {@link Builder}
+     *
+     * @return new {@link Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link PatternInterpolator}
+     *
+     * @author Christian Heina (developer@christianheina.com)
+     */
+    public static class Builder {
+
+        private double frequency;
+        private AntennaArray antennaArray;
+        private Field field;
+        private ElectricField electricField;
+        private Interpolation interpolation = Interpolation.BILINEAR;
+        private Precision precision = Precision.DOUBLE;
+        private int numberOfTheta = 0;
+        private int numberOfPhi = 0;
+        private double maximumError = DEFAULT_MAXIMUM_ERROR;
+        private long maximumBytes = DEFAULT_MAXIMUM_BYTES;
+
+        private Builder() {
+            /* Hidden Constructor */
+        }
+
+        /**
+         * Set frequency used to calculate the array factor
+         *
+         * @param frequency
+         *            frequency to set
+         *
+         * @return this instance.
+         */
+        public Builder setFrequency(double frequency) {
+            this.frequency = frequency;
+            return this;
+        }
+
+        /**
+         * Set antenna array whose array factor is interpolated. Not used if a field is set.
+         *
+         * @param antennaArray
+         *            antenna array to set
+         *
+         * @return this instance.
+         */
+        public Builder setAntennaArray(AntennaArray antennaArray) {
+            this.antennaArray = antennaArray;
+            return this;
+        }
+
+        /**
+         * Set field to interpolate, calculated on the angles returned by
+         * {@link PatternInterpolator#getGridAngles(int, int)} for the grid size set by {@link #setGridSize(int, int)}.
+         *
+         * @param field
+         *            field to set
+         * @param electricField
+         *            electric field of {@code field} to interpolate
+         *
+         * @return this instance.
+         */
+        public Builder setField(Field field, ElectricField electricField) {
+            this.field = field;
+            this.electricField = electricField;
+            return this;
+        }
+
+        /**
+         * Set interpolation between grid points. Defaults to {@link Interpolation#BILINEAR}.
+         *
+         * @param interpolation
+         *            interpolation to set
+         *
+         * @return this instance.
+         */
+        public Builder setInterpolation(Interpolation interpolation) {
+            this.interpolation = interpolation;
+            return this;
+        }
+
+        /**
+         * Set precision of stored grid values. Defaults to {@link Precision#DOUBLE}.
+         *
+         * @param precision
+         *            precision to set
+         *
+         * @return this instance.
+         */
+        public Builder setPrecision(Precision precision) {
+            this.precision = precision;
+            return this;
+        }
+
+        /**
+         * Set grid size. Required for a field, for an array factor the grid size is chosen automatically from the
+         * maximum error if not set.
+         *
+         * @param numberOfTheta
+         *            number of theta rows, at least 2
+         * @param numberOfPhi
+         *            number of phi columns, even
+         *
+         * @return this instance.
+         */
+        public Builder setGridSize(int numberOfTheta, int numberOfPhi) {
+            this.numberOfTheta = numberOfTheta;
+            this.numberOfPhi = numberOfPhi;
+            return this;
+        }
+
+        /**
+         * Set largest accepted interpolation error relative to the peak power when the grid size is chosen
+         * automatically. Defaults to 1e-3.
+         *
+         * @param maximumError
+         *            relative error
+         *
+         * @return this instance.
+         */
+        public Builder setMaximumError(double maximumError) {
+            this.maximumError = maximumError;
+            return this;
+        }
+
+        /**
+         * Set maximum size of the stored grid. Defaults to 256 MiB.
+         *
+         * @param maximumBytes
+         *            maximum size in bytes
+         *
+         * @return this instance.
+         */
+        public Builder setMaximumBytes(long maximumBytes) {
+            this.maximumBytes = maximumBytes;
+            return this;
+        }
+
+        /**
+         * Build {@link PatternInterpolator} using this builder.
+         *
+         * @return new instance of {@link PatternInterpolator}
+         *
+         * @exception IllegalArgumentException
+         *                neither antenna array nor field is set, the grid size is invalid or exceeds the maximum size,
+         *                a field is set without grid size or does not match the grid, or the maximum error is not
+         *                positive.
+         * @exception PhasedArrayAntennaException
+         *                the maximum error is not reached within the maximum size.
+         */
+        public PatternInterpolator build() {
+            if (field == null && antennaArray == null) {
+                throw new IllegalArgumentException("Antenna array or field must be set.");
+            }
+            if (!(maximumError > 0)) {
+                throw new IllegalArgumentException("Maximum error must be positive.");
+            }
+            int bytesPerValue = precision == Precision.FLOAT ? Float.BYTES : Double.BYTES;
+            if (numberOfTheta != 0 || numberOfPhi != 0 || field != null) {
+                validateGridSize(numberOfTheta, numberOfPhi);
+                if ((long) numberOfTheta * numberOfPhi * bytesPerValue > maximumBytes) {
+                    throw new IllegalArgumentException("Grid of " + numberOfTheta + " x " + numberOfPhi
+                            + " values exceeds maximum size of " + maximumBytes + " bytes.");
+                }
+            }
+            if (field != null) {
+                return new PatternInterpolator(numberOfTheta, numberOfPhi, interpolation, precision,
+                        calculateFieldPower());
+            }
+            ArrayFactorEvaluator evaluator = antennaArray.compile(frequency);
+            ExecutorService executorService = Executors
+                    .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+            try {
+                if (numberOfTheta != 0) {
+                    return new PatternInterpolator(numberOfTheta, numberOfPhi, interpolation, precision,
+                            calculateArrayFactorPower(executorService, evaluator, numberOfTheta, numberOfPhi));
+                }
+                return buildAutomatic(executorService, evaluator, bytesPerValue);
+            } finally {
+                executorService.shutdown();
+            }
+        }
+
+        private double[] calculateFieldPower() {
+            List<ThetaPhi> angleList = field.getThetaPhiList();
+            List<Complex> valueList = field.getElectricField(electricField);
+            if (valueList == null) {
+                throw new IllegalArgumentException("Field does not contain " + electricField + ".");
+            }
+            if (angleList.size() != numberOfTheta * numberOfPhi) {
+                throw new IllegalArgumentException(
+                        "Field has " + angleList.size() + " angles, grid has " + numberOfTheta * numberOfPhi + ".");
+            }
+            double thetaStep = Math.PI / (numberOfTheta - 1);
+            double phiStep = 2 * Math.PI / numberOfPhi;
+            double[] power = new double[angleList.size()];
+            for (int i = 0; i < numberOfTheta; i++) {
+                for (int j = 0; j < numberOfPhi; j++) {
+                    int index = i * numberOfPhi + j;
+                    ThetaPhi angle = angleList.get(index);
+                    double phiDifference = Math.IEEEremainder(angle.getPhi() - (-Math.PI + j * phiStep), 2 * Math.PI);
+                    if (Math.abs(angle.getTheta() - i * thetaStep) > GRID_TOLERANCE
+                            || Math.abs(phiDifference) > GRID_TOLERANCE) {
+                        throw new IllegalArgumentException("Field angle at index " + index
+                                + " does not match the grid, see PatternInterpolator.getGridAngles.");
+                    }
+                    Complex value = valueList.get(index);
+                    power[index] = value.getReal() * value.getReal() + value.getImaginary() * value.getImaginary();
+                }
+            }
+            return power;
+        }
+
+        private PatternInterpolator buildAutomatic(ExecutorService executorService, ArrayFactorEvaluator evaluator,
+                int bytesPerValue) {
+            // Start at a quarter of the approximate beamwidth, lambda / aperture
+            double waveNumber = 2 * Math.PI / Util.calculateLambda(frequency);
+            double apertureSize = evaluator.calculateApertureSize();
+            double beamwidth = apertureSize > 0 ? 2 * Math.PI / (waveNumber * apertureSize) : MAX_INITIAL_SPACING;
+            int intervals = (int) Math.ceil(Math.PI / Math.min(MAX_INITIAL_SPACING, beamwidth / 4));
+            while ((long) (intervals + 1) * 2 * intervals * bytesPerValue <= maximumBytes) {
+                PatternInterpolator interpolator = new PatternInterpolator(intervals + 1, 2 * intervals, interpolation,
+                        precision, calculateArrayFactorPower(executorService, evaluator, intervals + 1, 2 * intervals));
+                if (calculateMaximumError(executorService, evaluator, interpolator) <= maximumError
+                        * interpolator.peakPower) {
+                    return interpolator;
+                }
+                intervals *= 2;
+            }
+            throw new PhasedArrayAntennaException("Maximum error " + maximumError
+                    + " not reached within maximum size of " + maximumBytes + " bytes.");
+        }
+
+        private static double[] calculateArrayFactorPower(ExecutorService executorService,
+                ArrayFactorEvaluator evaluator, int numberOfTheta, int numberOfPhi) {
+            double thetaStep = Math.PI / (numberOfTheta - 1);
+            double phiStep = 2 * Math.PI / numberOfPhi;
+            double[] power = new double[numberOfTheta * numberOfPhi];
+            AngleBlockExecutor.calculateAndKeepRunning(executorService, power.length, (from, to) -> {
+                for (int index = from; index < to; index++) {
+                    power[index] = evaluator.calculatePower((index / numberOfPhi) * thetaStep,
+                            -Math.PI + (index % numberOfPhi) * phiStep);
+                }
+            });
+            return power;
+        }
+
+        /**
+         * Largest absolute interpolation error at the centre of every grid cell.
+         */
+        private static double calculateMaximumError(ExecutorService executorService, ArrayFactorEvaluator evaluator,
+                PatternInterpolator interpolator) {
+            int numberOfPhi = interpolator.numberOfPhi;
+            int numberOfCells = (interpolator.numberOfTheta - 1) * numberOfPhi;
+            return AngleBlockExecutor.reduceAndKeepRunning(executorService, numberOfCells, 0, (from, to) -> {
+                double maxError = 0;
+                for (int cell = from; cell < to; cell++) {
+                    double theta = (cell / numberOfPhi + 0.5) * interpolator.thetaStep;
+                    double phi = -Math.PI + (cell % numberOfPhi + 0.5) * interpolator.phiStep;
+                    maxError = Math.max(maxError,
+                            Math.abs(interpolator.getPower(theta, phi) - evaluator.calculatePower(theta, phi)));
+                }
+                return maxError;
+            }, Math::max);
+        }
+    }
+
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+
+/**
+ * {@link PatternSink} accumulating pattern metrics while the pattern is calculated.<br>
+ * Accumulates peak gain, peak sidelobe level, half power beamwidth in the principal planes and directivity without
+ * keeping the pattern. Memory is bounded by the configured resolutions, independent of the number of samples:
+ * <ul>
+ * <li>The principal plane cuts, along theta at the beam phi and along phi at the beam theta, keep the sample closest to
+ * the plane for each cut resolution step.</li>
+ * <li>Sidelobes are tracked as the strongest sample in each bin of a theta/phi grid with the sidelobe resolution. The
+ * main lobe is the ellipse in theta/phi spanned by the first nulls of the principal plane cuts.</li>
+ * <li>Directivity is the peak power relative to the solid angle weighted average power,
+ * {@code max|F|^2 * sum(sin(theta)) / sum(|F|^2 * sin(theta))}, which assumes samples equally spaced in theta and phi
+ * covering the sphere, for example {@link ThetaPhi#equallySpacedSphere(double)}.</li>
+ * </ul>
+ * Beamwidth and sidelobe level require a beam direction. All methods are thread safe.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class PatternMetrics implements PatternSink {
+
+    private static final double DEFAULT_CUT_RESOLUTION = Math.toRadians(0.05);
+    private static final double DEFAULT_SIDELOBE_RESOLUTION = Math.toRadians(1);
+
+    private final boolean hasBeamDirection;
+    private final double beamTheta;
+    private final double beamPhi;
+    private final double cutResolution;
+    private final double sidelobeResolution;
+
+    private long numberOfSamples;
+    private double peakMagnitude = -1;
+    private double peakTheta;
+    private double peakPhi;
+    private double weightedPowerSum;
+    private double weightSum;
+
+    private final CutAccumulator thetaCut;
+    private final CutAccumulator phiCut;
+
+    private final int thetaBins;
+    private final int phiBins;
+    private final float[] binMagnitude;
+    private final float[] binTheta;
+    private final float[] binPhi;
+
+    private PatternMetrics(Builder builder) {
+        this.hasBeamDirection = builder.beamDirection != null;
+        this.beamTheta = hasBeamDirection ? builder.beamDirection.getTheta() : 0;
+        this.beamPhi = hasBeamDirection ? builder.beamDirection.getPhi() : 0;
+        this.cutResolution = builder.cutResolution;
+        this.sidelobeResolution = builder.sidelobeResolution;
+        this.thetaCut = new CutAccumulator(0, Math.PI, beamTheta);
+        this.phiCut = new CutAccumulator(-Math.PI, Math.PI, 0);
+        this.thetaBins = (int) Math.ceil(Math.PI / sidelobeResolution) + 1;
+        this.phiBins = (int) Math.ceil(2 * Math.PI / sidelobeResolution);
+        if (hasBeamDirection) {
+            this.binMagnitude = new float[thetaBins * phiBins];
+            this.binTheta = new float[thetaBins * phiBins];
+            this.binPhi = new float[thetaBins * phiBins];
+            Arrays.fill(binMagnitude, -1);
+        } else {
+            this.binMagnitude = null;
+            this.binTheta = null;
+            this.binPhi = null;
+        }
+    }
+
+    @Override
+    public synchronized void accept(List<ThetaPhi> angles, int from, int to, double[] real, double[] imaginary) {
+        for (int i = 0; i < to - from; i++) {
+            ThetaPhi angle = angles.get(from + i);
+            double theta = angle.getTheta();
+            double phi = angle.getPhi();
+            double power = real[i] * real[i] + imaginary[i] * imaginary[i];
+            double magnitude = Math.sqrt(power);
+            double weight = Math.sin(theta);
+            weightedPowerSum += power * weight;
+            weightSum += weight;
+            numberOfSamples++;
+            if (magnitude > peakMagnitude) {
+                peakMagnitude = magnitude;
+                peakTheta = theta;
+                peakPhi = phi;
+            }
+            if (hasBeamDirection) {
+                double phiOffset = wrapPhi(phi - beamPhi);
+                thetaCut.accept(theta, Math.abs(phiOffset), magnitude);
+                phiCut.accept(phiOffset, Math.abs(theta - beamTheta), magnitude);
+                int bin = Math.min(thetaBins - 1, (int) (theta / sidelobeResolution)) * phiBins
+                        + Math.min(phiBins - 1, (int) ((wrapPhi(phi) + Math.PI) / sidelobeResolution));
+                if (magnitude > binMagnitude[bin]) {
+                    binMagnitude[bin] = (float) magnitude;
+                    binTheta[bin] = (float) theta;
+                    binPhi[bin] = (float) phi;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get number of accepted samples.
+     *
+     * @return number of samples
+     */
+    public synchronized long getNumberOfSamples() {
+        return numberOfSamples;
+    }
+
+    /**
+     * Get largest magnitude of accepted samples.
+     *
+     * @return peak magnitude or {@link Double#NaN} if no samples have been accepted
+     */
+    public synchronized double getPeakMagnitude() {
+        return numberOfSamples > 0 ? peakMagnitude : Double.NaN;
+    }
+
+    /**
+     * Get peak gain, i.e. the peak magnitude in dB.
+     *
+     * @return peak gain in dB or {@link Double#NaN} if no samples have been accepted
+     */
+    public synchronized double getPeakGain() {
+        return 20 * Math.log10(getPeakMagnitude());
+    }
+
+    /**
+     * Get direction of the largest magnitude of accepted samples.
+     *
+     * @return peak direction or {@code null} if no samples have been accepted
+     */
+    public synchronized ThetaPhi getPeakDirection() {
+        return numberOfSamples > 0 ? ThetaPhi.fromDegrees(Math.toDegrees(peakTheta), Math.toDegrees(peakPhi)) : null;
+    }
+
+    /**
+     * Get directivity.
+     *
+     * @return directivity (linear) or {@link Double#NaN} if no samples with non zero power have been accepted
+     */
+    public synchronized double getDirectivity() {
+        return weightedPowerSum > 0 ? peakMagnitude * peakMagnitude * weightSum / weightedPowerSum : Double.NaN;
+    }
+
+    /**
+     * Get half power beamwidth along theta at the beam phi.
+     *
+     * @return beamwidth in radians or {@link Double#NaN} if it could not be determined
+     */
+    public synchronized double getThetaHalfPowerBeamwidth() {
+        return hasBeamDirection ? thetaCut.toPatternCut().findHalfPowerBeamwidth(peakMagnitude) : Double.NaN;
+    }
+
+    /**
+     * Get half power beamwidth along phi at the beam theta, as the angle on the sphere between the half power points.
+     * This is smaller than their difference in phi by about {@code sin(theta)} for beams away from theta 90 degrees.
+     *
+     * @return beamwidth in radians or {@link Double#NaN} if it could not be determined
+     */
+    public synchronized double getPhiHalfPowerBeamwidth() {
+        if (!hasBeamDirection) {
+            return Double.NaN;
+        }
+        double phiWidth = phiCut.toPatternCut().findHalfPowerBeamwidth(peakMagnitude);
+        return 2 * Math.asin(Math.min(1, Math.sin(beamTheta) * Math.sin(phiWidth / 2)));
+    }
+
+    /**
+     * Get strongest sample outside the main lobe relative to the peak.
+     *
+     * @return peak sidelobe level in dB, {@link Double#NEGATIVE_INFINITY} if there are no samples outside the main lobe
+     *         or {@link Double#NaN} if no beam direction is set
+     */
+    public synchronized double getPeakSidelobeLevel() {
+        if (!hasBeamDirection) {
+            return Double.NaN;
+        }
+        PatternCut thetaPatternCut = thetaCut.toPatternCut();
+        PatternCut phiPatternCut = phiCut.toPatternCut();
+        double thetaHalfWidth = findMainLobeHalfWidth(thetaPatternCut);
+        double phiHalfWidth = findMainLobeHalfWidth(phiPatternCut);
+        double maxSidelobe = 0;
+        for (int bin = 0; bin < binMagnitude.length; bin++) {
+            if (binMagnitude[bin] <= maxSidelobe) {
+                continue;
+            }
+            double thetaOffset = (binTheta[bin] - beamTheta) / thetaHalfWidth;
+            double phiOffset = wrapPhi(binPhi[bin] - beamPhi) / phiHalfWidth;
+            if (thetaOffset * thetaOffset + phiOffset * phiOffset > 1) {
+                maxSidelobe = binMagnitude[bin];
+            }
+        }
+        return maxSidelobe > 0 ? 20 * Math.log10(maxSidelobe / peakMagnitude) : Double.NEGATIVE_INFINITY;
+    }
+
+    private static double findMainLobeHalfWidth(PatternCut cut) {
+        if (cut.size() == 0) {
+            return Double.MIN_VALUE;
+        }
+        double left = cut.getPeakPosition() - cut.getPosition(cut.findMainLobeNull(-1));
+        double right = cut.getPosition(cut.findMainLobeNull(1)) - cut.getPeakPosition();
+        return Math.max(Double.MIN_VALUE, Math.max(left, right));
+    }
+
+    private static double wrapPhi(double phi) {
+        double wrapped = phi;
+        while (wrapped >= Math.PI) {
+            wrapped -= 2 * Math.PI;
+        }
+        while (wrapped < -Math.PI) {
+            wrapped += 2 * Math.PI;
+        }
+        return wrapped;
+    }
+
+    /**
+     * Create new instance of {@link Builder}
+     *
+     * @return new {@link Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Principal plane cut keeping, for each resolution step, the sample closest to the plane.
+     */
+    private final class CutAccumulator {
+
+        private final double start;
+        private final double peakPosition;
+        private final double[] distance;
+        private final double[] position;
+        private final double[] magnitude;
+
+        private CutAccumulator(double start, double end, double peakPosition) {
+            this.start = start;
+            this.peakPosition = peakPosition;
+            int size = hasBeamDirection ? (int) Math.ceil((end - start) / cutResolution) + 1 : 0;
+            this.distance = new double[size];
+            this.position = new double[size];
+            this.magnitude = new double[size];
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        }
+
+        private void accept(double cutPosition, double distanceToPlane, double value) {
+            if (distanceToPlane > sidelobeResolution) {
+                return;
+            }
+            int index = (int) Math.round((cutPosition - start) / cutResolution);
+            if (index >= 0 && index < distance.length && distanceToPlane < distance[index]) {
+                distance[index] = distanceToPlane;
+                position[index] = cutPosition;
+                magnitude[index] = value;
+            }
+        }
+
+        private PatternCut toPatternCut() {
+            PatternCut cut = new PatternCut(peakPosition);
+            for (int i = 0; i < distance.length; i++) {
+                if (distance[i] != Double.POSITIVE_INFINITY) {
+                    cut.add(position[i], magnitude[i], 0, 0);
+                }
+            }
+            return cut;
+        }
+
+    }
+
+    /**
+     * Builder for {@link PatternMetrics}
+     *
+     * @author Christian Heina (developer@christianheina.com)
+     */
+    public static class Builder {
+
+        private ThetaPhi beamDirection;
+        private double cutResolution = DEFAULT_CUT_RESOLUTION;
+        private double sidelobeResolution = DEFAULT_SIDELOBE_RESOLUTION;
+
+        private Builder() {
+            /* Hidden Constructor */
+        }
+
+        /**
+         * Set main beam direction defining the principal planes and the main lobe.
+         *
+         * @param beamDirection
+         *            beam direction to set
+         *
+         * @return this instance.
+         */
+        public Builder setBeamDirection(ThetaPhi beamDirection) {
+            this.beamDirection = beamDirection;
+            return this;
+        }
+
+        /**
+         * Set resolution of the principal plane cuts. Should not be finer than the sample spacing. Defaults to 0.05
+         * degrees.
+         *
+         * @param cutResolution
+         *            resolution in degrees
+         *
+         * @return this instance.
+         */
+        public Builder setCutResolution(double cutResolution) {
+            this.cutResolution = Math.toRadians(cutResolution);
+            return this;
+        }
+
+        /**
+         * Set resolution of the grid tracking sidelobes. Also the largest distance between a sample and a principal
+         * plane for the sample to be part of the cut. Defaults to 1 degree.
+         *
+         * @param sidelobeResolution
+         *            resolution in degrees
+         *
+         * @return this instance.
+         */
+        public Builder setSidelobeResolution(double sidelobeResolution) {
+            this.sidelobeResolution = Math.toRadians(sidelobeResolution);
+            return this;
+        }
+
+        /**
+         * Build {@link PatternMetrics} using this builder.
+         *
+         * @return new instance of {@link PatternMetrics}
+         *
+         * @exception IllegalArgumentException
+         *                resolutions are not positive.
+         */
+        public PatternMetrics build() {
+            if (cutResolution <= 0 || sidelobeResolution <= 0) {
+                throw new IllegalArgumentException("Resolutions must be positive.");
+            }
+            return new PatternMetrics(this);
+        }
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.apache.commons.math3.complex.Complex;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.FieldType;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+
+/**
+ * Compact calculation result holding angles and complex values in primitive arrays.<br>
+ * A {@link Field} stores one {@link ThetaPhi} and one {@link Complex} object per sample, while a pattern result stores
+ * 32 bytes per sample, or 24 bytes per sample with values in single precision. A {@link Field} is only created when
+ * requested through {@link #toField()}, which wraps the arrays without copying them and returns the angles the result
+ * was calculated for.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class PatternResult {
+
+    /**
+     * Bytes stored per sample, theta, phi, real and imaginary part.
+     */
+    static final long BYTES_PER_SAMPLE = 4 * 8;
+    /**
+     * Bytes stored per sample with real and imaginary part in single precision.
+     */
+    static final long BYTES_PER_SAMPLE_FLOAT = 2 * 8 + 2 * 4;
+
+    private final double frequency;
+    private final FieldType fieldType;
+    private final List<ThetaPhi> angles;
+    private final double[] theta;
+    private final double[] phi;
+    private final double[] real;
+    private final double[] imaginary;
+    private final float[] realFloat;
+    private final float[] imaginaryFloat;
+
+    /**
+     * Create pattern result taking ownership of {@code real} and {@code imaginary}.
+     */
+    PatternResult(double frequency, FieldType fieldType, List<ThetaPhi> angles, double[] real, double[] imaginary) {
+        this(frequency, fieldType, angles, thetaOf(angles), phiOf(angles), real, imaginary);
+    }
+
+    /**
+     * Create pattern result in single precision taking ownership of {@code real} and {@code imaginary}.
+     */
+    PatternResult(double frequency, FieldType fieldType, List<ThetaPhi> angles, float[] real, float[] imaginary) {
+        this.frequency = frequency;
+        this.fieldType = fieldType;
+        this.angles = angles;
+        this.theta = thetaOf(angles);
+        this.phi = phiOf(angles);
+        this.real = null;
+        this.imaginary = null;
+        this.realFloat = real;
+        this.imaginaryFloat = imaginary;
+    }
+
+    /**
+     * Create pattern result taking ownership of all arrays. {@code theta} and {@code phi} must hold the angles of
+     * {@code angles}.
+     */
+    PatternResult(double frequency, FieldType fieldType, List<ThetaPhi> angles, double[] theta, double[] phi,
+            double[] real, double[] imaginary) {
+        this.frequency = frequency;
+        this.fieldType = fieldType;
+        this.angles = angles;
+        this.theta = theta;
+        this.phi = phi;
+        this.real = real;
+        this.imaginary = imaginary;
+        this.realFloat = null;
+        this.imaginaryFloat = null;
+    }
+
+    private static double[] thetaOf(List<ThetaPhi> angles) {
+        double[] theta = new double[angles.size()];
+        for (int i = 0; i < theta.length; i++) {
+            theta[i] = angles.get(i).getTheta();
+        }
+        return theta;
+    }
+
+    private static double[] phiOf(List<ThetaPhi> angles) {
+        double[] phi = new double[angles.size()];
+        for (int i = 0; i < phi.length; i++) {
+            phi[i] = angles.get(i).getPhi();
+        }
+        return phi;
+    }
+
+    /**
+     * Returns number of samples.
+     * 
+     * @return number of samples
+     */
+    public int size() {
+        return theta.length;
+    }
+
+    /**
+     * Returns precision the values are stored in.
+     * 
+     * @return precision of the values
+     */
+    public Precision getPrecision() {
+        return real != null ? Precision.DOUBLE : Precision.FLOAT;
+    }
+
+    /**
+     * Bytes stored per sample in the precision of the values.
+     */
+    long getBytesPerSample() {
+        return real != null ? BYTES_PER_SAMPLE : BYTES_PER_SAMPLE_FLOAT;
+    }
+
+    /**
+     * Returns frequency.
+     * 
+     * @return frequency
+     */
+    public double getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns field type.
+     * 
+     * @return field type
+     */
+    public FieldType getFieldType() {
+        return fieldType;
+    }
+
+    /**
+     * Returns theta of sample.
+     * 
+     * @param index
+     *            sample index
+     * 
+     * @return theta in radians
+     */
+    public double getTheta(int index) {
+        return theta[index];
+    }
+
+    /**
+     * Returns phi of sample.
+     * 
+     * @param index
+     *            sample index
+     * 
+     * @return phi in radians
+     */
+    public double getPhi(int index) {
+        return phi[index];
+    }
+
+    /**
+     * Returns real part of sample.
+     * 
+     * @param index
+     *            sample index
+     * 
+     * @return real part
+     */
+    public double getReal(int index) {
+        return real != null ? real[index] : realFloat[index];
+    }
+
+    /**
+     * Returns imaginary part of sample.
+     * 
+     * @param index
+     *            sample index
+     * 
+     * @return imaginary part
+     */
+    public double getImaginary(int index) {
+        return imaginary != null ? imaginary[index] : imaginaryFloat[index];
+    }
+
+    /**
+     * Returns squared magnitude of sample.
+     * 
+     * @param index
+     *            sample index
+     * 
+     * @return squared magnitude (linear power)
+     */
+    public double getPower(int index) {
+        double sampleReal = getReal(index);
+        double sampleImaginary = getImaginary(index);
+        return sampleReal * sampleReal + sampleImaginary * sampleImaginary;
+    }
+
+    /**
+     * Returns a field backed by this pattern result.<br>
+     * The angle list is the list the result was calculated for. The value list is a read-only view that creates a
+     * {@link Complex} each time an element is read, so nothing is copied when the field is created. Callers reading the
+     * field many times may copy the values. The values are stored as {@link ElectricField#RELATIVE_GAIN}.
+     * 
+     * @return field view of this pattern result
+     */
+    public Field toField() {
+        return Field.newBuilder().setThetaPhiList(angles)
+                .addElectricField(ElectricField.RELATIVE_GAIN, new ComplexView()).setFreqency(frequency)
+                .setFieldType(fieldType).build();
+    }
+
+    private final class ComplexView extends AbstractList<Complex> implements RandomAccess {
+
+        @Override
+        public Complex get(int index) {
+            return new Complex(getReal(index), getImaginary(index));
+        }
+
+        @Override
+        public int size() {
+            return theta.length;
+        }
+
+    }
+
+}
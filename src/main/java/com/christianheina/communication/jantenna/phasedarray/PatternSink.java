@@ -0,0 +1,51 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+
+/**
+ * Consumer of pattern samples as they are calculated.<br>
+ * Used by the streaming calculations in {@link ArrayFactor} and {@link PhasedArrayAntenna} so that results can be
+ * reduced without keeping a complete {@link com.christianheina.communication.jantenna.commons.Field Field} in memory.
+ * Blocks are delivered from calculation threads, possibly concurrently and in any order, so implementations must be
+ * thread safe.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public interface PatternSink {
+
+    /**
+     * Accept a block of calculated samples.
+     *
+     * @param angles
+     *            all angles of the calculation
+     * @param from
+     *            index in {@code angles} of the first sample in the block (inclusive)
+     * @param to
+     *            index in {@code angles} of the last sample in the block (exclusive)
+     * @param real
+     *            real part of the samples, value for {@code angles.get(from + i)} is found at index {@code i}. Only
+     *            valid for the duration of the call.
+     * @param imaginary
+     *            imaginary part of the samples, indexed like {@code real}. Only valid for the duration of the call.
+     */
+    void accept(List<ThetaPhi> angles, int from, int to, double[] real, double[] imaginary);
+
+}
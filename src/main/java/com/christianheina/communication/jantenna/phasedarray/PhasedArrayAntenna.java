@@ -16,11 +16,27 @@
 
 package com.christianheina.communication.jantenna.phasedarray;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.commons.math3.complex.Complex;
+
+import com.christianheina.common.utilities.constants.Constants;
+import com.christianheina.communication.jantenna.commons.ElectricField;
 import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.FieldType;
 import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationType;
 
 /**
  * Phased array functionality.
@@ -29,6 +45,8 @@ import com.christianheina.communication.jantenna.commons.ThetaPhi;
  */
 public class PhasedArrayAntenna {
 
+    private static final double ANGLE_TOLERANCE = 1e-9;
+
     private PhasedArrayAntenna() {
         /* Hidden Constructor */
     }
@@ -64,12 +82,16 @@ public class PhasedArrayAntenna {
      */
     public static Field newPhasedArrayAsync(Field averageEmbeddedAntennaField, double frequency,
             AntennaArray antennaArray, List<ThetaPhi> angles) {
-        Field arrayFactor = ArrayFactor.newArrayFactorAsync(frequency, antennaArray, angles);
-        return newPhasedArray(averageEmbeddedAntennaField, arrayFactor);
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        return newPhasedArrayAsync(averageEmbeddedAntennaField, executorService, frequency, antennaArray, angles);
     }
 
     /**
-     * Create phased array
+     * Create phased array<br>
+     * The embedded field is multiplied with the array factor block by block while the array factor is calculated, so
+     * only the resulting phased array is kept in memory. Precision of the array factor calculation follows
+     * {@link com.christianheina.communication.jantenna.phasedarray.config.Config#getPrecision()}.
      * 
      * @param averageEmbeddedAntennaField
      *            the average embedded field. Must contain same angles as the {@code angles}
@@ -83,11 +105,615 @@ public class PhasedArrayAntenna {
      *            angles used in the created phased array
      * 
      * @return a field containing the phased array
+     * 
+     * @exception IllegalArgumentException
+     *                {@code averageEmbeddedAntennaField} does not contain same angles as {@code angles}.
      */
     public static Field newPhasedArrayAsync(Field averageEmbeddedAntennaField, ExecutorService executorService,
             double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
-        Field arrayFactor = ArrayFactor.newArrayFactorAsync(executorService, frequency, antennaArray, angles);
-        return newPhasedArray(averageEmbeddedAntennaField, arrayFactor);
+        List<ElectricField> electricFieldNameList = new ArrayList<>(
+                averageEmbeddedAntennaField.getAvailableElectricFields());
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.PHASED_ARRAY, angles.size(),
+                antennaArray.getAntennaArray().length);
+        PhasedArrayValues values = new PhasedArrayValues(electricFieldNameList.size(), angles.size());
+        CompletableFuture<Void> future = submitPhasedArray(averageEmbeddedAntennaField, electricFieldNameList,
+                executorService, frequency, antennaArray, angles, values, null, null, null, recorder);
+        executorService.shutdown();
+        AngleBlockExecutor.await(future);
+        return buildField(recorder, electricFieldNameList, values, frequency, angles);
+    }
+
+    /**
+     * Create phased array without blocking the caller<br>
+     * The calculation is the same as {@link #newPhasedArrayAsync(Field, ExecutorService, double, AntennaArray, List)}
+     * but the returned future is completed on the threads of {@code executorService}, so that post-processing can be
+     * chained onto it.
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * 
+     * @return a future completed with a field containing the phased array, or exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     * 
+     * @exception IllegalArgumentException
+     *                {@code averageEmbeddedAntennaField} does not contain same angles as {@code angles}.
+     */
+    public static CompletableFuture<Field> newPhasedArrayFuture(Field averageEmbeddedAntennaField,
+            ExecutorService executorService, double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
+        List<ElectricField> electricFieldNameList = new ArrayList<>(
+                averageEmbeddedAntennaField.getAvailableElectricFields());
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.PHASED_ARRAY, angles.size(),
+                antennaArray.getAntennaArray().length);
+        PhasedArrayValues values = new PhasedArrayValues(electricFieldNameList.size(), angles.size());
+        return submitPhasedArray(averageEmbeddedAntennaField, electricFieldNameList, executorService, frequency,
+                antennaArray, angles, values, null, null, null, recorder)
+                        .thenApply(ignored -> buildField(recorder, electricFieldNameList, values, frequency, angles));
+    }
+
+    /**
+     * Create phased array as compact pattern results, one for each electric field of the embedded field
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * 
+     * @return pattern results containing the phased array for each electric field of the embedded field
+     */
+    public static Map<ElectricField, PatternResult> newPhasedArrayResultAsync(Field averageEmbeddedAntennaField,
+            double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        return newPhasedArrayResultAsync(averageEmbeddedAntennaField, executorService, frequency, antennaArray, angles);
+    }
+
+    /**
+     * Create phased array as compact pattern results, one for each electric field of the embedded field<br>
+     * The embedded field is multiplied with the array factor block by block directly into the arrays of the results, no
+     * per-sample objects are created.
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * 
+     * @return pattern results containing the phased array for each electric field of the embedded field
+     * 
+     * @exception IllegalArgumentException
+     *                {@code averageEmbeddedAntennaField} does not contain same angles as {@code angles}.
+     */
+    public static Map<ElectricField, PatternResult> newPhasedArrayResultAsync(Field averageEmbeddedAntennaField,
+            ExecutorService executorService, double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
+        CompletableFuture<Map<ElectricField, PatternResult>> future = newPhasedArrayResultFuture(
+                averageEmbeddedAntennaField, executorService, frequency, antennaArray, angles);
+        executorService.shutdown();
+        return AngleBlockExecutor.await(future);
+    }
+
+    /**
+     * Create phased array as compact pattern results without blocking the caller
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * 
+     * @return a future completed with pattern results containing the phased array for each electric field of the
+     *         embedded field, or exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     * 
+     * @exception IllegalArgumentException
+     *                {@code averageEmbeddedAntennaField} does not contain same angles as {@code angles}.
+     */
+    public static CompletableFuture<Map<ElectricField, PatternResult>> newPhasedArrayResultFuture(
+            Field averageEmbeddedAntennaField, ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles) {
+        List<ElectricField> electricFieldNameList = new ArrayList<>(
+                averageEmbeddedAntennaField.getAvailableElectricFields());
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.PHASED_ARRAY, angles.size(),
+                antennaArray.getAntennaArray().length);
+        PhasedArrayValues values = new PhasedArrayValues(electricFieldNameList.size(), angles.size());
+        return submitPhasedArray(averageEmbeddedAntennaField, electricFieldNameList, executorService, frequency,
+                antennaArray, angles, values, null, null, null, recorder).thenApply(ignored -> {
+                    recorder.startAssembly();
+                    Map<ElectricField, PatternResult> results = new LinkedHashMap<>();
+                    for (int field = 0; field < electricFieldNameList.size(); field++) {
+                        results.put(electricFieldNameList.get(field), new PatternResult(frequency, FieldType.FARFIELD,
+                                angles, values.real[field], values.imaginary[field]));
+                    }
+                    recorder.finish((long) electricFieldNameList.size() * angles.size(),
+                            PatternResult.BYTES_PER_SAMPLE);
+                    return results;
+                });
+    }
+
+    /**
+     * Create phased array that can be cancelled without blocking the caller<br>
+     * Angle blocks check {@code cancellationToken} before every few angles. Once it is cancelled or its deadline has
+     * passed, no further angles are calculated and the future is completed with the angles calculated so far.
+     * Cancelling the returned future also cancels {@code cancellationToken}.
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations. Left running when done.
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * @param cancellationToken
+     *            token used to cancel the calculation
+     * 
+     * @return a future completed with a partial field containing the calculated part of the phased array, or
+     *         exceptionally with a
+     *         {@link com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException
+     *         PhasedArrayAntennaException} as cause if the calculation fails
+     * 
+     * @exception IllegalArgumentException
+     *                {@code averageEmbeddedAntennaField} does not contain same angles as {@code angles}.
+     */
+    public static CompletableFuture<PartialField> newPhasedArrayFuture(Field averageEmbeddedAntennaField,
+            ExecutorService executorService, double frequency, AntennaArray antennaArray, List<ThetaPhi> angles,
+            CancellationToken cancellationToken) {
+        List<ElectricField> electricFieldNameList = new ArrayList<>(
+                averageEmbeddedAntennaField.getAvailableElectricFields());
+        BitSet coverage = new BitSet(angles.size());
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.PHASED_ARRAY, angles.size(),
+                antennaArray.getAntennaArray().length);
+        PhasedArrayValues values = new PhasedArrayValues(electricFieldNameList.size(), angles.size());
+        CompletableFuture<PartialField> future = submitPhasedArray(averageEmbeddedAntennaField, electricFieldNameList,
+                executorService, frequency, antennaArray, angles, values, null, cancellationToken, coverage, recorder)
+                        .thenApply(ignored -> {
+                            for (int field = 0; field < electricFieldNameList.size(); field++) {
+                                for (int i = coverage.nextClearBit(0); i < angles.size(); i = coverage
+                                        .nextClearBit(i + 1)) {
+                                    values.real[field][i] = Double.NaN;
+                                    values.imaginary[field][i] = Double.NaN;
+                                }
+                            }
+                            return new PartialField(
+                                    buildField(recorder, electricFieldNameList, values, frequency, angles), coverage);
+                        });
+        cancellationToken.cancelWhenCancelled(future);
+        return future;
+    }
+
+    /**
+     * Create both polarisations of phased array
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param thetaField
+     *            the electric field of {@code averageEmbeddedAntennaField} containing the theta component
+     * @param phiField
+     *            the electric field of {@code averageEmbeddedAntennaField} containing the phi component
+     * @param copolarization
+     *            polarisation used as co-polarisation for cross-polar discrimination
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * @param polarizationSink
+     *            sink receiving axial ratio and cross-polar discrimination, or {@code null} if not needed
+     * 
+     * @return a field containing the theta and phi components of the phased array
+     */
+    public static Field newPhasedArrayAsync(Field averageEmbeddedAntennaField, ElectricField thetaField,
+            ElectricField phiField, Polarization copolarization, double frequency, AntennaArray antennaArray,
+            List<ThetaPhi> angles, PolarizationSink polarizationSink) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        return newPhasedArrayAsync(averageEmbeddedAntennaField, thetaField, phiField, copolarization, executorService,
+                frequency, antennaArray, angles, polarizationSink);
+    }
+
+    /**
+     * Create both polarisations of phased array<br>
+     * Theta and phi components are calculated from a single array factor evaluation. Axial ratio and cross-polar
+     * discrimination are optionally calculated from the components block by block and streamed to
+     * {@code polarizationSink}.
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param thetaField
+     *            the electric field of {@code averageEmbeddedAntennaField} containing the theta component
+     * @param phiField
+     *            the electric field of {@code averageEmbeddedAntennaField} containing the phi component
+     * @param copolarization
+     *            polarisation used as co-polarisation for cross-polar discrimination
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * @param polarizationSink
+     *            sink receiving axial ratio and cross-polar discrimination, or {@code null} if not needed
+     * 
+     * @return a field containing the theta and phi components of the phased array
+     * 
+     * @exception IllegalArgumentException
+     *                {@code averageEmbeddedAntennaField} does not contain same angles as {@code angles} or does not
+     *                contain {@code thetaField} and {@code phiField} for all angles.
+     */
+    public static Field newPhasedArrayAsync(Field averageEmbeddedAntennaField, ElectricField thetaField,
+            ElectricField phiField, Polarization copolarization, ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, PolarizationSink polarizationSink) {
+        List<ElectricField> electricFieldNameList = Arrays.asList(thetaField, phiField);
+        PhasedArrayBlockListener blockListener = null;
+        if (polarizationSink != null) {
+            blockListener = (from, to, values) -> {
+                double[] axialRatio = new double[to - from];
+                double[] crossPolarDiscrimination = new double[to - from];
+                for (int i = 0; i < to - from; i++) {
+                    Complex theta = new Complex(values.real[0][from + i], values.imaginary[0][from + i]);
+                    Complex phi = new Complex(values.real[1][from + i], values.imaginary[1][from + i]);
+                    axialRatio[i] = PhasedArrayUtil.calculateAxialRatio(theta, phi);
+                    crossPolarDiscrimination[i] = PhasedArrayUtil.calculateCrossPolarDiscrimination(theta, phi,
+                            copolarization);
+                }
+                polarizationSink.accept(angles, from, to, axialRatio, crossPolarDiscrimination);
+            };
+        }
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.PHASED_ARRAY, angles.size(),
+                antennaArray.getAntennaArray().length);
+        PhasedArrayValues values = new PhasedArrayValues(electricFieldNameList.size(), angles.size());
+        CompletableFuture<Void> future = submitPhasedArray(averageEmbeddedAntennaField, electricFieldNameList,
+                executorService, frequency, antennaArray, angles, values, blockListener, null, null, recorder);
+        executorService.shutdown();
+        AngleBlockExecutor.await(future);
+        return buildField(recorder, electricFieldNameList, values, frequency, angles);
+    }
+
+    /**
+     * Create phased array using embedded fields for classes of elements
+     * 
+     * @param embeddedAntennaFields
+     *            embedded field of each element class. All must contain same angles as the {@code angles}
+     * @param elementClasses
+     *            index in {@code embeddedAntennaFields} of the class of each element in {@code antennaArray}
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * 
+     * @return a field containing the phased array
+     */
+    public static Field newPhasedArrayAsync(List<Field> embeddedAntennaFields, int[] elementClasses, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        return newPhasedArrayAsync(embeddedAntennaFields, elementClasses, executorService, frequency, antennaArray,
+                angles);
+    }
+
+    /**
+     * Create phased array using embedded fields for classes of elements<br>
+     * Elements with different embedded fields, such as edge and centre elements of a panel, are grouped into classes.
+     * For each angle the weighted element contributions are summed per class and combined with the embedded field of
+     * that class, so memory and the cost of the combination scale with the number of classes rather than the number of
+     * elements. Each class can also be a single element. Calculations are made in double precision.
+     * 
+     * @param embeddedAntennaFields
+     *            embedded field of each element class. All must contain same angles as the {@code angles} and the
+     *            electric fields of the first class.
+     * @param elementClasses
+     *            index in {@code embeddedAntennaFields} of the class of each element in {@code antennaArray}
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when creating phased array
+     * @param angles
+     *            angles used in the created phased array
+     * 
+     * @return a field containing the phased array with the electric fields of the first class
+     * 
+     * @exception IllegalArgumentException
+     *                {@code elementClasses} does not map every element to an embedded field or an embedded field does
+     *                not contain same angles and electric fields.
+     */
+    public static Field newPhasedArrayAsync(List<Field> embeddedAntennaFields, int[] elementClasses,
+            ExecutorService executorService, double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
+        int numberOfClasses = embeddedAntennaFields.size();
+        if (numberOfClasses == 0) {
+            throw new IllegalArgumentException("At least one embedded field must be supplied.");
+        }
+        CalculationRecorder recorder = CalculationRecorder.start(CalculationType.PHASED_ARRAY, angles.size(),
+                antennaArray.getAntennaArray().length);
+        PackedAntennaArray[] classArrays = packElementClasses(antennaArray, elementClasses, numberOfClasses);
+        List<ElectricField> electricFieldNameList = new ArrayList<>(
+                embeddedAntennaFields.get(0).getAvailableElectricFields());
+        int numberOfFields = electricFieldNameList.size();
+        List<List<List<Complex>>> embeddedFieldLists = new ArrayList<>(numberOfClasses);
+        for (Field embeddedAntennaField : embeddedAntennaFields) {
+            validateAngles(embeddedAntennaField, angles);
+            List<List<Complex>> classFieldLists = new ArrayList<>(numberOfFields);
+            for (ElectricField electricField : electricFieldNameList) {
+                classFieldLists.add(getEmbeddedField(embeddedAntennaField, electricField, angles));
+            }
+            embeddedFieldLists.add(classFieldLists);
+        }
+
+        double lambda = Constants.VACUUM_SPEED_OF_LIGHT / frequency;
+        PhasedArrayValues values = new PhasedArrayValues(numberOfFields, angles.size());
+        AngleBlockExecutor.calculate(executorService, angles.size(), recorder.record((from, to) -> {
+            double[][] real = new double[numberOfClasses][to - from];
+            double[][] imaginary = new double[numberOfClasses][to - from];
+            for (int elementClass = 0; elementClass < numberOfClasses; elementClass++) {
+                classArrays[elementClass].calculateArrayFactor(lambda, angles, from, to, real[elementClass],
+                        imaginary[elementClass], 0);
+            }
+            for (int field = 0; field < numberOfFields; field++) {
+                for (int i = 0; i < to - from; i++) {
+                    double sumReal = 0;
+                    double sumImaginary = 0;
+                    for (int elementClass = 0; elementClass < numberOfClasses; elementClass++) {
+                        Complex embedded = embeddedFieldLists.get(elementClass).get(field).get(from + i);
+                        double arrayFactorReal = real[elementClass][i];
+                        double arrayFactorImaginary = imaginary[elementClass][i];
+                        sumReal += embedded.getReal() * arrayFactorReal
+                                - embedded.getImaginary() * arrayFactorImaginary;
+                        sumImaginary += embedded.getReal() * arrayFactorImaginary
+                                + embedded.getImaginary() * arrayFactorReal;
+                    }
+                    values.real[field][from + i] = sumReal;
+                    values.imaginary[field][from + i] = sumImaginary;
+                }
+            }
+        }));
+
+        return buildField(recorder, electricFieldNameList, values, frequency, angles);
+    }
+
+    /**
+     * Calculate phased array for one electric field of the embedded field and stream it block by block to {@code sink}
+     * without building a {@link Field}.
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param electricField
+     *            the electric field of {@code averageEmbeddedAntennaField} to use
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when calculating phased array
+     * @param angles
+     *            angles used in the calculated phased array
+     * @param sink
+     *            sink receiving the calculated phased array
+     */
+    public static void streamPhasedArrayAsync(Field averageEmbeddedAntennaField, ElectricField electricField,
+            double frequency, AntennaArray antennaArray, List<ThetaPhi> angles, PatternSink sink) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        streamPhasedArrayAsync(averageEmbeddedAntennaField, electricField, executorService, frequency, antennaArray,
+                angles, sink);
+    }
+
+    /**
+     * Calculate phased array for one electric field of the embedded field and stream it block by block to {@code sink}
+     * without building a {@link Field}.<br>
+     * Only memory for the blocks currently being calculated is allocated. Calculations are made in double precision.
+     * 
+     * @param averageEmbeddedAntennaField
+     *            the average embedded field. Must contain same angles as the {@code angles}
+     * @param electricField
+     *            the electric field of {@code averageEmbeddedAntennaField} to use
+     * @param executorService
+     *            the ExecutorService used for asynchronous array factor calculations
+     * @param frequency
+     *            wavelength
+     * @param antennaArray
+     *            antenna array to use when calculating phased array
+     * @param angles
+     *            angles used in the calculated phased array
+     * @param sink
+     *            sink receiving the calculated phased array
+     * 
+     * @exception IllegalArgumentException
+     *                {@code averageEmbeddedAntennaField} does not contain same angles as {@code angles} or does not
+     *                contain {@code electricField} for all angles.
+     */
+    public static void streamPhasedArrayAsync(Field averageEmbeddedAntennaField, ElectricField electricField,
+            ExecutorService executorService, double frequency, AntennaArray antennaArray, List<ThetaPhi> angles,
+            PatternSink sink) {
+        validateAngles(averageEmbeddedAntennaField, angles);
+        List<Complex> embeddedFieldList = getEmbeddedField(averageEmbeddedAntennaField, electricField, angles);
+        ArrayFactor.streamArrayFactorAsync(executorService, frequency, antennaArray, angles,
+                (blockAngles, from, to, real, imaginary) -> {
+                    for (int i = 0; i < to - from; i++) {
+                        Complex embedded = embeddedFieldList.get(from + i);
+                        double arrayFactorReal = real[i];
+                        real[i] = embedded.getReal() * arrayFactorReal - embedded.getImaginary() * imaginary[i];
+                        imaginary[i] = embedded.getReal() * imaginary[i] + embedded.getImaginary() * arrayFactorReal;
+                    }
+                    sink.accept(blockAngles, from, to, real, imaginary);
+                }, CalculationType.PHASED_ARRAY);
+    }
+
+    /**
+     * Submit fused calculation of array factor multiplied with {@code electricFieldNameList} of the embedded field into
+     * {@code values}. Every calculated block is passed to {@code blockListener} unless it is {@code null}. Angles not
+     * calculated due to {@code cancellationToken} are left as zero in {@code values}.
+     */
+    private static CompletableFuture<Void> submitPhasedArray(Field averageEmbeddedAntennaField,
+            List<ElectricField> electricFieldNameList, ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, PhasedArrayValues values,
+            PhasedArrayBlockListener blockListener, CancellationToken cancellationToken, BitSet coverage,
+            CalculationRecorder recorder) {
+        validateAngles(averageEmbeddedAntennaField, angles);
+        int numberOfFields = electricFieldNameList.size();
+        List<List<Complex>> embeddedFieldLists = new ArrayList<>(numberOfFields);
+        for (ElectricField electricField : electricFieldNameList) {
+            embeddedFieldLists.add(getEmbeddedField(averageEmbeddedAntennaField, electricField, angles));
+        }
+
+        double lambda = Constants.VACUUM_SPEED_OF_LIGHT / frequency;
+        Precision precision = PhasedArrayAntennaCalculationConfig.getConfig().getPrecision();
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(antennaArray, precision);
+        return AngleBlockExecutor.submit(executorService, angles.size(), cancellationToken, coverage,
+                recorder.record((from, to) -> {
+                    double[] real = new double[to - from];
+                    double[] imaginary = new double[to - from];
+                    if (precision == Precision.FLOAT) {
+                        float[] realFloat = new float[to - from];
+                        float[] imaginaryFloat = new float[to - from];
+                        packedArray.calculateArrayFactor(lambda, angles, from, to, realFloat, imaginaryFloat, 0);
+                        for (int i = 0; i < to - from; i++) {
+                            real[i] = realFloat[i];
+                            imaginary[i] = imaginaryFloat[i];
+                        }
+                    } else {
+                        packedArray.calculateArrayFactor(lambda, angles, from, to, real, imaginary, 0);
+                    }
+                    for (int field = 0; field < numberOfFields; field++) {
+                        List<Complex> embeddedFieldList = embeddedFieldLists.get(field);
+                        double[] phasedArrayReal = values.real[field];
+                        double[] phasedArrayImaginary = values.imaginary[field];
+                        for (int i = 0; i < to - from; i++) {
+                            Complex embedded = embeddedFieldList.get(from + i);
+                            phasedArrayReal[from + i] = embedded.getReal() * real[i]
+                                    - embedded.getImaginary() * imaginary[i];
+                            phasedArrayImaginary[from + i] = embedded.getReal() * imaginary[i]
+                                    + embedded.getImaginary() * real[i];
+                        }
+                    }
+                    if (blockListener != null) {
+                        blockListener.blockCalculated(from, to, values);
+                    }
+                }));
+    }
+
+    private static Field buildField(CalculationRecorder recorder, List<ElectricField> electricFieldNameList,
+            PhasedArrayValues values, double frequency, List<ThetaPhi> angles) {
+        recorder.startAssembly();
+        Field.Builder builder = Field.newBuilder().setThetaPhiList(angles).setFreqency(frequency)
+                .setFieldType(FieldType.FARFIELD);
+        for (int field = 0; field < values.real.length; field++) {
+            Complex[] phasedArrayField = new Complex[angles.size()];
+            for (int i = 0; i < phasedArrayField.length; i++) {
+                phasedArrayField[i] = new Complex(values.real[field][i], values.imaginary[field][i]);
+            }
+            builder.addElectricField(electricFieldNameList.get(field), Arrays.asList(phasedArrayField));
+        }
+        Field phasedArray = builder.build();
+        recorder.finish((long) values.real.length * angles.size());
+        return phasedArray;
+    }
+
+    private static PackedAntennaArray[] packElementClasses(AntennaArray antennaArray, int[] elementClasses,
+            int numberOfClasses) {
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        if (elementClasses.length != elements.length) {
+            throw new IllegalArgumentException("Element classes contains " + elementClasses.length
+                    + " entries but antenna array contains " + elements.length + " elements.");
+        }
+        int[] classSizes = new int[numberOfClasses];
+        for (int elementClass : elementClasses) {
+            if (elementClass < 0 || elementClass >= numberOfClasses) {
+                throw new IllegalArgumentException(
+                        "Element class " + elementClass + " has no embedded field among " + numberOfClasses + ".");
+            }
+            classSizes[elementClass]++;
+        }
+        WeightableElement[][] classElements = new WeightableElement[numberOfClasses][];
+        for (int elementClass = 0; elementClass < numberOfClasses; elementClass++) {
+            classElements[elementClass] = new WeightableElement[classSizes[elementClass]];
+            classSizes[elementClass] = 0;
+        }
+        for (int i = 0; i < elements.length; i++) {
+            classElements[elementClasses[i]][classSizes[elementClasses[i]]++] = elements[i];
+        }
+        PackedAntennaArray[] classArrays = new PackedAntennaArray[numberOfClasses];
+        for (int elementClass = 0; elementClass < numberOfClasses; elementClass++) {
+            classArrays[elementClass] = PackedAntennaArray.pack(classElements[elementClass], Precision.DOUBLE);
+        }
+        return classArrays;
+    }
+
+    private static void validateAngles(Field averageEmbeddedAntennaField, List<ThetaPhi> angles) {
+        List<ThetaPhi> embeddedAngles = averageEmbeddedAntennaField.getThetaPhiList();
+        if (embeddedAngles.size() != angles.size()) {
+            throw new IllegalArgumentException("Embedded field contains " + embeddedAngles.size()
+                    + " angles but phased array is calculated for " + angles.size() + " angles.");
+        }
+        for (int i = 0; i < angles.size(); i++) {
+            ThetaPhi embeddedAngle = embeddedAngles.get(i);
+            ThetaPhi angle = angles.get(i);
+            if (Math.abs(embeddedAngle.getTheta() - angle.getTheta()) > ANGLE_TOLERANCE
+                    || Math.abs(embeddedAngle.getPhi() - angle.getPhi()) > ANGLE_TOLERANCE) {
+                throw new IllegalArgumentException(
+                        "Embedded field angle at index " + i + " does not match phased array angle.");
+            }
+        }
+    }
+
+    private static List<Complex> getEmbeddedField(Field averageEmbeddedAntennaField, ElectricField electricField,
+            List<ThetaPhi> angles) {
+        List<Complex> embeddedFieldList = averageEmbeddedAntennaField.getElectricField(electricField);
+        if (embeddedFieldList == null || embeddedFieldList.size() != angles.size()) {
+            throw new IllegalArgumentException(
+                    "Embedded field must contain " + electricField + " for all " + angles.size() + " angles.");
+        }
+        return embeddedFieldList;
+    }
+
+    /**
+     * Real and imaginary parts of the phased array for every electric field, indexed by field and angle.
+     */
+    private static final class PhasedArrayValues {
+
+        private final double[][] real;
+        private final double[][] imaginary;
+
+        private PhasedArrayValues(int numberOfFields, int numberOfAngles) {
+            real = new double[numberOfFields][numberOfAngles];
+            imaginary = new double[numberOfFields][numberOfAngles];
+        }
+
+    }
+
+    /**
+     * Listener of calculated blocks of the fused phased array calculation.
+     */
+    private interface PhasedArrayBlockListener {
+        void blockCalculated(int from, int to, PhasedArrayValues values);
     }
 
 }
@@ -63,4 +63,80 @@ public class PhasedArrayUtil {
         return new Complex(0, -1 * k.dotProduct(r)).exp();
     }
 
+    /**
+     * Calculate axial ratio of polarisation ellipse.
+     * 
+     * @param theta
+     *            theta component of the field
+     * @param phi
+     *            phi component of the field
+     * 
+     * @return axial ratio in dB. 0 for circular polarisation and positive infinity for linear polarisation.
+     */
+    public static double calculateAxialRatio(Complex theta, Complex phi) {
+        double rightHand = calculateComponent(theta, phi, Polarization.RIGHT_HAND_CIRCULAR).abs();
+        double leftHand = calculateComponent(theta, phi, Polarization.LEFT_HAND_CIRCULAR).abs();
+        return 20 * Math.log10((rightHand + leftHand) / Math.abs(rightHand - leftHand));
+    }
+
+    /**
+     * Calculate cross-polar discrimination, the ratio between co-polar and cross-polar field.
+     * 
+     * @param theta
+     *            theta component of the field
+     * @param phi
+     *            phi component of the field
+     * @param copolarization
+     *            polarisation regarded as co-polarisation. Cross-polarisation is the orthogonal polarisation.
+     * 
+     * @return cross-polar discrimination in dB
+     */
+    public static double calculateCrossPolarDiscrimination(Complex theta, Complex phi, Polarization copolarization) {
+        Polarization crossPolarization;
+        switch (copolarization) {
+        case THETA:
+            crossPolarization = Polarization.PHI;
+            break;
+        case PHI:
+            crossPolarization = Polarization.THETA;
+            break;
+        case RIGHT_HAND_CIRCULAR:
+            crossPolarization = Polarization.LEFT_HAND_CIRCULAR;
+            break;
+        default:
+            crossPolarization = Polarization.RIGHT_HAND_CIRCULAR;
+            break;
+        }
+        return 20 * Math.log10(calculateComponent(theta, phi, copolarization).abs()
+                / calculateComponent(theta, phi, crossPolarization).abs());
+    }
+
+    /**
+     * Calculate field component along polarisation.
+     * 
+     * @param theta
+     *            theta component of the field
+     * @param phi
+     *            phi component of the field
+     * @param polarization
+     *            polarisation of the component
+     * 
+     * @return field component
+     */
+    public static Complex calculateComponent(Complex theta, Complex phi, Polarization polarization) {
+        switch (polarization) {
+        case THETA:
+            return theta;
+        case PHI:
+            return phi;
+        case RIGHT_HAND_CIRCULAR:
+            // Projection on conjugate of (theta - j * phi) / sqrt(2)
+            return new Complex(theta.getReal() - phi.getImaginary(), theta.getImaginary() + phi.getReal())
+                    .divide(Math.sqrt(2));
+        default:
+            return new Complex(theta.getReal() + phi.getImaginary(), theta.getImaginary() - phi.getReal())
+                    .divide(Math.sqrt(2));
+        }
+    }
+
 }
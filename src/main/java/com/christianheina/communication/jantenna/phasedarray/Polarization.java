@@ -0,0 +1,43 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+/**
+ * Polarisation of far field components expressed in theta and phi components according to IEEE format.<br>
+ * Circular polarisations follow the IEEE definition with {@code exp(jwt)} time dependence, where right hand circular
+ * polarisation has unit vector {@code (theta - j * phi) / sqrt(2)}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public enum Polarization {
+    /**
+     * Linear polarisation along theta.
+     */
+    THETA,
+    /**
+     * Linear polarisation along phi.
+     */
+    PHI,
+    /**
+     * Right hand circular polarisation.
+     */
+    RIGHT_HAND_CIRCULAR,
+    /**
+     * Left hand circular polarisation.
+     */
+    LEFT_HAND_CIRCULAR
+}
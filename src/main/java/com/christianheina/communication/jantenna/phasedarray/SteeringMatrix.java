@@ -0,0 +1,339 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.common.utilities.constants.Constants;
+import com.christianheina.communication.jantenna.commons.FieldType;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+
+/**
+ * Precalculated steering vectors of an array geometry at a frequency and angle grid.<br>
+ * Element {@code (a, n)} of the matrix is {@code exp(-j * k_a . r_n)}, the steering vector of element {@code n} towards
+ * angle {@code a} as calculated by {@link PhasedArrayUtil#calculateSteeringVector(Vector3D, Vector3D)}. Since it only
+ * depends on element locations, frequency and angles, the array factor for any set of weights is the matrix-vector
+ * product of the matrix and the weights, which needs no trigonometric functions. This makes repeated evaluations, such
+ * as in weight optimisation loops, several times faster than {@link ArrayFactor}.<br>
+ * The matrix stores {@code 2 * angles * elements} values in primitive arrays, in single precision if requested, and is
+ * never larger than the maximum size given when it is created. Instances are immutable and thread safe.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class SteeringMatrix {
+
+    /**
+     * Default maximum size of a steering matrix, 1 GiB.
+     */
+    public static final long DEFAULT_MAXIMUM_BYTES = 1L << 30;
+
+    private final double frequency;
+    private final int numberOfAngles;
+    private final int numberOfElements;
+    private final List<ThetaPhi> angles;
+    private final double[] theta;
+    private final double[] phi;
+    private final Precision precision;
+    private final double[] real;
+    private final double[] imaginary;
+    private final float[] realFloat;
+    private final float[] imaginaryFloat;
+
+    private SteeringMatrix(double frequency, int numberOfElements, List<ThetaPhi> angles, Precision precision) {
+        this.frequency = frequency;
+        this.numberOfAngles = angles.size();
+        this.numberOfElements = numberOfElements;
+        this.angles = angles;
+        this.theta = new double[numberOfAngles];
+        this.phi = new double[numberOfAngles];
+        for (int a = 0; a < numberOfAngles; a++) {
+            ThetaPhi angle = angles.get(a);
+            theta[a] = angle.getTheta();
+            phi[a] = angle.getPhi();
+        }
+        this.precision = precision;
+        int numberOfValues = numberOfAngles * numberOfElements;
+        if (precision == Precision.FLOAT) {
+            this.real = null;
+            this.imaginary = null;
+            this.realFloat = new float[numberOfValues];
+            this.imaginaryFloat = new float[numberOfValues];
+        } else {
+            this.real = new double[numberOfValues];
+            this.imaginary = new double[numberOfValues];
+            this.realFloat = null;
+            this.imaginaryFloat = null;
+        }
+    }
+
+    /**
+     * Create steering matrix in double precision, bounded by {@link #DEFAULT_MAXIMUM_BYTES}.
+     * 
+     * @param frequency
+     *            frequency
+     * @param antennaArray
+     *            antenna array providing element locations, weights are not used
+     * @param angles
+     *            angles of the matrix
+     * 
+     * @return steering matrix
+     * 
+     * @exception IllegalArgumentException
+     *                if the matrix would exceed {@link #DEFAULT_MAXIMUM_BYTES}
+     */
+    public static SteeringMatrix newSteeringMatrix(double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        try {
+            return newSteeringMatrix(executorService, frequency, antennaArray, angles, Precision.DOUBLE,
+                    DEFAULT_MAXIMUM_BYTES);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Create steering matrix.
+     * 
+     * @param executorService
+     *            the ExecutorService used for parallel calculations. Left running when done.
+     * @param frequency
+     *            frequency
+     * @param antennaArray
+     *            antenna array providing element locations, weights are not used
+     * @param angles
+     *            angles of the matrix
+     * @param precision
+     *            precision used to store the matrix, {@link Precision#FLOAT} halves its size. Products are accumulated
+     *            in double precision in both cases.
+     * @param maximumBytes
+     *            maximum size of the matrix in bytes
+     * 
+     * @return steering matrix
+     * 
+     * @exception IllegalArgumentException
+     *                if the matrix would exceed {@code maximumBytes} or the largest array size
+     */
+    public static SteeringMatrix newSteeringMatrix(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles, Precision precision, long maximumBytes) {
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        long numberOfValues = (long) angles.size() * elements.length;
+        long bytes = 2 * numberOfValues * (precision == Precision.FLOAT ? Float.BYTES : Double.BYTES);
+        if (bytes > maximumBytes || numberOfValues > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Steering matrix of " + angles.size() + " angles and " + elements.length
+                    + " elements requires " + bytes + " bytes, maximum is " + maximumBytes + " bytes.");
+        }
+        SteeringMatrix steeringMatrix = new SteeringMatrix(frequency, elements.length, angles, precision);
+        double[] x = new double[elements.length];
+        double[] y = new double[elements.length];
+        double[] z = new double[elements.length];
+        for (int n = 0; n < elements.length; n++) {
+            Vector3D r = elements[n].getElementLocation();
+            x[n] = r.getX();
+            y[n] = r.getY();
+            z[n] = r.getZ();
+        }
+        double waveNumber = 2 * Math.PI * frequency / Constants.VACUUM_SPEED_OF_LIGHT;
+        AngleBlockExecutor.calculateAndKeepRunning(executorService, angles.size(),
+                (from, to) -> steeringMatrix.fill(waveNumber, x, y, z, from, to));
+        return steeringMatrix;
+    }
+
+    private void fill(double waveNumber, double[] x, double[] y, double[] z, int from, int to) {
+        for (int a = from; a < to; a++) {
+            double sinTheta = Math.sin(theta[a]);
+            double kx = waveNumber * sinTheta * Math.cos(phi[a]);
+            double ky = waveNumber * sinTheta * Math.sin(phi[a]);
+            double kz = waveNumber * Math.cos(theta[a]);
+            int row = a * numberOfElements;
+            for (int n = 0; n < numberOfElements; n++) {
+                double phase = -(kx * x[n] + ky * y[n] + kz * z[n]);
+                if (precision == Precision.FLOAT) {
+                    realFloat[row + n] = (float) Math.cos(phase);
+                    imaginaryFloat[row + n] = (float) Math.sin(phase);
+                } else {
+                    real[row + n] = Math.cos(phase);
+                    imaginary[row + n] = Math.sin(phase);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns frequency of the matrix.
+     * 
+     * @return frequency
+     */
+    public double getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns number of angles, the number of rows of the matrix.
+     * 
+     * @return number of angles
+     */
+    public int getNumberOfAngles() {
+        return numberOfAngles;
+    }
+
+    /**
+     * Returns number of elements, the number of columns of the matrix.
+     * 
+     * @return number of elements
+     */
+    public int getNumberOfElements() {
+        return numberOfElements;
+    }
+
+    /**
+     * Returns precision used to store the matrix.
+     * 
+     * @return precision
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Calculate array factor for the weights of {@code antennaArray}.<br>
+     * Only the weights are used, the array must have the same elements in the same order as the array the matrix was
+     * created for.
+     * 
+     * @param antennaArray
+     *            weighted antenna array
+     * 
+     * @return pattern result containing the array factor
+     * 
+     * @exception IllegalArgumentException
+     *                if the number of elements differs from the matrix
+     */
+    public PatternResult calculateArrayFactor(AntennaArray antennaArray) {
+        double[] weightReal = new double[numberOfElements];
+        double[] weightImaginary = new double[numberOfElements];
+        getWeights(antennaArray, weightReal, weightImaginary);
+        double[] resultReal = new double[numberOfAngles];
+        double[] resultImaginary = new double[numberOfAngles];
+        multiply(weightReal, weightImaginary, resultReal, resultImaginary, 0, numberOfAngles);
+        return newPatternResult(resultReal, resultImaginary);
+    }
+
+    /**
+     * Calculate array factor for the weights of {@code antennaArray} in parallel.<br>
+     * Only the weights are used, the array must have the same elements in the same order as the array the matrix was
+     * created for.
+     * 
+     * @param executorService
+     *            the ExecutorService used for parallel calculations. Left running when done.
+     * @param antennaArray
+     *            weighted antenna array
+     * 
+     * @return pattern result containing the array factor
+     * 
+     * @exception IllegalArgumentException
+     *                if the number of elements differs from the matrix
+     */
+    public PatternResult calculateArrayFactor(ExecutorService executorService, AntennaArray antennaArray) {
+        double[] weightReal = new double[numberOfElements];
+        double[] weightImaginary = new double[numberOfElements];
+        getWeights(antennaArray, weightReal, weightImaginary);
+        double[] resultReal = new double[numberOfAngles];
+        double[] resultImaginary = new double[numberOfAngles];
+        AngleBlockExecutor.calculateAndKeepRunning(executorService, numberOfAngles,
+                (from, to) -> multiply(weightReal, weightImaginary, resultReal, resultImaginary, from, to));
+        return newPatternResult(resultReal, resultImaginary);
+    }
+
+    /**
+     * Multiply matrix with weight vector, {@code result = A * w}.<br>
+     * Does not allocate, so it can be called repeatedly with reused result arrays.
+     * 
+     * @param weightReal
+     *            real part of the weight of every element
+     * @param weightImaginary
+     *            imaginary part of the weight of every element
+     * @param resultReal
+     *            array receiving real part of the array factor of every angle
+     * @param resultImaginary
+     *            array receiving imaginary part of the array factor of every angle
+     * 
+     * @exception IllegalArgumentException
+     *                if any array length does not match the matrix
+     */
+    public void multiply(double[] weightReal, double[] weightImaginary, double[] resultReal, double[] resultImaginary) {
+        if (weightReal.length != numberOfElements || weightImaginary.length != numberOfElements) {
+            throw new IllegalArgumentException("Expected " + numberOfElements + " weights.");
+        }
+        if (resultReal.length != numberOfAngles || resultImaginary.length != numberOfAngles) {
+            throw new IllegalArgumentException("Expected result arrays of " + numberOfAngles + " angles.");
+        }
+        multiply(weightReal, weightImaginary, resultReal, resultImaginary, 0, numberOfAngles);
+    }
+
+    private void multiply(double[] weightReal, double[] weightImaginary, double[] resultReal, double[] resultImaginary,
+            int from, int to) {
+        for (int a = from; a < to; a++) {
+            int row = a * numberOfElements;
+            double sumReal = 0;
+            double sumImaginary = 0;
+            if (precision == Precision.FLOAT) {
+                for (int n = 0; n < numberOfElements; n++) {
+                    double cos = realFloat[row + n];
+                    double sin = imaginaryFloat[row + n];
+                    sumReal += weightReal[n] * cos - weightImaginary[n] * sin;
+                    sumImaginary += weightReal[n] * sin + weightImaginary[n] * cos;
+                }
+            } else {
+                for (int n = 0; n < numberOfElements; n++) {
+                    double cos = real[row + n];
+                    double sin = imaginary[row + n];
+                    sumReal += weightReal[n] * cos - weightImaginary[n] * sin;
+                    sumImaginary += weightReal[n] * sin + weightImaginary[n] * cos;
+                }
+            }
+            resultReal[a] = sumReal;
+            resultImaginary[a] = sumImaginary;
+        }
+    }
+
+    private void getWeights(AntennaArray antennaArray, double[] weightReal, double[] weightImaginary) {
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        if (elements.length != numberOfElements) {
+            throw new IllegalArgumentException(
+                    "Expected " + numberOfElements + " elements but array has " + elements.length + ".");
+        }
+        for (int n = 0; n < numberOfElements; n++) {
+            Complex weight = elements[n].getElementWeight();
+            weightReal[n] = weight.getReal();
+            weightImaginary[n] = weight.getImaginary();
+        }
+    }
+
+    private PatternResult newPatternResult(double[] resultReal, double[] resultImaginary) {
+        return new PatternResult(frequency, FieldType.FARFIELD, angles, theta.clone(), phi.clone(), resultReal,
+                resultImaginary);
+    }
+
+}
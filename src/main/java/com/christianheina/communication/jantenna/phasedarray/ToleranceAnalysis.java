@@ -0,0 +1,315 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.common.utilities.constants.Constants;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+
+/**
+ * Monte Carlo analysis of array factor sensitivity to amplitude, phase and position errors of the elements.<br>
+ * Every realisation perturbs the weight and location of each element with errors drawn from the configured
+ * distributions and evaluates the power of the array factor at every angle. Results are reduced into
+ * {@link ToleranceStatistics} as they are calculated, so memory does not grow with the number of realisations.<br>
+ * Realisation {@code r} draws its errors from its own {@link SplittableRandom} stream split from the seed in order, and
+ * every angle reduces realisations in order, so results only depend on the seed and not on the number of threads.
+ * Realisations are processed in batches: the perturbed elements of a batch are generated in parallel, then angle blocks
+ * evaluate every realisation of the batch using wave vectors precalculated once per angle.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class ToleranceAnalysis {
+
+    private static final int REALISATION_BATCH_SIZE = 64;
+    private static final double POWER_FLOOR = 1e-30;
+
+    private final ErrorDistribution amplitudeError;
+    private final ErrorDistribution phaseError;
+    private final ErrorDistribution positionError;
+    private final int numberOfRealisations;
+    private final long seed;
+    private final double[] percentiles;
+
+    private ToleranceAnalysis(Builder builder) {
+        this.amplitudeError = builder.amplitudeError;
+        this.phaseError = builder.phaseError;
+        this.positionError = builder.positionError;
+        this.numberOfRealisations = builder.numberOfRealisations;
+        this.seed = builder.seed;
+        this.percentiles = builder.percentiles.clone();
+    }
+
+    /**
+     * Calculate statistics of the array factor power.
+     * 
+     * @param frequency
+     *            frequency
+     * @param antennaArray
+     *            nominal antenna array
+     * @param angles
+     *            angles to calculate statistics for
+     * 
+     * @return statistics of the array factor power in dB
+     */
+    public ToleranceStatistics calculateStatistics(double frequency, AntennaArray antennaArray, List<ThetaPhi> angles) {
+        ExecutorService executorService = Executors
+                .newFixedThreadPool(PhasedArrayAntennaCalculationConfig.getConfig().getNumberOfThreads());
+        try {
+            return calculateStatistics(executorService, frequency, antennaArray, angles);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Calculate statistics of the array factor power.
+     * 
+     * @param executorService
+     *            the ExecutorService used for parallel calculations. Left running when done.
+     * @param frequency
+     *            frequency
+     * @param antennaArray
+     *            nominal antenna array
+     * @param angles
+     *            angles to calculate statistics for
+     * 
+     * @return statistics of the array factor power in dB, powers below -300 dB are counted as -300 dB
+     */
+    public ToleranceStatistics calculateStatistics(ExecutorService executorService, double frequency,
+            AntennaArray antennaArray, List<ThetaPhi> angles) {
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        int numberOfElements = elements.length;
+        int numberOfAngles = angles.size();
+        double waveNumber = 2 * Math.PI * frequency / Constants.VACUUM_SPEED_OF_LIGHT;
+
+        double[] nominal = new double[5 * numberOfElements];
+        for (int n = 0; n < numberOfElements; n++) {
+            Vector3D r = elements[n].getElementLocation();
+            Complex weight = elements[n].getElementWeight();
+            nominal[5 * n] = r.getX();
+            nominal[5 * n + 1] = r.getY();
+            nominal[5 * n + 2] = r.getZ();
+            nominal[5 * n + 3] = weight.getReal();
+            nominal[5 * n + 4] = weight.getImaginary();
+        }
+        double[] k = new double[3 * numberOfAngles];
+        for (int a = 0; a < numberOfAngles; a++) {
+            ThetaPhi angle = angles.get(a);
+            double sinTheta = Math.sin(angle.getTheta());
+            k[3 * a] = waveNumber * sinTheta * Math.cos(angle.getPhi());
+            k[3 * a + 1] = waveNumber * sinTheta * Math.sin(angle.getPhi());
+            k[3 * a + 2] = waveNumber * Math.cos(angle.getTheta());
+        }
+
+        ToleranceStatistics statistics = new ToleranceStatistics(angles, percentiles);
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[REALISATION_BATCH_SIZE];
+        // Perturbed x, y, z, weight real and weight imaginary of every element of every realisation in the batch
+        double[] batch = new double[REALISATION_BATCH_SIZE * 5 * numberOfElements];
+        for (int batchFrom = 0; batchFrom < numberOfRealisations; batchFrom += REALISATION_BATCH_SIZE) {
+            int batchSize = Math.min(REALISATION_BATCH_SIZE, numberOfRealisations - batchFrom);
+            for (int r = 0; r < batchSize; r++) {
+                randoms[r] = root.split();
+            }
+            AngleBlockExecutor.calculateAndKeepRunning(executorService, batchSize, (from, to) -> {
+                for (int r = from; r < to; r++) {
+                    perturb(randoms[r], nominal, batch, r * 5 * numberOfElements, numberOfElements);
+                }
+            });
+            AngleBlockExecutor.calculateAndKeepRunning(executorService, numberOfAngles, (from, to) -> {
+                for (int a = from; a < to; a++) {
+                    for (int r = 0; r < batchSize; r++) {
+                        double power = calculatePower(k, a, batch, r * 5 * numberOfElements, numberOfElements);
+                        statistics.add(a, 10 * Math.log10(Math.max(power, POWER_FLOOR)));
+                    }
+                }
+            });
+        }
+        return statistics;
+    }
+
+    private void perturb(SplittableRandom random, double[] nominal, double[] batch, int offset, int numberOfElements) {
+        for (int n = 0; n < numberOfElements; n++) {
+            int i = 5 * n;
+            double amplitude = Math.pow(10, amplitudeError.sample(random) / 20);
+            double phase = Math.toRadians(phaseError.sample(random));
+            double cos = amplitude * Math.cos(phase);
+            double sin = amplitude * Math.sin(phase);
+            batch[offset + i] = nominal[i] + positionError.sample(random);
+            batch[offset + i + 1] = nominal[i + 1] + positionError.sample(random);
+            batch[offset + i + 2] = nominal[i + 2] + positionError.sample(random);
+            batch[offset + i + 3] = nominal[i + 3] * cos - nominal[i + 4] * sin;
+            batch[offset + i + 4] = nominal[i + 3] * sin + nominal[i + 4] * cos;
+        }
+    }
+
+    private static double calculatePower(double[] k, int angleIndex, double[] batch, int offset, int numberOfElements) {
+        double kx = k[3 * angleIndex];
+        double ky = k[3 * angleIndex + 1];
+        double kz = k[3 * angleIndex + 2];
+        double sumReal = 0;
+        double sumImaginary = 0;
+        for (int i = offset; i < offset + 5 * numberOfElements; i += 5) {
+            double phase = -(kx * batch[i] + ky * batch[i + 1] + kz * batch[i + 2]);
+            double cos = Math.cos(phase);
+            double sin = Math.sin(phase);
+            sumReal += batch[i + 3] * cos - batch[i + 4] * sin;
+            sumImaginary += batch[i + 3] * sin + batch[i + 4] * cos;
+        }
+        return sumReal * sumReal + sumImaginary * sumImaginary;
+    }
+
+    /**
+     * Create new instance of {@link Builder}
+     * 
+     * @return new {@link Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link ToleranceAnalysis}
+     * 
+     * @author Christian Heina (developer@christianheina.com)
+     */
+    public static class Builder {
+
+        private ErrorDistribution amplitudeError = ErrorDistribution.none();
+        private ErrorDistribution phaseError = ErrorDistribution.none();
+        private ErrorDistribution positionError = ErrorDistribution.none();
+        private int numberOfRealisations = 1000;
+        private long seed = 0;
+        private double[] percentiles = new double[] { 0.05, 0.5, 0.95 };
+
+        private Builder() {
+            /* Hidden Constructor */
+        }
+
+        /**
+         * Set distribution of amplitude errors. Defaults to no error.
+         * 
+         * @param amplitudeError
+         *            distribution of amplitude errors in dB
+         * 
+         * @return this instance.
+         */
+        public Builder setAmplitudeError(ErrorDistribution amplitudeError) {
+            this.amplitudeError = amplitudeError;
+            return this;
+        }
+
+        /**
+         * Set distribution of phase errors. Defaults to no error.
+         * 
+         * @param phaseError
+         *            distribution of phase errors in degrees
+         * 
+         * @return this instance.
+         */
+        public Builder setPhaseError(ErrorDistribution phaseError) {
+            this.phaseError = phaseError;
+            return this;
+        }
+
+        /**
+         * Set distribution of position errors, drawn independently for x, y and z. Defaults to no error.
+         * 
+         * @param positionError
+         *            distribution of position errors in meters
+         * 
+         * @return this instance.
+         */
+        public Builder setPositionError(ErrorDistribution positionError) {
+            this.positionError = positionError;
+            return this;
+        }
+
+        /**
+         * Set number of realisations. Defaults to 1000.
+         * 
+         * @param numberOfRealisations
+         *            number of realisations
+         * 
+         * @return this instance.
+         */
+        public Builder setNumberOfRealisations(int numberOfRealisations) {
+            this.numberOfRealisations = numberOfRealisations;
+            return this;
+        }
+
+        /**
+         * Set seed of the random number streams. Defaults to 0.
+         * 
+         * @param seed
+         *            seed
+         * 
+         * @return this instance.
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Set percentiles to estimate. Defaults to 0.05, 0.5 and 0.95.
+         * 
+         * @param percentiles
+         *            percentiles between 0 and 1
+         * 
+         * @return this instance.
+         */
+        public Builder setPercentiles(double... percentiles) {
+            this.percentiles = percentiles.clone();
+            return this;
+        }
+
+        /**
+         * Build {@link ToleranceAnalysis} using this builder.
+         * 
+         * @return new instance of {@link ToleranceAnalysis}
+         * 
+         * @exception IllegalArgumentException
+         *                if an error distribution is {@code null}, the number of realisations is not positive or a
+         *                percentile is outside of 0 to 1
+         */
+        public ToleranceAnalysis build() {
+            if (amplitudeError == null || phaseError == null || positionError == null) {
+                throw new IllegalArgumentException("Error distributions must not be null.");
+            }
+            if (numberOfRealisations <= 0) {
+                throw new IllegalArgumentException("Number of realisations must be positive.");
+            }
+            for (double percentile : percentiles) {
+                if (!(percentile >= 0 && percentile <= 1)) {
+                    throw new IllegalArgumentException("Percentile " + percentile + " is outside of 0 to 1.");
+                }
+            }
+            return new ToleranceAnalysis(this);
+        }
+    }
+
+}
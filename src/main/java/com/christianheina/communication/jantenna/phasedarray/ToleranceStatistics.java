@@ -0,0 +1,295 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+
+/**
+ * Per angle statistics of the pattern power in dB over the realisations of a {@link ToleranceAnalysis}.<br>
+ * Mean and variance are accumulated with Welford's algorithm and percentiles are estimated with the P<sup>2</sup>
+ * algorithm of Jain and Chlamtac, which keeps five markers per percentile instead of the realisations themselves.
+ * Percentile estimates are exact for up to five realisations and typically within a small fraction of the spread for
+ * smooth distributions.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public final class ToleranceStatistics {
+
+    private static final int MARKERS = 5;
+
+    private final double[] theta;
+    private final double[] phi;
+    private final double[] percentiles;
+    private final long[] count;
+    private final double[] mean;
+    private final double[] m2;
+    private final double[] minimum;
+    private final double[] maximum;
+    /** Marker heights, {@code MARKERS} per angle and percentile. */
+    private final double[] heights;
+    /** Marker positions, {@code MARKERS} per angle and percentile. */
+    private final double[] positions;
+
+    ToleranceStatistics(List<ThetaPhi> angles, double[] percentiles) {
+        int numberOfAngles = angles.size();
+        this.theta = new double[numberOfAngles];
+        this.phi = new double[numberOfAngles];
+        for (int a = 0; a < numberOfAngles; a++) {
+            theta[a] = angles.get(a).getTheta();
+            phi[a] = angles.get(a).getPhi();
+        }
+        this.percentiles = percentiles.clone();
+        this.count = new long[numberOfAngles];
+        this.mean = new double[numberOfAngles];
+        this.m2 = new double[numberOfAngles];
+        this.minimum = new double[numberOfAngles];
+        this.maximum = new double[numberOfAngles];
+        Arrays.fill(minimum, Double.POSITIVE_INFINITY);
+        Arrays.fill(maximum, Double.NEGATIVE_INFINITY);
+        this.heights = new double[numberOfAngles * percentiles.length * MARKERS];
+        this.positions = new double[numberOfAngles * percentiles.length * MARKERS];
+    }
+
+    /**
+     * Add observation of angle. Observations of different angles may be added concurrently, observations of the same
+     * angle may not.
+     */
+    void add(int angleIndex, double value) {
+        long n = ++count[angleIndex];
+        double delta = value - mean[angleIndex];
+        mean[angleIndex] += delta / n;
+        m2[angleIndex] += delta * (value - mean[angleIndex]);
+        minimum[angleIndex] = Math.min(minimum[angleIndex], value);
+        maximum[angleIndex] = Math.max(maximum[angleIndex], value);
+        for (int p = 0; p < percentiles.length; p++) {
+            addToSketch((angleIndex * percentiles.length + p) * MARKERS, percentiles[p], n, value);
+        }
+    }
+
+    private void addToSketch(int offset, double percentile, long n, double value) {
+        if (n <= MARKERS) {
+            // Keep the first observations sorted in the marker heights
+            int i = offset + (int) n - 1;
+            while (i > offset && heights[i - 1] > value) {
+                heights[i] = heights[i - 1];
+                i--;
+            }
+            heights[i] = value;
+            if (n == MARKERS) {
+                for (int m = 0; m < MARKERS; m++) {
+                    positions[offset + m] = m + 1;
+                }
+            }
+            return;
+        }
+        int k;
+        if (value < heights[offset]) {
+            heights[offset] = value;
+            k = 0;
+        } else if (value >= heights[offset + 4]) {
+            heights[offset + 4] = value;
+            k = 3;
+        } else {
+            k = 0;
+            while (value >= heights[offset + k + 1]) {
+                k++;
+            }
+        }
+        for (int m = k + 1; m < MARKERS; m++) {
+            positions[offset + m]++;
+        }
+        for (int m = 1; m < MARKERS - 1; m++) {
+            double desired = 1 + (n - 1) * markerIncrement(m, percentile);
+            double d = desired - positions[offset + m];
+            double toNext = positions[offset + m + 1] - positions[offset + m];
+            double toPrevious = positions[offset + m - 1] - positions[offset + m];
+            if ((d >= 1 && toNext > 1) || (d <= -1 && toPrevious < -1)) {
+                int step = d > 0 ? 1 : -1;
+                double height = parabolic(offset + m, step);
+                if (heights[offset + m - 1] < height && height < heights[offset + m + 1]) {
+                    heights[offset + m] = height;
+                } else {
+                    heights[offset + m] += step * (heights[offset + m + step] - heights[offset + m])
+                            / (positions[offset + m + step] - positions[offset + m]);
+                }
+                positions[offset + m] += step;
+            }
+        }
+    }
+
+    private double parabolic(int i, int step) {
+        double n = positions[i];
+        double nPrevious = positions[i - 1];
+        double nNext = positions[i + 1];
+        return heights[i]
+                + step / (nNext - nPrevious) * ((n - nPrevious + step) * (heights[i + 1] - heights[i]) / (nNext - n)
+                        + (nNext - n - step) * (heights[i] - heights[i - 1]) / (n - nPrevious));
+    }
+
+    /**
+     * Increment of the desired position of inner marker 1, 2 or 3 per observation.
+     */
+    private static double markerIncrement(int marker, double percentile) {
+        switch (marker) {
+        case 1:
+            return percentile / 2;
+        case 2:
+            return percentile;
+        default:
+            return (1 + percentile) / 2;
+        }
+    }
+
+    /**
+     * Returns number of angles.
+     * 
+     * @return number of angles
+     */
+    public int getNumberOfAngles() {
+        return theta.length;
+    }
+
+    /**
+     * Returns theta of angle.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return theta in radians
+     */
+    public double getTheta(int angleIndex) {
+        return theta[angleIndex];
+    }
+
+    /**
+     * Returns phi of angle.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return phi in radians
+     */
+    public double getPhi(int angleIndex) {
+        return phi[angleIndex];
+    }
+
+    /**
+     * Returns number of realisations.
+     * 
+     * @return number of realisations
+     */
+    public long getNumberOfRealisations() {
+        return count.length == 0 ? 0 : count[0];
+    }
+
+    /**
+     * Returns mean power.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return mean power in dB
+     */
+    public double getMean(int angleIndex) {
+        return mean[angleIndex];
+    }
+
+    /**
+     * Returns sample variance of power.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return variance in dB<sup>2</sup>, zero for less than two realisations
+     */
+    public double getVariance(int angleIndex) {
+        return count[angleIndex] < 2 ? 0 : m2[angleIndex] / (count[angleIndex] - 1);
+    }
+
+    /**
+     * Returns sample standard deviation of power.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return standard deviation in dB
+     */
+    public double getStandardDeviation(int angleIndex) {
+        return Math.sqrt(getVariance(angleIndex));
+    }
+
+    /**
+     * Returns minimum power.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return minimum power in dB
+     */
+    public double getMinimum(int angleIndex) {
+        return minimum[angleIndex];
+    }
+
+    /**
+     * Returns maximum power.
+     * 
+     * @param angleIndex
+     *            angle index
+     * 
+     * @return maximum power in dB
+     */
+    public double getMaximum(int angleIndex) {
+        return maximum[angleIndex];
+    }
+
+    /**
+     * Returns percentiles estimated by this instance.
+     * 
+     * @return copy of percentiles, between 0 and 1
+     */
+    public double[] getPercentiles() {
+        return percentiles.clone();
+    }
+
+    /**
+     * Returns estimated percentile of power.
+     * 
+     * @param angleIndex
+     *            angle index
+     * @param percentileIndex
+     *            index in {@link #getPercentiles()} of the percentile
+     * 
+     * @return estimated percentile in dB, {@code NaN} without realisations
+     */
+    public double getPercentile(int angleIndex, int percentileIndex) {
+        long n = count[angleIndex];
+        int offset = (angleIndex * percentiles.length + percentileIndex) * MARKERS;
+        if (n == 0) {
+            return Double.NaN;
+        }
+        if (n <= MARKERS) {
+            // Nearest rank of the sorted observations
+            int rank = (int) Math.max(1, Math.ceil(percentiles[percentileIndex] * n));
+            return heights[offset + rank - 1];
+        }
+        return heights[offset + 2];
+    }
+
+}
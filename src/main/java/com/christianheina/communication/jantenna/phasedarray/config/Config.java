@@ -16,6 +16,8 @@
 
 package com.christianheina.communication.jantenna.phasedarray.config;
 
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetricsListener;
+
 /**
  * Configuration API used by phase array antenna calculations.
  * 
@@ -30,4 +32,22 @@ public interface Config {
      */
     int getNumberOfThreads();
 
+    /**
+     * Retrieve precision used when calculating array factor.
+     *
+     * @return precision, {@link Precision#DOUBLE} unless overridden
+     */
+    default Precision getPrecision() {
+        return Precision.DOUBLE;
+    }
+
+    /**
+     * Retrieve listener receiving metrics of completed calculations.
+     *
+     * @return metrics listener, {@link CalculationMetricsListener#NO_OP} unless overridden
+     */
+    default CalculationMetricsListener getMetricsListener() {
+        return CalculationMetricsListener.NO_OP;
+    }
+
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.metrics;
+
+/**
+ * Metrics of a completed calculation.<br>
+ * Task times are summed over all angle block tasks, so with several threads they may exceed the total time of the
+ * calculation.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class CalculationMetrics {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private CalculationType calculationType;
+    private int numberOfAngles;
+    private int numberOfElements;
+    private int numberOfTasks;
+    private long setupNanos;
+    private long queueWaitNanos;
+    private long taskNanos;
+    private long assemblyNanos;
+    private long totalNanos;
+    private long resultBytes;
+
+    private CalculationMetrics() {
+        /* Hidden Constructor */
+    }
+
+    /**
+     * Returns type of calculation.
+     * 
+     * @return calculation type
+     */
+    public CalculationType getCalculationType() {
+        return calculationType;
+    }
+
+    /**
+     * Returns number of calculated angles or observation points.
+     * 
+     * @return number of angles
+     */
+    public int getNumberOfAngles() {
+        return numberOfAngles;
+    }
+
+    /**
+     * Returns number of elements of the antenna array.
+     * 
+     * @return number of elements
+     */
+    public int getNumberOfElements() {
+        return numberOfElements;
+    }
+
+    /**
+     * Returns number of angle block tasks executed.
+     * 
+     * @return number of tasks
+     */
+    public int getNumberOfTasks() {
+        return numberOfTasks;
+    }
+
+    /**
+     * Returns time spent packing antenna array and input data before any task is submitted.
+     * 
+     * @return setup time in nanoseconds
+     */
+    public long getSetupNanos() {
+        return setupNanos;
+    }
+
+    /**
+     * Returns time tasks waited in the executor queue, summed over all tasks.
+     * 
+     * @return queue wait time in nanoseconds
+     */
+    public long getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    /**
+     * Returns time spent calculating element sums in tasks, summed over all tasks.
+     * 
+     * @return task time in nanoseconds
+     */
+    public long getTaskNanos() {
+        return taskNanos;
+    }
+
+    /**
+     * Returns time spent assembling the result, including {@code Field} construction.
+     * 
+     * @return assembly time in nanoseconds
+     */
+    public long getAssemblyNanos() {
+        return assemblyNanos;
+    }
+
+    /**
+     * Returns time from start of calculation until result is available.
+     * 
+     * @return total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns estimated number of bytes allocated for results.
+     * 
+     * @return result bytes
+     */
+    public long getResultBytes() {
+        return resultBytes;
+    }
+
+    /**
+     * Returns number of angles calculated per second of total time.
+     * 
+     * @return angles per second
+     */
+    public double getAnglesPerSecond() {
+        return numberOfAngles * NANOS_PER_SECOND / totalNanos;
+    }
+
+    /**
+     * Returns number of element evaluations, angles times elements, per second of total time.
+     * 
+     * @return element evaluations per second
+     */
+    public double getElementEvaluationsPerSecond() {
+        return (double) numberOfAngles * numberOfElements * NANOS_PER_SECOND / totalNanos;
+    }
+
+    /**
+     * Creates a new {@link Builder} instance.
+     * 
+     * @return new {@link Builder} instance
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * {@link CalculationMetrics} Builder class
+     * 
+     * @author Christian Heina (developer@christianheina.com)
+     */
+    public static class Builder {
+
+        private final CalculationMetrics metrics = new CalculationMetrics();
+
+        private Builder() {
+            /* Hidden Constructor */
+        }
+
+        /**
+         * Set calculation type.
+         * 
+         * @param calculationType
+         *            calculation type
+         * 
+         * @return this instance.
+         */
+        public Builder setCalculationType(CalculationType calculationType) {
+            metrics.calculationType = calculationType;
+            return this;
+        }
+
+        /**
+         * Set number of angles.
+         * 
+         * @param numberOfAngles
+         *            number of angles
+         * 
+         * @return this instance.
+         */
+        public Builder setNumberOfAngles(int numberOfAngles) {
+            metrics.numberOfAngles = numberOfAngles;
+            return this;
+        }
+
+        /**
+         * Set number of elements.
+         * 
+         * @param numberOfElements
+         *            number of elements
+         * 
+         * @return this instance.
+         */
+        public Builder setNumberOfElements(int numberOfElements) {
+            metrics.numberOfElements = numberOfElements;
+            return this;
+        }
+
+        /**
+         * Set number of tasks.
+         * 
+         * @param numberOfTasks
+         *            number of tasks
+         * 
+         * @return this instance.
+         */
+        public Builder setNumberOfTasks(int numberOfTasks) {
+            metrics.numberOfTasks = numberOfTasks;
+            return this;
+        }
+
+        /**
+         * Set setup time.
+         * 
+         * @param setupNanos
+         *            setup time in nanoseconds
+         * 
+         * @return this instance.
+         */
+        public Builder setSetupNanos(long setupNanos) {
+            metrics.setupNanos = setupNanos;
+            return this;
+        }
+
+        /**
+         * Set queue wait time.
+         * 
+         * @param queueWaitNanos
+         *            queue wait time in nanoseconds
+         * 
+         * @return this instance.
+         */
+        public Builder setQueueWaitNanos(long queueWaitNanos) {
+            metrics.queueWaitNanos = queueWaitNanos;
+            return this;
+        }
+
+        /**
+         * Set task time.
+         * 
+         * @param taskNanos
+         *            task time in nanoseconds
+         * 
+         * @return this instance.
+         */
+        public Builder setTaskNanos(long taskNanos) {
+            metrics.taskNanos = taskNanos;
+            return this;
+        }
+
+        /**
+         * Set assembly time.
+         * 
+         * @param assemblyNanos
+         *            assembly time in nanoseconds
+         * 
+         * @return this instance.
+         */
+        public Builder setAssemblyNanos(long assemblyNanos) {
+            metrics.assemblyNanos = assemblyNanos;
+            return this;
+        }
+
+        /**
+         * Set total time.
+         * 
+         * @param totalNanos
+         *            total time in nanoseconds
+         * 
+         * @return this instance.
+         */
+        public Builder setTotalNanos(long totalNanos) {
+            metrics.totalNanos = totalNanos;
+            return this;
+        }
+
+        /**
+         * Set estimated result bytes.
+         * 
+         * @param resultBytes
+         *            result bytes
+         * 
+         * @return this instance.
+         */
+        public Builder setResultBytes(long resultBytes) {
+            metrics.resultBytes = resultBytes;
+            return this;
+        }
+
+        /**
+         * Build {@link CalculationMetrics}.
+         * 
+         * @return the metrics
+         */
+        public CalculationMetrics build() {
+            return metrics;
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.metrics;
+
+/**
+ * Listener receiving metrics of every completed calculation.<br>
+ * Configured through {@link com.christianheina.communication.jantenna.phasedarray.config.Config#getMetricsListener()
+ * Config.getMetricsListener()}. When {@link #NO_OP} is configured no timings are measured at all. Listeners are called
+ * from calculation threads and must be thread safe.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public interface CalculationMetricsListener {
+
+    /**
+     * Listener ignoring all metrics. Calculations skip all measurements when this listener is configured.
+     */
+    CalculationMetricsListener NO_OP = metrics -> {
+        /* Metrics not measured */
+    };
+
+    /**
+     * Called when a calculation has completed.
+     * 
+     * @param metrics
+     *            metrics of the calculation
+     */
+    void calculationCompleted(CalculationMetrics metrics);
+
+}
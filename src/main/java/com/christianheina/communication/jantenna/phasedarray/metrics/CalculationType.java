@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.metrics;
+
+/**
+ * Type of calculation reported in {@link CalculationMetrics}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public enum CalculationType {
+    /**
+     * Array factor calculation.
+     */
+    ARRAY_FACTOR,
+    /**
+     * Phased array calculation combining embedded field and array factor.
+     */
+    PHASED_ARRAY,
+    /**
+     * Near field calculation.
+     */
+    NEAR_FIELD
+}
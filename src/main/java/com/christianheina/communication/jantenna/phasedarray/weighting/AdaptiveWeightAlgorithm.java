@@ -0,0 +1,434 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.PhasedArrayUtil;
+import com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException;
+
+/**
+ * Adaptive weights minimising received interference plus noise power (MVDR), optionally with nulls constrained in given
+ * directions (LCMV).<br>
+ * Weights minimise {@code w^H * R * w} subject to unit gain relative to the conjugate weights in the desired direction
+ * and zero gain in every null direction, where the covariance {@code R = R0 + sum(p_k * s_k * s_k^H)} is a base
+ * covariance plus the covariance of interferers with power {@code p_k} and steering vectors {@code s_k}. The base
+ * covariance is {@code noisePower * I} unless a covariance matrix is set. Without interferers, nulls or covariance
+ * matrix the weights equal those of {@link ConjugateWeightAlgorithm}.
+ * <p>
+ * Inverses of {@code R} are never formed. A covariance matrix is Cholesky factored once when set and the factor is
+ * reused for every solve. Interferers are applied to the base covariance with the Woodbury identity, which only needs
+ * base solves for the interferer steering vectors and a factorisation of a small matrix with one row per interferer.
+ * Base solves and their inner products are kept per interferer direction, so changing a few interferers between frames
+ * only solves for the changed ones and changing only interferer powers needs no solves of full size. Weights are solved
+ * on first use after a change, costing {@code O(N * K)} for {@code N} elements and {@code K} interferers without
+ * covariance matrix and {@code O(N^2)} with one.
+ * <p>
+ * Instances are thread safe.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class AdaptiveWeightAlgorithm implements WeightAlgorithm {
+
+    private final int size;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final Map<Vector3D, Integer> indexMap;
+    private final double lambda;
+    private final double noisePower;
+
+    private ThetaPhi desiredDirection;
+    private List<ThetaPhi> nullDirections = Collections.emptyList();
+    private double[] choleskyReal;
+    private double[] choleskyImaginary;
+    private List<Interferer> interfererList = new ArrayList<>();
+    private double[] gramReal = new double[0];
+    private double[] gramImaginary = new double[0];
+    private double[] woodburyReal;
+    private double[] woodburyImaginary;
+    private double[] weightReal;
+    private double[] weightImaginary;
+
+    AdaptiveWeightAlgorithm(List<Vector3D> elementLocations, double frequency, ThetaPhi desiredDirection,
+            double noisePower) {
+        if (elementLocations.isEmpty()) {
+            throw new IllegalArgumentException("At least one element location is required.");
+        }
+        if (!(noisePower > 0)) {
+            throw new IllegalArgumentException("Noise power must be positive.");
+        }
+        this.size = elementLocations.size();
+        this.x = new double[size];
+        this.y = new double[size];
+        this.z = new double[size];
+        this.indexMap = new HashMap<>();
+        for (int n = 0; n < size; n++) {
+            Vector3D r = elementLocations.get(n);
+            if (indexMap.put(r, n) != null) {
+                throw new IllegalArgumentException("Element location " + r + " is not unique.");
+            }
+            x[n] = r.getX();
+            y[n] = r.getY();
+            z[n] = r.getZ();
+        }
+        this.lambda = Util.calculateLambda(frequency);
+        this.noisePower = noisePower;
+        this.desiredDirection = desiredDirection;
+    }
+
+    @Override
+    public synchronized Complex calculateWeight(Vector3D r) {
+        Integer index = indexMap.get(r);
+        if (index == null) {
+            throw new IllegalArgumentException("Location " + r + " is not an element of the adaptive array.");
+        }
+        if (weightReal == null) {
+            solveWeights();
+        }
+        return new Complex(weightReal[index], weightImaginary[index]);
+    }
+
+    /**
+     * Set direction in which gain is kept.
+     * 
+     * @param desiredDirection
+     *            desired direction
+     */
+    public synchronized void setDesiredDirection(ThetaPhi desiredDirection) {
+        this.desiredDirection = desiredDirection;
+        weightReal = null;
+    }
+
+    /**
+     * Set directions in which gain is constrained to zero. Desired and null directions must have linearly independent
+     * steering vectors.
+     * 
+     * @param nullDirections
+     *            null directions, empty for no constraints besides the desired direction
+     */
+    public synchronized void setNullDirections(List<ThetaPhi> nullDirections) {
+        this.nullDirections = new ArrayList<>(nullDirections);
+        weightReal = null;
+    }
+
+    /**
+     * Set interferers, replacing previous interferers. Interferers with the same direction as a previous interferer
+     * reuse its solves.
+     * 
+     * @param directions
+     *            interferer directions
+     * @param powers
+     *            interferer powers, in the same unit as the noise power
+     * 
+     * @exception IllegalArgumentException
+     *                if the number of powers differs from the number of directions or a power is not positive
+     */
+    public synchronized void setInterferers(List<ThetaPhi> directions, double[] powers) {
+        if (directions.size() != powers.length) {
+            throw new IllegalArgumentException("Number of interferer powers, " + powers.length
+                    + ", differs from number of interferer directions, " + directions.size() + ".");
+        }
+        int numberOfInterferers = directions.size();
+        List<Interferer> newInterfererList = new ArrayList<>(numberOfInterferers);
+        int[] previousIndex = new int[numberOfInterferers];
+        for (int k = 0; k < numberOfInterferers; k++) {
+            if (!(powers[k] > 0)) {
+                throw new IllegalArgumentException("Interferer power must be positive.");
+            }
+            ThetaPhi direction = directions.get(k);
+            previousIndex[k] = findInterferer(direction);
+            Interferer interferer = previousIndex[k] < 0 ? newInterferer(direction)
+                    : interfererList.get(previousIndex[k]);
+            newInterfererList.add(interferer.withPower(powers[k]));
+        }
+        int previousSize = interfererList.size();
+        double[] newGramReal = new double[numberOfInterferers * numberOfInterferers];
+        double[] newGramImaginary = new double[numberOfInterferers * numberOfInterferers];
+        for (int i = 0; i < numberOfInterferers; i++) {
+            for (int j = 0; j <= i; j++) {
+                int index = i * numberOfInterferers + j;
+                int oldI = previousIndex[i];
+                int oldJ = previousIndex[j];
+                if (oldI >= 0 && oldJ >= 0) {
+                    // Only the lower triangle is kept, the Gram matrix is Hermitian
+                    int oldIndex = oldI >= oldJ ? oldI * previousSize + oldJ : oldJ * previousSize + oldI;
+                    newGramReal[index] = gramReal[oldIndex];
+                    newGramImaginary[index] = oldI >= oldJ ? gramImaginary[oldIndex] : -gramImaginary[oldIndex];
+                } else {
+                    Interferer interfererI = newInterfererList.get(i);
+                    Interferer interfererJ = newInterfererList.get(j);
+                    newGramReal[index] = dotReal(interfererI.steeringReal, interfererI.steeringImaginary,
+                            interfererJ.solvedReal, interfererJ.solvedImaginary);
+                    newGramImaginary[index] = dotImaginary(interfererI.steeringReal, interfererI.steeringImaginary,
+                            interfererJ.solvedReal, interfererJ.solvedImaginary);
+                }
+            }
+        }
+        interfererList = newInterfererList;
+        gramReal = newGramReal;
+        gramImaginary = newGramImaginary;
+        factorWoodbury();
+        weightReal = null;
+    }
+
+    /**
+     * Set base covariance matrix replacing {@code noisePower * I}, for example a sample covariance including diagonal
+     * loading. The matrix is Cholesky factored once, which costs {@code O(N^3)} for {@code N} elements. Only the lower
+     * triangle is read.
+     * 
+     * @param real
+     *            real part of the Hermitian covariance matrix, row-major with rows and columns in element location
+     *            order. {@code null} to restore {@code noisePower * I}.
+     * @param imaginary
+     *            imaginary part of the covariance matrix, indexed like {@code real}
+     * 
+     * @exception IllegalArgumentException
+     *                if the matrix size does not match the number of elements or the matrix is not positive definite
+     */
+    public synchronized void setCovarianceMatrix(double[] real, double[] imaginary) {
+        if (real == null) {
+            choleskyReal = null;
+            choleskyImaginary = null;
+        } else {
+            if (real.length != size * size || imaginary.length != size * size) {
+                throw new IllegalArgumentException(
+                        "Covariance matrix must have " + size + " x " + size + " elements, one row per element.");
+            }
+            double[] factorReal = real.clone();
+            double[] factorImaginary = imaginary.clone();
+            if (!ComplexCholesky.factor(factorReal, factorImaginary, size)) {
+                throw new IllegalArgumentException("Covariance matrix is not positive definite.");
+            }
+            choleskyReal = factorReal;
+            choleskyImaginary = factorImaginary;
+        }
+        // Base solves of all interferers are invalid with a new base covariance
+        List<ThetaPhi> directions = new ArrayList<>(interfererList.size());
+        double[] powers = new double[interfererList.size()];
+        for (int k = 0; k < powers.length; k++) {
+            directions.add(interfererList.get(k).direction);
+            powers[k] = interfererList.get(k).power;
+        }
+        interfererList = new ArrayList<>();
+        gramReal = new double[0];
+        gramImaginary = new double[0];
+        setInterferers(directions, powers);
+    }
+
+    private int findInterferer(ThetaPhi direction) {
+        for (int k = 0; k < interfererList.size(); k++) {
+            ThetaPhi previous = interfererList.get(k).direction;
+            if (previous.getTheta() == direction.getTheta() && previous.getPhi() == direction.getPhi()) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private Interferer newInterferer(ThetaPhi direction) {
+        double[] steeringReal = new double[size];
+        double[] steeringImaginary = new double[size];
+        calculateSteeringVector(direction, steeringReal, steeringImaginary);
+        double[] solvedReal = steeringReal.clone();
+        double[] solvedImaginary = steeringImaginary.clone();
+        solveBase(solvedReal, solvedImaginary);
+        return new Interferer(direction, 0, steeringReal, steeringImaginary, solvedReal, solvedImaginary);
+    }
+
+    /**
+     * Factor {@code P^-1 + S^H * R0^-1 * S} of the Woodbury identity.
+     */
+    private void factorWoodbury() {
+        int numberOfInterferers = interfererList.size();
+        woodburyReal = gramReal.clone();
+        woodburyImaginary = gramImaginary.clone();
+        for (int k = 0; k < numberOfInterferers; k++) {
+            woodburyReal[k * numberOfInterferers + k] += 1 / interfererList.get(k).power;
+        }
+        if (!ComplexCholesky.factor(woodburyReal, woodburyImaginary, numberOfInterferers)) {
+            throw new PhasedArrayAntennaException("Interference covariance is numerically singular.");
+        }
+    }
+
+    private void solveWeights() {
+        int numberOfConstraints = 1 + nullDirections.size();
+        double[][] constraintReal = new double[numberOfConstraints][size];
+        double[][] constraintImaginary = new double[numberOfConstraints][size];
+        double[][] solvedReal = new double[numberOfConstraints][];
+        double[][] solvedImaginary = new double[numberOfConstraints][];
+        for (int m = 0; m < numberOfConstraints; m++) {
+            ThetaPhi direction = m == 0 ? desiredDirection : nullDirections.get(m - 1);
+            calculateSteeringVector(direction, constraintReal[m], constraintImaginary[m]);
+            solvedReal[m] = constraintReal[m].clone();
+            solvedImaginary[m] = constraintImaginary[m].clone();
+            solve(solvedReal[m], solvedImaginary[m]);
+        }
+        // Solve (C^H * R^-1 * C) * lambda = g with gain N in the desired direction and zero in null directions
+        double[] constraintMatrixReal = new double[numberOfConstraints * numberOfConstraints];
+        double[] constraintMatrixImaginary = new double[numberOfConstraints * numberOfConstraints];
+        for (int i = 0; i < numberOfConstraints; i++) {
+            for (int j = 0; j <= i; j++) {
+                constraintMatrixReal[i * numberOfConstraints + j] = dotReal(constraintReal[i], constraintImaginary[i],
+                        solvedReal[j], solvedImaginary[j]);
+                constraintMatrixImaginary[i * numberOfConstraints + j] = dotImaginary(constraintReal[i],
+                        constraintImaginary[i], solvedReal[j], solvedImaginary[j]);
+            }
+        }
+        if (!ComplexCholesky.factor(constraintMatrixReal, constraintMatrixImaginary, numberOfConstraints)) {
+            throw new PhasedArrayAntennaException(
+                    "Steering vectors of desired and null directions are not linearly independent.");
+        }
+        double[] lambdaReal = new double[numberOfConstraints];
+        double[] lambdaImaginary = new double[numberOfConstraints];
+        lambdaReal[0] = size;
+        ComplexCholesky.solve(constraintMatrixReal, constraintMatrixImaginary, numberOfConstraints, lambdaReal,
+                lambdaImaginary);
+        double[] newWeightReal = new double[size];
+        double[] newWeightImaginary = new double[size];
+        for (int m = 0; m < numberOfConstraints; m++) {
+            axpy(lambdaReal[m], lambdaImaginary[m], solvedReal[m], solvedImaginary[m], newWeightReal,
+                    newWeightImaginary);
+        }
+        weightImaginary = newWeightImaginary;
+        weightReal = newWeightReal;
+    }
+
+    /**
+     * Replace {@code b} with {@code R^-1 * b} using the Woodbury identity
+     * {@code R^-1 = R0^-1 - R0^-1 * S * (P^-1 + S^H * R0^-1 * S)^-1 * S^H * R0^-1}.
+     */
+    private void solve(double[] real, double[] imaginary) {
+        solveBase(real, imaginary);
+        int numberOfInterferers = interfererList.size();
+        if (numberOfInterferers == 0) {
+            return;
+        }
+        double[] projectionReal = new double[numberOfInterferers];
+        double[] projectionImaginary = new double[numberOfInterferers];
+        for (int k = 0; k < numberOfInterferers; k++) {
+            Interferer interferer = interfererList.get(k);
+            projectionReal[k] = dotReal(interferer.steeringReal, interferer.steeringImaginary, real, imaginary);
+            projectionImaginary[k] = dotImaginary(interferer.steeringReal, interferer.steeringImaginary, real,
+                    imaginary);
+        }
+        ComplexCholesky.solve(woodburyReal, woodburyImaginary, numberOfInterferers, projectionReal,
+                projectionImaginary);
+        for (int k = 0; k < numberOfInterferers; k++) {
+            Interferer interferer = interfererList.get(k);
+            axpy(-projectionReal[k], -projectionImaginary[k], interferer.solvedReal, interferer.solvedImaginary, real,
+                    imaginary);
+        }
+    }
+
+    /**
+     * Replace {@code b} with {@code R0^-1 * b}.
+     */
+    private void solveBase(double[] real, double[] imaginary) {
+        if (choleskyReal == null) {
+            for (int n = 0; n < size; n++) {
+                real[n] /= noisePower;
+                imaginary[n] /= noisePower;
+            }
+        } else {
+            ComplexCholesky.solve(choleskyReal, choleskyImaginary, size, real, imaginary);
+        }
+    }
+
+    /**
+     * Steering vector {@code exp(j * k . r)} so that the array factor in {@code direction} is {@code s^H * w}.
+     */
+    private void calculateSteeringVector(ThetaPhi direction, double[] real, double[] imaginary) {
+        Vector3D k = PhasedArrayUtil.calculateWaveVector(lambda, direction);
+        for (int n = 0; n < size; n++) {
+            double phase = k.getX() * x[n] + k.getY() * y[n] + k.getZ() * z[n];
+            real[n] = Math.cos(phase);
+            imaginary[n] = Math.sin(phase);
+        }
+    }
+
+    /**
+     * Real part of {@code a^H * b}.
+     */
+    private static double dotReal(double[] aReal, double[] aImaginary, double[] bReal, double[] bImaginary) {
+        double sum = 0;
+        for (int n = 0; n < aReal.length; n++) {
+            sum += aReal[n] * bReal[n] + aImaginary[n] * bImaginary[n];
+        }
+        return sum;
+    }
+
+    /**
+     * Imaginary part of {@code a^H * b}.
+     */
+    private static double dotImaginary(double[] aReal, double[] aImaginary, double[] bReal, double[] bImaginary) {
+        double sum = 0;
+        for (int n = 0; n < aReal.length; n++) {
+            sum += aReal[n] * bImaginary[n] - aImaginary[n] * bReal[n];
+        }
+        return sum;
+    }
+
+    /**
+     * {@code y += alpha * x}.
+     */
+    private static void axpy(double alphaReal, double alphaImaginary, double[] xReal, double[] xImaginary,
+            double[] yReal, double[] yImaginary) {
+        for (int n = 0; n < yReal.length; n++) {
+            yReal[n] += alphaReal * xReal[n] - alphaImaginary * xImaginary[n];
+            yImaginary[n] += alphaReal * xImaginary[n] + alphaImaginary * xReal[n];
+        }
+    }
+
+    /**
+     * Interferer with steering vector {@code s} and base solve {@code R0^-1 * s}.
+     */
+    private static final class Interferer {
+
+        private final ThetaPhi direction;
+        private final double power;
+        private final double[] steeringReal;
+        private final double[] steeringImaginary;
+        private final double[] solvedReal;
+        private final double[] solvedImaginary;
+
+        private Interferer(ThetaPhi direction, double power, double[] steeringReal, double[] steeringImaginary,
+                double[] solvedReal, double[] solvedImaginary) {
+            this.direction = direction;
+            this.power = power;
+            this.steeringReal = steeringReal;
+            this.steeringImaginary = steeringImaginary;
+            this.solvedReal = solvedReal;
+            this.solvedImaginary = solvedImaginary;
+        }
+
+        private Interferer withPower(double newPower) {
+            return new Interferer(direction, newPower, steeringReal, steeringImaginary, solvedReal, solvedImaginary);
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+/**
+ * Dolph-Chebyshev taper.<br>
+ * The array factor {@code T_(N-1)(x0 * cos(psi / 2))} is sampled at {@code N} equally spaced values of the inter
+ * element phase {@code psi} and transformed to element coefficients with an inverse discrete Fourier transform.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+final class ChebyshevTaper implements Taper {
+
+    private final double sidelobeLevel;
+
+    ChebyshevTaper(double sidelobeLevel) {
+        if (!(sidelobeLevel > 0)) {
+            throw new IllegalArgumentException("Sidelobe level must be positive.");
+        }
+        this.sidelobeLevel = sidelobeLevel;
+    }
+
+    @Override
+    public double[] getCoefficients(int size) {
+        return TaperCache.getCoefficients(() -> calculateCoefficients(size), size, ChebyshevTaper.class, sidelobeLevel);
+    }
+
+    private double[] calculateCoefficients(int size) {
+        if (size == 1) {
+            return new double[] { 1 };
+        }
+        int order = size - 1;
+        double ratio = Math.pow(10, sidelobeLevel / 20);
+        double x0 = Math.cosh(acosh(ratio) / order);
+        double[] samplesReal = new double[size];
+        double[] samplesImaginary = new double[size];
+        for (int k = 0; k < size; k++) {
+            double pattern = chebyshev(order, x0 * Math.cos(Math.PI * k / size));
+            // Shift the phase reference from the array centre to the first element
+            double shift = Math.PI * k * order / size;
+            samplesReal[k] = pattern * Math.cos(shift);
+            samplesImaginary[k] = pattern * Math.sin(shift);
+        }
+        double[] coefficients = new double[size];
+        for (int m = 0; m < size; m++) {
+            double sum = 0;
+            for (int k = 0; k < size; k++) {
+                double angle = -2 * Math.PI * k * m / size;
+                sum += samplesReal[k] * Math.cos(angle) - samplesImaginary[k] * Math.sin(angle);
+            }
+            coefficients[m] = sum / size;
+        }
+        return coefficients;
+    }
+
+    private static double chebyshev(int order, double x) {
+        if (Math.abs(x) <= 1) {
+            return Math.cos(order * Math.acos(x));
+        }
+        double value = Math.cosh(order * acosh(Math.abs(x)));
+        return x < 0 && order % 2 == 1 ? -value : value;
+    }
+
+    private static double acosh(double x) {
+        return Math.log(x + Math.sqrt(x * x - 1));
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+/**
+ * In place Cholesky factorisation and solves of Hermitian positive definite matrices stored as separate real and
+ * imaginary row-major arrays. Only the lower triangle is read and written.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+final class ComplexCholesky {
+
+    private ComplexCholesky() {
+        /* Hidden Constructor */
+    }
+
+    /**
+     * Factor {@code A = L * L^H} in place, replacing the lower triangle of {@code A} with {@code L}.
+     * 
+     * @return {@code false} if the matrix is not positive definite, leaving it partially factored
+     */
+    static boolean factor(double[] real, double[] imaginary, int size) {
+        for (int j = 0; j < size; j++) {
+            int rowJ = j * size;
+            double diagonal = real[rowJ + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= real[rowJ + k] * real[rowJ + k] + imaginary[rowJ + k] * imaginary[rowJ + k];
+            }
+            if (!(diagonal > 0)) {
+                return false;
+            }
+            double lengthJ = Math.sqrt(diagonal);
+            real[rowJ + j] = lengthJ;
+            imaginary[rowJ + j] = 0;
+            for (int i = j + 1; i < size; i++) {
+                int rowI = i * size;
+                double sumReal = real[rowI + j];
+                double sumImaginary = imaginary[rowI + j];
+                for (int k = 0; k < j; k++) {
+                    // L_ik * conj(L_jk)
+                    sumReal -= real[rowI + k] * real[rowJ + k] + imaginary[rowI + k] * imaginary[rowJ + k];
+                    sumImaginary -= imaginary[rowI + k] * real[rowJ + k] - real[rowI + k] * imaginary[rowJ + k];
+                }
+                real[rowI + j] = sumReal / lengthJ;
+                imaginary[rowI + j] = sumImaginary / lengthJ;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solve {@code L * L^H * x = b} in place, replacing {@code b} with {@code x}.
+     */
+    static void solve(double[] factorReal, double[] factorImaginary, int size, double[] real, double[] imaginary) {
+        for (int i = 0; i < size; i++) {
+            int rowI = i * size;
+            double sumReal = real[i];
+            double sumImaginary = imaginary[i];
+            for (int k = 0; k < i; k++) {
+                sumReal -= factorReal[rowI + k] * real[k] - factorImaginary[rowI + k] * imaginary[k];
+                sumImaginary -= factorReal[rowI + k] * imaginary[k] + factorImaginary[rowI + k] * real[k];
+            }
+            real[i] = sumReal / factorReal[rowI + i];
+            imaginary[i] = sumImaginary / factorReal[rowI + i];
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            double sumReal = real[i];
+            double sumImaginary = imaginary[i];
+            for (int k = i + 1; k < size; k++) {
+                // conj(L_ki) * x_k
+                int index = k * size + i;
+                sumReal -= factorReal[index] * real[k] + factorImaginary[index] * imaginary[k];
+                sumImaginary -= factorReal[index] * imaginary[k] - factorImaginary[index] * real[k];
+            }
+            real[i] = sumReal / factorReal[i * size + i];
+            imaginary[i] = sumImaginary / factorReal[i * size + i];
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+/**
+ * Cosine on pedestal taper.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+final class CosineOnPedestalTaper implements Taper {
+
+    private final double pedestal;
+    private final double exponent;
+
+    CosineOnPedestalTaper(double pedestal, double exponent) {
+        if (!(pedestal >= 0 && pedestal <= 1)) {
+            throw new IllegalArgumentException("Pedestal must be between 0 and 1.");
+        }
+        if (!(exponent >= 0)) {
+            throw new IllegalArgumentException("Exponent must not be negative.");
+        }
+        this.pedestal = pedestal;
+        this.exponent = exponent;
+    }
+
+    @Override
+    public double[] getCoefficients(int size) {
+        return TaperCache.getCoefficients(() -> calculateCoefficients(size), size, CosineOnPedestalTaper.class,
+                pedestal, exponent);
+    }
+
+    private double[] calculateCoefficients(int size) {
+        double[] coefficients = new double[size];
+        for (int i = 0; i < size; i++) {
+            double x = (i - (size - 1) / 2.0) / size;
+            coefficients[i] = pedestal + (1 - pedestal) * Math.pow(Math.cos(Math.PI * x), exponent);
+        }
+        return coefficients;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+/**
+ * Weights of another {@link WeightAlgorithm} quantized to the states of digital phase shifters and step attenuators.
+ * <br>
+ * Phase is rounded to the nearest of {@code 2^phaseBits} equally spaced states. Amplitude is converted to attenuation
+ * relative to unit amplitude and rounded to the nearest of {@code 2^attenuatorBits} states spaced
+ * {@code attenuationStep} dB apart, amplitudes above one use zero attenuation and amplitudes below the largest
+ * attenuation use the largest attenuation. State weights are looked up in precalculated tables, so every element with
+ * the same state gets an identical weight, which double precision array factor calculations exploit by summing such
+ * elements before applying their common weight.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class QuantizedWeightAlgorithm implements WeightAlgorithm {
+
+    private static final int MAX_BITS = 16;
+
+    private final WeightAlgorithm weightAlgorithm;
+    private final int numberOfPhaseStates;
+    private final int numberOfAttenuationStates;
+    private final double attenuationStep;
+    private final double[] phaseCos;
+    private final double[] phaseSin;
+    private final double[] amplitude;
+
+    QuantizedWeightAlgorithm(WeightAlgorithm weightAlgorithm, int phaseBits, int attenuatorBits,
+            double attenuationStep) {
+        if (phaseBits < 0 || phaseBits > MAX_BITS || attenuatorBits < 0 || attenuatorBits > MAX_BITS) {
+            throw new IllegalArgumentException("Number of bits must be between 0 and " + MAX_BITS + ".");
+        }
+        if (attenuatorBits > 0 && !(attenuationStep > 0)) {
+            throw new IllegalArgumentException("Attenuation step must be positive.");
+        }
+        this.weightAlgorithm = weightAlgorithm;
+        this.numberOfPhaseStates = 1 << phaseBits;
+        this.numberOfAttenuationStates = 1 << attenuatorBits;
+        this.attenuationStep = attenuationStep;
+        this.phaseCos = new double[numberOfPhaseStates];
+        this.phaseSin = new double[numberOfPhaseStates];
+        for (int p = 0; p < numberOfPhaseStates; p++) {
+            double phase = 2 * Math.PI * p / numberOfPhaseStates;
+            phaseCos[p] = Math.cos(phase);
+            phaseSin[p] = Math.sin(phase);
+        }
+        this.amplitude = new double[numberOfAttenuationStates];
+        for (int a = 0; a < numberOfAttenuationStates; a++) {
+            amplitude[a] = Math.pow(10, -a * attenuationStep / 20);
+        }
+    }
+
+    @Override
+    public Complex calculateWeight(Vector3D r) {
+        return getStateWeight(getState(weightAlgorithm.calculateWeight(r)));
+    }
+
+    /**
+     * Returns number of states, the number of phase states times the number of attenuation states.
+     * 
+     * @return number of states
+     */
+    public int getNumberOfStates() {
+        return numberOfPhaseStates * numberOfAttenuationStates;
+    }
+
+    /**
+     * Returns state nearest to a weight.
+     * 
+     * @param weight
+     *            continuous weight
+     * 
+     * @return state, {@code attenuationState * 2^phaseBits + phaseState}
+     */
+    public int getState(Complex weight) {
+        double weightAmplitude = weight.abs();
+        int attenuationState = numberOfAttenuationStates - 1;
+        if (weightAmplitude > 0 && numberOfAttenuationStates > 1) {
+            double attenuation = Math.max(0, -20 * Math.log10(weightAmplitude));
+            attenuationState = (int) Math.min(numberOfAttenuationStates - 1, Math.round(attenuation / attenuationStep));
+        }
+        long phaseState = Math.round(weight.getArgument() / (2 * Math.PI) * numberOfPhaseStates);
+        return attenuationState * numberOfPhaseStates + (int) Math.floorMod(phaseState, (long) numberOfPhaseStates);
+    }
+
+    /**
+     * Returns weight of a state.
+     * 
+     * @param state
+     *            state
+     * 
+     * @return quantized weight
+     */
+    public Complex getStateWeight(int state) {
+        int phaseState = state % numberOfPhaseStates;
+        double stateAmplitude = amplitude[state / numberOfPhaseStates];
+        return new Complex(stateAmplitude * phaseCos[phaseState], stateAmplitude * phaseSin[phaseState]);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+/**
+ * Amplitude taper of a line of equally spaced elements.<br>
+ * Coefficients are symmetric, normalised to a largest coefficient of one and cached per taper parameters and size, so
+ * that creating weights for many steering directions only calculates them once.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public interface Taper {
+
+    /**
+     * Returns coefficients of a line of elements.
+     * 
+     * @param size
+     *            number of elements
+     * 
+     * @return new array with the coefficient of every element
+     * 
+     * @exception IllegalArgumentException
+     *                if size is less than 1
+     */
+    double[] getCoefficients(int size);
+
+    /**
+     * Create uniform taper.
+     * 
+     * @return new instance where all coefficients are one
+     */
+    public static Taper newUniformTaper() {
+        return new CosineOnPedestalTaper(1, 0);
+    }
+
+    /**
+     * Create Taylor n-bar taper.<br>
+     * The first {@code nbar - 1} sidelobes on each side are close to {@code sidelobeLevel} and further sidelobes decay
+     * like those of a uniform aperture.
+     * 
+     * @param sidelobeLevel
+     *            design sidelobe level in dB below the main beam, for example 30
+     * @param nbar
+     *            number of nearly equal sidelobes plus one, at least 1
+     * 
+     * @return new instance
+     * 
+     * @exception IllegalArgumentException
+     *                if sidelobe level is not positive or nbar is less than 1
+     */
+    public static Taper newTaylorTaper(double sidelobeLevel, int nbar) {
+        return new TaylorTaper(sidelobeLevel, nbar);
+    }
+
+    /**
+     * Create Dolph-Chebyshev taper.<br>
+     * All sidelobes are equal to {@code sidelobeLevel}, which gives the narrowest main beam for that level.
+     * 
+     * @param sidelobeLevel
+     *            sidelobe level in dB below the main beam, for example 30
+     * 
+     * @return new instance
+     * 
+     * @exception IllegalArgumentException
+     *                if sidelobe level is not positive
+     */
+    public static Taper newChebyshevTaper(double sidelobeLevel) {
+        return new ChebyshevTaper(sidelobeLevel);
+    }
+
+    /**
+     * Create cosine on pedestal taper, {@code pedestal + (1 - pedestal) * cos(pi * x)^exponent} where {@code x} is the
+     * element position relative to the aperture, from about -0.5 to 0.5.
+     * 
+     * @param pedestal
+     *            amplitude at the aperture edge, between 0 and 1
+     * @param exponent
+     *            exponent of the cosine, for example 1 for cosine and 2 for raised cosine
+     * 
+     * @return new instance
+     * 
+     * @exception IllegalArgumentException
+     *                if pedestal is outside of 0 to 1 or exponent is negative
+     */
+    public static Taper newCosineOnPedestalTaper(double pedestal, double exponent) {
+        return new CosineOnPedestalTaper(pedestal, exponent);
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache of taper coefficients shared by all tapers.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+final class TaperCache {
+
+    private static final int MAX_ENTRIES = 256;
+
+    private static final Map<List<Object>, double[]> CACHE = new LinkedHashMap<List<Object>, double[]>(16, 0.75f,
+            true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, double[]> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private TaperCache() {
+        /* Hidden Constructor */
+    }
+
+    /**
+     * Returns copy of cached coefficients of {@code size} elements for a taper described by {@code parameters},
+     * calculating and normalising them on a miss.
+     */
+    static double[] getCoefficients(Supplier<double[]> calculation, int size, Object... parameters) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Taper size must be at least 1.");
+        }
+        List<Object> keyList = newKey(size, parameters);
+        double[] coefficients;
+        synchronized (CACHE) {
+            coefficients = CACHE.get(keyList);
+        }
+        if (coefficients == null) {
+            coefficients = normalise(calculation.get());
+            synchronized (CACHE) {
+                CACHE.put(keyList, coefficients);
+            }
+        }
+        return coefficients.clone();
+    }
+
+    /**
+     * Returns whether coefficients of {@code size} elements for a taper described by {@code parameters} are cached.
+     */
+    static boolean contains(int size, Object... parameters) {
+        synchronized (CACHE) {
+            return CACHE.containsKey(newKey(size, parameters));
+        }
+    }
+
+    private static List<Object> newKey(int size, Object... parameters) {
+        List<Object> key = new ArrayList<>(Arrays.asList(parameters));
+        key.add(size);
+        return key;
+    }
+
+    private static double[] normalise(double[] coefficients) {
+        double max = 0;
+        for (double coefficient : coefficients) {
+            max = Math.max(max, Math.abs(coefficient));
+        }
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] /= max;
+        }
+        return coefficients;
+    }
+
+}
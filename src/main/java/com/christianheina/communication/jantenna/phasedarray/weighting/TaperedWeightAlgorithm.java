@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+
+import com.christianheina.communication.jantenna.commons.Util;
+
+/**
+ * Weights of a steering {@link WeightAlgorithm} scaled by separable amplitude tapers of an equally spaced Y-Z grid.<br>
+ * The grid matches
+ * {@link com.christianheina.communication.jantenna.phasedarray.AntennaArray#fromEquallySpacedArray(int, int, double, double, double, WeightAlgorithm)
+ * AntennaArray.fromEquallySpacedArray}: element {@code (i, j)} is located at {@code (0, i * spacingY, j * spacingZ)}
+ * wavelengths of the design frequency and gets amplitude {@code taperY[i] * taperZ[j]}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+public class TaperedWeightAlgorithm implements WeightAlgorithm {
+
+    private static final double GRID_TOLERANCE = 1e-6;
+
+    private final WeightAlgorithm steeringAlgorithm;
+    private final double distanceY;
+    private final double distanceZ;
+    private final double[] coefficientsY;
+    private final double[] coefficientsZ;
+
+    TaperedWeightAlgorithm(WeightAlgorithm steeringAlgorithm, int sizeY, int sizeZ, double spacingY, double spacingZ,
+            double designFrequency, Taper taperY, Taper taperZ) {
+        double lambda = Util.calculateLambda(designFrequency);
+        this.steeringAlgorithm = steeringAlgorithm;
+        this.distanceY = spacingY * lambda;
+        this.distanceZ = spacingZ * lambda;
+        this.coefficientsY = taperY.getCoefficients(sizeY);
+        this.coefficientsZ = taperZ.getCoefficients(sizeZ);
+    }
+
+    @Override
+    public Complex calculateWeight(Vector3D r) {
+        double amplitude = coefficientsY[getIndex(r.getY(), distanceY, coefficientsY.length)]
+                * coefficientsZ[getIndex(r.getZ(), distanceZ, coefficientsZ.length)];
+        return steeringAlgorithm.calculateWeight(r).multiply(amplitude);
+    }
+
+    private static int getIndex(double position, double distance, int size) {
+        if (size == 1) {
+            return 0;
+        }
+        double index = position / distance;
+        long roundedIndex = Math.round(index);
+        if (roundedIndex < 0 || roundedIndex >= size || Math.abs(index - roundedIndex) > GRID_TOLERANCE) {
+            throw new IllegalArgumentException("Element location " + position + " is not on the taper grid.");
+        }
+        return (int) roundedIndex;
+    }
+
+}
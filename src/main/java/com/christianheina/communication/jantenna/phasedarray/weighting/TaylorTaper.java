@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+/**
+ * Taylor n-bar taper sampled at the element positions.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+final class TaylorTaper implements Taper {
+
+    private final double sidelobeLevel;
+    private final int nbar;
+
+    TaylorTaper(double sidelobeLevel, int nbar) {
+        if (!(sidelobeLevel > 0)) {
+            throw new IllegalArgumentException("Sidelobe level must be positive.");
+        }
+        if (nbar < 1) {
+            throw new IllegalArgumentException("nbar must be at least 1.");
+        }
+        this.sidelobeLevel = sidelobeLevel;
+        this.nbar = nbar;
+    }
+
+    @Override
+    public double[] getCoefficients(int size) {
+        return TaperCache.getCoefficients(() -> calculateCoefficients(size), size, TaylorTaper.class, sidelobeLevel,
+                nbar);
+    }
+
+    private double[] calculateCoefficients(int size) {
+        double ratio = Math.pow(10, sidelobeLevel / 20);
+        double a = Math.log(ratio + Math.sqrt(ratio * ratio - 1)) / Math.PI;
+        double sigma2 = nbar * nbar / (a * a + (nbar - 0.5) * (nbar - 0.5));
+        double[] f = new double[nbar];
+        for (int m = 1; m < nbar; m++) {
+            double numerator = 1;
+            double denominator = 1;
+            for (int n = 1; n < nbar; n++) {
+                numerator *= 1 - m * m / (sigma2 * (a * a + (n - 0.5) * (n - 0.5)));
+                if (n != m) {
+                    denominator *= 1 - (double) (m * m) / (n * n);
+                }
+            }
+            f[m] = (m % 2 == 1 ? 1 : -1) * numerator / (2 * denominator);
+        }
+        double[] coefficients = new double[size];
+        for (int i = 0; i < size; i++) {
+            double x = (i - (size - 1) / 2.0) / size;
+            double coefficient = 1;
+            for (int m = 1; m < nbar; m++) {
+                coefficient += 2 * f[m] * Math.cos(2 * Math.PI * m * x);
+            }
+            coefficients[i] = coefficient;
+        }
+        return coefficients;
+    }
+
+}
@@ -16,6 +16,8 @@
 
 package com.christianheina.communication.jantenna.phasedarray.weighting;
 
+import java.util.List;
+
 import org.apache.commons.math3.complex.Complex;
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 
@@ -89,4 +91,81 @@ public interface WeightAlgorithm {
         return newConjugateWeightAlgorithmFromLambda(lambda, pointingDirection);
     }
 
+    /**
+     * Create new instance of {@link QuantizedWeightAlgorithm}
+     * 
+     * @param weightAlgorithm
+     *            weight algorithm calculating the continuous weights to quantize
+     * @param phaseBits
+     *            number of phase shifter bits, between 0 and 16
+     * @param attenuatorBits
+     *            number of attenuator bits, between 0 and 16
+     * @param attenuationStep
+     *            attenuation between adjacent attenuator states in dB. Not used without attenuator bits.
+     * 
+     * @return new instance
+     * 
+     * @exception IllegalArgumentException
+     *                if a number of bits is out of range or the attenuation step is not positive
+     */
+    public static WeightAlgorithm newQuantizedWeightAlgorithm(WeightAlgorithm weightAlgorithm, int phaseBits,
+            int attenuatorBits, double attenuationStep) {
+        return new QuantizedWeightAlgorithm(weightAlgorithm, phaseBits, attenuatorBits, attenuationStep);
+    }
+
+    /**
+     * Create new instance of {@link TaperedWeightAlgorithm} for an array created by
+     * {@link com.christianheina.communication.jantenna.phasedarray.AntennaArray#fromEquallySpacedArray(int, int, double, double, double, WeightAlgorithm)
+     * AntennaArray.fromEquallySpacedArray} with the same size, spacing and design frequency.
+     * 
+     * @param steeringAlgorithm
+     *            weight algorithm providing the steering phase, for example a conjugate weight algorithm
+     * @param sizeY
+     *            size in Y dimension
+     * @param sizeZ
+     *            size in Z dimension
+     * @param spacingY
+     *            the element spacing in Y-dimension in lambda (wavelengths)
+     * @param spacingZ
+     *            the element spacing in Z-dimension in lambda (wavelengths)
+     * @param designFrequency
+     *            the design frequency of the array
+     * @param taperY
+     *            amplitude taper along Y dimension
+     * @param taperZ
+     *            amplitude taper along Z dimension
+     * 
+     * @return new instance
+     * 
+     * @exception IllegalArgumentException
+     *                if a size is less than 1
+     */
+    public static WeightAlgorithm newTaperedWeightAlgorithm(WeightAlgorithm steeringAlgorithm, int sizeY, int sizeZ,
+            double spacingY, double spacingZ, double designFrequency, Taper taperY, Taper taperZ) {
+        return new TaperedWeightAlgorithm(steeringAlgorithm, sizeY, sizeZ, spacingY, spacingZ, designFrequency, taperY,
+                taperZ);
+    }
+
+    /**
+     * Create new instance of {@link AdaptiveWeightAlgorithm}
+     * 
+     * @param elementLocations
+     *            locations of all elements in the array
+     * @param frequency
+     *            frequency used to calculate steering vectors
+     * @param desiredDirection
+     *            direction in which gain is kept
+     * @param noisePower
+     *            noise power per element, the base covariance is {@code noisePower * I}
+     * 
+     * @return new instance
+     * 
+     * @exception IllegalArgumentException
+     *                if there are no element locations, a location is not unique or the noise power is not positive
+     */
+    public static AdaptiveWeightAlgorithm newAdaptiveWeightAlgorithm(List<Vector3D> elementLocations, double frequency,
+            ThetaPhi desiredDirection, double noisePower) {
+        return new AdaptiveWeightAlgorithm(elementLocations, frequency, desiredDirection, noisePower);
+    }
+
 }
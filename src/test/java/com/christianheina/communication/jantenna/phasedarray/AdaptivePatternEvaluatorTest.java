@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link AdaptivePatternEvaluator}.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class AdaptivePatternEvaluatorTest {
+
+    @Test
+    public void findPatternFeaturesTest() {
+        double freq = 28 * Math.pow(10, 9);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(90, 0);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 24, 16, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        PatternFeatures features = AdaptivePatternEvaluator.newBuilder().setFrequency(freq)
+                .setAntennaArray(antennaArray).build().findPatternFeatures();
+
+        Assert.assertEquals(features.getPeakDirection().getTheta(), steeringAngle.getTheta(), 1e-3);
+        // Planar array in the yz-plane, the mirrored beam at phi 180 degrees is equally strong
+        Assert.assertEquals(Math.sin(features.getPeakDirection().getPhi()), 0, 1e-3);
+        Assert.assertEquals(features.getPeakMagnitude(), 384, 1e-2);
+        // Uniform linear array with half wavelength spacing, HPBW close to 0.886 * 2 / N radians
+        Assert.assertEquals(features.getThetaHalfPowerBeamwidth(), 0.886 * 2 / 16, 0.002);
+        Assert.assertEquals(features.getPhiHalfPowerBeamwidth(), 0.886 * 2 / 24, 0.002);
+        // First sidelobe of the 16 element cut, max of |sin(16x) / (16 sin(x))|
+        Assert.assertEquals(features.getPeakSidelobeLevel(), -13.147, 0.01);
+        Assert.assertFalse(features.getNullList().isEmpty());
+        Assert.assertEquals(features.getRefinedSamples().getThetaPhiList().size(),
+                features.getRefinedSamples().getElectricField(ElectricField.RELATIVE_GAIN).size());
+        // A uniform 0.1 degree grid covering the sphere needs about 6.5 million evaluations
+        Assert.assertTrue(features.getNumberOfEvaluations() < 65000);
+    }
+
+    @Test
+    public void findPatternFeaturesPoleTest() {
+        double freq = 28 * Math.pow(10, 9);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(16, 24, 1, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(0, 0)));
+        PatternFeatures features = AdaptivePatternEvaluator.newBuilder().setFrequency(freq)
+                .setAntennaArray(antennaArray).build().findPatternFeatures();
+
+        // Planar array in the xy-plane, beam along the z-axis with half of the main lobe on each side of the pole
+        Assert.assertEquals(features.getPeakDirection().getTheta(), 0, 1e-3);
+        Assert.assertEquals(features.getPeakMagnitude(), 384, 1e-2);
+        // Theta cut at phi 180 degrees lies in the xz-plane across the 16 element x-axis
+        Assert.assertEquals(features.getThetaHalfPowerBeamwidth(), 0.886 * 2 / 16, 0.002);
+        Assert.assertEquals(features.getPeakSidelobeLevel(), -13.147, 0.01);
+    }
+
+    @Test
+    public void findPatternFeaturesGratingLobeTest() {
+        double freq = 28 * Math.pow(10, 9);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 8, 1.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(90, 0)));
+        PatternFeatures features = AdaptivePatternEvaluator.newBuilder().setFrequency(freq)
+                .setAntennaArray(antennaArray).build().findPatternFeatures();
+
+        Assert.assertEquals(features.getPeakMagnitude(), 64, 1e-2);
+        // Spacing above one wavelength, grating lobes as strong as the main beam 41.8 degrees off broadside
+        Assert.assertEquals(features.getPeakSidelobeLevel(), 0, 0.01);
+    }
+
+    @Test
+    public void findPatternFeaturesLinearArrayTest() {
+        double freq = 28 * Math.pow(10, 9);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 1, 16, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(90, 0)));
+        PatternFeatures features = AdaptivePatternEvaluator.newBuilder().setFrequency(freq)
+                .setAntennaArray(antennaArray).build().findPatternFeatures();
+
+        // Linear array along the z-axis, the beam is a ring around the axis and not a sidelobe of itself
+        Assert.assertEquals(features.getPeakDirection().getTheta(), Math.PI / 2, 1e-3);
+        Assert.assertEquals(features.getThetaHalfPowerBeamwidth(), 0.886 * 2 / 16, 0.002);
+        Assert.assertEquals(features.getPeakSidelobeLevel(), -13.147, 0.01);
+    }
+
+    @Test
+    public void findPatternFeaturesOffBroadsideTest() {
+        double freq = 28 * Math.pow(10, 9);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(30, 0);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(16, 24, 1, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        PatternFeatures features = AdaptivePatternEvaluator.newBuilder().setFrequency(freq)
+                .setAntennaArray(antennaArray).build().findPatternFeatures();
+
+        Assert.assertEquals(features.getPeakDirection().getTheta(), steeringAngle.getTheta(), 1e-3);
+        // Panel in the xy-plane scanned in the xz-plane, the beam along y keeps its broadside width on the sphere
+        Assert.assertEquals(features.getPhiHalfPowerBeamwidth(), 0.886 * 2 / 24, 0.002);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void buildWithoutAntennaArrayTest() {
+        AdaptivePatternEvaluator.newBuilder().setFrequency(1e9).build();
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.christianheina.common.utilities.constants.Constants;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Allocation budget tests for array factor hot paths.<br>
+ * Allocated bytes are measured with {@link com.sun.management.ThreadMXBean} allocation counters. Budgets are set so
+ * that allocating per element, such as {@code Complex} or {@code Vector3D} instances in the element loop, exceeds them.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class AllocationBudgetTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final double LAMBDA = Constants.VACUUM_SPEED_OF_LIGHT / FREQ;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    /** Allowed bytes for a whole kernel call, independent of number of angles and elements. */
+    private static final long KERNEL_BUDGET = 64;
+    /** Allowed bytes per angle for a complete array factor, independent of number of elements. */
+    private static final long ARRAY_FACTOR_BUDGET_PER_ANGLE = 128;
+    /** Allowed bytes per element for a complete array factor, covering packing of the array. */
+    private static final long ARRAY_FACTOR_BUDGET_PER_ELEMENT = 128;
+    /** Allowed fixed bytes for a complete array factor, covering tasks and Field construction. */
+    private static final long ARRAY_FACTOR_BUDGET_FIXED = 64 * 1024;
+    /** Allowed bytes per call of PhasedArrayUtil functions, at most two result instances. */
+    private static final long UTIL_BUDGET_PER_CALL = 128;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    @BeforeClass
+    public void setup() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            throw new SkipException("Thread allocation counters not available");
+        }
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            throw new SkipException("Thread allocation counters not supported");
+        }
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void packedArrayFactorKernelTest() {
+        List<ThetaPhi> angles = ThetaPhi.equallySpacedSphere(2);
+        for (int size : new int[] { 4, 16 }) {
+            PackedAntennaArray packedArray = PackedAntennaArray.pack(newAntennaArray(size), Precision.DOUBLE);
+            double[] real = new double[angles.size()];
+            double[] imaginary = new double[angles.size()];
+            long bytes = measure(
+                    () -> packedArray.calculateArrayFactor(LAMBDA, angles, 0, angles.size(), real, imaginary, 0));
+            Assert.assertTrue(bytes <= KERNEL_BUDGET, "Double precision kernel allocated " + bytes + " bytes");
+        }
+    }
+
+    @Test
+    public void packedArrayFactorFloatKernelTest() {
+        List<ThetaPhi> angles = ThetaPhi.equallySpacedSphere(2);
+        for (int size : new int[] { 4, 16 }) {
+            PackedAntennaArray packedArray = PackedAntennaArray.pack(newAntennaArray(size), Precision.FLOAT);
+            float[] real = new float[angles.size()];
+            float[] imaginary = new float[angles.size()];
+            long bytes = measure(
+                    () -> packedArray.calculateArrayFactor(LAMBDA, angles, 0, angles.size(), real, imaginary, 0));
+            Assert.assertTrue(bytes <= KERNEL_BUDGET, "Single precision kernel allocated " + bytes + " bytes");
+        }
+    }
+
+    @Test
+    public void arrayFactorTest() {
+        List<ThetaPhi> angles = ThetaPhi.equallySpacedSphere(2);
+        Thread[] poolThread = new Thread[1];
+        ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> {
+            poolThread[0] = new Thread(runnable);
+            return poolThread[0];
+        });
+        try {
+            for (int size : new int[] { 4, 16 }) {
+                AntennaArray antennaArray = newAntennaArray(size);
+                long bytes = measure(
+                        () -> ArrayFactor.newArrayFactorFuture(executorService, FREQ, antennaArray, angles).join(),
+                        poolThread);
+                long budget = angles.size() * ARRAY_FACTOR_BUDGET_PER_ANGLE
+                        + size * size * ARRAY_FACTOR_BUDGET_PER_ELEMENT + ARRAY_FACTOR_BUDGET_FIXED;
+                Assert.assertTrue(bytes <= budget, "Array factor of " + size * size + " elements and " + angles.size()
+                        + " angles allocated " + bytes + " bytes, budget " + budget);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void calculateWaveVectorTest() {
+        ThetaPhi angle = ThetaPhi.fromDegrees(60, 30);
+        int calls = 1000;
+        long bytes = measure(() -> {
+            for (int i = 0; i < calls; i++) {
+                PhasedArrayUtil.calculateWaveVector(LAMBDA, angle);
+            }
+        });
+        Assert.assertTrue(bytes <= calls * UTIL_BUDGET_PER_CALL, "Wave vector allocated " + bytes / calls + " bytes");
+    }
+
+    @Test
+    public void calculateSteeringVectorTest() {
+        Vector3D k = PhasedArrayUtil.calculateWaveVector(LAMBDA, ThetaPhi.fromDegrees(60, 30));
+        Vector3D r = new Vector3D(0.01, 0.02, 0);
+        int calls = 1000;
+        long bytes = measure(() -> {
+            for (int i = 0; i < calls; i++) {
+                PhasedArrayUtil.calculateSteeringVector(k, r);
+            }
+        });
+        Assert.assertTrue(bytes <= calls * UTIL_BUDGET_PER_CALL,
+                "Steering vector allocated " + bytes / calls + " bytes");
+    }
+
+    @Test
+    public void beamTrackingSessionTest() {
+        double[] offset = { 0, Math.toRadians(-1), Math.toRadians(1) };
+        for (int size : new int[] { 4, 16 }) {
+            BeamTrackingSession session = BeamTrackingSession.newBeamTrackingSession(newAntennaArray(size), FREQ,
+                    offset, offset);
+            long bytes = measure(() -> {
+                for (int step = 0; step < 100; step++) {
+                    session.evaluate(Math.toRadians(90 - step * 0.1), Math.toRadians(step * 0.2));
+                }
+            });
+            Assert.assertTrue(bytes <= KERNEL_BUDGET, "Beam tracking session allocated " + bytes + " bytes");
+        }
+    }
+
+    @Test
+    public void arrayFactorEvaluatorTest() {
+        double[] real = new double[1];
+        double[] imaginary = new double[1];
+        for (int size : new int[] { 4, 16 }) {
+            ArrayFactorEvaluator evaluator = newAntennaArray(size).compile(FREQ);
+            long bytes = measure(() -> {
+                for (int i = 0; i < 100; i++) {
+                    double theta = Math.toRadians(i * 1.8);
+                    evaluator.calculateArrayFactor(theta, theta, real, imaginary, 0);
+                    evaluator.calculatePower(theta, theta);
+                    evaluator.calculatePhase(theta, theta);
+                }
+            });
+            Assert.assertTrue(bytes <= KERNEL_BUDGET, "Array factor evaluator allocated " + bytes + " bytes");
+        }
+    }
+
+    private static AntennaArray newAntennaArray(int size) {
+        return AntennaArray.fromEquallySpacedArray(1, size, size, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(60, 30)));
+    }
+
+    /**
+     * Smallest number of bytes allocated by {@code runnable} on the current thread and {@code threads} after warm up.
+     */
+    private long measure(Runnable runnable, Thread... threads) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runnable.run();
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long before = allocatedBytes(threads);
+            runnable.run();
+            min = Math.min(min, allocatedBytes(threads) - before);
+        }
+        return min;
+    }
+
+    private long allocatedBytes(Thread... threads) {
+        long bytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (Thread thread : threads) {
+            bytes += threadMXBean.getThreadAllocatedBytes(thread.getId());
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link AngleBlockExecutor}.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class AngleBlockExecutorTest {
+
+    @Test
+    public void calculateBlockSizeTest() {
+        ExecutorService fixedThreadPool = Executors.newFixedThreadPool(2);
+        ForkJoinPool forkJoinPool = new ForkJoinPool(5);
+        try {
+            // Four blocks per thread of the supplied executor
+            Assert.assertEquals(AngleBlockExecutor.calculateBlockSize(fixedThreadPool, 1000), 125);
+            Assert.assertEquals(AngleBlockExecutor.calculateBlockSize(forkJoinPool, 1000), 50);
+            Assert.assertEquals(AngleBlockExecutor.calculateBlockSize(fixedThreadPool, 10), 16);
+        } finally {
+            fixedThreadPool.shutdown();
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void reduceAndKeepRunningTest() {
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            double sum = AngleBlockExecutor.reduceAndKeepRunning(executorService, 1000, 0, (from, to) -> {
+                double blockSum = 0;
+                for (int i = from; i < to; i++) {
+                    blockSum += i;
+                }
+                return blockSum;
+            }, Double::sum);
+            Assert.assertEquals(sum, 999 * 1000 / 2.0);
+            double max = AngleBlockExecutor.reduceAndKeepRunning(executorService, 1000, 0, (from, to) -> to - 1,
+                    Math::max);
+            Assert.assertEquals(max, 999.0);
+            Assert.assertEquals(
+                    AngleBlockExecutor.reduceAndKeepRunning(executorService, 0, -1, (from, to) -> to, Math::max), -1.0);
+            Assert.assertFalse(executorService.isShutdown());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+}
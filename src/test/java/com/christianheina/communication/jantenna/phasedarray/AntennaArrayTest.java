@@ -71,4 +71,13 @@ public class AntennaArrayTest {
         AntennaArray.fromEquallySpacedArray(1, 24, -100, 0.5, 1e6, DEFAULT_WEIGHT_ALGORITHM);
     }
 
+    @Test
+    public void compileTest() {
+        AntennaArray aa = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, 1e9,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(1e9, ThetaPhi.fromDegrees(90, 0)));
+        ArrayFactorEvaluator evaluator = aa.compile(1e9);
+        Assert.assertEquals(evaluator.getNumberOfElements(), 16);
+        Assert.assertEquals(evaluator.calculateMagnitude(ThetaPhi.fromDegrees(90, 0)), 16, 1e-9);
+    }
+
 }
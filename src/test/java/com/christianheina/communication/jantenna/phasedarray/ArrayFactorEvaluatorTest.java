@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link ArrayFactorEvaluator}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class ArrayFactorEvaluatorTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final AntennaArray ANTENNA_ARRAY = AntennaArray.fromEquallySpacedArray(6, 4, 0.5, FREQ,
+            WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(70, 20)));
+
+    private static Complex calculateExpected(AntennaArray antennaArray, ThetaPhi direction) {
+        Vector3D k = PhasedArrayUtil.calculateWaveVector(Util.calculateLambda(FREQ), direction);
+        Complex arrayFactor = Complex.ZERO;
+        for (WeightableElement element : antennaArray.getAntennaArray()) {
+            arrayFactor = arrayFactor.add(element.getElementWeight()
+                    .multiply(PhasedArrayUtil.calculateSteeringVector(k, element.getElementLocation())));
+        }
+        return arrayFactor;
+    }
+
+    @Test
+    public void calculateTest() {
+        ArrayFactorEvaluator evaluator = ANTENNA_ARRAY.compile(FREQ);
+        Assert.assertEquals(evaluator.getFrequency(), FREQ);
+        Assert.assertEquals(evaluator.getNumberOfElements(), 24);
+        double[] real = new double[3];
+        double[] imaginary = new double[3];
+        for (ThetaPhi direction : ThetaPhi.equallySpacedSphere(15)) {
+            Complex expected = calculateExpected(ANTENNA_ARRAY, direction);
+            evaluator.calculateArrayFactor(direction, real, imaginary, 2);
+            Assert.assertEquals(real[2], expected.getReal(), 1e-9);
+            Assert.assertEquals(imaginary[2], expected.getImaginary(), 1e-9);
+            Assert.assertEquals(evaluator.calculatePower(direction), expected.abs() * expected.abs(), 1e-8);
+            Assert.assertEquals(evaluator.calculateMagnitude(direction), expected.abs(), 1e-9);
+            if (expected.abs() > 1e-6) {
+                Assert.assertEquals(evaluator.calculatePhase(direction), expected.getArgument(), 1e-6);
+            }
+        }
+        Assert.assertEquals(evaluator.calculatePower(ThetaPhi.fromDegrees(70, 20)), 24 * 24, 1e-9);
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        ArrayFactorEvaluator evaluator = ANTENNA_ARRAY.compile(FREQ);
+        List<ThetaPhi> directions = ThetaPhi.equallySpacedSphere(10);
+        double[] expected = new double[directions.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = evaluator.calculatePower(directions.get(i));
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futureList = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futureList.add(executorService.submit(() -> {
+                    for (int repeat = 0; repeat < 20; repeat++) {
+                        for (int i = 0; i < expected.length; i++) {
+                            if (evaluator.calculatePower(directions.get(i)) != expected[i]) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futureList) {
+                Assert.assertTrue(future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+
+/**
+ * Unit test for {@link ArrayFactorGradient}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class ArrayFactorGradientTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final double LAMBDA = Util.calculateLambda(FREQ);
+    private static final List<ThetaPhi> ANGLES = ThetaPhi.equallySpacedSphere(15);
+
+    private static List<Vector3D> newLocations() {
+        List<Vector3D> locations = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            locations.add(new Vector3D(0.1 * LAMBDA * (i % 2), 0.5 * LAMBDA * i, 0.3 * LAMBDA * (i / 3)));
+        }
+        return locations;
+    }
+
+    private static Complex[] newWeights() {
+        Complex[] weights = new Complex[6];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = new Complex(1 + 0.1 * i, 0.2 * i - 0.3);
+        }
+        return weights;
+    }
+
+    private static AntennaArray newAntennaArray(List<Vector3D> locations, Complex[] weights) {
+        Map<Vector3D, Complex> weightMap = new IdentityHashMap<>();
+        AntennaArray.Builder builder = AntennaArray.newBuilder().setDesignFrequency(FREQ)
+                .setWeightAlgorithm(weightMap::get);
+        for (int i = 0; i < locations.size(); i++) {
+            weightMap.put(locations.get(i), weights[i]);
+            builder.addAntennaLocation(locations.get(i));
+        }
+        return builder.build();
+    }
+
+    private static double[] newAngleWeights() {
+        double[] angleWeights = new double[ANGLES.size()];
+        for (int a = 0; a < angleWeights.length; a++) {
+            angleWeights[a] = Math.toDegrees(ANGLES.get(a).getTheta()) > 60 ? 1 : -0.5;
+        }
+        return angleWeights;
+    }
+
+    private static double calculateObjective(AntennaArray antennaArray, double[] angleWeights) {
+        List<Complex> arrayFactor = ArrayFactor.newArrayFactorAsync(FREQ, antennaArray, ANGLES)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        double objective = 0;
+        for (int a = 0; a < ANGLES.size(); a++) {
+            objective += angleWeights[a] * arrayFactor.get(a).abs() * arrayFactor.get(a).abs();
+        }
+        return objective;
+    }
+
+    @Test
+    public void weightGradientTest() {
+        List<Vector3D> locations = newLocations();
+        Complex[] weights = newWeights();
+        double[] angleWeights = newAngleWeights();
+        GradientResult result = ArrayFactorGradient.calculatePowerGradient(FREQ, newAntennaArray(locations, weights),
+                ANGLES, angleWeights, false);
+        Assert.assertEquals(result.getObjective(),
+                calculateObjective(newAntennaArray(locations, weights), angleWeights),
+                1e-9 * Math.abs(result.getObjective()));
+        Assert.assertFalse(result.hasPositionGradient());
+        Assert.assertEquals(result.getNumberOfElements(), 6);
+        Assert.assertEquals(result.getArrayFactor().size(), ANGLES.size());
+        double h = 1e-6;
+        for (int n = 0; n < weights.length; n++) {
+            for (Complex step : new Complex[] { new Complex(h, 0), new Complex(0, h) }) {
+                Complex[] plus = weights.clone();
+                Complex[] minus = weights.clone();
+                plus[n] = weights[n].add(step);
+                minus[n] = weights[n].subtract(step);
+                double expected = (calculateObjective(newAntennaArray(locations, plus), angleWeights)
+                        - calculateObjective(newAntennaArray(locations, minus), angleWeights)) / (2 * h);
+                double actual = step.getReal() != 0 ? result.getWeightGradient(n).getReal()
+                        : result.getWeightGradient(n).getImaginary();
+                Assert.assertEquals(actual, expected, 1e-5 * Math.max(1, Math.abs(expected)));
+            }
+        }
+    }
+
+    @Test
+    public void positionGradientTest() {
+        List<Vector3D> locations = newLocations();
+        Complex[] weights = newWeights();
+        double[] angleWeights = newAngleWeights();
+        GradientResult result = ArrayFactorGradient.calculatePowerGradient(FREQ, newAntennaArray(locations, weights),
+                ANGLES, angleWeights, true);
+        Assert.assertTrue(result.hasPositionGradient());
+        double h = 1e-9;
+        for (int n = 0; n < locations.size(); n++) {
+            for (Vector3D step : new Vector3D[] { new Vector3D(h, 0, 0), new Vector3D(0, h, 0),
+                    new Vector3D(0, 0, h) }) {
+                List<Vector3D> plus = new ArrayList<>(locations);
+                List<Vector3D> minus = new ArrayList<>(locations);
+                plus.set(n, locations.get(n).add(step));
+                minus.set(n, locations.get(n).subtract(step));
+                double expected = (calculateObjective(newAntennaArray(plus, weights), angleWeights)
+                        - calculateObjective(newAntennaArray(minus, weights), angleWeights)) / (2 * h);
+                double actual = result.getPositionGradient(n).dotProduct(step) / h;
+                Assert.assertEquals(actual, expected, 1e-4 * Math.max(1, Math.abs(expected)));
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void positionGradientNotCalculatedTest() {
+        ArrayFactorGradient.calculatePowerGradient(FREQ, newAntennaArray(newLocations(), newWeights()), ANGLES,
+                newAngleWeights(), false).getPositionGradient(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void angleWeightsMismatchTest() {
+        ArrayFactorGradient.calculatePowerGradient(FREQ, newAntennaArray(newLocations(), newWeights()), ANGLES,
+                new double[1], false);
+    }
+
+}
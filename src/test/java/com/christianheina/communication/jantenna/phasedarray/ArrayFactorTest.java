@@ -17,17 +17,33 @@
 package com.christianheina.communication.jantenna.phasedarray;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.christianheina.common.utilities.constants.Constants;
+import com.christianheina.communication.jantenna.commons.ElectricField;
 import com.christianheina.communication.jantenna.commons.Field;
 import com.christianheina.communication.jantenna.commons.ThetaPhi;
 import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.Config;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetrics;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetricsListener;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationType;
 import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
 
 /**
@@ -100,4 +116,303 @@ public class ArrayFactorTest {
 
     }
 
+    @Test
+    public void newArrayFactorAsyncFloatPrecisionTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(1);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(90, 0);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 24, 16, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        List<Complex> doubleList = ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList, Precision.DOUBLE)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        List<Complex> floatList = ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList, Precision.FLOAT)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        Assert.assertEquals(floatList.size(), doubleList.size());
+        double peak = 0;
+        for (Complex value : doubleList) {
+            peak = Math.max(peak, value.abs());
+        }
+        for (int i = 0; i < doubleList.size(); i++) {
+            double expected = doubleList.get(i).abs();
+            double actual = floatList.get(i).abs();
+            Assert.assertTrue(floatList.get(i).subtract(doubleList.get(i)).abs() < 1e-5 * peak);
+            if (expected > 1e-3 * peak) {
+                Assert.assertTrue(Math.abs(20 * Math.log10(actual / expected)) < 0.1);
+            }
+        }
+    }
+
+    @Test
+    public void streamArrayFactorAsyncTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(1);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(90, 0);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 24, 16, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        List<Complex> expectedList = ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        double[] real = new double[angleList.size()];
+        double[] imaginary = new double[angleList.size()];
+        ArrayFactor.streamArrayFactorAsync(freq, antennaArray, angleList,
+                (angles, from, to, blockReal, blockImaginary) -> {
+                    System.arraycopy(blockReal, 0, real, from, to - from);
+                    System.arraycopy(blockImaginary, 0, imaginary, from, to - from);
+                });
+        for (int i = 0; i < angleList.size(); i++) {
+            Assert.assertEquals(real[i], expectedList.get(i).getReal());
+            Assert.assertEquals(imaginary[i], expectedList.get(i).getImaginary());
+        }
+    }
+
+    @Test
+    public void newArrayFactorFutureTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 8, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(90, 0)));
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        CompletableFuture<Integer> sizeFuture = ArrayFactor
+                .newArrayFactorFuture(executorService, freq, antennaArray, angleList)
+                .thenApply(field -> field.getElectricField(ElectricField.RELATIVE_GAIN).size());
+        List<Complex> futureList = ArrayFactor.newArrayFactorFuture(executorService, freq, antennaArray, angleList)
+                .join().getElectricField(ElectricField.RELATIVE_GAIN);
+        Assert.assertEquals(sizeFuture.join().intValue(), angleList.size());
+        Assert.assertFalse(executorService.isShutdown());
+        executorService.shutdown();
+        List<Complex> expectedList = ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        for (int i = 0; i < angleList.size(); i++) {
+            Assert.assertEquals(futureList.get(i), expectedList.get(i));
+        }
+    }
+
+    @Test
+    public void newArrayFactorResultAsyncTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 8, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(90, 0)));
+        PatternResult result = ArrayFactor.newArrayFactorResultAsync(freq, antennaArray, angleList);
+        List<Complex> expectedList = ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        Assert.assertEquals(result.size(), angleList.size());
+        for (int i = 0; i < angleList.size(); i++) {
+            Assert.assertEquals(result.getTheta(i), angleList.get(i).getTheta());
+            Assert.assertEquals(result.getPhi(i), angleList.get(i).getPhi());
+            Assert.assertEquals(result.getReal(i), expectedList.get(i).getReal());
+            Assert.assertEquals(result.getImaginary(i), expectedList.get(i).getImaginary());
+        }
+    }
+
+    @Test
+    public void newArrayFactorResultFutureFloatPrecisionTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 8, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(60, 30)));
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        PatternResult floatResult = ArrayFactor
+                .newArrayFactorResultFuture(executorService, freq, antennaArray, angleList, Precision.FLOAT).join();
+        PatternResult doubleResult = ArrayFactor
+                .newArrayFactorResultFuture(executorService, freq, antennaArray, angleList, Precision.DOUBLE).join();
+        executorService.shutdown();
+        Assert.assertEquals(floatResult.getPrecision(), Precision.FLOAT);
+        Assert.assertEquals(doubleResult.getPrecision(), Precision.DOUBLE);
+        Assert.assertEquals(floatResult.size(), angleList.size());
+        for (int i = 0; i < angleList.size(); i++) {
+            Assert.assertEquals(floatResult.getTheta(i), angleList.get(i).getTheta());
+            Assert.assertEquals(floatResult.getReal(i), doubleResult.getReal(i), 1e-5 * 64);
+            Assert.assertEquals(floatResult.getImaginary(i), doubleResult.getImaginary(i), 1e-5 * 64);
+        }
+    }
+
+    @Test
+    public void writeArrayFactorFutureTest() {
+        double[] freqs = new double[] { 27 * Math.pow(10, 9), 28 * Math.pow(10, 9) };
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(5);
+        PatternCube cube = PatternCube.newPatternCube(freqs, 2, angleList, Precision.DOUBLE);
+        List<ThetaPhi> steeringList = Arrays.asList(ThetaPhi.fromDegrees(90, 0), ThetaPhi.fromDegrees(60, 30));
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        List<CompletableFuture<Void>> futureList = new ArrayList<>();
+        for (int f = 0; f < freqs.length; f++) {
+            for (int b = 0; b < steeringList.size(); b++) {
+                AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, freqs[f],
+                        WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freqs[f], steeringList.get(b)));
+                futureList.add(ArrayFactor.writeArrayFactorFuture(executorService, cube, f, b, antennaArray));
+            }
+        }
+        CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0])).join();
+        executorService.shutdown();
+        for (int f = 0; f < freqs.length; f++) {
+            for (int b = 0; b < steeringList.size(); b++) {
+                AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, freqs[f],
+                        WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freqs[f], steeringList.get(b)));
+                List<Complex> expectedList = ArrayFactor.newArrayFactorAsync(freqs[f], antennaArray, angleList)
+                        .getElectricField(ElectricField.RELATIVE_GAIN);
+                for (int i = 0; i < angleList.size(); i++) {
+                    Assert.assertEquals(cube.getReal(f, b, i), expectedList.get(i).getReal(), 1e-9);
+                    Assert.assertEquals(cube.getImaginary(f, b, i), expectedList.get(i).getImaginary(), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void newArrayFactorAsyncQuantizedWeightsTest() {
+        double freq = 28 * Math.pow(10, 9);
+        double lambda = Util.calculateLambda(freq);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(5);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 16, 16, 0.5, freq,
+                WeightAlgorithm.newQuantizedWeightAlgorithm(
+                        WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(lambda, ThetaPhi.fromDegrees(60, 30)), 3,
+                        1, 3));
+        List<Complex> arrayFactorList = ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        for (int i = 0; i < angleList.size(); i++) {
+            Vector3D k = PhasedArrayUtil.calculateWaveVector(lambda, angleList.get(i));
+            Complex expected = Complex.ZERO;
+            for (WeightableElement element : antennaArray.getAntennaArray()) {
+                expected = expected.add(element.getElementWeight()
+                        .multiply(PhasedArrayUtil.calculateSteeringVector(k, element.getElementLocation())));
+            }
+            Assert.assertEquals(arrayFactorList.get(i).getReal(), expected.getReal(), 1e-9);
+            Assert.assertEquals(arrayFactorList.get(i).getImaginary(), expected.getImaginary(), 1e-9);
+        }
+    }
+
+    @Test
+    public void newArrayFactorFutureFailureTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = new ArrayList<>(ThetaPhi.equallySpacedSphere(10));
+        angleList.set(5, null);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(90, 0)));
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Field> future = ArrayFactor.newArrayFactorFuture(executorService, freq, antennaArray,
+                    angleList);
+            Throwable failure = future.handle((field, throwable) -> throwable).join();
+            Assert.assertTrue(failure.getCause() instanceof PhasedArrayAntennaException);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void newArrayFactorFutureCancellationTokenTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 8, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(90, 0)));
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            PartialField complete = ArrayFactor.newArrayFactorFuture(executorService, freq, antennaArray, angleList,
+                    CancellationToken.newCancellationToken()).join();
+            Assert.assertTrue(complete.isComplete());
+            Assert.assertEquals(complete.getCoverage().cardinality(), angleList.size());
+            Assert.assertEquals(complete.getField().getElectricField(ElectricField.RELATIVE_GAIN),
+                    ArrayFactor.newArrayFactorFuture(executorService, freq, antennaArray, angleList).join()
+                            .getElectricField(ElectricField.RELATIVE_GAIN));
+
+            CancellationToken cancelledToken = CancellationToken.newCancellationToken();
+            cancelledToken.cancel();
+            PartialField cancelled = ArrayFactor
+                    .newArrayFactorFuture(executorService, freq, antennaArray, angleList, cancelledToken).join();
+            Assert.assertFalse(cancelled.isComplete());
+            Assert.assertTrue(cancelled.getCoverage().isEmpty());
+            Assert.assertTrue(cancelled.getField().getElectricField(ElectricField.RELATIVE_GAIN).get(0).isNaN());
+
+            // Coverage mask matches calculated angles whenever the deadline is reached
+            PartialField partial = ArrayFactor.newArrayFactorFuture(executorService, freq, antennaArray,
+                    ThetaPhi.equallySpacedSphere(0.5), CancellationToken.newCancellationToken(5, TimeUnit.MILLISECONDS))
+                    .join();
+            List<Complex> partialList = partial.getField().getElectricField(ElectricField.RELATIVE_GAIN);
+            BitSet coverage = partial.getCoverage();
+            for (int i = 0; i < partialList.size(); i++) {
+                Assert.assertEquals(partialList.get(i).isNaN(), !coverage.get(i));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void metricsListenerTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(5);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(90, 0)));
+        List<CalculationMetrics> metricsList = new CopyOnWriteArrayList<>();
+        PhasedArrayAntennaCalculationConfig.setConfig(new Config() {
+
+            @Override
+            public int getNumberOfThreads() {
+                return 2;
+            }
+
+            @Override
+            public CalculationMetricsListener getMetricsListener() {
+                return metricsList::add;
+            }
+
+        });
+        try {
+            ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList);
+        } finally {
+            PhasedArrayAntennaCalculationConfig.setConfig(PhasedArrayAntennaCalculationConfig.DEFAULT_CONFIG);
+        }
+        Assert.assertEquals(metricsList.size(), 1);
+        CalculationMetrics metrics = metricsList.get(0);
+        Assert.assertEquals(metrics.getCalculationType(), CalculationType.ARRAY_FACTOR);
+        Assert.assertEquals(metrics.getNumberOfAngles(), angleList.size());
+        Assert.assertEquals(metrics.getNumberOfElements(), 16);
+        Assert.assertTrue(metrics.getNumberOfTasks() > 0);
+        Assert.assertTrue(metrics.getTaskNanos() > 0);
+        Assert.assertTrue(metrics.getTotalNanos() >= metrics.getSetupNanos() + metrics.getAssemblyNanos());
+        Assert.assertTrue(metrics.getResultBytes() >= angleList.size() * 16L);
+    }
+
+    @Test
+    public void streamAndPatternCubeMetricsListenerTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(5);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, freq, WeightAlgorithm
+                .newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), ThetaPhi.fromDegrees(90, 0)));
+        PatternCube cube = PatternCube.newPatternCube(new double[] { freq }, 1, angleList, Precision.FLOAT);
+        List<CalculationMetrics> metricsList = new CopyOnWriteArrayList<>();
+        PhasedArrayAntennaCalculationConfig.setConfig(new Config() {
+
+            @Override
+            public int getNumberOfThreads() {
+                return 2;
+            }
+
+            @Override
+            public CalculationMetricsListener getMetricsListener() {
+                return metricsList::add;
+            }
+
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            ArrayFactor.streamArrayFactorAsync(freq, antennaArray, angleList,
+                    (blockAngles, from, to, real, imaginary) -> {
+                    });
+            ArrayFactor.writeArrayFactorFuture(executorService, cube, 0, 0, antennaArray).join();
+        } finally {
+            executorService.shutdown();
+            PhasedArrayAntennaCalculationConfig.setConfig(PhasedArrayAntennaCalculationConfig.DEFAULT_CONFIG);
+        }
+        Assert.assertEquals(metricsList.size(), 2);
+        for (CalculationMetrics metrics : metricsList) {
+            Assert.assertEquals(metrics.getCalculationType(), CalculationType.ARRAY_FACTOR);
+            Assert.assertEquals(metrics.getNumberOfAngles(), angleList.size());
+            Assert.assertEquals(metrics.getNumberOfElements(), 16);
+            Assert.assertTrue(metrics.getNumberOfTasks() > 0);
+            Assert.assertTrue(metrics.getTaskNanos() > 0);
+        }
+        Assert.assertEquals(metricsList.get(0).getResultBytes(), 0);
+        Assert.assertEquals(metricsList.get(1).getResultBytes(), angleList.size() * 8L);
+    }
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.SplittableRandom;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link BeamTrackingSession}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class BeamTrackingSessionTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final double LAMBDA = Util.calculateLambda(FREQ);
+    private static final double[] THETA_OFFSET = { 0, Math.toRadians(-2), Math.toRadians(2), 0, 0, Math.toRadians(3) };
+    private static final double[] PHI_OFFSET = { 0, 0, 0, Math.toRadians(-2), Math.toRadians(2), Math.toRadians(-4) };
+
+    private static WeightAlgorithm amplitudeAlgorithm() {
+        return r -> new Complex(1 + 10 * r.getY(), 0.5 - 10 * r.getZ());
+    }
+
+    /**
+     * Compare session with array factor of the array steered with conjugate weights scaled by element amplitude.
+     */
+    private static void assertWindow(BeamTrackingSession session, AntennaArray antennaArray, ThetaPhi pointing) {
+        session.evaluate(pointing);
+        AntennaArray.Builder builder = AntennaArray.newBuilder().setDesignFrequency(FREQ);
+        WeightAlgorithm conjugate = WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, pointing);
+        for (int n = 0; n < antennaArray.getAntennaArray().length; n++) {
+            builder.addAntennaLocation(antennaArray.getAntennaArray()[n].getElementLocation());
+        }
+        AntennaArray steeredArray = builder
+                .setWeightAlgorithm(
+                        r -> conjugate.calculateWeight(r).multiply(amplitudeAlgorithm().calculateWeight(r).abs()))
+                .build();
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(steeredArray, Precision.DOUBLE);
+        double[] real = new double[1];
+        double[] imaginary = new double[1];
+        for (int i = 0; i < session.getWindowSize(); i++) {
+            Assert.assertEquals(session.getTheta(i), pointing.getTheta() + THETA_OFFSET[i], 1e-12);
+            Assert.assertEquals(session.getPhi(i), pointing.getPhi() + PHI_OFFSET[i], 1e-12);
+            packedArray.calculateArrayFactor(2 * Math.PI / LAMBDA, session.getTheta(i), session.getPhi(i), real,
+                    imaginary, 0);
+            Assert.assertEquals(session.getReal(i), real[0], 1e-9);
+            Assert.assertEquals(session.getImaginary(i), imaginary[0], 1e-9);
+            Assert.assertEquals(session.getPower(i), real[0] * real[0] + imaginary[0] * imaginary[0], 1e-6);
+        }
+    }
+
+    @Test
+    public void equallySpacedArrayTest() {
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(8, 8, 0.5, FREQ, amplitudeAlgorithm());
+        BeamTrackingSession session = BeamTrackingSession.newBeamTrackingSession(antennaArray, FREQ, THETA_OFFSET,
+                PHI_OFFSET);
+        Assert.assertTrue(Double.isNaN(session.getPointingTheta()));
+        for (ThetaPhi pointing : new ThetaPhi[] { ThetaPhi.fromDegrees(90, 0), ThetaPhi.fromDegrees(60, 30),
+                ThetaPhi.fromDegrees(100, -20) }) {
+            assertWindow(session, antennaArray, pointing);
+            Assert.assertEquals(session.getPointingTheta(), pointing.getTheta());
+            Assert.assertEquals(session.getPointingPhi(), pointing.getPhi());
+        }
+        // Zero offset is the main beam with gain equal to the sum of amplitudes
+        double sum = 0;
+        for (int n = 0; n < antennaArray.getAntennaArray().length; n++) {
+            sum += antennaArray.getAntennaArray()[n].getElementWeight().abs();
+        }
+        Assert.assertEquals(session.getReal(0), sum, 1e-9);
+    }
+
+    @Test
+    public void irregularArrayTest() {
+        SplittableRandom random = new SplittableRandom(7);
+        AntennaArray.Builder builder = AntennaArray.newBuilder().setDesignFrequency(FREQ)
+                .setWeightAlgorithm(amplitudeAlgorithm());
+        for (int n = 0; n < 20; n++) {
+            builder.addAntennaLocation(new Vector3D(random.nextDouble() * LAMBDA, random.nextDouble() * 4 * LAMBDA,
+                    random.nextDouble() * 4 * LAMBDA));
+        }
+        AntennaArray antennaArray = builder.build();
+        BeamTrackingSession session = BeamTrackingSession.newBeamTrackingSession(antennaArray, FREQ, THETA_OFFSET,
+                PHI_OFFSET);
+        assertWindow(session, antennaArray, ThetaPhi.fromDegrees(80, 15));
+        assertWindow(session, antennaArray, ThetaPhi.fromDegrees(45, -60));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void windowMismatchTest() {
+        BeamTrackingSession.newBeamTrackingSession(
+                AntennaArray.fromEquallySpacedArray(2, 2, 0.5, FREQ, amplitudeAlgorithm()), FREQ, new double[] { 0, 1 },
+                new double[] { 0 });
+    }
+
+}
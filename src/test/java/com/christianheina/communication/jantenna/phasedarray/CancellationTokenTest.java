@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link CancellationToken}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class CancellationTokenTest {
+
+    @Test
+    public void cancelTest() {
+        CancellationToken cancellationToken = CancellationToken.newCancellationToken();
+        Assert.assertFalse(cancellationToken.isCancelled());
+        cancellationToken.cancel();
+        Assert.assertTrue(cancellationToken.isCancelled());
+    }
+
+    @Test
+    public void deadlineTest() {
+        Assert.assertTrue(CancellationToken.newCancellationToken(0, TimeUnit.NANOSECONDS).isCancelled());
+        Assert.assertFalse(CancellationToken.newCancellationToken(1, TimeUnit.HOURS).isCancelled());
+    }
+
+    @Test
+    public void cancelWhenCancelledTest() {
+        CancellationToken cancellationToken = CancellationToken.newCancellationToken();
+        CompletableFuture<Void> completedFuture = new CompletableFuture<>();
+        cancellationToken.cancelWhenCancelled(completedFuture);
+        completedFuture.complete(null);
+        Assert.assertFalse(cancellationToken.isCancelled());
+        CompletableFuture<Void> cancelledFuture = new CompletableFuture<>();
+        cancellationToken.cancelWhenCancelled(cancelledFuture);
+        cancelledFuture.cancel(true);
+        Assert.assertTrue(cancellationToken.isCancelled());
+    }
+
+}
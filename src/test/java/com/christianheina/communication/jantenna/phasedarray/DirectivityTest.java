@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link Directivity}.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class DirectivityTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final ThetaPhi STEERING_ANGLE = ThetaPhi.fromDegrees(90, 0);
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    @AfterClass
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    @Test
+    public void uniformLinearArrayTest() {
+        // Broadside half wavelength spaced linear array has directivity equal to number of elements
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 1, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(FREQ), STEERING_ANGLE));
+        double pairs = Directivity.calculateDirectivity(executorService, FREQ, antennaArray, STEERING_ANGLE,
+                Directivity.Method.ELEMENT_PAIRS, 1e-9);
+        double quadrature = Directivity.calculateDirectivity(executorService, FREQ, antennaArray, STEERING_ANGLE,
+                Directivity.Method.QUADRATURE, 1e-9);
+        Assert.assertEquals(pairs, 8, 1e-9);
+        Assert.assertEquals(quadrature, 8, 1e-6);
+    }
+
+    @Test
+    public void planarArrayMethodsAgreeTest() {
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(70, 20);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(2, 12, 8, 0.25, 0.6, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(FREQ), steeringAngle));
+        double pairs = Directivity.calculateDirectivity(executorService, FREQ, antennaArray, steeringAngle,
+                Directivity.Method.ELEMENT_PAIRS, 1e-9);
+        double quadrature = Directivity.calculateDirectivity(executorService, FREQ, antennaArray, steeringAngle,
+                Directivity.Method.QUADRATURE, 1e-9);
+        double automatic = Directivity.calculateDirectivity(FREQ, antennaArray, steeringAngle);
+        Assert.assertEquals(quadrature, pairs, 1e-6 * pairs);
+        Assert.assertEquals(automatic, pairs, 1e-6 * pairs);
+    }
+
+}
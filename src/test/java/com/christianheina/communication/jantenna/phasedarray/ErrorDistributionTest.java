@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.SplittableRandom;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link ErrorDistribution}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class ErrorDistributionTest {
+
+    private static final int SAMPLES = 100000;
+
+    @Test
+    public void noneTest() {
+        Assert.assertEquals(ErrorDistribution.none().sample(new SplittableRandom(1)), 0.0);
+    }
+
+    @Test
+    public void gaussianTest() {
+        ErrorDistribution distribution = ErrorDistribution.gaussian(2);
+        SplittableRandom random = new SplittableRandom(1);
+        double sum = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double value = distribution.sample(random);
+            sum += value;
+            sumSquares += value * value;
+        }
+        Assert.assertEquals(sum / SAMPLES, 0, 0.05);
+        Assert.assertEquals(Math.sqrt(sumSquares / SAMPLES), 2, 0.05);
+    }
+
+    @Test
+    public void uniformTest() {
+        ErrorDistribution distribution = ErrorDistribution.uniform(3);
+        SplittableRandom random = new SplittableRandom(1);
+        double sumSquares = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double value = distribution.sample(random);
+            Assert.assertTrue(Math.abs(value) <= 3);
+            sumSquares += value * value;
+        }
+        Assert.assertEquals(sumSquares / SAMPLES, 3, 0.05);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.Config;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetrics;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetricsListener;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationType;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link NearField}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class NearFieldTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+
+    @Test
+    public void newNearFieldAsyncFarDistanceTest() {
+        double waveNumber = 2 * Math.PI / Util.calculateLambda(FREQ);
+        double radius = 100000;
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(10);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 8, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(70, 20)));
+        Field nearField = NearField.newNearFieldAsync(FREQ, antennaArray, radius, angleList);
+        List<Complex> nearFieldList = nearField.getElectricField(ElectricField.RELATIVE_GAIN);
+        List<Complex> arrayFactorList = ArrayFactor.newArrayFactorAsync(FREQ, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        Complex normalization = new Complex(0, -waveNumber * radius).exp().multiply(radius);
+        Assert.assertEquals(nearFieldList.size(), angleList.size());
+        for (int i = 0; i < angleList.size(); i++) {
+            Complex normalized = nearFieldList.get(i).multiply(normalization);
+            Assert.assertEquals(normalized.getReal(), arrayFactorList.get(i).getReal(), 1e-3);
+            Assert.assertEquals(normalized.getImaginary(), arrayFactorList.get(i).getImaginary(), 1e-3);
+        }
+    }
+
+    @Test
+    public void streamNearFieldAsyncTest() {
+        double waveNumber = 2 * Math.PI / Util.calculateLambda(FREQ);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 3, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(90, 0)));
+        ObservationPoints points = ObservationPoints.newPlanarSurface(new Vector3D(0.05, -0.1, -0.1),
+                new Vector3D(0, 0.002, 0), 101, new Vector3D(0, 0, 0.002), 101);
+        Complex[] streamed = new Complex[points.size()];
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        NearField.streamNearFieldAsync(executorService, FREQ, antennaArray, points,
+                (blockPoints, from, to, real, imaginary) -> {
+                    for (int i = 0; i < to - from; i++) {
+                        streamed[from + i] = new Complex(real[i], imaginary[i]);
+                    }
+                });
+        for (int i = 0; i < points.size(); i += 97) {
+            Complex expected = Complex.ZERO;
+            for (WeightableElement element : antennaArray.getAntennaArray()) {
+                double distance = points.getPoint(i).distance(element.getElementLocation());
+                expected = expected.add(element.getElementWeight()
+                        .multiply(new Complex(0, waveNumber * distance).exp().divide(distance)));
+            }
+            Assert.assertEquals(streamed[i].getReal(), expected.getReal(), 1e-9);
+            Assert.assertEquals(streamed[i].getImaginary(), expected.getImaginary(), 1e-9);
+        }
+    }
+
+    @Test
+    public void streamNearFieldAsyncMetricsListenerTest() {
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 3, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(90, 0)));
+        ObservationPoints points = ObservationPoints.newPlanarSurface(new Vector3D(0.05, -0.1, -0.1),
+                new Vector3D(0, 0.002, 0), 11, new Vector3D(0, 0, 0.002), 11);
+        List<CalculationMetrics> metricsList = new CopyOnWriteArrayList<>();
+        PhasedArrayAntennaCalculationConfig.setConfig(new Config() {
+
+            @Override
+            public int getNumberOfThreads() {
+                return 2;
+            }
+
+            @Override
+            public CalculationMetricsListener getMetricsListener() {
+                return metricsList::add;
+            }
+
+        });
+        try {
+            NearField.streamNearFieldAsync(Executors.newFixedThreadPool(2), FREQ, antennaArray, points,
+                    (blockPoints, from, to, real, imaginary) -> {
+                    });
+        } finally {
+            PhasedArrayAntennaCalculationConfig.setConfig(PhasedArrayAntennaCalculationConfig.DEFAULT_CONFIG);
+        }
+        Assert.assertEquals(metricsList.size(), 1);
+        CalculationMetrics metrics = metricsList.get(0);
+        Assert.assertEquals(metrics.getCalculationType(), CalculationType.NEAR_FIELD);
+        Assert.assertEquals(metrics.getNumberOfAngles(), points.size());
+        Assert.assertEquals(metrics.getNumberOfElements(), 12);
+        Assert.assertTrue(metrics.getNumberOfTasks() > 0);
+        Assert.assertTrue(metrics.getTaskNanos() > 0);
+        Assert.assertEquals(metrics.getResultBytes(), 0);
+    }
+
+}
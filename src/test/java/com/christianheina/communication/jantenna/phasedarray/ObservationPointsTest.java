@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+
+/**
+ * Unit test for {@link ObservationPoints}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class ObservationPointsTest {
+
+    private static final double THRESHOLD = 1e-12;
+
+    @Test
+    public void fromPointsTest() {
+        ObservationPoints points = ObservationPoints
+                .fromPoints(Arrays.asList(new Vector3D(1, 2, 3), new Vector3D(-1, 0, 5)));
+        Assert.assertEquals(points.size(), 2);
+        Assert.assertEquals(points.getX(1), -1.0);
+        Assert.assertEquals(points.getY(1), 0.0);
+        Assert.assertEquals(points.getZ(1), 5.0);
+        Assert.assertEquals(points.getPoint(0), new Vector3D(1, 2, 3));
+    }
+
+    @Test
+    public void newPlanarSurfaceTest() {
+        ObservationPoints points = ObservationPoints.newPlanarSurface(new Vector3D(1, 0, 0), new Vector3D(0, 0.5, 0), 3,
+                new Vector3D(0, 0, 0.25), 4);
+        Assert.assertEquals(points.size(), 12);
+        // Point (2, 1) is stored at index 2 * 4 + 1
+        Assert.assertEquals(points.getX(9), 1, THRESHOLD);
+        Assert.assertEquals(points.getY(9), 1, THRESHOLD);
+        Assert.assertEquals(points.getZ(9), 0.25, THRESHOLD);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void newPlanarSurfaceNegativeCountTest() {
+        ObservationPoints.newPlanarSurface(Vector3D.ZERO, Vector3D.PLUS_I, -1, Vector3D.PLUS_J, 2);
+    }
+
+    @Test
+    public void newSphericalSurfaceTest() {
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(30);
+        ObservationPoints points = ObservationPoints.newSphericalSurface(2, angleList);
+        Assert.assertEquals(points.size(), angleList.size());
+        for (int i = 0; i < points.size(); i++) {
+            Assert.assertEquals(points.getPoint(i).getNorm(), 2, THRESHOLD);
+        }
+        ObservationPoints xAxis = ObservationPoints.newSphericalSurface(2, Arrays.asList(ThetaPhi.fromDegrees(90, 0)));
+        Assert.assertEquals(xAxis.getX(0), 2, THRESHOLD);
+        Assert.assertEquals(xAxis.getZ(0), 0, THRESHOLD);
+    }
+
+}
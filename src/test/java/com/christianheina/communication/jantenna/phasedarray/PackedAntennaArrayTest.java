@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link PackedAntennaArray}.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class PackedAntennaArrayTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+
+    @Test
+    public void phasorTablesTest() {
+        double lambda = Util.calculateLambda(FREQ);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(2, 16, 16, 0.25, 0.5, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(lambda, ThetaPhi.fromDegrees(60, 30)));
+        PackedAntennaArray packedArray = PackedAntennaArray.pack(antennaArray, Precision.DOUBLE);
+        Assert.assertTrue(packedArray.hasPhasorTables());
+        assertSameArrayFactor(packedArray, lambda);
+    }
+
+    @Test
+    public void irregularArrayWithoutPhasorTablesTest() {
+        WeightableElement[] elements = new WeightableElement[16];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = new WeightableElement(new Vector3D(0, i * 0.005, i * i * 0.001), FREQ, Complex.ONE);
+        }
+        // Every element has its own y and z coordinate
+        Assert.assertFalse(PackedAntennaArray.pack(elements, Precision.DOUBLE).hasPhasorTables());
+    }
+
+    @Test
+    public void groupQuantizedWeightsTest() {
+        double lambda = Util.calculateLambda(FREQ);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 16, 16, 0.5, FREQ,
+                WeightAlgorithm.newQuantizedWeightAlgorithm(
+                        WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(lambda, ThetaPhi.fromDegrees(60, 30)), 3,
+                        0, 0));
+        PackedAntennaArray grouped = PackedAntennaArray.pack(antennaArray, Precision.DOUBLE);
+        PackedAntennaArray ungrouped = PackedAntennaArray.pack(antennaArray.getAntennaArray(), Precision.DOUBLE);
+        Assert.assertEquals(grouped.getNumberOfWeightGroups(), 8);
+        Assert.assertEquals(ungrouped.getNumberOfWeightGroups(), 0);
+        assertSameArrayFactor(grouped, lambda);
+        assertSameArrayFactor(ungrouped, lambda);
+    }
+
+    @Test
+    public void singlePrecisionTest() {
+        double lambda = Util.calculateLambda(FREQ);
+        // Large panel so that element phases span many turns
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 64, 64, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(lambda, ThetaPhi.fromDegrees(60, 30)));
+        PackedAntennaArray floatArray = PackedAntennaArray.pack(antennaArray, Precision.FLOAT);
+        PackedAntennaArray doubleArray = PackedAntennaArray.pack(antennaArray, Precision.DOUBLE);
+        List<ThetaPhi> angles = ThetaPhi.equallySpacedSphere(10);
+        float[] real = new float[angles.size()];
+        float[] imaginary = new float[angles.size()];
+        floatArray.calculateArrayFactor(lambda, angles, 0, angles.size(), real, imaginary, 0);
+        double[] expectedReal = new double[angles.size()];
+        double[] expectedImaginary = new double[angles.size()];
+        doubleArray.calculateArrayFactor(lambda, angles, 0, angles.size(), expectedReal, expectedImaginary, 0);
+        for (int i = 0; i < angles.size(); i++) {
+            // Within 1e-5 of the 4096 peak
+            Assert.assertEquals(real[i], expectedReal[i], 0.04);
+            Assert.assertEquals(imaginary[i], expectedImaginary[i], 0.04);
+        }
+    }
+
+    private static void assertSameArrayFactor(PackedAntennaArray packedArray, double lambda) {
+        List<ThetaPhi> angles = ThetaPhi.equallySpacedSphere(10);
+        double[] real = new double[angles.size()];
+        double[] imaginary = new double[angles.size()];
+        packedArray.calculateArrayFactor(lambda, angles, 0, angles.size(), real, imaginary, 0);
+        double waveNumber = 2 * Math.PI / lambda;
+        double[] expectedReal = new double[1];
+        double[] expectedImaginary = new double[1];
+        for (int i = 0; i < angles.size(); i++) {
+            packedArray.calculateArrayFactor(waveNumber, angles.get(i).getTheta(), angles.get(i).getPhi(), expectedReal,
+                    expectedImaginary, 0);
+            Assert.assertEquals(real[i], expectedReal[0], 1e-9);
+            Assert.assertEquals(imaginary[i], expectedImaginary[0], 1e-9);
+        }
+    }
+
+    @Test
+    public void continuousWeightsNotGroupedTest() {
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 16, 16, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(90, 0)));
+        // Broadside weights are all one, but grouping is only attempted for quantized weights
+        Assert.assertEquals(PackedAntennaArray.pack(antennaArray, Precision.DOUBLE).getNumberOfWeightGroups(), 0);
+    }
+
+    @Test
+    public void groupExactWeightsTest() {
+        WeightableElement[] elements = newPanel(8, i -> new Complex(i % 2 == 0 ? 1 : Math.nextUp(1.0), 0));
+        // Weights one ulp apart are distinct weights
+        Assert.assertEquals(PackedAntennaArray.pack(elements, Precision.DOUBLE, true).getNumberOfWeightGroups(), 2);
+    }
+
+    @Test
+    public void tooManyWeightsNotGroupedTest() {
+        WeightableElement[] elements = newPanel(8, i -> new Complex(i % 17, 0));
+        // 17 distinct weights among 64 elements is fewer than four elements per weight
+        Assert.assertEquals(PackedAntennaArray.pack(elements, Precision.DOUBLE, true).getNumberOfWeightGroups(), 0);
+    }
+
+    private static WeightableElement[] newPanel(int size, IntFunction<Complex> weight) {
+        WeightableElement[] elements = new WeightableElement[size * size];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = new WeightableElement(new Vector3D(0, i / size * 0.005, i % size * 0.005), FREQ,
+                    weight.apply(i));
+        }
+        return elements;
+    }
+
+}
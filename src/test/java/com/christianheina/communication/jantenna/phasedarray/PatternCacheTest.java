@@ -0,0 +1,189 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.FieldType;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link PatternCache}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class PatternCacheTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final List<ThetaPhi> ANGLES = ThetaPhi.equallySpacedSphere(10);
+
+    private ExecutorService executorService;
+    private Path directory;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        executorService = Executors.newFixedThreadPool(2);
+        directory = Files.createTempDirectory("pattern-cache");
+    }
+
+    @AfterMethod
+    public void teardown() throws IOException {
+        executorService.shutdown();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static AntennaArray newAntennaArray(ThetaPhi steering) {
+        return AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, steering));
+    }
+
+    private static void assertEquals(PatternResult actual, PatternResult expected) {
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.getTheta(i), expected.getTheta(i));
+            Assert.assertEquals(actual.getReal(i), expected.getReal(i));
+            Assert.assertEquals(actual.getImaginary(i), expected.getImaginary(i));
+        }
+    }
+
+    @Test
+    public void arrayFactorTest() {
+        PatternCache cache = PatternCache.newBuilder().build();
+        PatternResult first = cache.getArrayFactor(executorService, FREQ, newAntennaArray(ThetaPhi.fromDegrees(90, 0)),
+                ANGLES);
+        PatternResult second = cache.getArrayFactor(executorService, FREQ, newAntennaArray(ThetaPhi.fromDegrees(90, 0)),
+                new ArrayList<>(ANGLES));
+        Assert.assertSame(second, first);
+        cache.getArrayFactor(executorService, FREQ, newAntennaArray(ThetaPhi.fromDegrees(60, 0)), ANGLES);
+        cache.getArrayFactor(executorService, FREQ * 2, newAntennaArray(ThetaPhi.fromDegrees(90, 0)), ANGLES);
+        Assert.assertEquals(cache.getHitCount(), 1);
+        Assert.assertEquals(cache.getMissCount(), 3);
+        Assert.assertEquals(cache.size(), 3);
+        Assert.assertEquals(cache.getCurrentBytes(), 3 * ANGLES.size() * PatternResult.BYTES_PER_SAMPLE);
+        assertEquals(first,
+                ArrayFactor.newArrayFactorResultAsync(FREQ, newAntennaArray(ThetaPhi.fromDegrees(90, 0)), ANGLES));
+    }
+
+    @Test
+    public void evictionTest() {
+        PatternCache cache = PatternCache.newBuilder()
+                .setMaximumBytes(2 * ANGLES.size() * PatternResult.BYTES_PER_SAMPLE).build();
+        AntennaArray first = newAntennaArray(ThetaPhi.fromDegrees(90, 0));
+        AntennaArray second = newAntennaArray(ThetaPhi.fromDegrees(60, 0));
+        AntennaArray third = newAntennaArray(ThetaPhi.fromDegrees(30, 0));
+        cache.getArrayFactor(executorService, FREQ, first, ANGLES);
+        cache.getArrayFactor(executorService, FREQ, second, ANGLES);
+        // Touch first so that second is least recently used
+        cache.getArrayFactor(executorService, FREQ, first, ANGLES);
+        cache.getArrayFactor(executorService, FREQ, third, ANGLES);
+        Assert.assertEquals(cache.getEvictionCount(), 1);
+        Assert.assertEquals(cache.size(), 2);
+        cache.getArrayFactor(executorService, FREQ, first, ANGLES);
+        Assert.assertEquals(cache.getHitCount(), 2);
+        cache.getArrayFactor(executorService, FREQ, second, ANGLES);
+        Assert.assertEquals(cache.getMissCount(), 4);
+    }
+
+    @Test
+    public void diskTierTest() {
+        AntennaArray antennaArray = newAntennaArray(ThetaPhi.fromDegrees(90, 0));
+        PatternResult expected = PatternCache.newBuilder().setDirectory(directory).build()
+                .getArrayFactor(executorService, FREQ, antennaArray, ANGLES);
+        PatternCache cache = PatternCache.newBuilder().setDirectory(directory).build();
+        PatternResult actual = cache.getArrayFactor(executorService, FREQ, antennaArray, ANGLES);
+        Assert.assertEquals(cache.getDiskHitCount(), 1);
+        Assert.assertEquals(cache.getMissCount(), 0);
+        Assert.assertEquals(actual.getFrequency(), FREQ);
+        Assert.assertEquals(actual.getFieldType(), FieldType.FARFIELD);
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void corruptedDiskEntryTest() throws IOException {
+        AntennaArray antennaArray = newAntennaArray(ThetaPhi.fromDegrees(90, 0));
+        PatternResult expected = PatternCache.newBuilder().setDirectory(directory).build()
+                .getArrayFactor(executorService, FREQ, antennaArray, ANGLES);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                byte[] bytes = Files.readAllBytes(path);
+                bytes[bytes.length / 2] ^= 1;
+                Files.write(path, bytes);
+            }
+        }
+        PatternCache cache = PatternCache.newBuilder().setDirectory(directory).build();
+        PatternResult actual = cache.getArrayFactor(executorService, FREQ, antennaArray, ANGLES);
+        Assert.assertEquals(cache.getCorruptedCount(), 1);
+        Assert.assertEquals(cache.getDiskHitCount(), 0);
+        Assert.assertEquals(cache.getMissCount(), 1);
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void phasedArrayTest() {
+        List<Complex> valueList = new ArrayList<>();
+        for (int i = 0; i < ANGLES.size(); i++) {
+            valueList.add(new Complex(1 + i % 3, i % 5));
+        }
+        Field embeddedField = Field.newBuilder().setThetaPhiList(ANGLES)
+                .addElectricField(ElectricField.RELATIVE_GAIN, valueList).setFreqency(FREQ)
+                .setFieldType(FieldType.FARFIELD).build();
+        AntennaArray antennaArray = newAntennaArray(ThetaPhi.fromDegrees(90, 0));
+        PatternCache cache = PatternCache.newBuilder().build();
+        PatternResult first = cache.getPhasedArray(embeddedField, ElectricField.RELATIVE_GAIN, executorService, FREQ,
+                antennaArray, ANGLES);
+        PatternResult second = cache.getPhasedArray(embeddedField, ElectricField.RELATIVE_GAIN, executorService, FREQ,
+                antennaArray, ANGLES);
+        Assert.assertSame(second, first);
+        Assert.assertEquals(cache.getMissCount(), 1);
+        PatternResult arrayFactor = cache.getArrayFactor(executorService, FREQ, antennaArray, ANGLES);
+        Assert.assertEquals(cache.getMissCount(), 2);
+        for (int i = 0; i < ANGLES.size(); i++) {
+            Complex expected = new Complex(arrayFactor.getReal(i), arrayFactor.getImaginary(i))
+                    .multiply(valueList.get(i));
+            Assert.assertEquals(first.getReal(i), expected.getReal(), 1e-9);
+            Assert.assertEquals(first.getImaginary(i), expected.getImaginary(), 1e-9);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void negativeMaximumBytesTest() {
+        PatternCache.newBuilder().setMaximumBytes(-1).build();
+    }
+
+}
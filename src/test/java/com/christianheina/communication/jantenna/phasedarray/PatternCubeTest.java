@@ -0,0 +1,137 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+
+/**
+ * Unit test for {@link PatternCube}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class PatternCubeTest {
+
+    private static final List<ThetaPhi> ANGLES = ThetaPhi.equallySpacedSphere(30);
+
+    private static void fill(PatternCube cube) {
+        int numberOfAngles = cube.getNumberOfAngles();
+        for (int f = 0; f < cube.getNumberOfFrequencies(); f++) {
+            for (int b = 0; b < cube.getNumberOfBeams(); b++) {
+                double[] real = new double[numberOfAngles];
+                double[] imaginary = new double[numberOfAngles];
+                for (int a = 0; a < numberOfAngles; a++) {
+                    real[a] = f * 1000 + b * 10 + a;
+                    imaginary[a] = -a;
+                }
+                cube.write(f, b, 0, numberOfAngles, real, imaginary);
+            }
+        }
+    }
+
+    @Test
+    public void chunkedCubeTest() {
+        // Room for two beams per chunk, so three beams use two chunks per frequency
+        PatternCube cube = PatternCube.newPatternCube(new double[] { 1e9, 2e9 }, 3, ANGLES, Precision.DOUBLE,
+                2 * ANGLES.size() * 16);
+        fill(cube);
+        Assert.assertEquals(cube.getNumberOfFrequencies(), 2);
+        Assert.assertEquals(cube.getNumberOfBeams(), 3);
+        Assert.assertEquals(cube.getNumberOfAngles(), ANGLES.size());
+        Assert.assertEquals(cube.getFrequency(1), 2e9);
+        Assert.assertEquals(cube.getTheta(5), ANGLES.get(5).getTheta());
+        for (int f = 0; f < 2; f++) {
+            for (int b = 0; b < 3; b++) {
+                for (int a = 0; a < ANGLES.size(); a++) {
+                    Assert.assertEquals(cube.getReal(f, b, a), f * 1000 + b * 10 + a);
+                    Assert.assertEquals(cube.getImaginary(f, b, a), -a);
+                }
+            }
+        }
+        Assert.assertEquals(cube.getPower(1, 2, 3), 1023.0 * 1023 + 9);
+    }
+
+    @Test
+    public void floatPrecisionTest() {
+        PatternCube cube = PatternCube.newPatternCube(new double[] { 1e9 }, 2, ANGLES, Precision.FLOAT);
+        fill(cube);
+        Assert.assertEquals(cube.getPrecision(), Precision.FLOAT);
+        Assert.assertEquals(cube.getReal(0, 1, 7), 17.0);
+        Assert.assertEquals(cube.getImaginary(0, 1, 7), -7.0);
+        Assert.assertEquals(cube.getPatternBuffer(0, 1).remaining(), ANGLES.size() * 8);
+    }
+
+    @Test
+    public void sliceTest() {
+        PatternCube cube = PatternCube.newPatternCube(new double[] { 1e9, 2e9, 3e9 }, 4, ANGLES, Precision.DOUBLE);
+        PatternCubeSlice frequencySlice = cube.getFrequencySlice(2);
+        PatternCubeSlice beamSlice = cube.getBeamSlice(1);
+        fill(cube);
+        Assert.assertEquals(frequencySlice.getNumberOfRows(), 4);
+        Assert.assertEquals(frequencySlice.getNumberOfAngles(), ANGLES.size());
+        Assert.assertEquals(frequencySlice.getReal(3, 5), 2035.0);
+        Assert.assertEquals(beamSlice.getNumberOfRows(), 3);
+        Assert.assertEquals(beamSlice.getReal(2, 5), 2015.0);
+        Assert.assertEquals(beamSlice.getImaginary(2, 5), -5.0);
+        Assert.assertEquals(beamSlice.getPower(0, 1), 11.0 * 11 + 1);
+    }
+
+    @Test
+    public void patternBufferTest() {
+        PatternCube cube = PatternCube.newPatternCube(new double[] { 1e9, 2e9 }, 3, ANGLES, Precision.DOUBLE,
+                2 * ANGLES.size() * 16);
+        ByteBuffer buffer = cube.getPatternBuffer(1, 1);
+        fill(cube);
+        Assert.assertTrue(buffer.isReadOnly());
+        Assert.assertEquals(buffer.remaining(), ANGLES.size() * 16);
+        Assert.assertEquals(buffer.getDouble(4 * 16), 1014.0);
+        Assert.assertEquals(buffer.getDouble(4 * 16 + 8), -4.0);
+    }
+
+    @Test
+    public void patternSinkTest() {
+        PatternCube cube = PatternCube.newPatternCube(new double[] { 1e9 }, 2, ANGLES, Precision.DOUBLE);
+        cube.newPatternSink(0, 1).accept(ANGLES, 3, 5, new double[] { 1, 2 }, new double[] { 3, 4 });
+        Assert.assertEquals(cube.getReal(0, 1, 4), 2.0);
+        Assert.assertEquals(cube.getImaginary(0, 1, 3), 3.0);
+        Assert.assertEquals(cube.getReal(0, 0, 4), 0.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void patternSinkWrongAnglesTest() {
+        PatternCube cube = PatternCube.newPatternCube(new double[] { 1e9 }, 1, ANGLES, Precision.DOUBLE);
+        cube.newPatternSink(0, 0).accept(ANGLES.subList(0, 2), 0, 1, new double[1], new double[1]);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void patternExceedsChunkTest() {
+        PatternCube.newPatternCube(new double[] { 1e9 }, 1, ANGLES, Precision.DOUBLE, ANGLES.size() * 16 - 1);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void indexOutOfBoundsTest() {
+        PatternCube.newPatternCube(new double[] { 1e9 }, 2, ANGLES, Precision.DOUBLE).getReal(0, 2, 0);
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link PatternCut}.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class PatternCutTest {
+
+    private static PatternCut newCut(double peakPosition) {
+        PatternCut cut = new PatternCut(peakPosition);
+        for (int i = 0; i <= 10; i++) {
+            // Beam of magnitude 1 at position 5, half power crossed at 5 -/+ 2 * (1 - HALF_POWER)
+            cut.add(i, Math.max(0.1, 1 - Math.abs(i - 5) * 0.5), 0, 0);
+        }
+        return cut;
+    }
+
+    @Test
+    public void halfPowerBeamwidthTest() {
+        Assert.assertEquals(newCut(5).findHalfPowerBeamwidth(1), 4 * (1 - PatternCut.HALF_POWER), 1e-12);
+    }
+
+    @Test
+    public void halfPowerBeamwidthOffBeamTest() {
+        Assert.assertTrue(Double.isNaN(newCut(0).findHalfPowerBeamwidth(1)));
+        Assert.assertTrue(Double.isNaN(newCut(9).findHalfPowerBeamwidth(1)));
+        // Peak of another beam stronger than the beam of the cut
+        Assert.assertTrue(Double.isNaN(newCut(5).findHalfPowerBeamwidth(2)));
+    }
+
+}
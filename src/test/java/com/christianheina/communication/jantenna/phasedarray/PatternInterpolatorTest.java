@@ -0,0 +1,172 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.PatternInterpolator.Interpolation;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.exceptions.PhasedArrayAntennaException;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link PatternInterpolator}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class PatternInterpolatorTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final AntennaArray ANTENNA_ARRAY = AntennaArray.fromEquallySpacedArray(4, 4, 0.5, FREQ,
+            WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(70, 20)));
+
+    private static double calculateMaximumError(PatternInterpolator interpolator, ArrayFactorEvaluator evaluator) {
+        SplittableRandom random = new SplittableRandom(3);
+        double maxError = 0;
+        for (int i = 0; i < 5000; i++) {
+            double theta = random.nextDouble() * Math.PI;
+            double phi = -Math.PI + random.nextDouble() * 2 * Math.PI;
+            maxError = Math.max(maxError,
+                    Math.abs(interpolator.getPower(theta, phi) - evaluator.calculatePower(theta, phi)));
+        }
+        return maxError / interpolator.getPeakPower();
+    }
+
+    @Test
+    public void gridPointTest() {
+        ArrayFactorEvaluator evaluator = ANTENNA_ARRAY.compile(FREQ);
+        for (Interpolation interpolation : Interpolation.values()) {
+            PatternInterpolator interpolator = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                    .setAntennaArray(ANTENNA_ARRAY).setGridSize(19, 36).setInterpolation(interpolation).build();
+            Assert.assertEquals(interpolator.getNumberOfTheta(), 19);
+            Assert.assertEquals(interpolator.getNumberOfPhi(), 36);
+            Assert.assertEquals(interpolator.getInterpolation(), interpolation);
+            for (ThetaPhi angle : PatternInterpolator.getGridAngles(19, 36)) {
+                Assert.assertEquals(interpolator.getPower(angle), evaluator.calculatePower(angle), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void automaticGridTest() {
+        ArrayFactorEvaluator evaluator = ANTENNA_ARRAY.compile(FREQ);
+        for (Interpolation interpolation : Interpolation.values()) {
+            PatternInterpolator interpolator = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                    .setAntennaArray(ANTENNA_ARRAY).setInterpolation(interpolation).setMaximumError(1e-3).build();
+            Assert.assertEquals(interpolator.getPeakPower(), 16 * 16, 1);
+            Assert.assertTrue(calculateMaximumError(interpolator, evaluator) < 2e-3);
+        }
+    }
+
+    @Test
+    public void automaticGridOffsetArrayTest() {
+        // |AF|^2 does not depend on where the array is placed, neither does the automatically chosen grid
+        AntennaArray.Builder builder = AntennaArray.newBuilder().setDesignFrequency(FREQ).setWeightAlgorithm(
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(70, 20)));
+        for (WeightableElement element : ANTENNA_ARRAY.getAntennaArray()) {
+            builder.addAntennaLocation(element.getElementLocation().add(new Vector3D(1, 2, 3)));
+        }
+        PatternInterpolator offsetInterpolator = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                .setAntennaArray(builder.build()).setMaximumError(1e-3).build();
+        PatternInterpolator interpolator = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                .setAntennaArray(ANTENNA_ARRAY).setMaximumError(1e-3).build();
+        Assert.assertEquals(offsetInterpolator.getNumberOfTheta(), interpolator.getNumberOfTheta());
+        Assert.assertEquals(offsetInterpolator.getNumberOfPhi(), interpolator.getNumberOfPhi());
+    }
+
+    @Test
+    public void bicubicTest() {
+        ArrayFactorEvaluator evaluator = ANTENNA_ARRAY.compile(FREQ);
+        PatternInterpolator bilinear = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                .setAntennaArray(ANTENNA_ARRAY).setGridSize(91, 180).build();
+        PatternInterpolator bicubic = PatternInterpolator.newBuilder().setFrequency(FREQ).setAntennaArray(ANTENNA_ARRAY)
+                .setGridSize(91, 180).setInterpolation(Interpolation.BICUBIC).build();
+        Assert.assertTrue(calculateMaximumError(bicubic, evaluator) < calculateMaximumError(bilinear, evaluator) / 10);
+    }
+
+    @Test
+    public void wrapAroundTest() {
+        PatternInterpolator interpolator = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                .setAntennaArray(ANTENNA_ARRAY).setGridSize(37, 72).setInterpolation(Interpolation.BICUBIC).build();
+        double theta = Math.toRadians(47);
+        Assert.assertEquals(interpolator.getPower(theta, Math.PI), interpolator.getPower(theta, -Math.PI), 1e-9);
+        Assert.assertEquals(interpolator.getPower(theta, 0.3), interpolator.getPower(theta, 0.3 + 2 * Math.PI), 1e-9);
+        // Theta beyond the pole is the direction on the opposite side
+        Assert.assertEquals(interpolator.getPower(-theta, 0.3), interpolator.getPower(theta, 0.3 + Math.PI), 1e-9);
+        Assert.assertEquals(interpolator.getPower(2 * Math.PI - theta, 0.3),
+                interpolator.getPower(theta, 0.3 - Math.PI), 1e-9);
+    }
+
+    @Test
+    public void fieldTest() {
+        List<ThetaPhi> gridAngles = PatternInterpolator.getGridAngles(37, 72);
+        Field field = ArrayFactor.newArrayFactorAsync(FREQ, ANTENNA_ARRAY, gridAngles);
+        PatternInterpolator fromField = PatternInterpolator.newBuilder().setField(field, ElectricField.RELATIVE_GAIN)
+                .setGridSize(37, 72).build();
+        PatternInterpolator fromArray = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                .setAntennaArray(ANTENNA_ARRAY).setGridSize(37, 72).build();
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 100; i++) {
+            double theta = random.nextDouble() * Math.PI;
+            double phi = random.nextDouble() * 2 * Math.PI;
+            Assert.assertEquals(fromField.getPower(theta, phi), fromArray.getPower(theta, phi), 1e-6);
+        }
+    }
+
+    @Test
+    public void floatPrecisionTest() {
+        PatternInterpolator doubleInterpolator = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                .setAntennaArray(ANTENNA_ARRAY).setGridSize(37, 72).build();
+        PatternInterpolator floatInterpolator = PatternInterpolator.newBuilder().setFrequency(FREQ)
+                .setAntennaArray(ANTENNA_ARRAY).setGridSize(37, 72).setPrecision(Precision.FLOAT).build();
+        Assert.assertEquals(floatInterpolator.getPrecision(), Precision.FLOAT);
+        Assert.assertEquals(floatInterpolator.getPower(1.1, 0.4), doubleInterpolator.getPower(1.1, 0.4), 1e-4);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void oddPhiTest() {
+        PatternInterpolator.newBuilder().setFrequency(FREQ).setAntennaArray(ANTENNA_ARRAY).setGridSize(10, 11).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void missingSourceTest() {
+        PatternInterpolator.newBuilder().setGridSize(10, 10).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void fieldGridMismatchTest() {
+        Field field = ArrayFactor.newArrayFactorAsync(FREQ, ANTENNA_ARRAY, PatternInterpolator.getGridAngles(10, 10));
+        PatternInterpolator.newBuilder().setField(field, ElectricField.RELATIVE_GAIN).setGridSize(10, 12).build();
+    }
+
+    @Test(expectedExceptions = PhasedArrayAntennaException.class)
+    public void maximumSizeTest() {
+        PatternInterpolator.newBuilder().setFrequency(FREQ).setAntennaArray(ANTENNA_ARRAY).setMaximumError(1e-12)
+                .setMaximumBytes(64 * 1024).build();
+    }
+
+}
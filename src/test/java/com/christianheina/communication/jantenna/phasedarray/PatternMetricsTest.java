@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+
+import org.apache.commons.math3.complex.Complex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link PatternMetrics}.
+ *
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class PatternMetricsTest {
+
+    @Test
+    public void streamedMetricsTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(1);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(90, 0);
+        // Quarter wavelength spaced pair of panels suppresses the mirrored beam behind the panel
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(2, 24, 16, 0.25, 0.5, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        PatternMetrics metrics = PatternMetrics.newBuilder().setBeamDirection(steeringAngle).build();
+        ArrayFactor.streamArrayFactorAsync(freq, antennaArray, angleList, metrics);
+
+        Assert.assertEquals(metrics.getNumberOfSamples(), angleList.size());
+        Assert.assertEquals(metrics.getPeakMagnitude(), 768, 1e-6);
+        Assert.assertEquals(metrics.getPeakGain(), 20 * Math.log10(768), 1e-6);
+        Assert.assertEquals(metrics.getPeakDirection().getTheta(), steeringAngle.getTheta(), 1e-9);
+        Assert.assertEquals(metrics.getPeakDirection().getPhi(), steeringAngle.getPhi(), 1e-9);
+        Assert.assertEquals(metrics.getThetaHalfPowerBeamwidth(), 0.886 * 2 / 16, 0.005);
+        Assert.assertEquals(metrics.getPhiHalfPowerBeamwidth(), 0.886 * 2 / 24, 0.005);
+        Assert.assertEquals(metrics.getPeakSidelobeLevel(), -13.15, 0.5);
+
+        List<Complex> fieldList = ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        double weightedPowerSum = 0;
+        double weightSum = 0;
+        for (int i = 0; i < angleList.size(); i++) {
+            double weight = Math.sin(angleList.get(i).getTheta());
+            weightedPowerSum += fieldList.get(i).abs() * fieldList.get(i).abs() * weight;
+            weightSum += weight;
+        }
+        Assert.assertEquals(metrics.getDirectivity(), 768 * 768 * weightSum / weightedPowerSum, 1e-6);
+    }
+
+    @Test
+    public void phiHalfPowerBeamwidthOffBroadsideTest() {
+        double freq = 28 * Math.pow(10, 9);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(30, 0);
+        // Panel in the xy-plane scanned in the xz-plane, the beam along y keeps its broadside width
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(16, 24, 2, 0.5, 0.5, 0.25, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        PatternMetrics metrics = PatternMetrics.newBuilder().setBeamDirection(steeringAngle).build();
+        ArrayFactor.streamArrayFactorAsync(freq, antennaArray, ThetaPhi.equallySpacedSphere(1), metrics);
+
+        Assert.assertEquals(metrics.getPeakMagnitude(), 768, 1e-6);
+        // Width in phi alone is larger by 1 / sin(30 degrees)
+        Assert.assertEquals(metrics.getPhiHalfPowerBeamwidth(), 0.886 * 2 / 24, 0.005);
+    }
+
+    @Test
+    public void beamDirectionOffBeamTest() {
+        double freq = 28 * Math.pow(10, 9);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(2, 24, 16, 0.25, 0.5, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(90, 0)));
+        // Cuts through a direction far from the beam with the global peak
+        PatternMetrics metrics = PatternMetrics.newBuilder().setBeamDirection(ThetaPhi.fromDegrees(0, 0)).build();
+        ArrayFactor.streamArrayFactorAsync(freq, antennaArray, ThetaPhi.equallySpacedSphere(1), metrics);
+        Assert.assertEquals(metrics.getPeakMagnitude(), 768, 1e-6);
+        Assert.assertTrue(Double.isNaN(metrics.getThetaHalfPowerBeamwidth()));
+        Assert.assertTrue(Double.isNaN(metrics.getPhiHalfPowerBeamwidth()));
+    }
+
+    @Test
+    public void withoutBeamDirectionTest() {
+        PatternMetrics metrics = PatternMetrics.newBuilder().build();
+        Assert.assertTrue(Double.isNaN(metrics.getPeakMagnitude()));
+        Assert.assertNull(metrics.getPeakDirection());
+        Assert.assertTrue(Double.isNaN(metrics.getDirectivity()));
+        Assert.assertTrue(Double.isNaN(metrics.getThetaHalfPowerBeamwidth()));
+        Assert.assertTrue(Double.isNaN(metrics.getPeakSidelobeLevel()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidResolutionTest() {
+        PatternMetrics.newBuilder().setCutResolution(0).build();
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.complex.Complex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.FieldType;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+
+/**
+ * Unit test for {@link PatternResult}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class PatternResultTest {
+
+    private static PatternResult newPatternResult() {
+        List<ThetaPhi> angles = Arrays.asList(ThetaPhi.fromDegrees(0, 0), ThetaPhi.fromDegrees(45, 90),
+                ThetaPhi.fromDegrees(90, -30));
+        return new PatternResult(1e9, FieldType.FARFIELD, angles, new double[] { 1, 3, -1 }, new double[] { 0, -4, 2 });
+    }
+
+    @Test
+    public void accessorTest() {
+        PatternResult result = newPatternResult();
+        Assert.assertEquals(result.size(), 3);
+        Assert.assertEquals(result.getFrequency(), 1e9);
+        Assert.assertEquals(result.getFieldType(), FieldType.FARFIELD);
+        Assert.assertEquals(result.getTheta(1), Math.toRadians(45));
+        Assert.assertEquals(result.getPhi(2), Math.toRadians(-30));
+        Assert.assertEquals(result.getReal(1), 3.0);
+        Assert.assertEquals(result.getImaginary(1), -4.0);
+        Assert.assertEquals(result.getPower(1), 25.0);
+    }
+
+    @Test
+    public void floatAccessorTest() {
+        List<ThetaPhi> angles = Arrays.asList(ThetaPhi.fromDegrees(0, 0), ThetaPhi.fromDegrees(45, 90));
+        PatternResult result = new PatternResult(1e9, FieldType.FARFIELD, angles, new float[] { 1, 3 },
+                new float[] { 0, -4 });
+        Assert.assertEquals(result.getPrecision(), Precision.FLOAT);
+        Assert.assertEquals(result.getBytesPerSample(), PatternResult.BYTES_PER_SAMPLE_FLOAT);
+        Assert.assertEquals(newPatternResult().getPrecision(), Precision.DOUBLE);
+        Assert.assertEquals(newPatternResult().getBytesPerSample(), PatternResult.BYTES_PER_SAMPLE);
+        Assert.assertEquals(result.size(), 2);
+        Assert.assertEquals(result.getPhi(1), Math.toRadians(90));
+        Assert.assertEquals(result.getReal(1), 3.0);
+        Assert.assertEquals(result.getImaginary(1), -4.0);
+        Assert.assertEquals(result.getPower(1), 25.0);
+        Assert.assertEquals(result.toField().getElectricField(ElectricField.RELATIVE_GAIN).get(1), new Complex(3, -4));
+    }
+
+    @Test
+    public void toFieldTest() {
+        Field field = newPatternResult().toField();
+        List<ThetaPhi> angles = field.getThetaPhiList();
+        List<Complex> values = field.getElectricField(ElectricField.RELATIVE_GAIN);
+        Assert.assertEquals(angles.size(), 3);
+        Assert.assertEquals(values.size(), 3);
+        Assert.assertEquals(angles.get(1).getTheta(), Math.toRadians(45), 1e-15);
+        Assert.assertEquals(angles.get(2).getPhi(), Math.toRadians(-30), 1e-15);
+        Assert.assertEquals(values.get(2), new Complex(-1, 2));
+    }
+
+    @Test
+    public void toFieldExactAnglesTest() {
+        List<ThetaPhi> angles = ThetaPhi.equallySpacedSphere(7);
+        PatternResult result = new PatternResult(1e9, FieldType.FARFIELD, angles, new double[angles.size()],
+                new double[angles.size()]);
+        List<ThetaPhi> fieldAngles = result.toField().getThetaPhiList();
+        for (int i = 0; i < angles.size(); i++) {
+            // Angles are not converted through degrees
+            Assert.assertEquals(fieldAngles.get(i).getTheta(), angles.get(i).getTheta(), 0);
+            Assert.assertEquals(fieldAngles.get(i).getPhi(), angles.get(i).getPhi(), 0);
+        }
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void toFieldReadOnlyTest() {
+        newPatternResult().toField().getElectricField(ElectricField.RELATIVE_GAIN).set(0, Complex.ZERO);
+    }
+
+}
@@ -19,16 +19,30 @@ package com.christianheina.communication.jantenna.phasedarray;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.christianheina.communication.jantenna.commons.ElectricField;
 import com.christianheina.communication.jantenna.commons.Field;
+import com.christianheina.communication.jantenna.commons.FieldType;
 import com.christianheina.communication.jantenna.commons.ThetaPhi;
 import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.config.Config;
+import com.christianheina.communication.jantenna.phasedarray.config.PhasedArrayAntennaCalculationConfig;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetrics;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetricsListener;
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationType;
 import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
 
 /**
@@ -136,4 +150,303 @@ public class PhasedArrayAntennaTest {
         });
     }
 
+    @Test
+    public void newPhasedArrayAsyncFusedTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(60, 30);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 6, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        List<Complex> embeddedList = new ArrayList<>();
+        for (ThetaPhi angle : angleList) {
+            embeddedList.add(new Complex(Math.cos(angle.getTheta()), Math.sin(angle.getPhi())));
+        }
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(angleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, embeddedList).setFreqency(freq)
+                .setFieldType(FieldType.FARFIELD).build();
+        Field expectedField = PhasedArrayAntenna.newPhasedArray(averageEmbeddedField,
+                ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList));
+        Field phasedArrayField = PhasedArrayAntenna.newPhasedArrayAsync(averageEmbeddedField,
+                Executors.newSingleThreadExecutor(), freq, antennaArray, angleList);
+        Assert.assertEquals(phasedArrayField.getAvailableElectricFields(),
+                averageEmbeddedField.getAvailableElectricFields());
+        for (ElectricField electricField : averageEmbeddedField.getAvailableElectricFields()) {
+            List<Complex> expected = expectedField.getElectricField(electricField);
+            List<Complex> actual = phasedArrayField.getElectricField(electricField);
+            Assert.assertEquals(actual.size(), angleList.size());
+            for (int i = 0; i < angleList.size(); i++) {
+                Assert.assertEquals(actual.get(i).getReal(), expected.get(i).getReal(), 1e-9);
+                Assert.assertEquals(actual.get(i).getImaginary(), expected.get(i).getImaginary(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void newPhasedArrayFutureTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 6, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(60, 30)));
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(angleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, Collections.nCopies(angleList.size(), new Complex(0, 2)))
+                .setFreqency(freq).setFieldType(FieldType.FARFIELD).build();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        List<Complex> futureList = PhasedArrayAntenna
+                .newPhasedArrayFuture(averageEmbeddedField, executorService, freq, antennaArray, angleList).join()
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        Assert.assertFalse(executorService.isShutdown());
+        List<Complex> expectedList = PhasedArrayAntenna
+                .newPhasedArrayAsync(averageEmbeddedField, executorService, freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        Assert.assertEquals(futureList, expectedList);
+    }
+
+    @Test
+    public void newPhasedArrayResultAsyncTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 6, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(60, 30)));
+        List<Complex> embeddedList = new ArrayList<>();
+        for (ThetaPhi angle : angleList) {
+            embeddedList.add(new Complex(Math.cos(angle.getTheta()), Math.sin(angle.getPhi())));
+        }
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(angleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, embeddedList).setFreqency(freq)
+                .setFieldType(FieldType.FARFIELD).build();
+        Map<ElectricField, PatternResult> results = PhasedArrayAntenna.newPhasedArrayResultAsync(averageEmbeddedField,
+                freq, antennaArray, angleList);
+        Field expectedField = PhasedArrayAntenna.newPhasedArrayAsync(averageEmbeddedField,
+                Executors.newSingleThreadExecutor(), freq, antennaArray, angleList);
+        Assert.assertEquals(results.keySet(), expectedField.getAvailableElectricFields());
+        for (ElectricField electricField : expectedField.getAvailableElectricFields()) {
+            PatternResult result = results.get(electricField);
+            List<Complex> expected = expectedField.getElectricField(electricField);
+            Assert.assertEquals(result.size(), angleList.size());
+            Assert.assertEquals(result.getFrequency(), freq);
+            for (int i = 0; i < angleList.size(); i++) {
+                Assert.assertEquals(result.getReal(i), expected.get(i).getReal());
+                Assert.assertEquals(result.getImaginary(i), expected.get(i).getImaginary());
+            }
+            Assert.assertEquals(result.toField().getThetaPhiList(), angleList);
+        }
+    }
+
+    @Test
+    public void newPhasedArrayFutureCancellationTokenTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 6, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(60, 30)));
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(angleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, Collections.nCopies(angleList.size(), new Complex(0, 2)))
+                .setFreqency(freq).setFieldType(FieldType.FARFIELD).build();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        PartialField complete = PhasedArrayAntenna.newPhasedArrayFuture(averageEmbeddedField, executorService, freq,
+                antennaArray, angleList, CancellationToken.newCancellationToken()).join();
+        Assert.assertTrue(complete.isComplete());
+        Assert.assertEquals(complete.getField().getElectricField(ElectricField.RELATIVE_GAIN),
+                PhasedArrayAntenna
+                        .newPhasedArrayFuture(averageEmbeddedField, executorService, freq, antennaArray, angleList)
+                        .join().getElectricField(ElectricField.RELATIVE_GAIN));
+        CancellationToken cancellationToken = CancellationToken.newCancellationToken();
+        cancellationToken.cancel();
+        PartialField cancelled = PhasedArrayAntenna.newPhasedArrayFuture(averageEmbeddedField, executorService, freq,
+                antennaArray, angleList, cancellationToken).join();
+        executorService.shutdown();
+        Assert.assertTrue(cancelled.getCoverage().isEmpty());
+        for (Complex value : cancelled.getField().getElectricField(ElectricField.RELATIVE_GAIN)) {
+            Assert.assertTrue(value.isNaN());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void newPhasedArrayAsyncDifferentAnglesTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(1);
+        List<ThetaPhi> embeddedAngleList = new ArrayList<>(angleList);
+        embeddedAngleList.set(10, ThetaPhi.fromDegrees(45, 45));
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 24, 16, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(90, 0)));
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(embeddedAngleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, Collections.nCopies(angleList.size(), Complex.ONE))
+                .setFreqency(freq).setFieldType(FieldType.FARFIELD).build();
+        PhasedArrayAntenna.newPhasedArrayAsync(averageEmbeddedField, freq, antennaArray, angleList);
+    }
+
+    @Test
+    public void newPhasedArrayAsyncPolarizationTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(2);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(90, 0);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 8, 8, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(angleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, Collections.nCopies(angleList.size(), new Complex(1, 1)))
+                .setFreqency(freq).setFieldType(FieldType.FARFIELD).build();
+        double[] axialRatio = new double[angleList.size()];
+        double[] crossPolarDiscrimination = new double[angleList.size()];
+        // Same component used for theta and phi gives linear polarisation at 45 degrees
+        Field phasedArrayField = PhasedArrayAntenna.newPhasedArrayAsync(averageEmbeddedField,
+                ElectricField.RELATIVE_GAIN, ElectricField.RELATIVE_GAIN, Polarization.RIGHT_HAND_CIRCULAR, freq,
+                antennaArray, angleList, (angles, from, to, blockAxialRatio, blockCrossPolarDiscrimination) -> {
+                    System.arraycopy(blockAxialRatio, 0, axialRatio, from, to - from);
+                    System.arraycopy(blockCrossPolarDiscrimination, 0, crossPolarDiscrimination, from, to - from);
+                });
+        List<Complex> expectedList = PhasedArrayAntenna
+                .newPhasedArrayAsync(averageEmbeddedField, freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        List<Complex> phasedArrayList = phasedArrayField.getElectricField(ElectricField.RELATIVE_GAIN);
+        int steeringIndex = -1;
+        for (int i = 0; i < angleList.size(); i++) {
+            if (Math.abs(angleList.get(i).getTheta() - steeringAngle.getTheta()) < 1e-9
+                    && Math.abs(angleList.get(i).getPhi() - steeringAngle.getPhi()) < 1e-9) {
+                steeringIndex = i;
+            }
+            Assert.assertEquals(phasedArrayList.get(i).getReal(), expectedList.get(i).getReal(), 1e-9);
+            Assert.assertEquals(phasedArrayList.get(i).getImaginary(), expectedList.get(i).getImaginary(), 1e-9);
+        }
+        Assert.assertTrue(axialRatio[steeringIndex] > 100);
+        Assert.assertEquals(crossPolarDiscrimination[steeringIndex], 0, 1e-6);
+    }
+
+    @Test
+    public void newPhasedArrayAsyncElementClassesTest() {
+        double freq = 28 * Math.pow(10, 9);
+        double waveNumber = 2 * Math.PI / Util.calculateLambda(freq);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(3);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(80, -20);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 6, 4, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        // Alternate elements between two classes with different embedded fields
+        int[] elementClasses = new int[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            elementClasses[i] = i % 2;
+        }
+        List<Complex> centreList = new ArrayList<>();
+        List<Complex> edgeList = new ArrayList<>();
+        for (ThetaPhi angle : angleList) {
+            centreList.add(new Complex(Math.sin(angle.getTheta()), 0));
+            edgeList.add(new Complex(0.5, Math.cos(angle.getPhi())));
+        }
+        List<Field> embeddedFields = new ArrayList<>();
+        for (List<Complex> embeddedList : Arrays.asList(centreList, edgeList)) {
+            embeddedFields.add(Field.newBuilder().setThetaPhiList(angleList)
+                    .addElectricField(ElectricField.RELATIVE_GAIN, embeddedList).setFreqency(freq)
+                    .setFieldType(FieldType.FARFIELD).build());
+        }
+        List<Complex> phasedArrayList = PhasedArrayAntenna
+                .newPhasedArrayAsync(embeddedFields, elementClasses, freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        for (int i = 0; i < angleList.size(); i++) {
+            ThetaPhi angle = angleList.get(i);
+            Vector3D direction = new Vector3D(Math.sin(angle.getTheta()) * Math.cos(angle.getPhi()),
+                    Math.sin(angle.getTheta()) * Math.sin(angle.getPhi()), Math.cos(angle.getTheta()));
+            Complex expected = Complex.ZERO;
+            for (int n = 0; n < elements.length; n++) {
+                Complex embedded = (elementClasses[n] == 0 ? centreList : edgeList).get(i);
+                double phase = -waveNumber * direction.dotProduct(elements[n].getElementLocation());
+                expected = expected
+                        .add(embedded.multiply(elements[n].getElementWeight()).multiply(new Complex(0, phase).exp()));
+            }
+            Assert.assertEquals(phasedArrayList.get(i).getReal(), expected.getReal(), 1e-9);
+            Assert.assertEquals(phasedArrayList.get(i).getImaginary(), expected.getImaginary(), 1e-9);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void newPhasedArrayAsyncMissingElementClassTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(5);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(90, 0)));
+        Field embeddedField = Field.newBuilder().setThetaPhiList(angleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, Collections.nCopies(angleList.size(), Complex.ONE))
+                .setFreqency(freq).setFieldType(FieldType.FARFIELD).build();
+        int[] elementClasses = new int[16];
+        elementClasses[5] = 1;
+        PhasedArrayAntenna.newPhasedArrayAsync(Collections.singletonList(embeddedField), elementClasses, freq,
+                antennaArray, angleList);
+    }
+
+    @Test
+    public void streamPhasedArrayAsyncTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(1);
+        ThetaPhi steeringAngle = ThetaPhi.fromDegrees(90, 0);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 24, 16, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromLambda(Util.calculateLambda(freq), steeringAngle));
+        Complex embedded = new Complex(0, 2);
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(angleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, Collections.nCopies(angleList.size(), embedded))
+                .setFreqency(freq).setFieldType(FieldType.FARFIELD).build();
+        List<Complex> arrayFactorList = ArrayFactor.newArrayFactorAsync(freq, antennaArray, angleList)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        Complex[] streamed = new Complex[angleList.size()];
+        PhasedArrayAntenna.streamPhasedArrayAsync(averageEmbeddedField, ElectricField.RELATIVE_GAIN, freq, antennaArray,
+                angleList, (angles, from, to, real, imaginary) -> {
+                    for (int i = 0; i < to - from; i++) {
+                        streamed[from + i] = new Complex(real[i], imaginary[i]);
+                    }
+                });
+        for (int i = 0; i < angleList.size(); i++) {
+            Complex expected = arrayFactorList.get(i).multiply(embedded);
+            Assert.assertEquals(streamed[i].getReal(), expected.getReal(), 1e-9);
+            Assert.assertEquals(streamed[i].getImaginary(), expected.getImaginary(), 1e-9);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void streamPhasedArrayAsyncMismatchingAnglesTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(1);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 24, 16, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(90, 0)));
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(angleList.subList(0, 10))
+                .addElectricField(ElectricField.RELATIVE_GAIN, Collections.nCopies(10, Complex.ONE)).setFreqency(freq)
+                .setFieldType(FieldType.FARFIELD).build();
+        PhasedArrayAntenna.streamPhasedArrayAsync(averageEmbeddedField, ElectricField.RELATIVE_GAIN, freq, antennaArray,
+                angleList, (angles, from, to, real, imaginary) -> {
+                });
+    }
+
+    @Test
+    public void streamPhasedArrayAsyncMetricsListenerTest() {
+        double freq = 28 * Math.pow(10, 9);
+        List<ThetaPhi> angleList = ThetaPhi.equallySpacedSphere(5);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, freq,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(90, 0)));
+        Field averageEmbeddedField = Field.newBuilder().setThetaPhiList(angleList)
+                .addElectricField(ElectricField.RELATIVE_GAIN, Collections.nCopies(angleList.size(), Complex.ONE))
+                .setFreqency(freq).setFieldType(FieldType.FARFIELD).build();
+        List<CalculationMetrics> metricsList = new CopyOnWriteArrayList<>();
+        PhasedArrayAntennaCalculationConfig.setConfig(new Config() {
+
+            @Override
+            public int getNumberOfThreads() {
+                return 2;
+            }
+
+            @Override
+            public CalculationMetricsListener getMetricsListener() {
+                return metricsList::add;
+            }
+
+        });
+        try {
+            PhasedArrayAntenna.streamPhasedArrayAsync(averageEmbeddedField, ElectricField.RELATIVE_GAIN, freq,
+                    antennaArray, angleList, (angles, from, to, real, imaginary) -> {
+                    });
+        } finally {
+            PhasedArrayAntennaCalculationConfig.setConfig(PhasedArrayAntennaCalculationConfig.DEFAULT_CONFIG);
+        }
+        Assert.assertEquals(metricsList.size(), 1);
+        CalculationMetrics metrics = metricsList.get(0);
+        Assert.assertEquals(metrics.getCalculationType(), CalculationType.PHASED_ARRAY);
+        Assert.assertEquals(metrics.getNumberOfAngles(), angleList.size());
+        Assert.assertEquals(metrics.getNumberOfElements(), 16);
+        Assert.assertTrue(metrics.getNumberOfTasks() > 0);
+    }
+
 }
@@ -54,4 +54,38 @@ public class PhasedArrayUtilTest {
         Assert.assertTrue(Math.abs(vk.getReal() - expected.getReal()) < THRESHOLD);
         Assert.assertTrue(Math.abs(vk.getImaginary() - expected.getImaginary()) < THRESHOLD);
     }
+
+    @Test
+    public void calculateAxialRatioTest() {
+        // Right hand circular polarisation
+        Assert.assertTrue(Math.abs(PhasedArrayUtil.calculateAxialRatio(Complex.ONE, new Complex(0, -1))) < THRESHOLD);
+        Assert.assertEquals(PhasedArrayUtil.calculateAxialRatio(Complex.ONE, Complex.ZERO), Double.POSITIVE_INFINITY);
+        // Ellipse with axes 1 and 0.5
+        Assert.assertTrue(Math.abs(PhasedArrayUtil.calculateAxialRatio(Complex.ONE, new Complex(0, 0.5))
+                - 20 * Math.log10(2)) < THRESHOLD);
+    }
+
+    @Test
+    public void calculateCrossPolarDiscriminationTest() {
+        Complex theta = Complex.ONE;
+        Complex phi = new Complex(0.1, 0);
+        Assert.assertTrue(Math.abs(
+                PhasedArrayUtil.calculateCrossPolarDiscrimination(theta, phi, Polarization.THETA) - 20) < THRESHOLD);
+        Assert.assertTrue(Math
+                .abs(PhasedArrayUtil.calculateCrossPolarDiscrimination(theta, phi, Polarization.PHI) + 20) < THRESHOLD);
+        Assert.assertEquals(PhasedArrayUtil.calculateCrossPolarDiscrimination(Complex.ONE, new Complex(0, 1),
+                Polarization.LEFT_HAND_CIRCULAR), Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void calculateComponentTest() {
+        Complex rightHand = PhasedArrayUtil.calculateComponent(Complex.ONE, new Complex(0, -1),
+                Polarization.RIGHT_HAND_CIRCULAR);
+        Complex leftHand = PhasedArrayUtil.calculateComponent(Complex.ONE, new Complex(0, -1),
+                Polarization.LEFT_HAND_CIRCULAR);
+        Assert.assertTrue(Math.abs(rightHand.getReal() - Math.sqrt(2)) < THRESHOLD);
+        Assert.assertTrue(Math.abs(rightHand.getImaginary()) < THRESHOLD);
+        Assert.assertTrue(leftHand.abs() < THRESHOLD);
+    }
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.config.Precision;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link SteeringMatrix}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class SteeringMatrixTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final List<ThetaPhi> ANGLES = ThetaPhi.equallySpacedSphere(5);
+
+    private static AntennaArray newAntennaArray(ThetaPhi steering) {
+        return AntennaArray.fromEquallySpacedArray(1, 6, 4, 0.5, FREQ,
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, steering));
+    }
+
+    private static void assertArrayFactor(PatternResult result, AntennaArray antennaArray, double delta) {
+        List<Complex> expectedList = ArrayFactor.newArrayFactorAsync(FREQ, antennaArray, ANGLES)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        Assert.assertEquals(result.size(), ANGLES.size());
+        for (int i = 0; i < ANGLES.size(); i++) {
+            Assert.assertEquals(result.getTheta(i), ANGLES.get(i).getTheta());
+            Assert.assertEquals(result.getReal(i), expectedList.get(i).getReal(), delta);
+            Assert.assertEquals(result.getImaginary(i), expectedList.get(i).getImaginary(), delta);
+        }
+    }
+
+    @Test
+    public void calculateArrayFactorTest() {
+        SteeringMatrix steeringMatrix = SteeringMatrix.newSteeringMatrix(FREQ,
+                newAntennaArray(ThetaPhi.fromDegrees(90, 0)), ANGLES);
+        Assert.assertEquals(steeringMatrix.getNumberOfAngles(), ANGLES.size());
+        Assert.assertEquals(steeringMatrix.getNumberOfElements(), 24);
+        Assert.assertEquals(steeringMatrix.getFrequency(), FREQ);
+        Assert.assertEquals(steeringMatrix.getPrecision(), Precision.DOUBLE);
+        // Same matrix reused for different weights
+        for (ThetaPhi steering : new ThetaPhi[] { ThetaPhi.fromDegrees(90, 0), ThetaPhi.fromDegrees(60, 30) }) {
+            AntennaArray antennaArray = newAntennaArray(steering);
+            assertArrayFactor(steeringMatrix.calculateArrayFactor(antennaArray), antennaArray, 1e-9);
+        }
+    }
+
+    @Test
+    public void calculateArrayFactorFloatPrecisionTest() {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        AntennaArray antennaArray = newAntennaArray(ThetaPhi.fromDegrees(60, 30));
+        SteeringMatrix steeringMatrix = SteeringMatrix.newSteeringMatrix(executorService, FREQ, antennaArray, ANGLES,
+                Precision.FLOAT, SteeringMatrix.DEFAULT_MAXIMUM_BYTES);
+        PatternResult result = steeringMatrix.calculateArrayFactor(executorService, antennaArray);
+        Assert.assertFalse(executorService.isShutdown());
+        executorService.shutdown();
+        assertArrayFactor(result, antennaArray, 1e-5);
+    }
+
+    @Test
+    public void multiplyTest() {
+        SteeringMatrix steeringMatrix = SteeringMatrix.newSteeringMatrix(FREQ,
+                newAntennaArray(ThetaPhi.fromDegrees(90, 0)), ANGLES);
+        double[] weightReal = new double[24];
+        double[] weightImaginary = new double[24];
+        weightReal[3] = 2;
+        double[] real = new double[ANGLES.size()];
+        double[] imaginary = new double[ANGLES.size()];
+        steeringMatrix.multiply(weightReal, weightImaginary, real, imaginary);
+        for (int i = 0; i < ANGLES.size(); i++) {
+            // A single element has constant magnitude in every direction
+            Assert.assertEquals(real[i] * real[i] + imaginary[i] * imaginary[i], 4, 1e-9);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void maximumBytesTest() {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            SteeringMatrix.newSteeringMatrix(executorService, FREQ, newAntennaArray(ThetaPhi.fromDegrees(90, 0)),
+                    ANGLES, Precision.DOUBLE, 2L * ANGLES.size() * 24 * Double.BYTES - 1);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void elementMismatchTest() {
+        SteeringMatrix.newSteeringMatrix(FREQ, newAntennaArray(ThetaPhi.fromDegrees(90, 0)), ANGLES)
+                .calculateArrayFactor(AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, FREQ,
+                        WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(90, 0))));
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ElectricField;
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.phasedarray.weighting.WeightAlgorithm;
+
+/**
+ * Unit test for {@link ToleranceAnalysis}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class ToleranceAnalysisTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final List<ThetaPhi> ANGLES = ThetaPhi.equallySpacedSphere(10);
+    private static final AntennaArray ANTENNA_ARRAY = AntennaArray.fromEquallySpacedArray(1, 4, 4, 0.5, FREQ,
+            WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ, ThetaPhi.fromDegrees(90, 0)));
+
+    @Test
+    public void noErrorTest() {
+        ToleranceStatistics statistics = ToleranceAnalysis.newBuilder().setNumberOfRealisations(20).build()
+                .calculateStatistics(FREQ, ANTENNA_ARRAY, ANGLES);
+        List<Complex> nominalList = ArrayFactor.newArrayFactorAsync(FREQ, ANTENNA_ARRAY, ANGLES)
+                .getElectricField(ElectricField.RELATIVE_GAIN);
+        Assert.assertEquals(statistics.getNumberOfAngles(), ANGLES.size());
+        Assert.assertEquals(statistics.getNumberOfRealisations(), 20);
+        for (int a = 0; a < ANGLES.size(); a++) {
+            double power = nominalList.get(a).abs() * nominalList.get(a).abs();
+            if (power < 1e-20) {
+                continue;
+            }
+            double expected = 10 * Math.log10(power);
+            Assert.assertEquals(statistics.getMean(a), expected, 1e-6);
+            Assert.assertEquals(statistics.getStandardDeviation(a), 0, 1e-6);
+            Assert.assertEquals(statistics.getPercentile(a, 1), expected, 1e-6);
+        }
+    }
+
+    @Test
+    public void reproducibleTest() {
+        ToleranceAnalysis analysis = ToleranceAnalysis.newBuilder().setAmplitudeError(ErrorDistribution.gaussian(1))
+                .setPhaseError(ErrorDistribution.gaussian(10)).setPositionError(ErrorDistribution.uniform(1e-4))
+                .setNumberOfRealisations(150).setSeed(42).build();
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        ExecutorService fourThreads = Executors.newFixedThreadPool(4);
+        ToleranceStatistics first = analysis.calculateStatistics(singleThread, FREQ, ANTENNA_ARRAY, ANGLES);
+        ToleranceStatistics second = analysis.calculateStatistics(fourThreads, FREQ, ANTENNA_ARRAY, ANGLES);
+        singleThread.shutdown();
+        fourThreads.shutdown();
+        for (int a = 0; a < ANGLES.size(); a++) {
+            Assert.assertEquals(second.getMean(a), first.getMean(a));
+            Assert.assertEquals(second.getVariance(a), first.getVariance(a));
+            Assert.assertEquals(second.getPercentile(a, 2), first.getPercentile(a, 2));
+        }
+    }
+
+    @Test
+    public void phaseErrorTest() {
+        int mainBeam = -1;
+        for (int a = 0; a < ANGLES.size(); a++) {
+            if (Math.abs(Math.toDegrees(ANGLES.get(a).getTheta()) - 90) < 1e-9
+                    && Math.abs(ANGLES.get(a).getPhi()) < 1e-9) {
+                mainBeam = a;
+            }
+        }
+        ToleranceStatistics statistics = ToleranceAnalysis.newBuilder().setPhaseError(ErrorDistribution.gaussian(20))
+                .setNumberOfRealisations(500).setPercentiles(0.1, 0.9).build()
+                .calculateStatistics(FREQ, ANTENNA_ARRAY, ANGLES);
+        double nominal = 10 * Math.log10(16 * 16);
+        // Random phase errors reduce main beam gain by about exp(-sigma^2) in power, 0.53 dB for 20 degrees
+        Assert.assertEquals(statistics.getMean(mainBeam),
+                nominal + 10 * Math.log10(Math.exp(-Math.pow(Math.toRadians(20), 2))), 0.2);
+        Assert.assertTrue(statistics.getMaximum(mainBeam) <= nominal + 1e-9);
+        Assert.assertTrue(statistics.getPercentile(mainBeam, 0) < statistics.getPercentile(mainBeam, 1));
+        Assert.assertTrue(statistics.getMinimum(mainBeam) <= statistics.getPercentile(mainBeam, 0));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidPercentileTest() {
+        ToleranceAnalysis.newBuilder().setPercentiles(0.5, 1.5).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidNumberOfRealisationsTest() {
+        ToleranceAnalysis.newBuilder().setNumberOfRealisations(0).build();
+    }
+
+}
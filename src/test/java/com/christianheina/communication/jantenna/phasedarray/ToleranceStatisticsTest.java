@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+
+/**
+ * Unit test for {@link ToleranceStatistics}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class ToleranceStatisticsTest {
+
+    private static final List<ThetaPhi> ANGLES = Arrays.asList(ThetaPhi.fromDegrees(0, 0), ThetaPhi.fromDegrees(90, 0));
+
+    @Test
+    public void fewObservationsTest() {
+        ToleranceStatistics statistics = new ToleranceStatistics(ANGLES, new double[] { 0, 0.5, 1 });
+        Assert.assertTrue(Double.isNaN(statistics.getPercentile(0, 1)));
+        for (double value : new double[] { 3, 1, 2 }) {
+            statistics.add(0, value);
+        }
+        Assert.assertEquals(statistics.getNumberOfRealisations(), 3);
+        Assert.assertEquals(statistics.getMean(0), 2.0);
+        Assert.assertEquals(statistics.getVariance(0), 1.0);
+        Assert.assertEquals(statistics.getPercentile(0, 0), 1.0);
+        Assert.assertEquals(statistics.getPercentile(0, 1), 2.0);
+        Assert.assertEquals(statistics.getPercentile(0, 2), 3.0);
+        Assert.assertEquals(statistics.getMinimum(0), 1.0);
+        Assert.assertEquals(statistics.getMaximum(0), 3.0);
+    }
+
+    @Test
+    public void percentileSketchTest() {
+        ToleranceStatistics statistics = new ToleranceStatistics(ANGLES, new double[] { 0.05, 0.5, 0.95 });
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            values.add((double) i);
+        }
+        Collections.shuffle(values, new Random(1));
+        for (double value : values) {
+            statistics.add(1, value);
+        }
+        Assert.assertEquals(statistics.getMean(1), 4999.5, 1e-6);
+        Assert.assertEquals(statistics.getVariance(1), 10000.0 * 10001 / 12, 1e-3);
+        Assert.assertEquals(statistics.getPercentile(1, 0), 500, 100);
+        Assert.assertEquals(statistics.getPercentile(1, 1), 5000, 100);
+        Assert.assertEquals(statistics.getPercentile(1, 2), 9500, 100);
+        Assert.assertEquals(statistics.getPercentiles(), new double[] { 0.05, 0.5, 0.95 });
+        Assert.assertEquals(statistics.getTheta(1), Math.toRadians(90));
+    }
+
+}
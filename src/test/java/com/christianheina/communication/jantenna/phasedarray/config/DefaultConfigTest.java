@@ -20,6 +20,8 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.christianheina.communication.jantenna.phasedarray.metrics.CalculationMetricsListener;
+
 /**
  * Unit test for {@link DefaultConfig}.
  * 
@@ -41,4 +43,14 @@ public class DefaultConfigTest {
         Assert.assertEquals(threads, Runtime.getRuntime().availableProcessors());
     }
 
+    @Test
+    public void getPrecisionTest() {
+        Assert.assertEquals(config.getPrecision(), Precision.DOUBLE);
+    }
+
+    @Test
+    public void getMetricsListenerTest() {
+        Assert.assertSame(config.getMetricsListener(), CalculationMetricsListener.NO_OP);
+    }
+
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link CalculationMetrics}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class CalculationMetricsTest {
+
+    @Test
+    public void builderTest() {
+        CalculationMetrics metrics = CalculationMetrics.newBuilder().setCalculationType(CalculationType.NEAR_FIELD)
+                .setNumberOfAngles(1000).setNumberOfElements(64).setNumberOfTasks(8).setSetupNanos(1)
+                .setQueueWaitNanos(2).setTaskNanos(3).setAssemblyNanos(4).setTotalNanos(500_000_000)
+                .setResultBytes(64000).build();
+        Assert.assertEquals(metrics.getCalculationType(), CalculationType.NEAR_FIELD);
+        Assert.assertEquals(metrics.getNumberOfAngles(), 1000);
+        Assert.assertEquals(metrics.getNumberOfElements(), 64);
+        Assert.assertEquals(metrics.getNumberOfTasks(), 8);
+        Assert.assertEquals(metrics.getSetupNanos(), 1);
+        Assert.assertEquals(metrics.getQueueWaitNanos(), 2);
+        Assert.assertEquals(metrics.getTaskNanos(), 3);
+        Assert.assertEquals(metrics.getAssemblyNanos(), 4);
+        Assert.assertEquals(metrics.getTotalNanos(), 500_000_000);
+        Assert.assertEquals(metrics.getResultBytes(), 64000);
+        Assert.assertEquals(metrics.getAnglesPerSecond(), 2000, 1e-9);
+        Assert.assertEquals(metrics.getElementEvaluationsPerSecond(), 128000, 1e-9);
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.phasedarray.PhasedArrayUtil;
+
+/**
+ * Unit test for {@link AdaptiveWeightAlgorithm}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class AdaptiveWeightAlgorithmTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+    private static final double LAMBDA = Util.calculateLambda(FREQ);
+    private static final ThetaPhi DESIRED = ThetaPhi.fromDegrees(90, 10);
+    private static final ThetaPhi INTERFERER_A = ThetaPhi.fromDegrees(90, 40);
+    private static final ThetaPhi INTERFERER_B = ThetaPhi.fromDegrees(70, -30);
+    private static final ThetaPhi INTERFERER_C = ThetaPhi.fromDegrees(110, 60);
+
+    private static List<Vector3D> createLocations() {
+        List<Vector3D> locations = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 4; j++) {
+                locations.add(new Vector3D(0, i * 0.5 * LAMBDA, j * 0.5 * LAMBDA));
+            }
+        }
+        return locations;
+    }
+
+    private static Complex calculateArrayFactor(WeightAlgorithm weightAlgorithm, List<Vector3D> locations,
+            ThetaPhi direction) {
+        Vector3D k = PhasedArrayUtil.calculateWaveVector(LAMBDA, direction);
+        Complex arrayFactor = Complex.ZERO;
+        for (Vector3D r : locations) {
+            arrayFactor = arrayFactor
+                    .add(weightAlgorithm.calculateWeight(r).multiply(PhasedArrayUtil.calculateSteeringVector(k, r)));
+        }
+        return arrayFactor;
+    }
+
+    private static void assertWeightsEqual(WeightAlgorithm actual, WeightAlgorithm expected, List<Vector3D> locations,
+            double delta) {
+        for (Vector3D r : locations) {
+            Complex actualWeight = actual.calculateWeight(r);
+            Complex expectedWeight = expected.calculateWeight(r);
+            Assert.assertEquals(actualWeight.getReal(), expectedWeight.getReal(), delta);
+            Assert.assertEquals(actualWeight.getImaginary(), expectedWeight.getImaginary(), delta);
+        }
+    }
+
+    /**
+     * Dense covariance {@code noisePower * I + sum(p_k * s_k * s_k^H)} with {@code s = exp(j * k . r)}.
+     */
+    private static double[][] createCovariance(List<Vector3D> locations, double noisePower, List<ThetaPhi> directions,
+            double[] powers) {
+        int size = locations.size();
+        double[] real = new double[size * size];
+        double[] imaginary = new double[size * size];
+        for (int n = 0; n < size; n++) {
+            real[n * size + n] = noisePower;
+        }
+        for (int k = 0; k < directions.size(); k++) {
+            Vector3D waveVector = PhasedArrayUtil.calculateWaveVector(LAMBDA, directions.get(k));
+            for (int m = 0; m < size; m++) {
+                for (int n = 0; n < size; n++) {
+                    double phase = waveVector.dotProduct(locations.get(m).subtract(locations.get(n)));
+                    real[m * size + n] += powers[k] * Math.cos(phase);
+                    imaginary[m * size + n] += powers[k] * Math.sin(phase);
+                }
+            }
+        }
+        return new double[][] { real, imaginary };
+    }
+
+    @Test
+    public void noInterferenceTest() {
+        List<Vector3D> locations = createLocations();
+        AdaptiveWeightAlgorithm adaptive = new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 0.1);
+        assertWeightsEqual(adaptive, new ConjugateWeightAlgorithm(LAMBDA, DESIRED), locations, 1e-9);
+    }
+
+    @Test
+    public void interferenceTest() {
+        List<Vector3D> locations = createLocations();
+        AdaptiveWeightAlgorithm adaptive = new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 1);
+        adaptive.setInterferers(Arrays.asList(INTERFERER_A, INTERFERER_B), new double[] { 1e4, 1e3 });
+        Assert.assertEquals(calculateArrayFactor(adaptive, locations, DESIRED).getReal(), locations.size(), 1e-9);
+        Assert.assertEquals(calculateArrayFactor(adaptive, locations, DESIRED).getImaginary(), 0, 1e-9);
+        double conjugateGain = calculateArrayFactor(new ConjugateWeightAlgorithm(LAMBDA, DESIRED), locations,
+                INTERFERER_A).abs();
+        Assert.assertTrue(calculateArrayFactor(adaptive, locations, INTERFERER_A).abs() < conjugateGain / 100);
+        Assert.assertTrue(calculateArrayFactor(adaptive, locations, INTERFERER_B).abs() < 0.1);
+
+        // Woodbury solution equals solution with the dense covariance factored
+        double[][] covariance = createCovariance(locations, 1, Arrays.asList(INTERFERER_A, INTERFERER_B),
+                new double[] { 1e4, 1e3 });
+        AdaptiveWeightAlgorithm dense = new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 1);
+        dense.setCovarianceMatrix(covariance[0], covariance[1]);
+        assertWeightsEqual(adaptive, dense, locations, 1e-6);
+    }
+
+    @Test
+    public void updateInterferersTest() {
+        List<Vector3D> locations = createLocations();
+        AdaptiveWeightAlgorithm updated = new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 1);
+        updated.setInterferers(Arrays.asList(INTERFERER_A, INTERFERER_B), new double[] { 100, 200 });
+        updated.calculateWeight(locations.get(0));
+        updated.setInterferers(Arrays.asList(INTERFERER_C, INTERFERER_B, INTERFERER_A), new double[] { 50, 10, 300 });
+        updated.setDesiredDirection(ThetaPhi.fromDegrees(80, 0));
+
+        AdaptiveWeightAlgorithm fresh = new AdaptiveWeightAlgorithm(locations, FREQ, ThetaPhi.fromDegrees(80, 0), 1);
+        fresh.setInterferers(Arrays.asList(INTERFERER_A, INTERFERER_B, INTERFERER_C), new double[] { 300, 10, 50 });
+        assertWeightsEqual(updated, fresh, locations, 1e-9);
+    }
+
+    @Test
+    public void covarianceWithInterferersTest() {
+        List<Vector3D> locations = createLocations();
+        double[][] baseCovariance = createCovariance(locations, 2, Collections.singletonList(INTERFERER_A),
+                new double[] { 500 });
+        AdaptiveWeightAlgorithm adaptive = new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 1);
+        adaptive.setInterferers(Arrays.asList(INTERFERER_B, INTERFERER_C), new double[] { 100, 20 });
+        adaptive.setCovarianceMatrix(baseCovariance[0], baseCovariance[1]);
+
+        double[][] covariance = createCovariance(locations, 2, Arrays.asList(INTERFERER_A, INTERFERER_B, INTERFERER_C),
+                new double[] { 500, 100, 20 });
+        AdaptiveWeightAlgorithm dense = new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 1);
+        dense.setCovarianceMatrix(covariance[0], covariance[1]);
+        assertWeightsEqual(adaptive, dense, locations, 1e-6);
+
+        adaptive.setCovarianceMatrix(null, null);
+        AdaptiveWeightAlgorithm noise = new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 1);
+        noise.setInterferers(Arrays.asList(INTERFERER_B, INTERFERER_C), new double[] { 100, 20 });
+        assertWeightsEqual(adaptive, noise, locations, 1e-9);
+    }
+
+    @Test
+    public void nullDirectionsTest() {
+        List<Vector3D> locations = createLocations();
+        AdaptiveWeightAlgorithm adaptive = new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 1);
+        adaptive.setNullDirections(Arrays.asList(INTERFERER_B, INTERFERER_C));
+        Assert.assertEquals(calculateArrayFactor(adaptive, locations, DESIRED).getReal(), locations.size(), 1e-9);
+        Assert.assertEquals(calculateArrayFactor(adaptive, locations, INTERFERER_B).abs(), 0, 1e-9);
+        Assert.assertEquals(calculateArrayFactor(adaptive, locations, INTERFERER_C).abs(), 0, 1e-9);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unknownLocationTest() {
+        new AdaptiveWeightAlgorithm(createLocations(), FREQ, DESIRED, 1).calculateWeight(Vector3D.PLUS_I);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void notPositiveDefiniteCovarianceTest() {
+        List<Vector3D> locations = createLocations();
+        int size = locations.size();
+        new AdaptiveWeightAlgorithm(locations, FREQ, DESIRED, 1).setCovarianceMatrix(new double[size * size],
+                new double[size * size]);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void interfererPowerMismatchTest() {
+        new AdaptiveWeightAlgorithm(createLocations(), FREQ, DESIRED, 1)
+                .setInterferers(Arrays.asList(INTERFERER_A, INTERFERER_B), new double[] { 1 });
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link QuantizedWeightAlgorithm}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class QuantizedWeightAlgorithmTest {
+
+    private static final double DELTA = 1e-12;
+
+    private static QuantizedWeightAlgorithm newAlgorithm(Complex weight, int phaseBits, int attenuatorBits,
+            double attenuationStep) {
+        return new QuantizedWeightAlgorithm(r -> weight, phaseBits, attenuatorBits, attenuationStep);
+    }
+
+    @Test
+    public void phaseQuantizationTest() {
+        QuantizedWeightAlgorithm algorithm = newAlgorithm(ComplexUtil.fromPolar(1, 50), 3, 0, 0);
+        Complex weight = algorithm.calculateWeight(Vector3D.ZERO);
+        Assert.assertEquals(weight.abs(), 1, DELTA);
+        Assert.assertEquals(Math.toDegrees(weight.getArgument()), 45, DELTA);
+        Assert.assertEquals(algorithm.getNumberOfStates(), 8);
+        // -170 degrees rounds to 180 degrees, phase state 4
+        Assert.assertEquals(algorithm.getState(ComplexUtil.fromPolar(1, -170)), 4);
+        Assert.assertEquals(algorithm.getState(ComplexUtil.fromPolar(1, -50)), 7);
+    }
+
+    @Test
+    public void attenuationQuantizationTest() {
+        QuantizedWeightAlgorithm algorithm = newAlgorithm(ComplexUtil.fromPolar(Math.pow(10, -4.2 / 20), 0), 2, 2, 2);
+        Assert.assertEquals(algorithm.getNumberOfStates(), 16);
+        Complex weight = algorithm.calculateWeight(Vector3D.ZERO);
+        Assert.assertEquals(20 * Math.log10(weight.abs()), -4, DELTA);
+        // Amplitude above one uses no attenuation, very small amplitude and zero use the largest attenuation
+        Assert.assertEquals(algorithm.getState(new Complex(2, 0)), 0);
+        Assert.assertEquals(algorithm.getState(new Complex(1e-6, 0)), 3 * 4);
+        Assert.assertEquals(algorithm.getState(Complex.ZERO), 3 * 4);
+        Assert.assertEquals(20 * Math.log10(algorithm.getStateWeight(3 * 4 + 1).abs()), -6, DELTA);
+        Assert.assertEquals(Math.toDegrees(algorithm.getStateWeight(3 * 4 + 1).getArgument()), 90, DELTA);
+    }
+
+    @Test
+    public void identicalStateWeightsTest() {
+        QuantizedWeightAlgorithm first = newAlgorithm(ComplexUtil.fromPolar(1, 44), 3, 0, 0);
+        QuantizedWeightAlgorithm second = newAlgorithm(ComplexUtil.fromPolar(1, 46), 3, 0, 0);
+        Assert.assertEquals(first.calculateWeight(Vector3D.ZERO), second.calculateWeight(Vector3D.ZERO));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidBitsTest() {
+        newAlgorithm(Complex.ONE, 17, 0, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidAttenuationStepTest() {
+        newAlgorithm(Complex.ONE, 4, 2, 0);
+    }
+
+    private static final class ComplexUtil {
+
+        private static Complex fromPolar(double amplitude, double phaseDegrees) {
+            return new Complex(amplitude * Math.cos(Math.toRadians(phaseDegrees)),
+                    amplitude * Math.sin(Math.toRadians(phaseDegrees)));
+        }
+
+    }
+
+}
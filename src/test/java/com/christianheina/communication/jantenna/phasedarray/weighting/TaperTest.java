@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link Taper}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class TaperTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Peak sidelobe in dB relative to the main beam of a half wavelength spaced line with {@code coefficients}.
+     */
+    private static double calculatePeakSidelobe(double[] coefficients) {
+        int samples = 20001;
+        double[] power = new double[samples];
+        for (int s = 0; s < samples; s++) {
+            double u = 2.0 * s / (samples - 1) - 1;
+            double real = 0;
+            double imaginary = 0;
+            for (int i = 0; i < coefficients.length; i++) {
+                real += coefficients[i] * Math.cos(Math.PI * i * u);
+                imaginary += coefficients[i] * Math.sin(Math.PI * i * u);
+            }
+            power[s] = real * real + imaginary * imaginary;
+        }
+        int mainBeam = samples / 2;
+        int edge = mainBeam;
+        while (edge + 1 < samples && power[edge + 1] < power[edge]) {
+            edge++;
+        }
+        double peakSidelobe = 0;
+        for (int s = edge; s < samples; s++) {
+            peakSidelobe = Math.max(peakSidelobe, power[s]);
+        }
+        return 10 * Math.log10(peakSidelobe / power[mainBeam]);
+    }
+
+    private static void assertSymmetricAndNormalised(double[] coefficients) {
+        double max = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            Assert.assertEquals(coefficients[i], coefficients[coefficients.length - 1 - i], DELTA);
+            max = Math.max(max, coefficients[i]);
+        }
+        Assert.assertEquals(max, 1, DELTA);
+    }
+
+    @Test
+    public void chebyshevTaperTest() {
+        for (int size : new int[] { 8, 9, 16 }) {
+            double[] coefficients = Taper.newChebyshevTaper(30).getCoefficients(size);
+            Assert.assertEquals(coefficients.length, size);
+            assertSymmetricAndNormalised(coefficients);
+            Assert.assertEquals(calculatePeakSidelobe(coefficients), -30, 0.05);
+        }
+        Assert.assertEquals(Taper.newChebyshevTaper(30).getCoefficients(1), new double[] { 1 });
+    }
+
+    @Test
+    public void taylorTaperTest() {
+        double[] coefficients = Taper.newTaylorTaper(30, 5).getCoefficients(32);
+        assertSymmetricAndNormalised(coefficients);
+        double peakSidelobe = calculatePeakSidelobe(coefficients);
+        Assert.assertTrue(peakSidelobe < -29 && peakSidelobe > -31, "Peak sidelobe " + peakSidelobe);
+        // Coefficients decrease towards the edges
+        Assert.assertTrue(coefficients[0] < coefficients[8]);
+    }
+
+    @Test
+    public void cosineOnPedestalTaperTest() {
+        double[] coefficients = Taper.newCosineOnPedestalTaper(0.2, 2).getCoefficients(5);
+        assertSymmetricAndNormalised(coefficients);
+        Assert.assertEquals(coefficients[0], 0.2 + 0.8 * Math.pow(Math.cos(Math.PI * 0.4), 2), DELTA);
+        Assert.assertEquals(coefficients[2], 1, DELTA);
+        Assert.assertEquals(Taper.newUniformTaper().getCoefficients(4), new double[] { 1, 1, 1, 1 });
+    }
+
+    @Test
+    public void cacheTest() {
+        Assert.assertFalse(TaperCache.contains(123, TaylorTaper.class, 25.0, 4));
+        double[] coefficients = Taper.newTaylorTaper(25, 4).getCoefficients(123);
+        Assert.assertTrue(TaperCache.contains(123, TaylorTaper.class, 25.0, 4));
+        // Callers receive copies of the cached coefficients
+        coefficients[0] = 42;
+        Assert.assertNotEquals(new TaylorTaper(25, 4).getCoefficients(123)[0], 42);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidSizeTest() {
+        Taper.newChebyshevTaper(30).getCoefficients(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidSidelobeLevelTest() {
+        Taper.newTaylorTaper(-30, 4);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidPedestalTest() {
+        Taper.newCosineOnPedestalTaper(1.5, 1);
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 Christian Heina
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.christianheina.communication.jantenna.phasedarray.weighting;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.christianheina.communication.jantenna.commons.ThetaPhi;
+import com.christianheina.communication.jantenna.commons.Util;
+import com.christianheina.communication.jantenna.commons.WeightableElement;
+import com.christianheina.communication.jantenna.phasedarray.AntennaArray;
+
+/**
+ * Unit test for {@link TaperedWeightAlgorithm}.
+ * 
+ * @author Christian Heina (developer@christianheina.com)
+ */
+@SuppressWarnings("javadoc")
+public class TaperedWeightAlgorithmTest {
+
+    private static final double FREQ = 28 * Math.pow(10, 9);
+
+    @Test
+    public void calculateWeightTest() {
+        WeightAlgorithm steeringAlgorithm = WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(FREQ,
+                ThetaPhi.fromDegrees(60, 30));
+        Taper taperY = Taper.newTaylorTaper(30, 4);
+        Taper taperZ = Taper.newChebyshevTaper(25);
+        AntennaArray antennaArray = AntennaArray.fromEquallySpacedArray(8, 6, 0.5, 0.6, FREQ,
+                new TaperedWeightAlgorithm(steeringAlgorithm, 8, 6, 0.5, 0.6, FREQ, taperY, taperZ));
+        double[] coefficientsY = taperY.getCoefficients(8);
+        double[] coefficientsZ = taperZ.getCoefficients(6);
+        WeightableElement[] elements = antennaArray.getAntennaArray();
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 6; j++) {
+                WeightableElement element = elements[i * 6 + j];
+                Complex expected = steeringAlgorithm.calculateWeight(element.getElementLocation())
+                        .multiply(coefficientsY[i] * coefficientsZ[j]);
+                Assert.assertEquals(element.getElementWeight().getReal(), expected.getReal(), 1e-12);
+                Assert.assertEquals(element.getElementWeight().getImaginary(), expected.getImaginary(), 1e-12);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void offGridLocationTest() {
+        new TaperedWeightAlgorithm(r -> Complex.ONE, 4, 4, 0.5, 0.5, FREQ, Taper.newUniformTaper(),
+                Taper.newUniformTaper()).calculateWeight(new Vector3D(0, 0.25 * Util.calculateLambda(FREQ), 0));
+    }
+
+}
@@ -16,6 +16,9 @@
 
 package com.christianheina.communication.jantenna.phasedarray.weighting;
 
+import java.util.Arrays;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -38,4 +41,29 @@ public class WeightAlgorithmTest {
         Assert.assertEquals(weightAlgorithm.getClass(), ConjugateWeightAlgorithm.class);
     }
 
+    @Test
+    public void newQuantizedWeightAlgorithmTest() {
+        double freq = 28 * Math.pow(10, 9);
+        WeightAlgorithm weightAlgorithm = WeightAlgorithm.newQuantizedWeightAlgorithm(
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(0, 0)), 5, 0, 0);
+        Assert.assertEquals(weightAlgorithm.getClass(), QuantizedWeightAlgorithm.class);
+    }
+
+    @Test
+    public void newTaperedWeightAlgorithmTest() {
+        double freq = 28 * Math.pow(10, 9);
+        WeightAlgorithm weightAlgorithm = WeightAlgorithm.newTaperedWeightAlgorithm(
+                WeightAlgorithm.newConjugateWeightAlgorithmFromFrequency(freq, ThetaPhi.fromDegrees(0, 0)), 4, 4, 0.5,
+                0.5, freq, Taper.newTaylorTaper(30, 4), Taper.newTaylorTaper(30, 4));
+        Assert.assertEquals(weightAlgorithm.getClass(), TaperedWeightAlgorithm.class);
+    }
+
+    @Test
+    public void newAdaptiveWeightAlgorithmTest() {
+        double freq = 28 * Math.pow(10, 9);
+        WeightAlgorithm weightAlgorithm = WeightAlgorithm.newAdaptiveWeightAlgorithm(
+                Arrays.asList(Vector3D.ZERO, Vector3D.PLUS_J), freq, ThetaPhi.fromDegrees(0, 0), 1);
+        Assert.assertEquals(weightAlgorithm.getClass(), AdaptiveWeightAlgorithm.class);
+    }
+
 }